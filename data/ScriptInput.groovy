@@ -22,4 +22,18 @@ def boolean read(FaunusVertex v, String line) {
         }
     }
     return true;
-}
\ No newline at end of file
+}
+
+/**
+ * The batch form of read() that is used when faunus.graph.input.script.batch-size is greater than 0.
+ * Every line of the batch that read() accepts yields a new FaunusVertex.
+ */
+def List<FaunusVertex> readBatch(List<String> lines) {
+    def vertices = []
+    lines.each {
+        def v = new FaunusVertex()
+        if (read(v, it))
+            vertices << v
+    }
+    return vertices
+}
@@ -0,0 +1,109 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+
+import java.io.IOException;
+
+/**
+ * BenchmarkMapper provides a Mapper.Context that runs a mapper outside of Hadoop.
+ * The context reads its vertices from serialized bytes like a record reader does and serializes what the mapper writes
+ * like the map output collector does, so the cost of the output is part of the measurement.
+ * Nothing is written to disk and counters are held in memory, so the benchmarks measure the mapper and not the framework.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class BenchmarkMapper<A, B, C, D> extends Mapper<A, B, C, D> {
+
+    public class BenchmarkMapContext extends Mapper.Context {
+
+        private final Counters counters = new Counters();
+        private final DataInputBuffer in = new DataInputBuffer();
+        private final DataOutputBuffer out = new DataOutputBuffer();
+        private byte[] bytes;
+        private FaunusVertex vertex;
+        private final boolean pathEnabled;
+
+        private long writes = 0l;
+        private long bytesWritten = 0l;
+
+        public BenchmarkMapContext(final Configuration configuration, final boolean pathEnabled) throws IOException, InterruptedException {
+            super(configuration, new TaskAttemptID(), null, null, null, null, null);
+            this.pathEnabled = pathEnabled;
+        }
+
+        /**
+         * Rewind the context to the start of the serialized vertices.
+         */
+        public void reset(final byte[] bytes) {
+            this.bytes = bytes;
+            this.in.reset(bytes, bytes.length);
+            this.writes = 0l;
+            this.bytesWritten = 0l;
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            if (this.in.getPosition() >= this.bytes.length)
+                return false;
+            // mappers may hold on to their input so each record is a new vertex
+            this.vertex = new FaunusVertex(this.pathEnabled);
+            this.vertex.readFields(this.in);
+            return true;
+        }
+
+        @Override
+        public Object getCurrentKey() {
+            return NullWritable.get();
+        }
+
+        @Override
+        public Object getCurrentValue() {
+            return this.vertex;
+        }
+
+        @Override
+        public void write(final Object key, final Object value) throws IOException {
+            // the buffer is reused so only the serialization of the pair is measured
+            this.out.reset();
+            ((Writable) key).write(this.out);
+            ((Writable) value).write(this.out);
+            this.bytesWritten = this.bytesWritten + this.out.getLength();
+            this.writes++;
+        }
+
+        @Override
+        public Counter getCounter(final String groupName, final String counterName) {
+            return this.counters.findCounter(groupName, counterName);
+        }
+
+        @Override
+        public Counter getCounter(final Enum counterName) {
+            return this.counters.findCounter(counterName);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public void setStatus(final String status) {
+        }
+
+        public long getWrites() {
+            return this.writes;
+        }
+
+        public long getBytesWritten() {
+            return this.bytesWritten;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONCodec;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the GraphSON parsing and writing of a single vertex (one line of a GraphSON file)
+ * with the JSON tree of FaunusGraphSONUtility and with the streaming FaunusGraphSONCodec.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GraphSONBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int degree;
+
+    @Param({"1", "10"})
+    public int properties;
+
+    private FaunusVertex vertex;
+    private String line;
+    private byte[] bytes;
+    private final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+    private final FaunusVertex reused = new FaunusVertex();
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setup() throws IOException {
+        this.vertex = SyntheticGraph.generateVertices(1, this.degree, this.properties, false).get(0);
+        this.line = FaunusGraphSONUtility.toJSON(this.vertex).toString();
+        this.bytes = this.line.getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public FaunusVertex fromJSON() throws IOException {
+        return FaunusGraphSONUtility.fromJSON(this.line);
+    }
+
+    @Benchmark
+    public String toJSON() throws IOException {
+        return FaunusGraphSONUtility.toJSON(this.vertex).toString();
+    }
+
+    /**
+     * The record reader path: the line as bytes to a reused vertex.
+     */
+    @Benchmark
+    public FaunusVertex codecRead() throws IOException {
+        return this.codec.read(this.bytes, 0, this.bytes.length, this.reused);
+    }
+
+    /**
+     * The record writer path: the vertex to the bytes of its line.
+     */
+    @Benchmark
+    public int codecWrite() throws IOException {
+        this.out.reset();
+        this.codec.write(this.vertex, this.out);
+        return this.out.size();
+    }
+
+    /**
+     * The record writer path of the JSON tree for comparison with codecWrite().
+     */
+    @Benchmark
+    public int toJSONBytes() throws IOException {
+        return FaunusGraphSONUtility.toJSON(this.vertex).toString().getBytes("UTF-8").length;
+    }
+}
@@ -0,0 +1,80 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.MapSequence;
+import com.thinkaurelius.faunus.mapreduce.filter.PropertyFilterMap;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the dispatch of a MapSequence over a chain of stages that all let every vertex through.
+ * The difference between chain lengths is the cost of a stage in the sequence.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MapSequenceBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int stages;
+
+    @Param({"10000"})
+    public int vertices;
+
+    @Param({"10"})
+    public int degree;
+
+    @Param({"10"})
+    public int properties;
+
+    private byte[] graph;
+    private MapSequence.Map map;
+    private BenchmarkMapper.BenchmarkMapContext context;
+
+    @Setup
+    public void setup() throws Exception {
+        this.graph = SyntheticGraph.serialize(SyntheticGraph.generateVertices(this.vertices, this.degree, this.properties, false));
+        final Configuration configuration = new EmptyConfiguration();
+        final String[] mapClasses = new String[this.stages];
+        for (int i = 0; i < this.stages; i++) {
+            mapClasses[i] = PropertyFilterMap.Map.class.getName();
+            for (final Map.Entry<String, String> entry : PropertyFilterMap.createConfiguration(Vertex.class, SyntheticGraph.NAME, Compare.NOT_EQUAL, "none")) {
+                configuration.set(entry.getKey() + "-" + i, entry.getValue());
+            }
+        }
+        configuration.setStrings(MapSequence.MAP_CLASSES, mapClasses);
+        configuration.setBoolean(FaunusCompiler.PATH_ENABLED, false);
+        this.map = new MapSequence.Map();
+        this.context = new BenchmarkMapper<Writable, Writable, Writable, Writable>().new BenchmarkMapContext(configuration, false);
+    }
+
+    @Benchmark
+    public long map() throws IOException, InterruptedException {
+        this.context.reset(this.graph);
+        this.map.run(this.context);
+        return this.context.getBytesWritten();
+    }
+}
@@ -0,0 +1,190 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.IdentityMap;
+import com.thinkaurelius.faunus.mapreduce.compute.ClearHaltedMap;
+import com.thinkaurelius.faunus.mapreduce.compute.PageRankVertexProgram;
+import com.thinkaurelius.faunus.mapreduce.compute.VertexProgramMapReduce;
+import com.thinkaurelius.faunus.mapreduce.filter.DuplicateFilterMap;
+import com.thinkaurelius.faunus.mapreduce.filter.FilterMap;
+import com.thinkaurelius.faunus.mapreduce.filter.IntervalFilterMap;
+import com.thinkaurelius.faunus.mapreduce.filter.PropertyFilterMap;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.CommitEdgesMap;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.CommitVerticesMapReduce;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.GroupCountMapReduce;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.SideEffectMap;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.ValueGroupCountMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.EdgesMap;
+import com.thinkaurelius.faunus.mapreduce.transform.EdgesVerticesMap;
+import com.thinkaurelius.faunus.mapreduce.transform.OrderMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.PropertyMap;
+import com.thinkaurelius.faunus.mapreduce.transform.PropertyMapMap;
+import com.thinkaurelius.faunus.mapreduce.transform.TopologyMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.TransformMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VertexMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesEdgesMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesMapReduce;
+import com.thinkaurelius.faunus.mapreduce.util.CountMapReduce;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full map task (setup, map over every vertex and cleanup) of the Faunus mappers.
+ * The time of an operation is the time to map all the vertices of the synthetic graph, including their deserialization.
+ * The mappers that require paths are benchmarked by PathMapperBenchmark.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"IdentityMap", "VertexMap", "VerticesMap", "EdgesMap", "EdgesVerticesMap", "PropertyFilterMap", "IntervalFilterMap", "FilterMap",
+            "DuplicateFilterMap", "PropertyMap", "PropertyMapMap", "TransformMap", "SideEffectMap", "CommitEdgesMap", "CommitVerticesMapReduce", "VerticesVerticesMapReduce",
+            "VerticesEdgesMapReduce", "TopologyMapReduce", "GroupCountMapReduce", "ValueGroupCountMapReduce", "OrderMapReduce", "CountMapReduce", "ClearHaltedMap", "VertexProgramMapReduce"})
+    public String mapper;
+
+    @Param({"10000"})
+    public int vertices;
+
+    @Param({"1", "10", "100"})
+    public int degree;
+
+    @Param({"1", "10"})
+    public int properties;
+
+    @Param({"false", "true"})
+    public boolean pathEnabled;
+
+    private byte[] graph;
+    private Mapper<Writable, Writable, Writable, Writable> map;
+    private BenchmarkMapper.BenchmarkMapContext context;
+
+    @Setup
+    public void setup() throws Exception {
+        this.graph = SyntheticGraph.serialize(SyntheticGraph.generateVertices(this.vertices, this.degree, this.properties, this.pathEnabled));
+        final Configuration configuration;
+        if (this.mapper.equals("IdentityMap")) {
+            configuration = IdentityMap.createConfiguration();
+            this.map = (Mapper) new IdentityMap.Map();
+        } else if (this.mapper.equals("VertexMap")) {
+            configuration = VertexMap.createConfiguration(getVertexIds(this.vertices, 10));
+            this.map = (Mapper) new VertexMap.Map();
+        } else if (this.mapper.equals("VerticesMap")) {
+            configuration = VerticesMap.createConfiguration(false);
+            this.map = (Mapper) new VerticesMap.Map();
+        } else if (this.mapper.equals("EdgesMap")) {
+            configuration = EdgesMap.createConfiguration(false);
+            this.map = (Mapper) new EdgesMap.Map();
+        } else if (this.mapper.equals("EdgesVerticesMap")) {
+            configuration = EdgesVerticesMap.createConfiguration(Direction.IN);
+            this.map = (Mapper) new EdgesVerticesMap.Map();
+        } else if (this.mapper.equals("PropertyFilterMap")) {
+            configuration = PropertyFilterMap.createConfiguration(Vertex.class, SyntheticGraph.NAME, Compare.EQUAL, "vertex1");
+            this.map = (Mapper) new PropertyFilterMap.Map();
+        } else if (this.mapper.equals("IntervalFilterMap")) {
+            configuration = IntervalFilterMap.createConfiguration(Vertex.class, SyntheticGraph.NAME, "vertex1", "vertex5");
+            this.map = (Mapper) new IntervalFilterMap.Map();
+        } else if (this.mapper.equals("FilterMap")) {
+            configuration = FilterMap.createConfiguration(Vertex.class, "{it.getProperty('" + SyntheticGraph.NAME + "').endsWith('1')}");
+            this.map = (Mapper) new FilterMap.Map();
+        } else if (this.mapper.equals("DuplicateFilterMap")) {
+            configuration = DuplicateFilterMap.createConfiguration(Vertex.class);
+            this.map = (Mapper) new DuplicateFilterMap.Map();
+        } else if (this.mapper.equals("PropertyMap")) {
+            configuration = PropertyMap.createConfiguration(Vertex.class, SyntheticGraph.NAME, Text.class);
+            this.map = (Mapper) new PropertyMap.Map();
+        } else if (this.mapper.equals("PropertyMapMap")) {
+            configuration = PropertyMapMap.createConfiguration(Vertex.class);
+            this.map = (Mapper) new PropertyMapMap.Map();
+        } else if (this.mapper.equals("TransformMap")) {
+            configuration = TransformMap.createConfiguration(Vertex.class, "{it.getProperty('" + SyntheticGraph.NAME + "').length()}");
+            this.map = (Mapper) new TransformMap.Map();
+        } else if (this.mapper.equals("SideEffectMap")) {
+            configuration = SideEffectMap.createConfiguration(Vertex.class, "{it.getProperty('" + SyntheticGraph.NAME + "').length()}");
+            this.map = (Mapper) new SideEffectMap.Map();
+        } else if (this.mapper.equals("CommitEdgesMap")) {
+            configuration = CommitEdgesMap.createConfiguration(Tokens.Action.KEEP);
+            this.map = (Mapper) new CommitEdgesMap.Map();
+        } else if (this.mapper.equals("CommitVerticesMapReduce")) {
+            configuration = CommitVerticesMapReduce.createConfiguration(Tokens.Action.KEEP);
+            this.map = (Mapper) new CommitVerticesMapReduce.Map();
+        } else if (this.mapper.equals("VerticesVerticesMapReduce")) {
+            configuration = VerticesVerticesMapReduce.createConfiguration(Direction.OUT, SyntheticGraph.LABELS[0]);
+            this.map = (Mapper) new VerticesVerticesMapReduce.Map();
+        } else if (this.mapper.equals("VerticesEdgesMapReduce")) {
+            configuration = VerticesEdgesMapReduce.createConfiguration(Direction.BOTH);
+            this.map = (Mapper) new VerticesEdgesMapReduce.Map();
+        } else if (this.mapper.equals("TopologyMapReduce")) {
+            configuration = TopologyMapReduce.createConfiguration();
+            this.map = (Mapper) new TopologyMapReduce.Map();
+        } else if (this.mapper.equals("GroupCountMapReduce")) {
+            configuration = GroupCountMapReduce.createConfiguration(Vertex.class, "{it.getProperty('" + SyntheticGraph.NAME + "').length()}", null);
+            this.map = (Mapper) new GroupCountMapReduce.Map();
+        } else if (this.mapper.equals("ValueGroupCountMapReduce")) {
+            configuration = ValueGroupCountMapReduce.createConfiguration(Vertex.class, SyntheticGraph.NAME, Text.class);
+            this.map = (Mapper) new ValueGroupCountMapReduce.Map();
+        } else if (this.mapper.equals("OrderMapReduce")) {
+            configuration = OrderMapReduce.createConfiguration(Vertex.class, SyntheticGraph.NAME, Text.class, SyntheticGraph.NAME);
+            this.map = (Mapper) new OrderMapReduce.Map();
+        } else if (this.mapper.equals("CountMapReduce")) {
+            configuration = CountMapReduce.createConfiguration(Vertex.class);
+            this.map = (Mapper) new CountMapReduce.Map();
+        } else if (this.mapper.equals("ClearHaltedMap")) {
+            configuration = ClearHaltedMap.createConfiguration();
+            this.map = (Mapper) new ClearHaltedMap.Map();
+        } else if (this.mapper.equals("VertexProgramMapReduce")) {
+            configuration = VertexProgramMapReduce.createConfiguration(new PageRankVertexProgram(), 0, 30);
+            this.map = (Mapper) new VertexProgramMapReduce.Map();
+        } else {
+            throw new IllegalArgumentException("Unknown mapper: " + this.mapper);
+        }
+        configuration.setBoolean(FaunusCompiler.PATH_ENABLED, this.pathEnabled);
+        // side effects are written to the context and not to multiple outputs
+        configuration.setBoolean(FaunusCompiler.TESTING, true);
+        this.context = new BenchmarkMapper<Writable, Writable, Writable, Writable>().new BenchmarkMapContext(configuration, this.pathEnabled);
+    }
+
+    @Benchmark
+    public long map() throws IOException, InterruptedException {
+        this.context.reset(this.graph);
+        this.map.run(this.context);
+        return this.context.getBytesWritten();
+    }
+
+    /**
+     * The ids of every step-th vertex of the synthetic graph.
+     */
+    private static long[] getVertexIds(final int vertices, final int step) {
+        final long[] ids = new long[vertices / step];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (long) i * step;
+        }
+        return ids;
+    }
+}
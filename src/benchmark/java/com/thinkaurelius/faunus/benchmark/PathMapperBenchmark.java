@@ -0,0 +1,87 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.filter.BackFilterMapReduce;
+import com.thinkaurelius.faunus.mapreduce.filter.CyclicPathFilterMap;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.LinkMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.PathMap;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full map task of the Faunus mappers that require paths, so the vertices always track full paths.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PathMapperBenchmark {
+
+    @Param({"CyclicPathFilterMap", "BackFilterMapReduce", "PathMap", "LinkMapReduce"})
+    public String mapper;
+
+    @Param({"10000"})
+    public int vertices;
+
+    @Param({"1", "10", "100"})
+    public int degree;
+
+    @Param({"1", "10"})
+    public int properties;
+
+    private byte[] graph;
+    private Mapper<Writable, Writable, Writable, Writable> map;
+    private BenchmarkMapper.BenchmarkMapContext context;
+
+    @Setup
+    public void setup() throws Exception {
+        this.graph = SyntheticGraph.serialize(SyntheticGraph.generateVertices(this.vertices, this.degree, this.properties, true));
+        final Configuration configuration;
+        if (this.mapper.equals("CyclicPathFilterMap")) {
+            configuration = CyclicPathFilterMap.createConfiguration(Vertex.class);
+            this.map = (Mapper) new CyclicPathFilterMap.Map();
+        } else if (this.mapper.equals("BackFilterMapReduce")) {
+            configuration = BackFilterMapReduce.createConfiguration(Vertex.class, 0);
+            this.map = (Mapper) new BackFilterMapReduce.Map();
+        } else if (this.mapper.equals("PathMap")) {
+            configuration = PathMap.createConfiguration(Vertex.class);
+            this.map = (Mapper) new PathMap.Map();
+        } else if (this.mapper.equals("LinkMapReduce")) {
+            configuration = LinkMapReduce.createConfiguration(Direction.OUT, SyntheticGraph.LABELS[0], 0, null);
+            this.map = (Mapper) new LinkMapReduce.Map();
+        } else {
+            throw new IllegalArgumentException("Unknown mapper: " + this.mapper);
+        }
+        // side effects are written to the context and not to multiple outputs
+        configuration.setBoolean(FaunusCompiler.TESTING, true);
+        this.context = new BenchmarkMapper<Writable, Writable, Writable, Writable>().new BenchmarkMapContext(configuration, true);
+    }
+
+    @Benchmark
+    public long map() throws IOException, InterruptedException {
+        this.context.reset(this.graph);
+        this.map.run(this.context);
+        return this.context.getBytesWritten();
+    }
+}
@@ -0,0 +1,89 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.google.common.base.Predicate;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static com.tinkerpop.blueprints.Direction.IN;
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * Benchmark of FaunusVertex.retainEdges() over the degree of the vertex.
+ * The time per operation should grow linearly with the degree as every label list is compacted in a single pass.
+ * A vertex read back from bytes holds its edges as ids and a vertex built from FaunusEdges holds materialized edges.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RetainEdgesBenchmark {
+
+    private static final Predicate<FaunusEdge> EVEN = new Predicate<FaunusEdge>() {
+        public boolean apply(final FaunusEdge edge) {
+            return edge.getVertexId(IN) % 2 == 0;
+        }
+    };
+
+    @Param({"10000", "100000", "400000"})
+    public int degree;
+
+    @Param({"false", "true"})
+    public boolean serialized;
+
+    private final DataInputBuffer in = new DataInputBuffer();
+    private byte[] bytes;
+    private FaunusVertex vertex;
+
+    @Setup
+    public void serialize() throws IOException {
+        final FaunusVertex vertex = new FaunusVertex(1l);
+        for (long i = 0; i < this.degree; i++) {
+            vertex.addEdge(OUT, "knows", i);
+        }
+        final DataOutputBuffer out = new DataOutputBuffer();
+        vertex.write(out);
+        this.bytes = new byte[out.getLength()];
+        System.arraycopy(out.getData(), 0, this.bytes, 0, out.getLength());
+    }
+
+    // the edges are filtered away so every invocation filters a new vertex
+    @Setup(Level.Invocation)
+    public void setup() throws IOException {
+        if (this.serialized) {
+            this.vertex = new FaunusVertex();
+            this.in.reset(this.bytes, this.bytes.length);
+            this.vertex.readFields(this.in);
+        } else {
+            this.vertex = new FaunusVertex(1l);
+            for (long i = 0; i < this.degree; i++) {
+                this.vertex.addEdge(OUT, new FaunusEdge(i, this.vertex.getIdAsLong(), i, "knows"));
+            }
+        }
+    }
+
+    @Benchmark
+    public long retainEdges() {
+        return this.vertex.retainEdges(OUT, EVEN);
+    }
+}
@@ -0,0 +1,90 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.tinkerpop.gremlin.FaunusGremlinScriptEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the records per second of a ScriptInputFormat read() script: evaluating the call string per line
+ * (the former ScriptRecordReader path), invoking the function per line and invoking readBatch() per batch of lines.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScriptBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SCRIPT =
+            "import com.thinkaurelius.faunus.FaunusVertex\n" +
+                    "import static com.tinkerpop.blueprints.Direction.OUT\n" +
+                    "def boolean read(FaunusVertex v, String line) {\n" +
+                    "    parts = line.split(':')\n" +
+                    "    v.reuse(Long.valueOf(parts[0]))\n" +
+                    "    if (parts.length == 2) {\n" +
+                    "        parts[1].split(',').each { v.addEdge(OUT, 'linkedTo', Long.valueOf(it)) }\n" +
+                    "    }\n" +
+                    "    return true\n" +
+                    "}\n" +
+                    "def List<FaunusVertex> readBatch(List<String> lines) {\n" +
+                    "    def vertices = []\n" +
+                    "    lines.each { l -> def v = new FaunusVertex(); if (read(v, l)) vertices << v }\n" +
+                    "    return vertices\n" +
+                    "}\n";
+
+    private final FaunusGremlinScriptEngine engine = new FaunusGremlinScriptEngine();
+    private final FaunusVertex vertex = new FaunusVertex();
+    private final List<String> lines = new ArrayList<String>();
+    private int next = 0;
+
+    @Setup
+    public void setup() throws ScriptException {
+        this.engine.eval(SCRIPT);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            this.lines.add(i + ":" + (i + 1) + "," + (i + 2) + "," + (i + 3));
+        }
+    }
+
+    private String nextLine() {
+        this.next = (this.next + 1) % BATCH_SIZE;
+        return this.lines.get(this.next);
+    }
+
+    @Benchmark
+    public Object evalRead() throws ScriptException {
+        this.engine.put("vertex", this.vertex);
+        this.engine.put("line", this.nextLine());
+        return this.engine.eval("read(vertex,line)");
+    }
+
+    @Benchmark
+    public Object invokeRead() throws ScriptException, NoSuchMethodException {
+        return this.engine.invokeFunction("read", this.vertex, this.nextLine());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object invokeReadBatch() throws ScriptException, NoSuchMethodException {
+        return this.engine.invokeFunction("readBatch", this.lines);
+    }
+}
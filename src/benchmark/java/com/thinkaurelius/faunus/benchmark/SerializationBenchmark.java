@@ -0,0 +1,105 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Holder;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the serialization of a single vertex (write, readFields and the Holder round trip of the shuffle)
+ * and of the accessors the mappers use on a deserialized vertex.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int degree;
+
+    @Param({"1", "10"})
+    public int properties;
+
+    @Param({"false", "true"})
+    public boolean pathEnabled;
+
+    private FaunusVertex vertex;
+    private byte[] vertexBytes;
+    private byte[] holderBytes;
+    private final DataOutputBuffer out = new DataOutputBuffer();
+    private final DataInputBuffer in = new DataInputBuffer();
+
+    @Setup
+    public void setup() throws IOException {
+        this.vertex = SyntheticGraph.generateVertices(1, this.degree, this.properties, this.pathEnabled).get(0);
+        this.vertexBytes = SyntheticGraph.serialize(Arrays.asList(this.vertex));
+        this.out.reset();
+        new Holder<FaunusVertex>('v', this.vertex).write(this.out);
+        this.holderBytes = new byte[this.out.getLength()];
+        System.arraycopy(this.out.getData(), 0, this.holderBytes, 0, this.out.getLength());
+    }
+
+    @Benchmark
+    public int writeVertex() throws IOException {
+        this.out.reset();
+        this.vertex.write(this.out);
+        return this.out.getLength();
+    }
+
+    @Benchmark
+    public FaunusVertex readVertex() throws IOException {
+        this.in.reset(this.vertexBytes, this.vertexBytes.length);
+        final FaunusVertex vertex = new FaunusVertex(this.pathEnabled);
+        vertex.readFields(this.in);
+        return vertex;
+    }
+
+    @Benchmark
+    public Holder readHolder() throws IOException {
+        this.in.reset(this.holderBytes, this.holderBytes.length);
+        final Holder<FaunusVertex> holder = new Holder<FaunusVertex>();
+        holder.readFields(this.in);
+        return holder;
+    }
+
+    @Benchmark
+    public Object readVertexProperty() throws IOException {
+        // the properties of a deserialized vertex are decoded on first access
+        return this.readVertex().getProperty(SyntheticGraph.NAME);
+    }
+
+    @Benchmark
+    public void readVertexEdges(final Blackhole blackhole) throws IOException {
+        for (final Edge edge : this.readVertex().getEdges(Direction.BOTH)) {
+            blackhole.consume(edge);
+        }
+    }
+
+    @Benchmark
+    public long[] readVertexIds() throws IOException {
+        return this.readVertex().getVertexIds(Direction.OUT, SyntheticGraph.LABELS[0]);
+    }
+}
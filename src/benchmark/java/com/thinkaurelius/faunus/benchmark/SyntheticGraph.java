@@ -0,0 +1,67 @@
+package com.thinkaurelius.faunus.benchmark;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.io.DataOutputBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * SyntheticGraph generates the vertices the benchmarks run against.
+ * Every vertex has the same shape (degree and number of properties) and a fixed seed makes the graph identical across runs.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class SyntheticGraph {
+
+    public static final String[] LABELS = {"knows", "created"};
+    public static final String NAME = "name";
+    public static final String PROPERTY = "p";
+
+    private static final long SEED = 1234567l;
+
+    /**
+     * @param numberOfVertices   the number of vertices to generate
+     * @param degree             the number of out and of in edges of each vertex
+     * @param numberOfProperties the number of properties of each vertex (at least the name)
+     * @param pathEnabled        whether the vertices track full paths or only path counts
+     */
+    public static List<FaunusVertex> generateVertices(final int numberOfVertices, final int degree, final int numberOfProperties, final boolean pathEnabled) {
+        final Random random = new Random(SEED);
+        final List<FaunusVertex> vertices = new ArrayList<FaunusVertex>(numberOfVertices);
+        for (long id = 0; id < numberOfVertices; id++) {
+            final FaunusVertex vertex = new FaunusVertex(id);
+            vertex.enablePath(pathEnabled);
+            vertex.setProperty(NAME, "vertex" + id);
+            for (int i = 1; i < numberOfProperties; i++) {
+                if (i % 2 == 0)
+                    vertex.setProperty(PROPERTY + i, random.nextInt());
+                else
+                    vertex.setProperty(PROPERTY + i, "value" + random.nextInt(1000));
+            }
+            for (int i = 0; i < degree; i++) {
+                vertex.addEdge(Direction.OUT, LABELS[i % LABELS.length], random.nextInt(numberOfVertices));
+                vertex.addEdge(Direction.IN, LABELS[i % LABELS.length], random.nextInt(numberOfVertices));
+            }
+            vertex.startPath();
+            vertices.add(vertex);
+        }
+        return vertices;
+    }
+
+    /**
+     * The vertices serialized back-to-back as they would be in a SequenceFile of the graph.
+     */
+    public static byte[] serialize(final List<FaunusVertex> vertices) throws IOException {
+        final DataOutputBuffer out = new DataOutputBuffer();
+        for (final FaunusVertex vertex : vertices) {
+            vertex.write(out);
+        }
+        final byte[] bytes = new byte[out.getLength()];
+        System.arraycopy(out.getData(), 0, bytes, 0, out.getLength());
+        return bytes;
+    }
+}
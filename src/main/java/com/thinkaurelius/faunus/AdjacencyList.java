@@ -0,0 +1,247 @@
+package com.thinkaurelius.faunus;
+
+import com.google.common.base.Predicate;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * AdjacencyList holds the edges of a FaunusVertex for a single direction and label.
+ * Edges without properties or paths are stored as primitive edge and vertex ids.
+ * A FaunusEdge is only materialized when it is accessed through get() and it is then retained so that changes to it are kept.
+ * The serialized form is identical to a list of FaunusEdge.writeCompressed() records.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+class AdjacencyList extends AbstractList<Edge> {
+
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final long[] EMPTY_IDS = new long[0];
+    private static final FaunusEdge[] EMPTY_EDGES = new FaunusEdge[0];
+
+    private final FaunusVertex vertex;
+    private final Direction direction;
+    private final String label;
+    private boolean pathEnabled = false;
+
+    private long[] edgeIds = EMPTY_IDS;
+    private long[] vertexIds = EMPTY_IDS;
+    private FaunusEdge[] edges = EMPTY_EDGES;
+    private int size = 0;
+
+    public AdjacencyList(final FaunusVertex vertex, final Direction direction, final String label) {
+        this.vertex = vertex;
+        this.direction = direction;
+        this.label = FaunusElement.TYPE_MAP.get(label);
+    }
+
+    public String getLabel() {
+        return this.label;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public Edge get(final int index) {
+        this.checkIndex(index);
+        FaunusEdge edge = this.edges[index];
+        if (null == edge) {
+            if (OUT.equals(this.direction))
+                edge = new FaunusEdge(this.edgeIds[index], this.vertex.getIdAsLong(), this.vertexIds[index], this.label);
+            else
+                edge = new FaunusEdge(this.edgeIds[index], this.vertexIds[index], this.vertex.getIdAsLong(), this.label);
+            edge.enablePath(this.pathEnabled);
+            this.edges[index] = edge;
+        }
+        return edge;
+    }
+
+    /**
+     * Get the id of the adjacent vertex without materializing the edge.
+     */
+    public long getVertexId(final int index) {
+        this.checkIndex(index);
+        final FaunusEdge edge = this.edges[index];
+        return null == edge ? this.vertexIds[index] : edge.getVertexId(this.direction.opposite());
+    }
+
+    public Edge set(final int index, final Edge edge) {
+        final Edge old = this.get(index);
+        this.setEdge(index, (FaunusEdge) edge);
+        return old;
+    }
+
+    public void add(final int index, final Edge edge) {
+        if (index < 0 || index > this.size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+        this.ensureCapacity(this.size + 1);
+        if (index < this.size) {
+            System.arraycopy(this.edgeIds, index, this.edgeIds, index + 1, this.size - index);
+            System.arraycopy(this.vertexIds, index, this.vertexIds, index + 1, this.size - index);
+            System.arraycopy(this.edges, index, this.edges, index + 1, this.size - index);
+        }
+        this.size++;
+        this.setEdge(index, (FaunusEdge) edge);
+        this.modCount++;
+    }
+
+    public Edge remove(final int index) {
+        final Edge edge = this.get(index);
+        final int moved = this.size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(this.edgeIds, index + 1, this.edgeIds, index, moved);
+            System.arraycopy(this.vertexIds, index + 1, this.vertexIds, index, moved);
+            System.arraycopy(this.edges, index + 1, this.edges, index, moved);
+        }
+        this.edges[--this.size] = null;
+        this.modCount++;
+        return edge;
+    }
+
+    public void clear() {
+        Arrays.fill(this.edges, 0, this.size, null);
+        this.size = 0;
+        this.modCount++;
+    }
+
+    /**
+     * Append an edge that has no properties and no paths.
+     */
+    public void add(final long edgeId, final long vertexId) {
+        this.ensureCapacity(this.size + 1);
+        this.edgeIds[this.size] = edgeId;
+        this.vertexIds[this.size] = vertexId;
+        this.edges[this.size] = null;
+        this.size++;
+        this.modCount++;
+    }
+
+    /**
+     * Append all the edges of the provided list without materializing them.
+     * Edges that are already materialized are shared between the two lists.
+     */
+    public void addAll(final AdjacencyList list) {
+        this.ensureCapacity(this.size + list.size);
+        System.arraycopy(list.edgeIds, 0, this.edgeIds, this.size, list.size);
+        System.arraycopy(list.vertexIds, 0, this.vertexIds, this.size, list.size);
+        System.arraycopy(list.edges, 0, this.edges, this.size, list.size);
+        this.size = this.size + list.size;
+        if (list.pathEnabled)
+            this.pathEnabled = true;
+        this.modCount++;
+    }
+
+    /**
+     * Remove the edges that do not satisfy the predicate in a single mark-and-compact pass.
+     * Edges that are not materialized are presented to the predicate through a reused FaunusEdge
+     * which must not be retained by the predicate.
+     *
+     * @param predicate the predicate an edge must satisfy to be kept
+     * @return the number of edges removed
+     */
+    public int retainAll(final Predicate<FaunusEdge> predicate) {
+        FaunusEdge reusable = null;
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            FaunusEdge edge = this.edges[i];
+            if (null == edge) {
+                if (null == reusable)
+                    reusable = new FaunusEdge(this.pathEnabled);
+                if (OUT.equals(this.direction))
+                    edge = reusable.reuse(this.edgeIds[i], this.vertex.getIdAsLong(), this.vertexIds[i], this.label);
+                else
+                    edge = reusable.reuse(this.edgeIds[i], this.vertexIds[i], this.vertex.getIdAsLong(), this.label);
+            }
+            if (predicate.apply(edge)) {
+                if (kept != i) {
+                    this.edgeIds[kept] = this.edgeIds[i];
+                    this.vertexIds[kept] = this.vertexIds[i];
+                    this.edges[kept] = this.edges[i];
+                }
+                kept++;
+            }
+        }
+        final int removed = this.size - kept;
+        if (removed > 0) {
+            Arrays.fill(this.edges, kept, this.size, null);
+            this.size = kept;
+            this.modCount++;
+        }
+        return removed;
+    }
+
+    public void enablePath(final boolean enablePath) {
+        this.pathEnabled = enablePath;
+        if (enablePath) {
+            for (int i = 0; i < this.size; i++) {
+                if (null != this.edges[i])
+                    this.edges[i].enablePath(true);
+            }
+        }
+    }
+
+    public void readFields(final DataInput in, final int count) throws IOException {
+        this.clear();
+        this.ensureCapacity(count);
+        final Direction idToRead = this.direction.opposite();
+        FaunusEdge edge = new FaunusEdge();
+        for (int i = 0; i < count; i++) {
+            edge.readFieldsCompressed(in, idToRead);
+            if (edge.pathCount() == 0 && edge.getPropertyCount() == 0) {
+                this.pathEnabled = edge.pathEnabled;
+                this.add(edge.getIdAsLong(), edge.getVertexId(idToRead));
+            } else {
+                edge.setLabel(this.label);
+                if (OUT.equals(this.direction))
+                    edge.outVertex = this.vertex.getIdAsLong();
+                else
+                    edge.inVertex = this.vertex.getIdAsLong();
+                this.add(this.size, edge);
+                edge = new FaunusEdge();
+            }
+        }
+    }
+
+    public void write(final DataOutput out) throws IOException {
+        final Direction idToWrite = this.direction.opposite();
+        for (int i = 0; i < this.size; i++) {
+            final FaunusEdge edge = this.edges[i];
+            if (null != edge) {
+                edge.writeCompressed(out, idToWrite);
+            } else {
+                // the same bytes FaunusEdge.writeCompressed() writes for an edge without paths or properties
+                FaunusElement.writeBare(this.edgeIds[i], this.pathEnabled, out);
+                WritableUtils.writeVLong(out, this.vertexIds[i]);
+            }
+        }
+    }
+
+    private void setEdge(final int index, final FaunusEdge edge) {
+        this.edgeIds[index] = edge.getIdAsLong();
+        this.vertexIds[index] = edge.getVertexId(this.direction.opposite());
+        this.edges[index] = edge;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > this.edgeIds.length) {
+            final int newCapacity = Math.max(capacity, Math.max(DEFAULT_CAPACITY, this.edgeIds.length + (this.edgeIds.length >> 1)));
+            this.edgeIds = Arrays.copyOf(this.edgeIds, newCapacity);
+            this.vertexIds = Arrays.copyOf(this.vertexIds, newCapacity);
+            this.edges = Arrays.copyOf(this.edges, newCapacity);
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+    }
+}
@@ -93,7 +93,7 @@ public class FaunusEdge extends FaunusElement implements Edge {
         WritableUtils.writeVLong(out, this.inVertex);
         WritableUtils.writeVLong(out, this.outVertex);
         //WritableUtils.writeCompressedString(out,this.getLabel());
-        out.writeUTF(this.label);
+        ElementDictionary.writeString(this.label, ElementDictionary.getEncoder(), out);
     }
 
     public void readFields(final DataInput in) throws IOException {
@@ -101,7 +101,7 @@ public class FaunusEdge extends FaunusElement implements Edge {
         this.inVertex = WritableUtils.readVLong(in);
         this.outVertex = WritableUtils.readVLong(in);
         //setLabel(WritableUtils.readCompressedString(in));
-        setLabel(in.readUTF());
+        setLabel(ElementDictionary.readString(in, this.readDictionary));
     }
 
     public void writeCompressed(final DataOutput out, final Direction idToWrite) throws IOException {
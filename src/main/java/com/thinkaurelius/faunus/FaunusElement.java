@@ -4,9 +4,12 @@ import com.thinkaurelius.titan.diskstorage.ReadBuffer;
 import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.diskstorage.util.ByteBufferUtil;
 import com.thinkaurelius.titan.diskstorage.util.ReadByteBuffer;
+import com.thinkaurelius.titan.graphdb.database.idhandling.VariableLong;
 import com.thinkaurelius.titan.graphdb.database.serialize.kryo.KryoSerializer;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.util.ElementHelper;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.WritableUtils;
@@ -15,16 +18,18 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
-public abstract class FaunusElement implements Element, WritableComparable<FaunusElement> {
+public abstract class FaunusElement implements Element, WritableComparable<FaunusElement>, Configurable {
 
     static {
         WritableComparator.define(FaunusElement.class, new Comparator());
@@ -32,14 +37,18 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
 
     protected static final KryoSerializer serialize = new KryoSerializer();
 
-    protected static final Map<String, String> TYPE_MAP = new HashMap<String, String>() {
+    private static final int PATH_ENABLED_FLAG = 1;
+    private static final int DICTIONARY_FLAG = 2;
+
+    // shared by every task thread of the in-process engine, so misses are published with putIfAbsent()
+    protected static final Map<String, String> TYPE_MAP = new ConcurrentHashMap<String, String>() {
         @Override
         public final String get(final Object object) {
             final String label = (String) object;
             final String existing = super.get(label);
             if (null == existing) {
-                super.put(label, label);
-                return label;
+                final String raced = super.putIfAbsent(label, label);
+                return null == raced ? label : raced;
             } else {
                 return existing;
             }
@@ -48,6 +57,12 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
 
     protected long id;
     protected Map<String, Object> properties = null;
+    // properties as read from the wire -- only decoded when they are first accessed
+    private byte[] serializedProperties = null;
+    private int serializedPropertyCount = 0;
+    private ElementDictionary serializedDictionary = null;
+    // the dictionary of the record last read (null if the record carried its labels and keys as strings)
+    protected ElementDictionary readDictionary = null;
     protected List<List<MicroElement>> paths = null;
     private MicroElement microVersion = null;
     protected boolean pathEnabled = false;
@@ -61,6 +76,7 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
     protected FaunusElement reuse(final long id) {
         this.id = id;
         this.properties = null;
+        this.serializedProperties = null;
         this.clearPaths();
         return this;
     }
@@ -165,29 +181,65 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
         if (key.equals(Tokens._COUNT))
             throw new IllegalArgumentException("_count is a reserved property");
 
+        this.decodeProperties();
         if (null == this.properties)
             this.properties = new HashMap<String, Object>();
         this.properties.put(TYPE_MAP.get(key), value);
     }
 
     public <T> T removeProperty(final String key) {
+        this.decodeProperties();
         return null == this.properties ? null : (T) this.properties.remove(key);
     }
 
     public <T> T getProperty(final String key) {
         if (key.equals(Tokens._COUNT))
             return (T) Long.valueOf(this.pathCount());
+        this.decodeProperties();
         return null == this.properties ? null : (T) this.properties.get(key);
     }
 
     public Set<String> getPropertyKeys() {
+        this.decodeProperties();
         return null == this.properties ? (Set) Collections.emptySet() : this.properties.keySet();
     }
 
     public Map<String, Object> getProperties() {
+        this.decodeProperties();
         return null == this.properties ? this.properties = new HashMap<String, Object>() : this.properties;
     }
 
+    /**
+     * Get the number of properties without decoding them.
+     */
+    public int getPropertyCount() {
+        if (null != this.serializedProperties)
+            return this.serializedPropertyCount;
+        return null == this.properties ? 0 : this.properties.size();
+    }
+
+    /**
+     * Share the properties of the provided element without decoding them.
+     */
+    protected void copyProperties(final FaunusElement element) {
+        if (null != element.serializedProperties) {
+            this.properties = null;
+            this.serializedProperties = element.serializedProperties;
+            this.serializedPropertyCount = element.serializedPropertyCount;
+            this.serializedDictionary = element.serializedDictionary;
+        } else {
+            this.properties = element.getProperties();
+            this.serializedProperties = null;
+        }
+    }
+
+    private void decodeProperties() {
+        if (null != this.serializedProperties) {
+            this.properties = ElementProperties.decode(this.serializedPropertyCount, this.serializedProperties, this.serializedDictionary);
+            this.serializedProperties = null;
+        }
+    }
+
     public Object getId() {
         return this.id;
     }
@@ -196,25 +248,78 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
         return this.id;
     }
 
+    public void setConf(final Configuration configuration) {
+        ElementDictionary.configure(configuration);
+    }
+
+    public Configuration getConf() {
+        return ElementDictionary.getConfiguration();
+    }
+
     public void readFields(final DataInput in) throws IOException {
-        this.id = WritableUtils.readVLong(in);
-        this.pathEnabled = in.readBoolean();
+        this.readHeader(in);
         if (this.pathEnabled) {
             this.paths = ElementPaths.readFields(in);
             this.microVersion = (this instanceof FaunusVertex) ? new FaunusVertex.MicroVertex(this.id) : new FaunusEdge.MicroEdge(this.id);
         } else
             this.pathCounter = WritableUtils.readVLong(in);
-        this.properties = ElementProperties.readFields(in);
+        this.properties = null;
+        this.serializedPropertyCount = WritableUtils.readVInt(in);
+        if (this.serializedPropertyCount == 0)
+            this.serializedProperties = null;
+        else {
+            this.serializedProperties = new byte[WritableUtils.readVInt(in)];
+            in.readFully(this.serializedProperties);
+            this.serializedDictionary = this.readDictionary;
+        }
     }
 
     public void write(final DataOutput out) throws IOException {
-        WritableUtils.writeVLong(out, this.id);
-        out.writeBoolean(this.pathEnabled);
+        final ElementDictionary dictionary = ElementDictionary.getEncoder();
+        writeHeader(this.id, this.pathEnabled, dictionary, out);
         if (this.pathEnabled)
             ElementPaths.write(this.paths, out);
         else
             WritableUtils.writeVLong(out, this.pathCounter);
-        ElementProperties.write(this.properties, out);
+        if (null != this.serializedProperties && this.serializedDictionary == dictionary) {
+            // the properties were never accessed so the bytes read are written back as is
+            WritableUtils.writeVInt(out, this.serializedPropertyCount);
+            WritableUtils.writeVInt(out, this.serializedProperties.length);
+            out.write(this.serializedProperties);
+        } else {
+            this.decodeProperties();
+            ElementProperties.write(this.properties, dictionary, out);
+        }
+    }
+
+    /**
+     * Read the id and the flags that start every serialized element.
+     */
+    private void readHeader(final DataInput in) throws IOException {
+        this.id = WritableUtils.readVLong(in);
+        final byte flags = in.readByte();
+        this.pathEnabled = (flags & PATH_ENABLED_FLAG) != 0;
+        this.readDictionary = (flags & DICTIONARY_FLAG) != 0 ? ElementDictionary.getDecoder() : null;
+    }
+
+    /**
+     * Write the id and the flags that start every serialized element.
+     */
+    private static void writeHeader(final long id, final boolean pathEnabled, final ElementDictionary dictionary, final DataOutput out) throws IOException {
+        WritableUtils.writeVLong(out, id);
+        out.writeByte((pathEnabled ? PATH_ENABLED_FLAG : 0) | (null == dictionary ? 0 : DICTIONARY_FLAG));
+    }
+
+    /**
+     * Write the bytes of write() for an element without paths and properties without materializing the element.
+     */
+    static void writeBare(final long id, final boolean pathEnabled, final DataOutput out) throws IOException {
+        writeHeader(id, pathEnabled, ElementDictionary.getEncoder(), out);
+        if (pathEnabled)
+            ElementPaths.write(null, out);
+        else
+            WritableUtils.writeVLong(out, 0l);
+        ElementProperties.write(null, out);
     }
 
     @Override
@@ -234,13 +339,20 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
     public static class ElementProperties {
 
         public static void write(final Map<String, Object> properties, final DataOutput out) throws IOException {
+            write(properties, null, out);
+        }
+
+        public static void write(final Map<String, Object> properties, final ElementDictionary dictionary, final DataOutput out) throws IOException {
             if (null == properties || properties.size() == 0)
                 WritableUtils.writeVInt(out, 0);
             else {
                 WritableUtils.writeVInt(out, properties.size());
                 final com.thinkaurelius.titan.graphdb.database.serialize.DataOutput o = serialize.getDataOutput(128, true);
                 for (final Map.Entry<String, Object> entry : properties.entrySet()) {
-                    o.writeObject(entry.getKey(), String.class);
+                    if (null == dictionary)
+                        o.writeObject(entry.getKey(), String.class);
+                    else
+                        dictionary.writeString(entry.getKey(), o);
                     o.writeClassAndObject(entry.getValue());
                 }
                 final StaticBuffer buffer = o.getStaticBuffer();
@@ -254,17 +366,132 @@ public abstract class FaunusElement implements Element, WritableComparable<Faunu
             if (numberOfProperties == 0)
                 return null;
             else {
-                final Map<String, Object> properties = new HashMap<String, Object>();
                 byte[] bytes = new byte[WritableUtils.readVInt(in)];
                 in.readFully(bytes);
-                final ReadBuffer buffer = new ReadByteBuffer(bytes);
-                for (int i = 0; i < numberOfProperties; i++) {
-                    final String key = serialize.readObject(buffer, String.class);
-                    final Object valueObject = serialize.readClassAndObject(buffer);
-                    properties.put(TYPE_MAP.get(key), valueObject);
-                }
-                return properties;
+                return decode(numberOfProperties, bytes, null);
+            }
+        }
+
+        public static Map<String, Object> decode(final int numberOfProperties, final byte[] bytes, final ElementDictionary dictionary) {
+            final Map<String, Object> properties = new HashMap<String, Object>();
+            final ReadBuffer buffer = new ReadByteBuffer(bytes);
+            for (int i = 0; i < numberOfProperties; i++) {
+                final String key = null == dictionary ? serialize.readObject(buffer, String.class) : dictionary.readString(buffer);
+                final Object valueObject = serialize.readClassAndObject(buffer);
+                properties.put(TYPE_MAP.get(key), valueObject);
             }
+            return properties;
+        }
+    }
+
+    /**
+     * ElementDictionary maps the labels and property keys of a job chain to small integer ids.
+     * FaunusCompiler stores the dictionary in the configuration of every job and only enables encoding for the
+     * jobs that write intermediate output. The dictionary is installed per JVM when the configuration is seen.
+     * A string that is not in the dictionary is written as an escape id of 0 followed by the string itself.
+     */
+    public static class ElementDictionary {
+
+        private static Configuration configuration = null;
+        private static volatile ElementDictionary dictionary = null;
+        private static volatile boolean encode = false;
+
+        private final String[] strings;
+        private final Map<String, Integer> ids;
+
+        public ElementDictionary(final String... strings) {
+            this.strings = new String[strings.length];
+            this.ids = new HashMap<String, Integer>(strings.length * 2);
+            for (int i = 0; i < strings.length; i++) {
+                this.strings[i] = TYPE_MAP.get(strings[i]);
+                this.ids.put(this.strings[i], i);
+            }
+        }
+
+        /**
+         * Install the dictionary of the job configuration.
+         * Configurations that were not composed by FaunusCompiler leave the current dictionary untouched.
+         */
+        public static synchronized void configure(final Configuration configuration) {
+            if (null == configuration || configuration == ElementDictionary.configuration || null == configuration.get(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE))
+                return;
+            ElementDictionary.configuration = configuration;
+            final String[] strings = configuration.getStrings(Tokens.FAUNUS_GRAPH_DICTIONARY);
+            if (null == strings)
+                dictionary = null;
+            else if (null == dictionary || !Arrays.equals(dictionary.strings, strings))
+                dictionary = new ElementDictionary(strings);
+            encode = null != dictionary && configuration.getBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, false);
+        }
+
+        public static Configuration getConfiguration() {
+            return ElementDictionary.configuration;
+        }
+
+        /**
+         * @return the dictionary to write records with or null if records are written with plain strings
+         */
+        public static ElementDictionary getEncoder() {
+            return encode ? dictionary : null;
+        }
+
+        public static ElementDictionary getDecoder() throws IOException {
+            final ElementDictionary decoder = dictionary;
+            if (null == decoder)
+                throw new IOException("A dictionary encoded record can not be read without the dictionary of its job: " + Tokens.FAUNUS_GRAPH_DICTIONARY);
+            return decoder;
+        }
+
+        public int size() {
+            return this.strings.length;
+        }
+
+        public void writeString(final String string, final DataOutput out) throws IOException {
+            final Integer id = this.ids.get(string);
+            if (null == id) {
+                WritableUtils.writeVInt(out, 0);
+                out.writeUTF(string);
+            } else
+                WritableUtils.writeVInt(out, id + 1);
+        }
+
+        public String readString(final DataInput in) throws IOException {
+            final int id = WritableUtils.readVInt(in);
+            return id == 0 ? TYPE_MAP.get(in.readUTF()) : this.getString(id);
+        }
+
+        public void writeString(final String string, final com.thinkaurelius.titan.graphdb.database.serialize.DataOutput out) {
+            final Integer id = this.ids.get(string);
+            if (null == id) {
+                VariableLong.writePositive(out, 0);
+                out.writeObject(string, String.class);
+            } else
+                VariableLong.writePositive(out, id + 1);
+        }
+
+        public String readString(final ReadBuffer buffer) {
+            final int id = (int) VariableLong.readPositive(buffer);
+            return id == 0 ? serialize.readObject(buffer, String.class) : this.getString(id);
+        }
+
+        private String getString(final int id) {
+            if (id > this.strings.length)
+                throw new IllegalStateException("The dictionary does not contain the id " + id + " -- the record was written with a different dictionary");
+            return this.strings[id - 1];
+        }
+
+        /**
+         * Write a label or key with the provided dictionary or as a plain string if the dictionary is null.
+         */
+        public static void writeString(final String string, final ElementDictionary dictionary, final DataOutput out) throws IOException {
+            if (null == dictionary)
+                out.writeUTF(string);
+            else
+                dictionary.writeString(string, out);
+        }
+
+        public static String readString(final DataInput in, final ElementDictionary dictionary) throws IOException {
+            return null == dictionary ? in.readUTF() : dictionary.readString(in);
         }
     }
 
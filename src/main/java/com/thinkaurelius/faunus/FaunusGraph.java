@@ -26,6 +26,8 @@ public class FaunusGraph implements Configurable {
     public static final String FAUNUS_SIDEEFFECT_OUTPUT_FORMAT = "faunus.sideeffect.output.format";
     public static final String FAUNUS_OUTPUT_LOCATION = "faunus.output.location";
     public static final String FAUNUS_OUTPUT_LOCATION_OVERWRITE = "faunus.output.location.overwrite";
+    public static final String FAUNUS_LOCAL_EXECUTION = "faunus.local.execution";
+    public static final String FAUNUS_LOCAL_THREADS = "faunus.local.threads";
 
     private Configuration configuration;
 
@@ -123,6 +125,22 @@ public class FaunusGraph implements Configurable {
         this.configuration.setBoolean(FAUNUS_OUTPUT_LOCATION_OVERWRITE, overwrite);
     }
 
+    public boolean getLocalExecution() {
+        return this.configuration.getBoolean(FAUNUS_LOCAL_EXECUTION, false);
+    }
+
+    public void setLocalExecution(final boolean localExecution) {
+        this.configuration.setBoolean(FAUNUS_LOCAL_EXECUTION, localExecution);
+    }
+
+    public int getLocalThreads() {
+        return this.configuration.getInt(FAUNUS_LOCAL_THREADS, Runtime.getRuntime().availableProcessors());
+    }
+
+    public void setLocalThreads(final int threads) {
+        this.configuration.setInt(FAUNUS_LOCAL_THREADS, threads);
+    }
+
     public void shutdown() {
         this.configuration.clear();
     }
@@ -4,6 +4,11 @@ import com.thinkaurelius.faunus.formats.EdgeCopyMapReduce;
 import com.thinkaurelius.faunus.formats.MapReduceFormat;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
 import com.thinkaurelius.faunus.mapreduce.IdentityMap;
+import com.thinkaurelius.faunus.mapreduce.compute.ClearHaltedMap;
+import com.thinkaurelius.faunus.mapreduce.compute.MessageCombiner;
+import com.thinkaurelius.faunus.mapreduce.compute.MessageHolder;
+import com.thinkaurelius.faunus.mapreduce.compute.VertexProgram;
+import com.thinkaurelius.faunus.mapreduce.compute.VertexProgramMapReduce;
 import com.thinkaurelius.faunus.mapreduce.filter.BackFilterMapReduce;
 import com.thinkaurelius.faunus.mapreduce.filter.CyclicPathFilterMap;
 import com.thinkaurelius.faunus.mapreduce.filter.DuplicateFilterMap;
@@ -23,11 +28,13 @@ import com.thinkaurelius.faunus.mapreduce.transform.OrderMapReduce;
 import com.thinkaurelius.faunus.mapreduce.transform.PathMap;
 import com.thinkaurelius.faunus.mapreduce.transform.PropertyMap;
 import com.thinkaurelius.faunus.mapreduce.transform.PropertyMapMap;
+import com.thinkaurelius.faunus.mapreduce.transform.TopologyMapReduce;
 import com.thinkaurelius.faunus.mapreduce.transform.TransformMap;
 import com.thinkaurelius.faunus.mapreduce.transform.VertexMap;
 import com.thinkaurelius.faunus.mapreduce.transform.VerticesEdgesMapReduce;
 import com.thinkaurelius.faunus.mapreduce.transform.VerticesMap;
 import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesStateMapReduce;
 import com.thinkaurelius.faunus.mapreduce.util.CountMapReduce;
 import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Direction;
@@ -353,17 +360,24 @@ public class FaunusPipeline {
         this.state.assertAtVertex();
         this.state.incrStep();
 
-        this.compiler.addMapReduce(VerticesVerticesMapReduce.Map.class,
-                null,
-                VerticesVerticesMapReduce.Reduce.class,
-                null,
-                LongWritable.class,
-                Holder.class,
-                NullWritable.class,
-                FaunusVertex.class,
-                VerticesVerticesMapReduce.createConfiguration(direction, labels));
+        this.compiler.addToDictionary(labels);
+        if (this.graph.getConf().getBoolean(Tokens.FAUNUS_PIPELINE_SPARSE_TRAVERSAL, false)) {
+            // only path counts are shuffled -- the topology is looked up map-side
+            this.compiler.addSparseTraversal(direction, labels);
+            makeMapReduceString(VerticesVerticesStateMapReduce.class, direction.name(), Arrays.asList(labels));
+        } else {
+            this.compiler.addMapReduce(VerticesVerticesMapReduce.Map.class,
+                    VerticesVerticesMapReduce.Combiner.class,
+                    VerticesVerticesMapReduce.Reduce.class,
+                    null,
+                    LongWritable.class,
+                    Holder.class,
+                    NullWritable.class,
+                    FaunusVertex.class,
+                    VerticesVerticesMapReduce.createConfiguration(direction, labels));
+            makeMapReduceString(VerticesVerticesMapReduce.class, direction.name(), Arrays.asList(labels));
+        }
         this.state.set(Vertex.class);
-        makeMapReduceString(VerticesVerticesMapReduce.class, direction.name(), Arrays.asList(labels));
         return this;
 
     }
@@ -404,6 +418,7 @@ public class FaunusPipeline {
         this.state.assertAtVertex();
         this.state.incrStep();
 
+        this.compiler.addToDictionary(labels);
         this.compiler.addMapReduce(VerticesEdgesMapReduce.Map.class,
                 null,
                 VerticesEdgesMapReduce.Reduce.class,
@@ -470,6 +485,7 @@ public class FaunusPipeline {
     public FaunusPipeline property(final String key, final Class type) {
         this.state.assertNotLocked();
         this.state.assertNoProperty();
+        this.compiler.addToDictionary(key);
         this.state.setProperty(key, type);
         return this;
     }
@@ -543,19 +559,41 @@ public class FaunusPipeline {
      * @return the extended FaunusPipeline
      */
     public FaunusPipeline order(final TransformPipe.Order order, final String elementKey) {
+        return this.order(order, elementKey, -1);
+    }
+
+    /**
+     * Order the previous property value results and emit the first limit of them with another element property value.
+     * Every mapper only emits its own top-k elements and a single reducer emits the global top-k.
+     * Without a limit, the results are fully sorted and, with faunus.pipeline.total-order, range partitioned such
+     * that the reducers write consecutive ranges of the order.
+     *
+     * @param order      increasing and descending order
+     * @param elementKey the key of the element to associate it with
+     * @param limit      the number of results to emit or -1 to emit all results
+     * @return the extended FaunusPipeline
+     */
+    public FaunusPipeline order(final TransformPipe.Order order, final String elementKey, final int limit) {
         this.state.assertNotLocked();
         final Pair<String, Class<? extends WritableComparable>> pair = this.state.popProperty();
         if (null != pair) {
+            final boolean totalOrder = limit < 0 && this.graph.getConf().getBoolean(Tokens.FAUNUS_PIPELINE_TOTAL_ORDER, false);
+            // the keys of the input of the order are sampled before the job is executed
+            if (totalOrder)
+                this.compiler.completeSequence();
             this.compiler.addMapReduce(OrderMapReduce.Map.class,
-                    null,
+                    limit < 0 ? null : OrderMapReduce.Combiner.class,
                     OrderMapReduce.Reduce.class,
                     OrderMapReduce.createComparator(order, pair.getB()),
                     pair.getB(),
                     Text.class,
                     Text.class,
                     pair.getB(),
-                    OrderMapReduce.createConfiguration(this.state.getElementType(), pair.getA(), pair.getB(), elementKey));
-            makeMapReduceString(OrderMapReduce.class, order.name(), elementKey);
+                    OrderMapReduce.createConfiguration(this.state.getElementType(), pair.getA(), pair.getB(), elementKey, order, limit, totalOrder));
+            if (limit < 0)
+                makeMapReduceString(OrderMapReduce.class, order.name(), elementKey);
+            else
+                makeMapReduceString(OrderMapReduce.class, order.name(), elementKey, limit);
         } else {
             throw new IllegalArgumentException("There is no specified property to order on");
         }
@@ -595,6 +633,18 @@ public class FaunusPipeline {
         return this.order(com.tinkerpop.gremlin.Tokens.mapOrder(order));
     }
 
+    /**
+     * Order the previous property value results and emit the first limit of them with another element property value.
+     *
+     * @param order      increasing and descending order
+     * @param elementKey the key of the element to associate it with
+     * @param limit      the number of results to emit or -1 to emit all results
+     * @return the extended FaunusPipeline
+     */
+    public FaunusPipeline order(final com.tinkerpop.gremlin.Tokens.T order, final String elementKey, final int limit) {
+        return this.order(com.tinkerpop.gremlin.Tokens.mapOrder(order), elementKey, limit);
+    }
+
 
     //////// FILTERS
 
@@ -652,6 +702,7 @@ public class FaunusPipeline {
         this.state.assertNotLocked();
         this.state.assertNoProperty();
 
+        this.compiler.addToDictionary(key);
         this.compiler.addMap(PropertyFilterMap.Map.class,
                 NullWritable.class,
                 FaunusVertex.class,
@@ -706,6 +757,7 @@ public class FaunusPipeline {
         this.state.assertNotLocked();
         this.state.assertNoProperty();
 
+        this.compiler.addToDictionary(key);
         this.compiler.addMap(IntervalFilterMap.Map.class,
                 NullWritable.class,
                 FaunusVertex.class,
@@ -872,6 +924,7 @@ public class FaunusPipeline {
         this.state.assertNotLocked();
         this.state.assertNoProperty();
 
+        this.compiler.addToDictionary(label, mergeWeightKey);
         this.compiler.addMapReduce(LinkMapReduce.Map.class,
                 LinkMapReduce.Combiner.class,
                 LinkMapReduce.Reduce.class,
@@ -1008,6 +1061,49 @@ public class FaunusPipeline {
         return this;
     }
 
+    /**
+     * Execute a vertex program on every vertex of the graph for at most the provided number of supersteps.
+     * The graph is sorted and partitioned by vertex id once, every superstep is a MapReduce job that only shuffles
+     * the messages of the program and the remaining supersteps are skipped once the program halts.
+     *
+     * @param program       the vertex program to execute
+     * @param maxIterations the maximum number of supersteps
+     * @return the extended FaunusPipeline
+     */
+    public FaunusPipeline compute(final VertexProgram program, final int maxIterations) {
+        this.state.assertNotLocked();
+        this.state.assertNoProperty();
+        this.state.assertAtVertex();
+        if (maxIterations < 1)
+            throw new IllegalArgumentException("A vertex program requires at least one superstep: " + maxIterations);
+
+        this.compiler.addMapReduce(TopologyMapReduce.Map.class,
+                null,
+                TopologyMapReduce.Reduce.class,
+                LongWritable.class,
+                FaunusVertex.class,
+                LongWritable.class,
+                FaunusVertex.class,
+                TopologyMapReduce.createConfiguration());
+        for (int i = 0; i < maxIterations; i++) {
+            this.compiler.addMapReduce(VertexProgramMapReduce.Map.class,
+                    program instanceof MessageCombiner ? VertexProgramMapReduce.Combiner.class : null,
+                    VertexProgramMapReduce.Reduce.class,
+                    LongWritable.class,
+                    MessageHolder.class,
+                    NullWritable.class,
+                    FaunusVertex.class,
+                    VertexProgramMapReduce.createConfiguration(program, i, maxIterations));
+        }
+        // the graph is handed to the steps after the program by a job that runs whether or not supersteps are skipped
+        this.compiler.addMap(ClearHaltedMap.Map.class,
+                NullWritable.class,
+                FaunusVertex.class,
+                ClearHaltedMap.createConfiguration());
+        makeMapReduceString(VertexProgramMapReduce.class, program.getClass().getSimpleName(), maxIterations);
+        return this;
+    }
+
     /////////////// UTILITIES
 
     /**
@@ -1030,8 +1126,14 @@ public class FaunusPipeline {
         return this;
     }
 
+    /**
+     * The steps of the pipeline followed by the MapReduce jobs they compile to, before and after job fusion.
+     */
     public String toString() {
-        return this.stringRepresentation.toString();
+        final String jobs = this.compiler.toStringOfJobs();
+        if (jobs.isEmpty())
+            return this.stringRepresentation.toString();
+        return this.stringRepresentation.toString() + "\n" + jobs;
     }
 
     private FaunusPipeline done() {
@@ -1,5 +1,6 @@
 package com.thinkaurelius.faunus;
 
+import com.google.common.base.Predicate;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -20,6 +21,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 import static com.tinkerpop.blueprints.Direction.*;
@@ -29,8 +31,8 @@ import static com.tinkerpop.blueprints.Direction.*;
  */
 public class FaunusVertex extends FaunusElement implements Vertex {
 
-    private Map<String, List<Edge>> outEdges = new HashMap<String, List<Edge>>();
-    private Map<String, List<Edge>> inEdges = new HashMap<String, List<Edge>>();
+    private Map<String, AdjacencyList> outEdges = new HashMap<String, AdjacencyList>();
+    private Map<String, AdjacencyList> inEdges = new HashMap<String, AdjacencyList>();
 
     public FaunusVertex() {
         super(-1l);
@@ -60,15 +62,18 @@ public class FaunusVertex extends FaunusElement implements Vertex {
     public void enablePath(final boolean enablePath) {
         super.enablePath(enablePath);
         if (this.pathEnabled) {
-            for (final Edge edge : this.getEdges(BOTH)) {
-                ((FaunusEdge) edge).enablePath(true);
+            for (final AdjacencyList list : this.outEdges.values()) {
+                list.enablePath(true);
+            }
+            for (final AdjacencyList list : this.inEdges.values()) {
+                list.enablePath(true);
             }
         }
     }
 
     public void addAll(final FaunusVertex vertex) {
         this.id = vertex.getIdAsLong();
-        this.properties = vertex.getProperties();
+        this.copyProperties(vertex);
         this.getPaths(vertex, false);
         this.addEdges(BOTH, vertex);
     }
@@ -148,35 +153,33 @@ public class FaunusVertex extends FaunusElement implements Vertex {
         return new EdgeList(edgeLists);
     }
 
-    private void addEdges(final Direction direction, final String label, final List<FaunusEdge> edges) {
-        List<Edge> list;
+    private AdjacencyList getAdjacencyList(final Direction direction, final String label) {
+        final Map<String, AdjacencyList> edges;
         if (direction.equals(OUT))
-            list = this.outEdges.get(label);
+            edges = this.outEdges;
         else if (direction.equals(IN))
-            list = this.inEdges.get(label);
+            edges = this.inEdges;
         else
             throw ExceptionFactory.bothIsNotSupported();
 
+        AdjacencyList list = edges.get(label);
         if (null == list) {
-            list = new ArrayList<Edge>();
-            if (direction.equals(OUT))
-                this.outEdges.put(label, list);
-            else
-                this.inEdges.put(label, list);
+            list = new AdjacencyList(this, direction, label);
+            edges.put(list.getLabel(), list);
         }
-        list.addAll(edges);
+        return list;
     }
 
     public void addEdges(final Direction direction, final FaunusVertex vertex) {
         if (direction.equals(OUT) || direction.equals(BOTH)) {
-            for (final String label : vertex.getEdgeLabels(OUT)) {
-                this.addEdges(OUT, label, (List) vertex.getEdges(OUT, label));
+            for (final AdjacencyList list : vertex.outEdges.values()) {
+                this.getAdjacencyList(OUT, list.getLabel()).addAll(list);
             }
         }
 
         if (direction.equals(IN) || direction.equals(BOTH)) {
-            for (final String label : vertex.getEdgeLabels(IN)) {
-                this.addEdges(IN, label, (List) vertex.getEdges(IN, label));
+            for (final AdjacencyList list : vertex.inEdges.values()) {
+                this.getAdjacencyList(IN, list.getLabel()).addAll(list);
             }
         }
     }
@@ -195,40 +198,86 @@ public class FaunusVertex extends FaunusElement implements Vertex {
     }
 
     public FaunusEdge addEdge(final Direction direction, final FaunusEdge edge) {
-        if (OUT.equals(direction)) {
-            List<Edge> edges = this.outEdges.get(edge.getLabel());
-            if (null == edges) {
-                edges = new ArrayList<Edge>();
-                this.outEdges.put(edge.getLabel(), edges);
-            }
-            edges.add(edge);
-        } else if (IN.equals(direction)) {
-            List<Edge> edges = this.inEdges.get(edge.getLabel());
-            if (null == edges) {
-                edges = new ArrayList<Edge>();
-                this.inEdges.put(edge.getLabel(), edges);
+        this.getAdjacencyList(direction, edge.getLabel()).add(edge);
+        return edge;
+    }
+
+    /**
+     * Get the ids of the adjacent vertices without materializing the edges.
+     *
+     * @param direction the direction of the edges
+     * @param labels    the labels of the edges (all labels if none are provided)
+     * @return the ids of the adjacent vertices (out-adjacent ids first when the direction is BOTH)
+     */
+    public long[] getVertexIds(final Direction direction, final String... labels) {
+        final List<AdjacencyList> lists = new ArrayList<AdjacencyList>();
+        if (direction.equals(OUT) || direction.equals(BOTH))
+            this.collectAdjacencyLists(this.outEdges, lists, labels);
+        if (direction.equals(IN) || direction.equals(BOTH))
+            this.collectAdjacencyLists(this.inEdges, lists, labels);
+
+        int size = 0;
+        for (final AdjacencyList list : lists) {
+            size = size + list.size();
+        }
+        final long[] ids = new long[size];
+        int index = 0;
+        for (final AdjacencyList list : lists) {
+            for (int i = 0; i < list.size(); i++) {
+                ids[index++] = list.getVertexId(i);
             }
-            edges.add(edge);
-        } else
-            throw ExceptionFactory.bothIsNotSupported();
+        }
+        return ids;
+    }
 
-        return edge;
+    private void collectAdjacencyLists(final Map<String, AdjacencyList> edges, final List<AdjacencyList> lists, final String... labels) {
+        if (null == labels || labels.length == 0)
+            lists.addAll(edges.values());
+        else {
+            for (final String label : labels) {
+                final AdjacencyList list = edges.get(label);
+                if (null != list)
+                    lists.add(list);
+            }
+        }
     }
 
     public void removeEdgesToFrom(final Set<Long> ids) {
-        Iterator<Edge> itty = this.getEdges(OUT).iterator();
-        while (itty.hasNext()) {
-            final Long id = (Long) itty.next().getVertex(IN).getId();
-            if (ids.contains(id))
-                itty.remove();
-        }
+        this.retainEdges(OUT, new Predicate<FaunusEdge>() {
+            public boolean apply(final FaunusEdge edge) {
+                return !ids.contains(edge.getVertexId(IN));
+            }
+        });
+        this.retainEdges(IN, new Predicate<FaunusEdge>() {
+            public boolean apply(final FaunusEdge edge) {
+                return !ids.contains(edge.getVertexId(OUT));
+            }
+        });
+    }
 
-        itty = this.getEdges(IN).iterator();
-        while (itty.hasNext()) {
-            final Long id = (Long) itty.next().getVertex(OUT).getId();
-            if (ids.contains(id))
-                itty.remove();
+    /**
+     * Remove all the edges that do not satisfy the predicate.
+     * Each label list is compacted in a single pass so filtering is linear in the degree of the vertex.
+     * Edges are presented to the predicate in the same order as getEdges(direction, labels).
+     * Edges that have not been materialized are presented through a reused FaunusEdge that must not be retained.
+     *
+     * @param direction the direction of the edges to filter
+     * @param predicate the predicate an edge must satisfy to be kept
+     * @param labels    the labels of the edges to filter (all labels if none are provided)
+     * @return the number of edges removed
+     */
+    public long retainEdges(final Direction direction, final Predicate<FaunusEdge> predicate, final String... labels) {
+        final List<AdjacencyList> lists = new ArrayList<AdjacencyList>();
+        if (direction.equals(OUT) || direction.equals(BOTH))
+            this.collectAdjacencyLists(this.outEdges, lists, labels);
+        if (direction.equals(IN) || direction.equals(BOTH))
+            this.collectAdjacencyLists(this.inEdges, lists, labels);
+
+        long removed = 0;
+        for (final AdjacencyList list : lists) {
+            removed = removed + list.retainAll(predicate);
         }
+        return removed;
     }
 
     public void removeEdges(final Tokens.Action action, final Direction direction, final String... labels) {
@@ -278,14 +327,15 @@ public class FaunusVertex extends FaunusElement implements Vertex {
 
     public void write(final DataOutput out) throws IOException {
         super.write(out);
-        EdgeMap.write((Map) this.inEdges, out, Direction.OUT);
-        EdgeMap.write((Map) this.outEdges, out, Direction.IN);
+        final ElementDictionary dictionary = ElementDictionary.getEncoder();
+        EdgeMap.write(this.inEdges, dictionary, out);
+        EdgeMap.write(this.outEdges, dictionary, out);
     }
 
     public void readFields(final DataInput in) throws IOException {
         super.readFields(in);
-        this.inEdges = (Map) EdgeMap.readFields(in, Direction.OUT, this.id);
-        this.outEdges = (Map) EdgeMap.readFields(in, Direction.IN, this.id);
+        this.inEdges = EdgeMap.readFields(in, this, IN);
+        this.outEdges = EdgeMap.readFields(in, this, OUT);
     }
 
     public String toString() {
@@ -324,38 +374,37 @@ public class FaunusVertex extends FaunusElement implements Vertex {
             throw new ArrayIndexOutOfBoundsException(index);
         }
 
-        private void removeList(final int index) {
-            int lowIndex = 0;
-            int highIndex = 0;
-            for (final List<Edge> temp : this.edges) {
-                highIndex = highIndex + temp.size();
-                if (index < highIndex) {
-                    temp.remove(index - lowIndex);
-                    return;
-                }
-                lowIndex = lowIndex + temp.size();
-
-            }
-            throw new ArrayIndexOutOfBoundsException(index);
-        }
-
         public Iterator<Edge> iterator() {
             return new Iterator<Edge>() {
+                private int list = 0;
                 private int index = 0;
+                private List<Edge> current = null;
 
                 @Override
                 public boolean hasNext() {
-                    return this.index < size;
+                    while (this.list < edges.size()) {
+                        if (this.index < edges.get(this.list).size())
+                            return true;
+                        this.list++;
+                        this.index = 0;
+                    }
+                    return false;
                 }
 
                 @Override
                 public Edge next() {
-                    return get(this.index++);
+                    if (!this.hasNext())
+                        throw new NoSuchElementException();
+                    this.current = edges.get(this.list);
+                    return this.current.get(this.index++);
                 }
 
                 @Override
                 public void remove() {
-                    removeList(--this.index);
+                    if (null == this.current)
+                        throw new IllegalStateException();
+                    this.current.remove(--this.index);
+                    this.current = null;
                     size--;
                 }
             };
@@ -365,36 +414,23 @@ public class FaunusVertex extends FaunusElement implements Vertex {
 
     private static class EdgeMap {
 
-        public static Map<String, List<FaunusEdge>> readFields(final DataInput in, final Direction idToRead, final long otherId) throws IOException {
-            final Map<String, List<FaunusEdge>> edges = new HashMap<String, List<FaunusEdge>>();
+        public static Map<String, AdjacencyList> readFields(final DataInput in, final FaunusVertex vertex, final Direction direction) throws IOException {
+            final Map<String, AdjacencyList> edges = new HashMap<String, AdjacencyList>();
             int edgeTypes = WritableUtils.readVInt(in);
             for (int i = 0; i < edgeTypes; i++) {
-                final String label = in.readUTF();
-                final int size = WritableUtils.readVInt(in);
-                final List<FaunusEdge> temp = new ArrayList<FaunusEdge>(size);
-                for (int j = 0; j < size; j++) {
-                    final FaunusEdge edge = new FaunusEdge();
-                    edge.readFieldsCompressed(in, idToRead);
-                    edge.setLabel(label);
-                    if (idToRead.equals(Direction.OUT))
-                        edge.inVertex = otherId;
-                    else
-                        edge.outVertex = otherId;
-                    temp.add(edge);
-                }
-                edges.put(label, temp);
+                final AdjacencyList list = new AdjacencyList(vertex, direction, ElementDictionary.readString(in, vertex.readDictionary));
+                list.readFields(in, WritableUtils.readVInt(in));
+                edges.put(list.getLabel(), list);
             }
             return edges;
         }
 
-        public static void write(final Map<String, List<FaunusEdge>> edges, final DataOutput out, final Direction idToWrite) throws IOException {
+        public static void write(final Map<String, AdjacencyList> edges, final ElementDictionary dictionary, final DataOutput out) throws IOException {
             WritableUtils.writeVInt(out, edges.size());
-            for (final Map.Entry<String, List<FaunusEdge>> entry : edges.entrySet()) {
-                out.writeUTF(entry.getKey());
+            for (final Map.Entry<String, AdjacencyList> entry : edges.entrySet()) {
+                ElementDictionary.writeString(entry.getKey(), dictionary, out);
                 WritableUtils.writeVInt(out, entry.getValue().size());
-                for (final FaunusEdge edge : entry.getValue()) {
-                    edge.writeCompressed(out, idToWrite);
-                }
+                entry.getValue().write(out);
             }
         }
     }
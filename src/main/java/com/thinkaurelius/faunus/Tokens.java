@@ -58,11 +58,20 @@ public class Tokens {
     public static final String PART = "part";
     public static final String GRAPH = "graph";
     public static final String SIDEEFFECT = "sideeffect";
+    public static final String MESSAGES = "messages";
+    public static final String SCHEMA = "schema";
     public static final String JOB = "job";
 
     public static final String BZ2 = "bz2";
 
     public static int DEFAULT_MAP_SPILL_OVER = 500;
     public static final String FAUNUS_PIPELINE_MAP_SPILL_OVER = "faunus.pipeline.map-spill-over";
+    public static final String FAUNUS_PIPELINE_SPARSE_TRAVERSAL = "faunus.pipeline.sparse-traversal";
+    public static final String FAUNUS_PIPELINE_JOB_FUSION = "faunus.pipeline.job-fusion";
+    public static final String FAUNUS_PIPELINE_INDEXED_INTERMEDIATE = "faunus.pipeline.indexed-intermediate";
+    public static final String FAUNUS_PIPELINE_TOTAL_ORDER = "faunus.pipeline.total-order";
+
+    public static final String FAUNUS_GRAPH_DICTIONARY = "faunus.graph.dictionary";
+    public static final String FAUNUS_GRAPH_DICTIONARY_ENCODE = "faunus.graph.dictionary.encode";
 
 }
@@ -17,11 +17,14 @@ import groovy.lang.MissingMethodException;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.OutputFormat;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -29,7 +32,15 @@ import javax.script.Bindings;
 import javax.script.ScriptException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.tinkerpop.blueprints.Direction.IN;
 import static com.tinkerpop.blueprints.Direction.OUT;
@@ -43,6 +54,7 @@ import static com.tinkerpop.blueprints.Direction.OUT;
  * During the second Map phase, all the edges of the graph are written.
  * Each write stage is embarrassingly parallel with reduce communication only used to communicate generated vertex ids.
  * The output of the final Map phase is a degenerate graph and is not considered viable for consumption.
+ * The map phases write their vertices in batches that are committed in a transaction each (see BatchWriter).
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
@@ -57,7 +69,10 @@ public class BlueprintsGraphOutputMapReduce {
         NULL_VERTEX_EDGES_IGNORED,
         NULL_VERTICES_IGNORED,
         SUCCESSFUL_TRANSACTIONS,
-        FAILED_TRANSACTIONS
+        FAILED_TRANSACTIONS,
+        RETRIED_TRANSACTIONS,
+        COMMIT_MILLISECONDS,
+        MAX_COMMIT_MILLISECONDS
     }
 
     private static final String GET_OR_CREATE_VERTEX = "getOrCreateVertex(faunusVertex,graph,mapContext)";
@@ -71,6 +86,14 @@ public class BlueprintsGraphOutputMapReduce {
     private static final String MAP_CONTEXT = "mapContext";
 
     public static final String FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_SCRIPT_FILE = "faunus.graph.output.blueprints.script-file";
+    public static final String FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_MUTATIONS = "faunus.graph.output.blueprints.commit-mutations";
+    public static final String FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_BYTES = "faunus.graph.output.blueprints.commit-bytes";
+    public static final String FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_RETRIES = "faunus.graph.output.blueprints.commit-retries";
+    public static final String FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_WRITER_THREADS = "faunus.graph.output.blueprints.writer-threads";
+
+    public static final long DEFAULT_COMMIT_MUTATIONS = 10000l;
+    public static final long DEFAULT_COMMIT_BYTES = 16l * 1024l * 1024l;
+    public static final int DEFAULT_COMMIT_RETRIES = 3;
 
     public static final Logger LOGGER = Logger.getLogger(BlueprintsGraphOutputMapReduce.class);
     // some random properties that will 'never' be used by anyone
@@ -99,87 +122,87 @@ public class BlueprintsGraphOutputMapReduce {
     // WRITE ALL THE VERTICES AND THEIR PROPERTIES
     public static class VertexMap extends Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>> {
 
-        static GremlinGroovyScriptEngine engine = null;
-        static boolean firstRead = true;
+        // per task -- tasks of the in-process engine run together in one JVM
+        private GremlinGroovyScriptEngine engine = null;
         Graph graph;
 
         private final Holder<FaunusVertex> vertexHolder = new Holder<FaunusVertex>();
         private final LongWritable longWritable = new LongWritable();
         private final FaunusVertex shellVertex = new FaunusVertex();
+        private BatchWriter writer;
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
             this.graph = BlueprintsGraphOutputMapReduce.generateGraph(context.getConfiguration());
             final String file = context.getConfiguration().get(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_SCRIPT_FILE, null);
-            if (null != file && firstRead) {
+            if (null != file) {
                 final FileSystem fs = FileSystem.get(context.getConfiguration());
                 try {
-                    engine = new GremlinGroovyScriptEngine();
-                    engine.eval(new InputStreamReader(fs.open(new Path(file))));
+                    this.engine = new GremlinGroovyScriptEngine();
+                    this.engine.eval(new InputStreamReader(fs.open(new Path(file))));
                     try {
-                        engine.eval("getOrCreateVertex(null,null,null)");
+                        this.engine.eval("getOrCreateVertex(null,null,null)");
                     } catch (ScriptException se) {
                         if (se.getCause().getCause() instanceof MissingMethodException)
-                            engine = null;
+                            this.engine = null;
                     }
                 } catch (Exception e) {
                     throw new IOException(e.getMessage());
                 }
-                firstRead = false;
             }
             LOGGER.setLevel(Level.INFO);
         }
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws IOException, InterruptedException {
-            try {
-                // Read (and/or Write) FaunusVertex (and respective properties) to Blueprints Graph
-                // Attempt to use the ID provided by Faunus
-                final Vertex blueprintsVertex = this.getOrCreateVertex(value, context);
-
-                // Propagate shell vertices with Blueprints ids
-                this.shellVertex.reuse(value.getIdAsLong());
-                this.shellVertex.setProperty(BLUEPRINTS_ID, blueprintsVertex.getId());
-                // TODO: Might need to be OUT for the sake of unidirectional edges in Titan
-                for (final Edge faunusEdge : value.getEdges(IN)) {
-                    this.longWritable.set((Long) faunusEdge.getVertex(OUT).getId());
-                    context.write(this.longWritable, this.vertexHolder.set('s', this.shellVertex));
-                }
+            if (null == this.writer) {
+                this.writer = new BatchWriter(this.graph, context) {
+                    @Override
+                    protected Object write(final FaunusVertex vertex) throws Exception {
+                        // Read (and/or Write) FaunusVertex (and respective properties) to Blueprints Graph
+                        // Attempt to use the ID provided by Faunus
+                        return getOrCreateVertex(vertex, context).getId();
+                    }
 
-                this.longWritable.set(value.getIdAsLong());
-                value.getProperties().clear();  // no longer needed in reduce phase
-                value.setProperty(BLUEPRINTS_ID, blueprintsVertex.getId()); // need this for id resolution in reduce phase
-                value.removeEdges(Tokens.Action.DROP, IN); // no longer needed in second map phase
-                context.write(this.longWritable, this.vertexHolder.set('v', value));
-            } catch (final Exception e) {
-                if (this.graph instanceof TransactionalGraph) {
-                    ((TransactionalGraph) this.graph).rollback();
-                    context.getCounter(Counters.FAILED_TRANSACTIONS).increment(1l);
-                }
-                throw new IOException(e.getMessage(), e);
+                    @Override
+                    protected void emit(final FaunusVertex vertex, final Object blueprintsId) throws IOException, InterruptedException {
+                        emitVertex(vertex, blueprintsId, context);
+                    }
+                };
+            }
+            this.writer.add(value, 1l + value.getPropertyCount());
+        }
+
+        private void emitVertex(final FaunusVertex value, final Object blueprintsId, final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws IOException, InterruptedException {
+            // Propagate shell vertices with Blueprints ids
+            this.shellVertex.reuse(value.getIdAsLong());
+            this.shellVertex.setProperty(BLUEPRINTS_ID, blueprintsId);
+            // TODO: Might need to be OUT for the sake of unidirectional edges in Titan
+            for (final Edge faunusEdge : value.getEdges(IN)) {
+                this.longWritable.set((Long) faunusEdge.getVertex(OUT).getId());
+                context.write(this.longWritable, this.vertexHolder.set('s', this.shellVertex));
             }
 
+            this.longWritable.set(value.getIdAsLong());
+            value.getProperties().clear();  // no longer needed in reduce phase
+            value.setProperty(BLUEPRINTS_ID, blueprintsId); // need this for id resolution in reduce phase
+            value.removeEdges(Tokens.Action.DROP, IN); // no longer needed in second map phase
+            context.write(this.longWritable, this.vertexHolder.set('v', value));
         }
 
         @Override
         public void cleanup(final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws IOException, InterruptedException {
-            if (this.graph instanceof TransactionalGraph) {
-                try {
-                    ((TransactionalGraph) this.graph).commit();
-                    context.getCounter(Counters.SUCCESSFUL_TRANSACTIONS).increment(1l);
-                } catch (Exception e) {
-                    LOGGER.error("Could not commit transaction during VertexMap.cleanup():", e);
-                    ((TransactionalGraph) this.graph).rollback();
-                    context.getCounter(Counters.FAILED_TRANSACTIONS).increment(1l);
-                    throw new IOException(e.getMessage(), e);
-                }
+            try {
+                if (null != this.writer)
+                    this.writer.close();
+            } finally {
+                this.graph.shutdown();
             }
-            this.graph.shutdown();
         }
 
         public Vertex getOrCreateVertex(final FaunusVertex faunusVertex, final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws InterruptedException {
             final Vertex blueprintsVertex;
-            if (null == engine) {
+            if (null == this.engine) {
                 blueprintsVertex = this.graph.addVertex(faunusVertex.getIdAsLong());
                 context.getCounter(Counters.VERTICES_WRITTEN).increment(1l);
                 for (final String property : faunusVertex.getPropertyKeys()) {
@@ -188,11 +211,11 @@ public class BlueprintsGraphOutputMapReduce {
                 }
             } else {
                 try {
-                    final Bindings bindings = engine.createBindings();
+                    final Bindings bindings = this.engine.createBindings();
                     bindings.put(FAUNUS_VERTEX, faunusVertex);
                     bindings.put(GRAPH, this.graph);
                     bindings.put(MAP_CONTEXT, context);
-                    blueprintsVertex = (Vertex) engine.eval(GET_OR_CREATE_VERTEX, bindings);
+                    blueprintsVertex = (Vertex) this.engine.eval(GET_OR_CREATE_VERTEX, bindings);
                 } catch (Exception e) {
                     throw new InterruptedException(e.getMessage());
                 }
@@ -232,92 +255,98 @@ public class BlueprintsGraphOutputMapReduce {
     // WRITE ALL THE EDGES CONNECTING THE VERTICES
     public static class EdgeMap extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
 
-        static GremlinGroovyScriptEngine engine = null;
-        static boolean firstRead = true;
+        // per task, as in VertexMap
+        private GremlinGroovyScriptEngine engine = null;
         Graph graph;
 
         private static final FaunusVertex DEAD_FAUNUS_VERTEX = new FaunusVertex();
+        private BatchWriter writer;
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
             this.graph = BlueprintsGraphOutputMapReduce.generateGraph(context.getConfiguration());
             final String file = context.getConfiguration().get(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_SCRIPT_FILE, null);
-            if (null != file && firstRead) {
+            if (null != file) {
                 final FileSystem fs = FileSystem.get(context.getConfiguration());
                 try {
-                    engine = new GremlinGroovyScriptEngine();
-                    engine.eval(new InputStreamReader(fs.open(new Path(file))));
+                    this.engine = new GremlinGroovyScriptEngine();
+                    this.engine.eval(new InputStreamReader(fs.open(new Path(file))));
                     try {
-                        engine.eval("getOrCreateEdge(null,null,null,null,null)");
+                        this.engine.eval("getOrCreateEdge(null,null,null,null,null)");
                     } catch (ScriptException se) {
                         if (se.getCause().getCause() instanceof MissingMethodException)
-                            engine = null;
+                            this.engine = null;
                     }
                 } catch (Exception e) {
                     throw new IOException(e.getMessage());
                 }
-                firstRead = false;
             }
             LOGGER.setLevel(Level.INFO);
         }
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            try {
-                final java.util.Map<Long, Object> faunusBlueprintsIdMap = value.getProperty(ID_MAP_KEY);
-                final Object blueprintsId = value.getProperty(BLUEPRINTS_ID);
-                Vertex blueprintsVertex = null;
-                if (null != blueprintsId)
-                    blueprintsVertex = this.graph.getVertex(blueprintsId);
-                // this means that an adjacent vertex to this vertex wasn't created
-                if (null != blueprintsVertex) {
-                    for (final Edge faunusEdge : value.getEdges(OUT)) {
-                        final Object otherId = faunusBlueprintsIdMap.get(faunusEdge.getVertex(IN).getId());
-                        Vertex otherVertex = null;
-                        if (null != otherId)
-                            otherVertex = this.graph.getVertex(otherId);
-                        if (null != otherVertex) {
-                            this.getOrCreateEdge((FaunusEdge) faunusEdge, blueprintsVertex, otherVertex, context);
-                        } else {
-                            LOGGER.warn("No target vertex: faunusVertex[" + faunusEdge.getVertex(IN).getId() + "] blueprintsVertex[" + otherId + "]");
-                            context.getCounter(Counters.NULL_VERTEX_EDGES_IGNORED).increment(1l);
-                        }
+            if (null == this.writer) {
+                this.writer = new BatchWriter(this.graph, context) {
+                    @Override
+                    protected Object write(final FaunusVertex vertex) throws Exception {
+                        writeEdges(vertex, context);
+                        return null;
                     }
-                } else {
-                    LOGGER.warn("No source vertex: faunusVertex[" + NullWritable.get() + "] blueprintsVertex[" + blueprintsId + "]");
-                    context.getCounter(Counters.NULL_VERTICES_IGNORED).increment(1l);
-                }
-                // the emitted vertex is not complete -- assuming this is the end of the stage and vertex is dead
-                context.write(NullWritable.get(), DEAD_FAUNUS_VERTEX);
-            } catch (final Exception e) {
-                if (this.graph instanceof TransactionalGraph) {
-                    ((TransactionalGraph) this.graph).rollback();
-                    context.getCounter(Counters.FAILED_TRANSACTIONS).increment(1l);
-                }
-                throw new IOException(e.getMessage(), e);
+
+                    @Override
+                    protected void emit(final FaunusVertex vertex, final Object result) throws IOException, InterruptedException {
+                        // the emitted vertex is not complete -- assuming this is the end of the stage and vertex is dead
+                        context.write(NullWritable.get(), DEAD_FAUNUS_VERTEX);
+                    }
+                };
+            }
+            long mutations = 0l;
+            for (final Edge faunusEdge : value.getEdges(OUT)) {
+                mutations = mutations + 1l + ((FaunusEdge) faunusEdge).getPropertyCount();
             }
+            this.writer.add(value, mutations);
+        }
 
+        private void writeEdges(final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws InterruptedException {
+            final java.util.Map<Long, Object> faunusBlueprintsIdMap = value.getProperty(ID_MAP_KEY);
+            final Object blueprintsId = value.getProperty(BLUEPRINTS_ID);
+            Vertex blueprintsVertex = null;
+            if (null != blueprintsId)
+                blueprintsVertex = this.graph.getVertex(blueprintsId);
+            // this means that an adjacent vertex to this vertex wasn't created
+            if (null != blueprintsVertex) {
+                for (final Edge faunusEdge : value.getEdges(OUT)) {
+                    final Object otherId = faunusBlueprintsIdMap.get(faunusEdge.getVertex(IN).getId());
+                    Vertex otherVertex = null;
+                    if (null != otherId)
+                        otherVertex = this.graph.getVertex(otherId);
+                    if (null != otherVertex) {
+                        this.getOrCreateEdge((FaunusEdge) faunusEdge, blueprintsVertex, otherVertex, context);
+                    } else {
+                        LOGGER.warn("No target vertex: faunusVertex[" + faunusEdge.getVertex(IN).getId() + "] blueprintsVertex[" + otherId + "]");
+                        context.getCounter(Counters.NULL_VERTEX_EDGES_IGNORED).increment(1l);
+                    }
+                }
+            } else {
+                LOGGER.warn("No source vertex: faunusVertex[" + NullWritable.get() + "] blueprintsVertex[" + blueprintsId + "]");
+                context.getCounter(Counters.NULL_VERTICES_IGNORED).increment(1l);
+            }
         }
 
         @Override
         public void cleanup(final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            if (this.graph instanceof TransactionalGraph) {
-                try {
-                    ((TransactionalGraph) this.graph).commit();
-                    context.getCounter(Counters.SUCCESSFUL_TRANSACTIONS).increment(1l);
-                } catch (Exception e) {
-                    LOGGER.error("Could not commit transaction during EdgeMap.cleanup():", e);
-                    ((TransactionalGraph) this.graph).rollback();
-                    context.getCounter(Counters.FAILED_TRANSACTIONS).increment(1l);
-                    throw new IOException(e.getMessage(), e);
-                }
+            try {
+                if (null != this.writer)
+                    this.writer.close();
+            } finally {
+                this.graph.shutdown();
             }
-            this.graph.shutdown();
         }
 
         public Edge getOrCreateEdge(final FaunusEdge faunusEdge, final Vertex blueprintsOutVertex, final Vertex blueprintsInVertex, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws InterruptedException {
             final Edge blueprintsEdge;
-            if (null == engine) {
+            if (null == this.engine) {
                 blueprintsEdge = this.graph.addEdge(null, blueprintsOutVertex, blueprintsInVertex, faunusEdge.getLabel());
                 context.getCounter(Counters.EDGES_WRITTEN).increment(1l);
                 for (final String property : faunusEdge.getPropertyKeys()) {
@@ -326,13 +355,13 @@ public class BlueprintsGraphOutputMapReduce {
                 }
             } else {
                 try {
-                    final Bindings bindings = engine.createBindings();
+                    final Bindings bindings = this.engine.createBindings();
                     bindings.put(FAUNUS_EDGE, faunusEdge);
                     bindings.put(BLUEPRINTS_OUT_VERTEX, blueprintsOutVertex);
                     bindings.put(BLUEPRINTS_IN_VERTEX, blueprintsInVertex);
                     bindings.put(GRAPH, this.graph);
                     bindings.put(MAP_CONTEXT, context);
-                    blueprintsEdge = (Edge) engine.eval(GET_OR_CREATE_EDGE, bindings);
+                    blueprintsEdge = (Edge) this.engine.eval(GET_OR_CREATE_EDGE, bindings);
                 } catch (Exception e) {
                     throw new InterruptedException(e.getMessage());
                 }
@@ -341,4 +370,170 @@ public class BlueprintsGraphOutputMapReduce {
         }
     }
 
+    /**
+     * BatchWriter writes the vertices of a map task to the graph in batches that are committed in a transaction each.
+     * A batch is committed once it holds faunus.graph.output.blueprints.commit-mutations mutations or
+     * faunus.graph.output.blueprints.commit-bytes serialized bytes (0 disables the limit) and a failed batch is
+     * rolled back and written again up to faunus.graph.output.blueprints.commit-retries times.
+     * With more than one faunus.graph.output.blueprints.writer-threads, the batches are written by a pool of threads
+     * that each own their thread-bound transaction (as Titan does). The output of a batch is emitted by the task thread
+     * once the batch is committed and in the order of the input.
+     */
+    public abstract static class BatchWriter {
+
+        private final Graph graph;
+        private final TaskInputOutputContext context;
+        private final long commitMutations;
+        private final long commitBytes;
+        private final int commitRetries;
+        private final int threads;
+        private final ExecutorService executor;
+        private final LinkedList<Future<Batch>> writing = new LinkedList<Future<Batch>>();
+        private Batch batch = new Batch();
+        private long maxCommitTime = 0l;
+
+        public BatchWriter(final Graph graph, final TaskInputOutputContext context) {
+            final Configuration configuration = context.getConfiguration();
+            this.graph = graph;
+            this.context = context;
+            this.commitMutations = configuration.getLong(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_MUTATIONS, DEFAULT_COMMIT_MUTATIONS);
+            this.commitBytes = configuration.getLong(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_BYTES, DEFAULT_COMMIT_BYTES);
+            this.commitRetries = configuration.getInt(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_RETRIES, DEFAULT_COMMIT_RETRIES);
+            this.threads = configuration.getInt(FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_WRITER_THREADS, 1);
+            this.executor = this.threads > 1 ? Executors.newFixedThreadPool(this.threads) : null;
+        }
+
+        /**
+         * Write a vertex of a batch to the graph. This may happen in a writer thread and more than once per vertex.
+         *
+         * @return the result of the vertex that is emitted once its batch is committed
+         */
+        protected abstract Object write(final FaunusVertex vertex) throws Exception;
+
+        /**
+         * Emit the output of a vertex of a committed batch.
+         */
+        protected abstract void emit(final FaunusVertex vertex, final Object result) throws IOException, InterruptedException;
+
+        public void add(final FaunusVertex vertex, final long mutations) throws IOException, InterruptedException {
+            this.batch.add(vertex, mutations);
+            if ((this.commitMutations > 0 && this.batch.mutations >= this.commitMutations) ||
+                    (this.commitBytes > 0 && this.batch.buffer.getLength() >= this.commitBytes))
+                this.submit();
+        }
+
+        /**
+         * Commit the last batch and wait for the batches of the writer threads.
+         */
+        public void close() throws IOException, InterruptedException {
+            try {
+                if (this.batch.size > 0)
+                    this.submit();
+                while (!this.writing.isEmpty()) {
+                    this.emit(this.writing.removeFirst());
+                }
+            } finally {
+                if (null != this.executor)
+                    this.executor.shutdownNow();
+            }
+        }
+
+        private void submit() throws IOException, InterruptedException {
+            final Batch batch = this.batch;
+            this.batch = new Batch();
+            if (null == this.executor) {
+                this.emit(this.commit(batch));
+            } else {
+                this.writing.add(this.executor.submit(new Callable<Batch>() {
+                    public Batch call() throws IOException {
+                        return commit(batch);
+                    }
+                }));
+                // one batch per writer thread is in flight while the next batch is filled
+                while (this.writing.size() > this.threads) {
+                    this.emit(this.writing.removeFirst());
+                }
+            }
+        }
+
+        private void emit(final Future<Batch> future) throws IOException, InterruptedException {
+            try {
+                this.emit(future.get());
+            } catch (final ExecutionException e) {
+                throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        private void emit(final Batch batch) throws IOException, InterruptedException {
+            for (int i = 0; i < batch.size; i++) {
+                this.emit(batch.vertices.get(i), batch.results.get(i));
+            }
+        }
+
+        private Batch commit(final Batch batch) throws IOException {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    batch.read();
+                    for (final FaunusVertex vertex : batch.vertices) {
+                        batch.results.add(this.write(vertex));
+                    }
+                    if (this.graph instanceof TransactionalGraph) {
+                        final long start = System.currentTimeMillis();
+                        ((TransactionalGraph) this.graph).commit();
+                        this.commitTime(System.currentTimeMillis() - start);
+                        this.context.getCounter(Counters.SUCCESSFUL_TRANSACTIONS).increment(1l);
+                    }
+                    return batch;
+                } catch (final Exception e) {
+                    if (this.graph instanceof TransactionalGraph) {
+                        ((TransactionalGraph) this.graph).rollback();
+                        this.context.getCounter(Counters.FAILED_TRANSACTIONS).increment(1l);
+                    }
+                    if (attempt >= this.commitRetries) {
+                        LOGGER.error("Could not commit a batch of " + batch.size + " vertices:", e);
+                        throw new IOException(e.getMessage(), e);
+                    }
+                    LOGGER.warn("Retrying a failed batch of " + batch.size + " vertices: " + e.getMessage());
+                    this.context.getCounter(Counters.RETRIED_TRANSACTIONS).increment(1l);
+                }
+            }
+        }
+
+        private synchronized void commitTime(final long time) {
+            this.context.getCounter(Counters.COMMIT_MILLISECONDS).increment(time);
+            if (time > this.maxCommitTime) {
+                this.context.getCounter(Counters.MAX_COMMIT_MILLISECONDS).increment(time - this.maxCommitTime);
+                this.maxCommitTime = time;
+            }
+        }
+    }
+
+    /**
+     * The vertices of a batch are kept serialized (as the values of the record reader may be reused) and are
+     * deserialized for every attempt to write them.
+     */
+    private static class Batch {
+
+        private final DataOutputBuffer buffer = new DataOutputBuffer();
+        private final List<FaunusVertex> vertices = new ArrayList<FaunusVertex>();
+        private final List<Object> results = new ArrayList<Object>();
+        private long mutations = 0l;
+        private int size = 0;
+
+        private void add(final FaunusVertex vertex, final long mutations) throws IOException {
+            vertex.write(this.buffer);
+            this.mutations = this.mutations + mutations;
+            this.size++;
+        }
+
+        private void read() throws IOException {
+            this.vertices.clear();
+            this.results.clear();
+            final DataInputBuffer in = new DataInputBuffer();
+            in.reset(this.buffer.getData(), this.buffer.getLength());
+            for (int i = 0; i < this.size; i++) {
+                this.vertices.add(new FaunusVertex(in));
+            }
+        }
+    }
 }
@@ -2,6 +2,8 @@ package com.thinkaurelius.faunus.formats;
 
 import com.thinkaurelius.faunus.formats.graphson.GraphSONInputFormat;
 import com.thinkaurelius.faunus.formats.graphson.GraphSONOutputFormat;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphInputFormat;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphOutputFormat;
 import com.thinkaurelius.faunus.formats.script.ScriptInputFormat;
 import com.thinkaurelius.faunus.formats.script.ScriptOutputFormat;
 import com.thinkaurelius.faunus.formats.titan.cassandra.TitanCassandraInputFormat;
@@ -29,6 +31,8 @@ public class Inverter {
             return TitanCassandraOutputFormat.class;
         else if (inputFormat.equals(ScriptInputFormat.class))
             return ScriptOutputFormat.class;
+        else if (inputFormat.equals(IndexedGraphInputFormat.class))
+            return IndexedGraphOutputFormat.class;
 
         throw new UnsupportedOperationException("There currently is no inverse for " + inputFormat.getName());
     }
@@ -44,6 +48,8 @@ public class Inverter {
             return TitanCassandraInputFormat.class;
         else if (outputFormat.equals(ScriptOutputFormat.class))
             return ScriptInputFormat.class;
+        else if (outputFormat.equals(IndexedGraphOutputFormat.class))
+            return IndexedGraphInputFormat.class;
 
         throw new UnsupportedOperationException("There currently is no inverse for " + outputFormat.getName());
     }
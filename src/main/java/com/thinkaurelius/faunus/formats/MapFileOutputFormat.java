@@ -0,0 +1,58 @@
+package com.thinkaurelius.faunus.formats;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+
+/**
+ * MapFileOutputFormat writes every partition as a MapFile (a sorted SequenceFile with an index) so that later jobs
+ * can look records up by key with MapFileReaders. The keys of a partition must be written in sorted order,
+ * which is the case for the output of a reducer.
+ * The data file of each MapFile can be read back with SequenceFileInputFormat.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MapFileOutputFormat extends FileOutputFormat<WritableComparable, Writable> {
+
+    @Override
+    public RecordWriter<WritableComparable, Writable> getRecordWriter(final TaskAttemptContext context) throws IOException, InterruptedException {
+        final Configuration configuration = context.getConfiguration();
+        CompressionCodec codec = null;
+        SequenceFile.CompressionType compressionType = SequenceFile.CompressionType.NONE;
+        if (getCompressOutput(context)) {
+            compressionType = SequenceFileOutputFormat.getOutputCompressionType(context);
+            codec = ReflectionUtils.newInstance(getOutputCompressorClass(context, DefaultCodec.class), configuration);
+        }
+        final Path file = super.getDefaultWorkFile(context, "");
+        final FileSystem fs = file.getFileSystem(configuration);
+        final MapFile.Writer writer = new MapFile.Writer(configuration, fs, file.toString(),
+                context.getOutputKeyClass().asSubclass(WritableComparable.class),
+                context.getOutputValueClass().asSubclass(Writable.class),
+                compressionType, codec, context);
+
+        return new RecordWriter<WritableComparable, Writable>() {
+            @Override
+            public void write(final WritableComparable key, final Writable value) throws IOException {
+                writer.append(key, value);
+            }
+
+            @Override
+            public void close(final TaskAttemptContext context) throws IOException {
+                writer.close();
+            }
+        };
+    }
+}
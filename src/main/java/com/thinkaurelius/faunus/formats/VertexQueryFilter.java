@@ -1,22 +1,36 @@
 package com.thinkaurelius.faunus.formats;
 
+import com.google.common.base.Predicate;
+import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.util.ClosureCompiler;
+import com.thinkaurelius.faunus.mapreduce.util.ElementChecker;
+import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.VertexQuery;
 import com.tinkerpop.blueprints.util.DefaultVertexQuery;
-import com.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
-import java.util.Iterator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 /**
  * A filtering mechanism for, if possible, only getting particular aspects of a vertex from the graph.
  * A minimum, the filtering is done on the Hadoop side of the computation.
  * Makes use of VertexQuery from Blueprints to express such constraints.
+ * <p/>
+ * Vertex predicates (see addPredicate()) are pushed down filters of the vertices of the graph.
+ * The record readers drop the vertices that do not satisfy them and, where the format allows it, reject records
+ * before they are parsed (see mayBeLegal()). FaunusCompiler pushes down the leading has() and interval() steps of
+ * pipelines that do not need the rest of the graph.
  *
  * @author Marko A. Rodriguez (marko@thinkaurelius.com)
  * @author Matthias Broecheler (me@matthiasb.com)
@@ -25,29 +39,162 @@ import java.util.Set;
 public class VertexQueryFilter extends DefaultVertexQuery {
 
     public static final String FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER = "faunus.graph.input.vertex-query-filter";
+    public static final String FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES = "faunus.graph.input.vertex-predicates";
+
+    private static final String SIZE = ".size";
+    private static final String KEY = ".key";
+    private static final String COMPARE = ".compare";
+    private static final String VALUE_CLASS = ".valueClass";
+    private static final String VALUES = ".values";
+    private static final String QUOTE = "\"";
+    private static final String UTF8 = "UTF-8";
+    // string values that are written as is in a JSON record
+    private static final Pattern LITERAL = Pattern.compile("[\\x20-\\x7E&&[^\"\\\\]]*");
+    private static final byte[] BACKSLASH = new byte[]{'\\'};
+
+    public enum Counters {
+        VERTICES_FILTERED,
+        RECORDS_SKIPPED
+    }
 
-    private static final GremlinGroovyScriptEngine engine = new GremlinGroovyScriptEngine();
     private static final String V = "v";
+    private static final String DEFAULT_QUERY = "v.query()";
     private static final DummyVertex DUMMY_VERTEX = new DummyVertex();
 
     private boolean doesFilter = false;
+    private final List<ElementChecker> predicates = new ArrayList<ElementChecker>();
+    // per predicate that compares for equality with strings, the UTF-8 bytes of the JSON literals of its values
+    private final List<byte[][]> literals = new ArrayList<byte[][]>();
 
     protected VertexQueryFilter() {
         super(DUMMY_VERTEX);
     }
 
     public static VertexQueryFilter create(final Configuration configuration) {
-        engine.put(V, DUMMY_VERTEX);
         try {
-            VertexQueryFilter query = (VertexQueryFilter) engine.eval(configuration.get(FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER, "v.query()"));
+            final VertexQueryFilter query = (VertexQueryFilter) ClosureCompiler.getScript(configuration, FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER, V, DEFAULT_QUERY).compute(DUMMY_VERTEX);
             if (null != configuration.get(FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER))
                 query.setDoesFilter(true);
+            query.loadPredicates(configuration);
             return query;
         } catch (final Exception e) {
             throw new RuntimeException("VertexQueryFilter compilation error: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Compile the vertex query filter of the configuration so the tasks that read the graph do not compile it.
+     */
+    public static void compile(final Configuration configuration) {
+        ClosureCompiler.compileScript(configuration, FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER, V);
+    }
+
+    /**
+     * Add a vertex predicate to the configuration. The values are the string forms of values of the value class
+     * (String, Boolean or a Number class which is compared as a Float) as with PropertyFilterMap.
+     */
+    public static void addPredicate(final Configuration configuration, final String key, final Compare compare, final Class valueClass, final String... values) {
+        final int size = configuration.getInt(FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES + SIZE, 0);
+        final String prefix = FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES + "." + size;
+        configuration.set(prefix + KEY, key);
+        configuration.set(prefix + COMPARE, compare.name());
+        configuration.set(prefix + VALUE_CLASS, valueClass.getName());
+        configuration.setStrings(prefix + VALUES, values);
+        configuration.setInt(FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES + SIZE, size + 1);
+    }
+
+    private void loadPredicates(final Configuration configuration) throws IOException {
+        final int size = configuration.getInt(FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES + SIZE, 0);
+        for (int i = 0; i < size; i++) {
+            final String prefix = FAUNUS_GRAPH_INPUT_VERTEX_PREDICATES + "." + i;
+            final Compare compare = Compare.valueOf(configuration.get(prefix + COMPARE));
+            final Class valueClass = configuration.getClass(prefix + VALUE_CLASS, String.class);
+            final String[] valueStrings = configuration.getStrings(prefix + VALUES, new String[0]);
+            final Object[] values = new Object[valueStrings.length];
+            boolean literal = compare.equals(Compare.EQUAL) && valueClass.equals(String.class);
+            for (int j = 0; j < valueStrings.length; j++) {
+                if (valueStrings[j].equals(Tokens.NULL) || valueClass.equals(Object.class))
+                    values[j] = null;
+                else if (valueClass.equals(String.class))
+                    values[j] = valueStrings[j];
+                else if (Number.class.isAssignableFrom(valueClass))
+                    values[j] = Float.valueOf(valueStrings[j]);
+                else if (valueClass.equals(Boolean.class))
+                    values[j] = Boolean.valueOf(valueStrings[j]);
+                else
+                    throw new IllegalArgumentException("Class " + valueClass + " is an unsupported value class");
+                literal = literal && null != values[j] && LITERAL.matcher(valueStrings[j]).matches();
+            }
+            this.predicates.add(new ElementChecker(configuration.get(prefix + KEY), compare, values));
+            if (literal && values.length > 0) {
+                final byte[][] strings = new byte[values.length][];
+                for (int j = 0; j < values.length; j++) {
+                    strings[j] = (QUOTE + values[j] + QUOTE).getBytes(UTF8);
+                }
+                this.literals.add(strings);
+            }
+        }
+    }
+
+    public boolean hasPredicates() {
+        return !this.predicates.isEmpty();
+    }
+
+    /**
+     * Whether the vertex satisfies the vertex predicates. A vertex that does not is counted as filtered.
+     */
+    public boolean isLegal(final FaunusVertex vertex, final TaskAttemptContext context) {
+        for (final ElementChecker predicate : this.predicates) {
+            if (!predicate.isLegal(vertex)) {
+                incrementCounter(context, Counters.VERTICES_FILTERED);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the UTF-8 JSON record of a vertex may satisfy the vertex predicates. The record of a vertex that is compared
+     * for equality with strings must contain one of the strings. A record with escapes (e.g. an escaped slash or a
+     * unicode escape) may spell the strings differently and is never rejected. A rejected record is counted as skipped.
+     */
+    public boolean mayBeLegal(final byte[] record, final int length, final TaskAttemptContext context) {
+        if (this.literals.isEmpty() || contains(record, length, BACKSLASH))
+            return true;
+        for (final byte[][] strings : this.literals) {
+            boolean found = false;
+            for (final byte[] string : strings) {
+                if (contains(record, length, string)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                incrementCounter(context, Counters.RECORDS_SKIPPED);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(final byte[] record, final int length, final byte[] string) {
+        for (int i = 0; i <= length - string.length; i++) {
+            int j = 0;
+            while (j < string.length && record[i + j] == string[j]) {
+                j++;
+            }
+            if (j == string.length)
+                return true;
+        }
+        return false;
+    }
+
+    private static void incrementCounter(final TaskAttemptContext context, final Counters counter) {
+        // the record reader of a map task is initialized with the context of the mapper
+        if (context instanceof TaskInputOutputContext)
+            ((TaskInputOutputContext) context).getCounter(counter).increment(1l);
+    }
+
     protected void setDoesFilter(final boolean doesFilter) {
         this.doesFilter = doesFilter;
     }
@@ -75,26 +222,25 @@ public class VertexQueryFilter extends DefaultVertexQuery {
     public void defaultFilter(final FaunusVertex vertex) {
         if (!this.doesFilter) return;
         vertex.removeEdges(Tokens.Action.KEEP, this.direction, this.labels);
-        Iterator<Edge> itty;
-        Edge edge;
         if (this.hasContainers.size() > 0) {
-            itty = vertex.getEdges(this.direction).iterator();
-            while (itty.hasNext()) {
-                edge = itty.next();
-                for (final HasContainer hasContainer : this.hasContainers) {
-                    if (!hasContainer.isLegal(edge))
-                        itty.remove();
+            vertex.retainEdges(this.direction, new Predicate<FaunusEdge>() {
+                public boolean apply(final FaunusEdge edge) {
+                    for (final HasContainer hasContainer : hasContainers) {
+                        if (!hasContainer.isLegal(edge))
+                            return false;
+                    }
+                    return true;
                 }
-            }
+            });
         }
         if (this.limit != Long.MAX_VALUE) {
-            itty = vertex.getEdges(this.direction).iterator();
-            long counter = 0;
-            while (itty.hasNext()) {
-                itty.next();
-                if (++counter > this.limit)
-                    itty.remove();
-            }
+            vertex.retainEdges(this.direction, new Predicate<FaunusEdge>() {
+                private long counter = 0;
+
+                public boolean apply(final FaunusEdge edge) {
+                    return ++this.counter <= limit;
+                }
+            });
         }
     }
 
@@ -12,12 +12,17 @@ import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
 import static com.tinkerpop.blueprints.Direction.*;
 
 /**
+ * EdgeListInputMapReduce assembles the vertices of an edge list of FaunusVertex and FaunusEdge elements.
+ * The mapper takes ownership of the elements of its record reader and buffers the vertices they describe until
+ * their estimated heap size reaches faunus.graph.input.edgelist.buffer-size.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class EdgeListInputMapReduce {
@@ -28,9 +33,20 @@ public class EdgeListInputMapReduce {
         IN_EDGES_CREATED,
         OUT_EDGES_CREATED,
         VERTICES_CREATED,
-        VERTEX_PROPERTIES_CREATED
+        VERTEX_PROPERTIES_CREATED,
+        BUFFER_FLUSHES
     }
 
+    /**
+     * The estimated heap bytes of the vertices buffered by a mapper before they are written.
+     */
+    public static final String FAUNUS_GRAPH_INPUT_EDGELIST_BUFFER_SIZE = "faunus.graph.input.edgelist.buffer-size";
+    public static final long DEFAULT_BUFFER_SIZE = 32l * 1024l * 1024l;
+    /**
+     * Whether the mapper copies its input elements (for record readers that reuse the elements they return).
+     */
+    public static final String FAUNUS_GRAPH_INPUT_EDGELIST_COPY_ELEMENTS = "faunus.graph.input.edgelist.copy-elements";
+
     public static Configuration createConfiguration() {
         return new EmptyConfiguration();
     }
@@ -38,60 +54,103 @@ public class EdgeListInputMapReduce {
     public static class Map extends Mapper<NullWritable, FaunusElement, LongWritable, FaunusVertex> {
 
         private final HashMap<Long, FaunusVertex> map = new HashMap<Long, FaunusVertex>();
-        private static final int MAX_MAP_SIZE = 5000;
         private final LongWritable longWritable = new LongWritable();
-        private int counter = 0;
+        private long bufferSize;
+        private long bytes = 0;
+        private boolean copyElements;
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.bufferSize = context.getConfiguration().getLong(FAUNUS_GRAPH_INPUT_EDGELIST_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+            this.copyElements = context.getConfiguration().getBoolean(FAUNUS_GRAPH_INPUT_EDGELIST_COPY_ELEMENTS, false);
+        }
 
         @Override
         public void map(final NullWritable key, final FaunusElement value, final Mapper<NullWritable, FaunusElement, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
             if (value instanceof FaunusEdge) {
-                final long outId = ((FaunusEdge) value).getVertexId(OUT);
-                final long inId = ((FaunusEdge) value).getVertexId(IN);
-                FaunusVertex vertex = this.map.get(outId);
-                if (null == vertex) {
-                    vertex = new FaunusVertex(outId);
-                    this.map.put(outId, vertex);
-                }
-                vertex.addEdge(OUT, WritableUtils.clone((FaunusEdge) value, context.getConfiguration()));
-                this.counter++;
-
-                vertex = this.map.get(inId);
-                if (null == vertex) {
-                    vertex = new FaunusVertex(inId);
-                    this.map.put(inId, vertex);
-                }
-                vertex.addEdge(IN, WritableUtils.clone((FaunusEdge) value, context.getConfiguration()));
+                // the edge is owned by the mapper and shared by the adjacency lists of both of its vertices
+                final FaunusEdge edge = this.copyElements ? WritableUtils.clone((FaunusEdge) value, context.getConfiguration()) : (FaunusEdge) value;
+                this.getVertex(edge.getVertexId(OUT)).addEdge(OUT, edge);
+                this.getVertex(edge.getVertexId(IN)).addEdge(IN, edge);
+                this.bytes = this.bytes + estimateEdgeSize(edge);
                 context.getCounter(Counters.EDGES_PROCESSED).increment(1l);
-                this.counter++;
             } else {
-                final long id = value.getIdAsLong();
-                FaunusVertex vertex = this.map.get(id);
+                final FaunusVertex element = this.copyElements ? WritableUtils.clone((FaunusVertex) value, context.getConfiguration()) : (FaunusVertex) value;
+                final long id = element.getIdAsLong();
+                final FaunusVertex vertex = this.map.get(id);
                 if (null == vertex) {
-                    vertex = new FaunusVertex(id);
-                    this.map.put(id, vertex);
+                    this.map.put(id, element);
+                    this.bytes = this.bytes + VERTEX_SIZE;
+                } else {
+                    vertex.getProperties().putAll(element.getProperties());
+                    vertex.addEdges(BOTH, element);
                 }
-                vertex.getProperties().putAll(value.getProperties());
-                vertex.addEdges(BOTH, WritableUtils.clone((FaunusVertex) value, context.getConfiguration()));
-                this.counter++;
+                this.bytes = this.bytes + estimatePropertiesSize(element) + (EDGE_SIZE * element.getVertexIds(BOTH).length);
             }
-            if (this.counter > MAX_MAP_SIZE)
+            if (this.bytes > this.bufferSize)
                 this.flush(context);
         }
 
+        private FaunusVertex getVertex(final long id) {
+            FaunusVertex vertex = this.map.get(id);
+            if (null == vertex) {
+                vertex = new FaunusVertex(id);
+                this.map.put(id, vertex);
+                this.bytes = this.bytes + VERTEX_SIZE;
+            }
+            return vertex;
+        }
+
         @Override
         public void cleanup(final Mapper<NullWritable, FaunusElement, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
             this.flush(context);
         }
 
         private void flush(final Mapper<NullWritable, FaunusElement, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            for (final FaunusVertex vertex : this.map.values()) {
-                this.longWritable.set(vertex.getIdAsLong());
-                context.write(this.longWritable, vertex);
+            if (this.map.isEmpty())
+                return;
+            // the vertices are written in id order so the combiner sees sorted runs
+            final long[] ids = new long[this.map.size()];
+            int i = 0;
+            for (final Long id : this.map.keySet()) {
+                ids[i++] = id;
+            }
+            Arrays.sort(ids);
+            for (final long id : ids) {
+                this.longWritable.set(id);
+                context.write(this.longWritable, this.map.get(id));
                 context.getCounter(Counters.VERTICES_EMITTED).increment(1l);
             }
+            context.getCounter(Counters.BUFFER_FLUSHES).increment(1l);
             this.map.clear();
-            this.counter = 0;
+            this.bytes = 0;
+        }
+    }
+
+    /**
+     * A rough estimate of the heap bytes of a buffered vertex: the vertex, its map entry and its adjacency lists.
+     */
+    private static final long VERTEX_SIZE = 256l;
+    /**
+     * A rough estimate of the heap bytes of a buffered edge (without properties) and its adjacency list entries.
+     */
+    private static final long EDGE_SIZE = 96l;
+    private static final long PROPERTY_SIZE = 64l;
+
+    private static long estimateEdgeSize(final FaunusEdge edge) {
+        return EDGE_SIZE + estimatePropertiesSize(edge);
+    }
+
+    private static long estimatePropertiesSize(final FaunusElement element) {
+        final int count = element.getPropertyCount();
+        if (0 == count)
+            return 0l;
+        long size = count * PROPERTY_SIZE;
+        for (final Object value : element.getProperties().values()) {
+            if (value instanceof String)
+                size = size + (2l * ((String) value).length());
         }
+        return size;
     }
 
     public static class Combiner extends Reducer<LongWritable, FaunusVertex, LongWritable, FaunusVertex> {
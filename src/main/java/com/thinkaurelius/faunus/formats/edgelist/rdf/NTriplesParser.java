@@ -0,0 +1,304 @@
+package com.thinkaurelius.faunus.formats.edgelist.rdf;
+
+import java.io.IOException;
+
+/**
+ * NTriplesParser tokenizes the lines of N-Triples and N-Quads documents without a Rio parser.
+ * A line is read from its UTF-8 bytes into the terms of the parser, which are replaced by the next line.
+ * URIs are not resolved and blank node labels are kept as is (without the _: prefix).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class NTriplesParser {
+
+    public static final int URI = 0;
+    public static final int BNODE = 1;
+    public static final int LITERAL = 2;
+
+    // predicates and datatypes repeat from line to line and are cached
+    private static final int CACHE_SIZE = 256;
+
+    private final boolean quads;
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private char[] chars = new char[256];
+    private final String[] cache = new String[CACHE_SIZE];
+
+    private String subject;
+    private int subjectType;
+    private String predicate;
+    private String object;
+    private int objectType;
+    private String datatype;
+    private String language;
+    private String context;
+    private int contextType;
+
+    /**
+     * @param quads whether the lines may name the context of their statement (N-Quads)
+     */
+    public NTriplesParser(final boolean quads) {
+        this.quads = quads;
+    }
+
+    /**
+     * Parse a line.
+     *
+     * @return false if the line is empty or a comment
+     * @throws IOException if the line is not a statement
+     */
+    public boolean parse(final byte[] bytes, final int length) throws IOException {
+        this.bytes = bytes;
+        this.position = 0;
+        this.end = length;
+        this.datatype = null;
+        this.language = null;
+        this.context = null;
+
+        this.skipWhitespace();
+        if (this.position == this.end || this.bytes[this.position] == '#')
+            return false;
+
+        this.subjectType = this.peek() == '<' ? URI : BNODE;
+        this.subject = this.subjectType == URI ? this.readURI(false) : this.readBNode();
+        this.skipWhitespace();
+        this.predicate = this.readURI(true);
+        this.skipWhitespace();
+        if (this.peek() == '"') {
+            this.objectType = LITERAL;
+            this.object = this.readLiteral();
+        } else {
+            this.objectType = this.peek() == '<' ? URI : BNODE;
+            this.object = this.objectType == URI ? this.readURI(false) : this.readBNode();
+        }
+        this.skipWhitespace();
+        if (this.quads && this.peek() != '.') {
+            this.contextType = this.peek() == '<' ? URI : BNODE;
+            this.context = this.contextType == URI ? this.readURI(false) : this.readBNode();
+            this.skipWhitespace();
+        }
+        this.expect('.');
+        this.skipWhitespace();
+        if (this.position != this.end && this.bytes[this.position] != '#')
+            throw this.error("unexpected content after the statement");
+        this.bytes = null;
+        return true;
+    }
+
+    public String getSubject() {
+        return this.subject;
+    }
+
+    public int getSubjectType() {
+        return this.subjectType;
+    }
+
+    public String getPredicate() {
+        return this.predicate;
+    }
+
+    public String getObject() {
+        return this.object;
+    }
+
+    public int getObjectType() {
+        return this.objectType;
+    }
+
+    /**
+     * The datatype URI of a literal object or null.
+     */
+    public String getDatatype() {
+        return this.datatype;
+    }
+
+    /**
+     * The language tag of a literal object or null.
+     */
+    public String getLanguage() {
+        return this.language;
+    }
+
+    /**
+     * The context of the statement or null.
+     */
+    public String getContext() {
+        return this.context;
+    }
+
+    public int getContextType() {
+        return this.contextType;
+    }
+
+    private String readURI(final boolean cached) throws IOException {
+        this.expect('<');
+        final int start = this.position;
+        int hash = 0;
+        while (this.position < this.end) {
+            final byte b = this.bytes[this.position];
+            if (b == '>') {
+                final String uri = cached ? this.cachedString(start, this.position - start, hash) : this.decode(start, this.position);
+                this.position++;
+                return uri;
+            } else if (b == '\\' || b < 0) {
+                // escaped or multi-byte characters
+                final int close = this.indexOf('>', start);
+                final String uri = this.decode(start, close);
+                this.position = close + 1;
+                return uri;
+            }
+            hash = (31 * hash) + b;
+            this.position++;
+        }
+        throw this.error("unterminated URI");
+    }
+
+    private String readBNode() throws IOException {
+        this.expect('_');
+        this.expect(':');
+        final int start = this.position;
+        while (this.position < this.end) {
+            final byte b = this.bytes[this.position];
+            if (b == ' ' || b == '\t' || b == '.' && (this.position + 1 == this.end || isWhitespace(this.bytes[this.position + 1])))
+                break;
+            this.position++;
+        }
+        if (this.position == start)
+            throw this.error("empty blank node label");
+        return this.decode(start, this.position);
+    }
+
+    private String readLiteral() throws IOException {
+        this.expect('"');
+        final int start = this.position;
+        while (this.position < this.end && this.bytes[this.position] != '"') {
+            this.position = this.position + (this.bytes[this.position] == '\\' ? 2 : 1);
+        }
+        if (this.position >= this.end)
+            throw this.error("unterminated literal");
+        final String label = this.decode(start, this.position);
+        this.position++;
+        if (this.position < this.end && this.bytes[this.position] == '@') {
+            final int languageStart = ++this.position;
+            while (this.position < this.end && !isWhitespace(this.bytes[this.position]) && this.bytes[this.position] != '.')
+                this.position++;
+            this.language = this.decode(languageStart, this.position);
+        } else if (this.position + 1 < this.end && this.bytes[this.position] == '^' && this.bytes[this.position + 1] == '^') {
+            this.position = this.position + 2;
+            this.datatype = this.readURI(true);
+        }
+        return label;
+    }
+
+    private int indexOf(final char c, final int start) throws IOException {
+        for (int i = start; i < this.end; i++) {
+            if (this.bytes[i] == c)
+                return i;
+        }
+        throw this.error("expected '" + c + "'");
+    }
+
+    /**
+     * Decode the UTF-8 bytes between start and end and unescape them.
+     */
+    private String decode(final int start, final int end) throws IOException {
+        if (this.chars.length < end - start)
+            this.chars = new char[Math.max(end - start, this.chars.length * 2)];
+        int count = 0;
+        int i = start;
+        while (i < end) {
+            final int b = this.bytes[i++] & 0xFF;
+            if (b == '\\') {
+                if (i >= end)
+                    throw this.error("illegal escape");
+                final byte escaped = this.bytes[i++];
+                switch (escaped) {
+                    case 't':
+                        this.chars[count++] = '\t';
+                        break;
+                    case 'b':
+                        this.chars[count++] = '\b';
+                        break;
+                    case 'n':
+                        this.chars[count++] = '\n';
+                        break;
+                    case 'r':
+                        this.chars[count++] = '\r';
+                        break;
+                    case 'f':
+                        this.chars[count++] = '\f';
+                        break;
+                    case 'u':
+                    case 'U':
+                        final int digits = escaped == 'u' ? 4 : 8;
+                        if (i + digits > end)
+                            throw this.error("illegal escape");
+                        final int codePoint;
+                        try {
+                            codePoint = Integer.parseInt(new String(this.bytes, i, digits, "US-ASCII"), 16);
+                        } catch (final NumberFormatException e) {
+                            throw this.error("illegal escape");
+                        }
+                        i = i + digits;
+                        count = count + Character.toChars(codePoint, this.chars, count);
+                        break;
+                    default:
+                        this.chars[count++] = (char) escaped;
+                }
+            } else if (b < 0x80) {
+                this.chars[count++] = (char) b;
+            } else if (b < 0xE0) {
+                this.chars[count++] = (char) (((b & 0x1F) << 6) | (this.bytes[i++] & 0x3F));
+            } else if (b < 0xF0) {
+                this.chars[count++] = (char) (((b & 0x0F) << 12) | ((this.bytes[i++] & 0x3F) << 6) | (this.bytes[i++] & 0x3F));
+            } else {
+                final int codePoint = ((b & 0x07) << 18) | ((this.bytes[i++] & 0x3F) << 12) | ((this.bytes[i++] & 0x3F) << 6) | (this.bytes[i++] & 0x3F);
+                count = count + Character.toChars(codePoint, this.chars, count);
+            }
+        }
+        return new String(this.chars, 0, count);
+    }
+
+    private String cachedString(final int start, final int length, final int hash) throws IOException {
+        final int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        final String cached = this.cache[index];
+        if (null != cached && cached.length() == length) {
+            boolean equal = true;
+            for (int i = 0; i < length; i++) {
+                if (cached.charAt(i) != this.bytes[start + i]) {
+                    equal = false;
+                    break;
+                }
+            }
+            if (equal)
+                return cached;
+        }
+        return this.cache[index] = this.decode(start, start + length);
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.end && isWhitespace(this.bytes[this.position]))
+            this.position++;
+    }
+
+    private byte peek() throws IOException {
+        if (this.position >= this.end)
+            throw this.error("unexpected end of the line");
+        return this.bytes[this.position];
+    }
+
+    private void expect(final char c) throws IOException {
+        if (this.peek() != c)
+            throw this.error("expected '" + c + "'");
+        this.position++;
+    }
+
+    private IOException error(final String message) {
+        return new IOException("Illegal N-Triples statement at position " + this.position + ": " + message);
+    }
+}
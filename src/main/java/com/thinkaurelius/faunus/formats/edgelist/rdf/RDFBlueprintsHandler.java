@@ -19,6 +19,7 @@ import org.openrdf.rio.Rio;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -40,8 +41,19 @@ public class RDFBlueprintsHandler implements RDFHandler, Iterator<FaunusElement>
     private final boolean literalAsProperty;
     private static final String BASE_URI = "http://thinkaurelius.com#";
 
+    private static final String UTF8 = "UTF-8";
+    private static final String N_QUADS = "n-quads";
+    // the formats with a statement per line that are tokenized without Rio
+    private static final Set<String> LINE_FORMATS = new HashSet<String>(Arrays.asList("n-triples", N_QUADS));
+    private static final int MAX_DESCRIBED = 100000;
+
     private RDFParser parser;
+    private NTriplesParser lineParser;
     private final Queue<FaunusElement> queue = new LinkedList<FaunusElement>();
+
+    private boolean mergeSubjects = false;
+    private FaunusVertex pending;
+    private final Set<Long> described = new HashSet<Long>();
     public static final Map<String, RDFFormat> formats = new HashMap<String, RDFFormat>();
 
     private static Map<String, Character> dataTypeToClass = new HashMap<String, Character>();
@@ -91,14 +103,18 @@ public class RDFBlueprintsHandler implements RDFHandler, Iterator<FaunusElement>
         if (null == formatName) {
             throw new RuntimeException("RDF format is required. Use " + RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT);
         }
-        RDFFormat format = formats.get(formatName);
-        if (null == format) {
-            throw new RuntimeException("unknown RDF format: " + formatName);
-        }
-        this.parser = Rio.createParser(format);
+        if (configuration.getBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FAST_NTRIPLES, true) && LINE_FORMATS.contains(formatName)) {
+            this.lineParser = new NTriplesParser(formatName.equals(N_QUADS));
+        } else {
+            RDFFormat format = formats.get(formatName);
+            if (null == format) {
+                throw new RuntimeException("unknown RDF format: " + formatName);
+            }
+            this.parser = Rio.createParser(format);
 
-        this.parser.setRDFHandler(this);
-        this.parser.setDatatypeHandling(RDFParser.DatatypeHandling.IGNORE);
+            this.parser.setRDFHandler(this);
+            this.parser.setDatatypeHandling(RDFParser.DatatypeHandling.IGNORE);
+        }
     }
 
     public void startRDF() throws RDFHandlerException {
@@ -134,86 +150,163 @@ public class RDFBlueprintsHandler implements RDFHandler, Iterator<FaunusElement>
      * @return the simplified fragment
      */
     private String createFragment(final Value resource) {
-        if (resource instanceof URI) {
-            String frag = ((URI) resource).getLocalName();
+        return createFragment(resource.stringValue(), resource instanceof URI);
+    }
+
+    private String createFragment(final String value, final boolean isURI) {
+        if (isURI) {
+            final String frag = getLocalName(value);
             return RESERVED_FRAGMENTS.contains(frag) ? frag + "_" : frag;
         } else {
-            return resource.stringValue();
+            return value;
         }
     }
 
-    private static Object castLiteral(final Literal literal) {
-        if (null != literal.getDatatype()) {
-            final Character type = dataTypeToClass.get(literal.getDatatype().stringValue());
+    /**
+     * The local name of a URI as with Sesame: the part after the last '#', '/' or ':'.
+     */
+    private static String getLocalName(final String uri) {
+        int index = uri.lastIndexOf('#');
+        if (index < 0)
+            index = uri.lastIndexOf('/');
+        if (index < 0)
+            index = uri.lastIndexOf(':');
+        if (index < 0)
+            throw new IllegalArgumentException("No separator character found in URI: " + uri);
+        return uri.substring(index + 1);
+    }
+
+    private static Object castLiteral(final String label, final String datatype) {
+        if (null != datatype) {
+            final Character type = dataTypeToClass.get(datatype);
             if (null == type)
-                return literal.getLabel();
+                return label;
             else {
                 if (STRING == type) {
-                    return literal.getLabel();
+                    return label;
                 } else if (FLOAT == type) {
-                    return Float.valueOf(literal.getLabel());
+                    return Float.valueOf(label);
                 } else if (INTEGER == type) {
-                    return Integer.valueOf(literal.getLabel());
+                    return Integer.valueOf(label);
                 } else if (DOUBLE == type) {
-                    return Double.valueOf(literal.getLabel());
+                    return Double.valueOf(label);
                 } else if (LONG == type) {
-                    return Long.valueOf(literal.getLabel());
+                    return Long.valueOf(label);
                 } else if (BOOLEAN == type) {
-                    return Boolean.valueOf(literal.getLabel());
+                    return Boolean.valueOf(label);
                 } else {
-                    return literal.getLabel();
+                    return label;
                 }
             }
         } else {
-            return literal.getLabel();
+            return label;
         }
     }
 
     public void handleStatement(final Statement s) throws RDFHandlerException {
-        if (this.asProperties.contains(s.getPredicate().toString())) {
-            final FaunusVertex subject = new FaunusVertex(Crc64.digest(s.getSubject().stringValue().getBytes()));
-            subject.setProperty(postProcess(s.getPredicate()), postProcess(s.getObject()));
-            subject.setProperty(RDFInputFormat.URI, s.getSubject().stringValue());
-            if (this.useFragments)
-                subject.setProperty(RDFInputFormat.NAME, createFragment(s.getSubject()));
-            subject.enablePath(this.enablePath);
-            this.queue.add(subject);
-        } else if (this.literalAsProperty && (s.getObject() instanceof Literal)) {
-            final FaunusVertex subject = new FaunusVertex(Crc64.digest(s.getSubject().stringValue().getBytes()));
-            subject.setProperty(postProcess(s.getPredicate()), castLiteral((Literal) s.getObject()));
-            subject.setProperty(RDFInputFormat.URI, s.getSubject().stringValue());
-            if (this.useFragments)
-                subject.setProperty(RDFInputFormat.NAME, createFragment(s.getSubject()));
-            subject.enablePath(this.enablePath);
-            this.queue.add(subject);
+        final Value object = s.getObject();
+        this.handleStatement(s.getSubject().stringValue(), s.getSubject() instanceof URI,
+                s.getPredicate().stringValue(),
+                object.stringValue(), object instanceof URI, object instanceof Literal,
+                object instanceof Literal && null != ((Literal) object).getDatatype() ? ((Literal) object).getDatatype().stringValue() : null,
+                null == s.getContext() ? null : s.getContext().stringValue());
+    }
+
+    /**
+     * Handle the statement of the last line parsed by an NTriplesParser.
+     */
+    public void handleStatement(final NTriplesParser parser) {
+        this.handleStatement(parser.getSubject(), parser.getSubjectType() == NTriplesParser.URI,
+                parser.getPredicate(),
+                parser.getObject(), parser.getObjectType() == NTriplesParser.URI, parser.getObjectType() == NTriplesParser.LITERAL,
+                parser.getDatatype(), parser.getContext());
+    }
+
+    private void handleStatement(final String subjectValue, final boolean subjectIsURI, final String predicateURI,
+                                 final String objectValue, final boolean objectIsURI, final boolean objectIsLiteral,
+                                 final String datatype, final String context) {
+        final String predicateLabel = this.useFragments ? createFragment(predicateURI, true) : predicateURI;
+        final long subjectId = Crc64.digest(subjectValue.getBytes());
+        if (this.asProperties.contains(predicateURI) || (this.literalAsProperty && objectIsLiteral)) {
+            final FaunusVertex subject = this.subject(subjectId, subjectValue, subjectIsURI);
+            if (this.asProperties.contains(predicateURI))
+                subject.setProperty(predicateLabel, objectIsURI && this.useFragments ? createFragment(objectValue, true) : objectValue);
+            else
+                subject.setProperty(predicateLabel, castLiteral(objectValue, datatype));
         } else {
-            long subjectId = Crc64.digest(s.getSubject().stringValue().getBytes());
-            final FaunusVertex subject = new FaunusVertex(subjectId);
-            subject.reuse(subjectId);
-            subject.setProperty(RDFInputFormat.URI, s.getSubject().stringValue());
-            if (this.useFragments)
-                subject.setProperty(RDFInputFormat.NAME, createFragment(s.getSubject()));
-            subject.enablePath(this.enablePath);
-            this.queue.add(subject);
+            this.subject(subjectId, subjectValue, subjectIsURI);
+
+            final long objectId = Crc64.digest(objectValue.getBytes());
+            if (!this.mergeSubjects || this.described(objectId)) {
+                final FaunusVertex object = new FaunusVertex(objectId);
+                object.setProperty(RDFInputFormat.URI, objectValue);
+                if (this.useFragments)
+                    object.setProperty(RDFInputFormat.NAME, createFragment(objectValue, objectIsURI));
+                object.enablePath(this.enablePath);
+                this.queue.add(object);
+            }
 
-            long objectId = Crc64.digest(s.getObject().stringValue().getBytes());
-            final FaunusVertex object = new FaunusVertex(objectId);
-            object.reuse(objectId);
-            object.setProperty(RDFInputFormat.URI, s.getObject().stringValue());
-            if (this.useFragments)
-                object.setProperty(RDFInputFormat.NAME, createFragment(s.getObject()));
-            object.enablePath(this.enablePath);
-            this.queue.add(object);
-
-            final FaunusEdge predicate = new FaunusEdge(-1, subjectId, objectId, postProcess(s.getPredicate()));
-            predicate.setProperty(RDFInputFormat.URI, s.getPredicate().stringValue());
-            if (null != s.getContext())
-                predicate.setProperty(RDFInputFormat.CONTEXT, s.getContext().stringValue());
+            final FaunusEdge predicate = new FaunusEdge(-1, subjectId, objectId, predicateLabel);
+            predicate.setProperty(RDFInputFormat.URI, predicateURI);
+            if (null != context)
+                predicate.setProperty(RDFInputFormat.CONTEXT, context);
             predicate.enablePath(this.enablePath);
             this.queue.add(predicate);
         }
     }
 
+    /**
+     * The vertex of the subject of a statement. Unless subjects are merged, a vertex is queued per statement.
+     * Otherwise the statements of a subject accumulate in a pending vertex that is queued once the subject changes.
+     */
+    private FaunusVertex subject(final long subjectId, final String subjectValue, final boolean subjectIsURI) {
+        final FaunusVertex subject;
+        if (this.mergeSubjects) {
+            if (null != this.pending && this.pending.getIdAsLong() == subjectId)
+                return this.pending;
+            this.flush();
+            subject = this.pending = new FaunusVertex(subjectId);
+            this.described(subjectId);
+        } else {
+            subject = new FaunusVertex(subjectId);
+            this.queue.add(subject);
+        }
+        subject.setProperty(RDFInputFormat.URI, subjectValue);
+        if (this.useFragments)
+            subject.setProperty(RDFInputFormat.NAME, createFragment(subjectValue, subjectIsURI));
+        subject.enablePath(this.enablePath);
+        return subject;
+    }
+
+    /**
+     * Whether the uri of the vertex has yet to be emitted. The ids of the described vertices are forgotten once
+     * MAX_DESCRIBED are known, so a vertex may be described more than once per split.
+     */
+    private boolean described(final long id) {
+        if (this.described.size() >= MAX_DESCRIBED)
+            this.described.clear();
+        return this.described.add(id);
+    }
+
+    /**
+     * Queue the pending subject vertex (if subjects are merged).
+     */
+    public void flush() {
+        if (null != this.pending) {
+            this.queue.add(this.pending);
+            this.pending = null;
+        }
+    }
+
+    /**
+     * Merge the statements of consecutive lines that share their subject into a single subject vertex and only
+     * emit the uri of an object vertex the first time it is seen. The last subject is pending until flush() is called
+     * at the end of the input.
+     */
+    public void setMergeSubjects(final boolean mergeSubjects) {
+        this.mergeSubjects = mergeSubjects;
+    }
+
     public void handleComment(String s) throws RDFHandlerException {
         // Do nothing
     }
@@ -221,6 +314,10 @@ public class RDFBlueprintsHandler implements RDFHandler, Iterator<FaunusElement>
     public boolean parse(final String string) throws IOException {
         if (null == string)
             return false;
+        if (null != this.lineParser) {
+            final byte[] bytes = string.getBytes(UTF8);
+            return this.parse(bytes, bytes.length);
+        }
         try {
             this.parser.parse(new StringReader(string), BASE_URI);
             return true;
@@ -230,6 +327,22 @@ public class RDFBlueprintsHandler implements RDFHandler, Iterator<FaunusElement>
         }
     }
 
+    /**
+     * Parse a line of UTF-8 bytes. Line oriented formats are tokenized by an NTriplesParser, the others by Rio.
+     */
+    public boolean parse(final byte[] bytes, final int length) throws IOException {
+        if (null == this.lineParser)
+            return this.parse(new String(bytes, 0, length, UTF8));
+        try {
+            if (this.lineParser.parse(bytes, length))
+                this.handleStatement(this.lineParser);
+            return true;
+        } catch (Exception e) {
+            this.logger.error(e.getMessage());
+            return false;
+        }
+    }
+
     public FaunusElement next() {
         if (this.queue.isEmpty())
             return null;
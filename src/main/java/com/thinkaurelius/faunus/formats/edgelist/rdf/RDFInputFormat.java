@@ -18,6 +18,11 @@ import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import java.io.IOException;
 
 /**
+ * RDFInputFormat reads RDF documents as the elements of an edge list (see EdgeListInputMapReduce).
+ * N-Triples and N-Quads ("n-triples" and "n-quads") are tokenized without Rio unless faunus.graph.input.rdf.fast-ntriples
+ * is false. With faunus.graph.input.rdf.merge-subjects (the default), the statements of consecutive lines with the same
+ * subject are read as a single subject vertex and the uri of an object vertex is only read once per split.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class RDFInputFormat extends FileInputFormat<NullWritable, FaunusElement> implements MapReduceFormat {
@@ -26,6 +31,8 @@ public class RDFInputFormat extends FileInputFormat<NullWritable, FaunusElement>
     public static final String FAUNUS_GRAPH_INPUT_RDF_USE_LOCALNAME = "faunus.graph.input.rdf.use-localname";
     public static final String FAUNUS_GRAPH_INPUT_RDF_AS_PROPERTIES = "faunus.graph.input.rdf.as-properties";
     public static final String FAUNUS_GRAPH_INPUT_RDF_LITERAL_AS_PROPERTY = "faunus.graph.input.rdf.literal-as-property";
+    public static final String FAUNUS_GRAPH_INPUT_RDF_FAST_NTRIPLES = "faunus.graph.input.rdf.fast-ntriples";
+    public static final String FAUNUS_GRAPH_INPUT_RDF_MERGE_SUBJECTS = "faunus.graph.input.rdf.merge-subjects";
 
     public static final String URI = "uri";
     public static final String CONTEXT = "context";
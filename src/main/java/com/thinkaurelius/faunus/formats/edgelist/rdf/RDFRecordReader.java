@@ -3,6 +3,7 @@ package com.thinkaurelius.faunus.formats.edgelist.rdf;
 import com.thinkaurelius.faunus.FaunusElement;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -23,6 +24,7 @@ public class RDFRecordReader extends RecordReader<NullWritable, FaunusElement> {
     public RDFRecordReader(final Configuration configuration) throws IOException {
         this.lineRecordReader = new LineRecordReader();
         this.handler = new RDFBlueprintsHandler(configuration);
+        this.handler.setMergeSubjects(configuration.getBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_MERGE_SUBJECTS, true));
     }
 
     @Override
@@ -38,12 +40,18 @@ public class RDFRecordReader extends RecordReader<NullWritable, FaunusElement> {
             return true;
         }
         while (this.lineRecordReader.nextKeyValue()) {
-            this.handler.parse(this.lineRecordReader.getCurrentValue().toString());
+            final Text line = this.lineRecordReader.getCurrentValue();
+            this.handler.parse(line.getBytes(), line.getLength());
             if (this.handler.hasNext()) {
                 this.element = this.handler.next();
                 return true;
             }
         }
+        this.handler.flush();
+        if (this.handler.hasNext()) {
+            this.element = this.handler.next();
+            return true;
+        }
         return false;
     }
 
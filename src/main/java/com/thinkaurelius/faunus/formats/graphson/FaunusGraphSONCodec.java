@@ -0,0 +1,655 @@
+package com.thinkaurelius.faunus.formats.graphson;
+
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.util.io.graphson.GraphSONTokens;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.tinkerpop.blueprints.Direction.IN;
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * FaunusGraphSONCodec reads and writes the lines of a GraphSON file (a vertex with its _outE and _inE edges) token by token.
+ * A vertex is read from the UTF-8 bytes of its line into a reused FaunusVertex and written as UTF-8 bytes without
+ * building a JSON tree. The values are typed as with FaunusGraphSONUtility: integers are Integers (or Longs) and
+ * decimals are Doubles unless they are whole (e.g. 1.0 is read as 1). Null properties are ignored.
+ * A codec keeps its buffers between vertices and is not thread safe.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class FaunusGraphSONCodec {
+
+    private static final String _OUT_E = "_outE";
+    private static final String _IN_E = "_inE";
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    // keys and labels repeat from vertex to vertex and are cached
+    private static final int CACHE_SIZE = 1024;
+    private static final int MAX_CACHED_LENGTH = 64;
+
+    private byte[] bytes;
+    private int position;
+    private int end;
+    private char[] chars = new char[64];
+    private final String[] cache = new String[CACHE_SIZE];
+
+    private final List<String> keys = new ArrayList<String>();
+    private final List<Object> values = new ArrayList<Object>();
+    private final List<String> edgeKeys = new ArrayList<String>();
+    private final List<Object> edgeValues = new ArrayList<Object>();
+    private final List<FaunusEdge> pendingEdges = new ArrayList<FaunusEdge>();
+    private final List<Direction> pendingDirections = new ArrayList<Direction>();
+
+    private byte[] buffer = new byte[1024];
+    private int length;
+
+    /**
+     * Read the vertex of a line of GraphSON.
+     *
+     * @param bytes  the UTF-8 bytes of the line
+     * @param start  the offset of the line in the bytes
+     * @param length the length of the line
+     * @param vertex the vertex to reuse
+     * @return the provided vertex
+     */
+    public FaunusVertex read(final byte[] bytes, final int start, final int length, final FaunusVertex vertex) throws IOException {
+        this.bytes = bytes;
+        this.position = start;
+        this.end = start + length;
+        this.keys.clear();
+        this.values.clear();
+        this.pendingEdges.clear();
+        this.pendingDirections.clear();
+
+        // properties and edges before the _id are held back as reusing the vertex clears it
+        boolean hasId = false;
+        this.expect('{');
+        if (!this.consume('}')) {
+            do {
+                final String key = this.readString(true);
+                this.expect(':');
+                if (key.equals(GraphSONTokens._ID)) {
+                    vertex.reuse(toId(this.readValue()));
+                    for (int i = 0; i < this.keys.size(); i++) {
+                        vertex.setProperty(this.keys.get(i), this.values.get(i));
+                    }
+                    hasId = true;
+                } else if (key.equals(_OUT_E) || key.equals(_IN_E)) {
+                    final Direction direction = key.equals(_OUT_E) ? OUT : IN;
+                    if (!this.consumeLiteral(NULL)) {
+                        this.expect('[');
+                        if (!this.consume(']')) {
+                            do {
+                                final FaunusEdge edge = this.readEdge(direction, hasId ? vertex.getIdAsLong() : -1l);
+                                if (hasId) {
+                                    vertex.addEdge(direction, edge);
+                                } else {
+                                    this.pendingEdges.add(edge);
+                                    this.pendingDirections.add(direction);
+                                }
+                            } while (this.consume(','));
+                            this.expect(']');
+                        }
+                    }
+                } else if (isReserved(key)) {
+                    this.readValue();
+                } else {
+                    final Object value = this.readValue();
+                    if (null != value) {
+                        if (hasId) {
+                            vertex.setProperty(key, value);
+                        } else {
+                            this.keys.add(key);
+                            this.values.add(value);
+                        }
+                    }
+                }
+            } while (this.consume(','));
+            this.expect('}');
+        }
+        this.skipWhitespace();
+        if (this.position != this.end)
+            throw this.error("unexpected content after the vertex");
+
+        if (!hasId) {
+            vertex.reuse(-1l);
+            for (int i = 0; i < this.keys.size(); i++) {
+                vertex.setProperty(this.keys.get(i), this.values.get(i));
+            }
+        }
+        for (int i = 0; i < this.pendingEdges.size(); i++) {
+            final FaunusEdge pending = this.pendingEdges.get(i);
+            final Direction direction = this.pendingDirections.get(i);
+            final FaunusEdge edge = direction.equals(OUT) ?
+                    new FaunusEdge(pending.getIdAsLong(), vertex.getIdAsLong(), pending.getVertexId(IN), pending.getLabel()) :
+                    new FaunusEdge(pending.getIdAsLong(), pending.getVertexId(OUT), vertex.getIdAsLong(), pending.getLabel());
+            for (final Map.Entry<String, Object> property : pending.getProperties().entrySet()) {
+                edge.setProperty(property.getKey(), property.getValue());
+            }
+            vertex.addEdge(direction, edge);
+        }
+        this.bytes = null;
+        return vertex;
+    }
+
+    private FaunusEdge readEdge(final Direction direction, final long vertexId) throws IOException {
+        this.edgeKeys.clear();
+        this.edgeValues.clear();
+        long id = -1l;
+        long otherId = 0l;
+        String label = null;
+        final String otherKey = direction.equals(OUT) ? GraphSONTokens._IN_V : GraphSONTokens._OUT_V;
+
+        this.expect('{');
+        if (!this.consume('}')) {
+            do {
+                final String key = this.readString(true);
+                this.expect(':');
+                if (key.equals(GraphSONTokens._ID)) {
+                    id = toId(this.readValue());
+                } else if (key.equals(GraphSONTokens._LABEL)) {
+                    label = this.consumeLiteral(NULL) ? null : this.readString(true);
+                } else if (key.equals(otherKey)) {
+                    final Object value = this.readValue();
+                    otherId = null == value ? 0l : toId(value);
+                } else if (isReserved(key)) {
+                    this.readValue();
+                } else {
+                    final Object value = this.readValue();
+                    if (null != value) {
+                        this.edgeKeys.add(key);
+                        this.edgeValues.add(value);
+                    }
+                }
+            } while (this.consume(','));
+            this.expect('}');
+        }
+
+        final FaunusEdge edge = direction.equals(OUT) ?
+                new FaunusEdge(id, vertexId, otherId, label) :
+                new FaunusEdge(id, otherId, vertexId, label);
+        for (int i = 0; i < this.edgeKeys.size(); i++) {
+            edge.setProperty(this.edgeKeys.get(i), this.edgeValues.get(i));
+        }
+        return edge;
+    }
+
+    private static boolean isReserved(final String key) {
+        return key.equals(GraphSONTokens._TYPE) || key.equals(GraphSONTokens._LABEL) || key.equals(GraphSONTokens._ID)
+                || key.equals(GraphSONTokens._OUT_V) || key.equals(GraphSONTokens._IN_V) || key.equals(_OUT_E) || key.equals(_IN_E);
+    }
+
+    private static long toId(final Object id) {
+        if (id instanceof Long || id instanceof Integer)
+            return ((Number) id).longValue();
+        if (null != id) {
+            try {
+                return Long.parseLong(id.toString());
+            } catch (final NumberFormatException e) {
+                return -1l;
+            }
+        }
+        return -1l;
+    }
+
+    private Object readValue() throws IOException {
+        this.skipWhitespace();
+        if (this.position >= this.end)
+            throw this.error("unexpected end of the line");
+        switch (this.bytes[this.position]) {
+            case '"':
+                return this.readString(false);
+            case '{':
+                this.position++;
+                final Map<String, Object> map = new HashMap<String, Object>();
+                if (!this.consume('}')) {
+                    do {
+                        final String key = this.readString(true);
+                        this.expect(':');
+                        map.put(key, this.readValue());
+                    } while (this.consume(','));
+                    this.expect('}');
+                }
+                return map;
+            case '[':
+                this.position++;
+                final List<Object> list = new ArrayList<Object>();
+                if (!this.consume(']')) {
+                    do {
+                        list.add(this.readValue());
+                    } while (this.consume(','));
+                    this.expect(']');
+                }
+                return list;
+            case 't':
+                this.expectLiteral(TRUE);
+                return Boolean.TRUE;
+            case 'f':
+                this.expectLiteral(FALSE);
+                return Boolean.FALSE;
+            case 'n':
+                this.expectLiteral(NULL);
+                return null;
+            default:
+                return this.readNumber();
+        }
+    }
+
+    private Object readNumber() throws IOException {
+        final int start = this.position;
+        final boolean negative = this.bytes[this.position] == '-';
+        if (negative)
+            this.position++;
+        long value = 0l;
+        int digits = 0;
+        while (this.position < this.end && this.bytes[this.position] >= '0' && this.bytes[this.position] <= '9') {
+            value = (value * 10) + (this.bytes[this.position++] - '0');
+            digits++;
+        }
+        if (digits == 0)
+            throw this.error("unexpected character");
+
+        boolean decimal = false;
+        while (this.position < this.end) {
+            final byte b = this.bytes[this.position];
+            if (b == '.' || b == 'e' || b == 'E' || b == '+' || b == '-' || (b >= '0' && b <= '9')) {
+                decimal = true;
+                this.position++;
+            } else {
+                break;
+            }
+        }
+
+        if (decimal || digits > 18) {
+            final String number = new String(this.bytes, start, this.position - start, "US-ASCII");
+            if (!decimal) {
+                try {
+                    return Long.valueOf(number);
+                } catch (final NumberFormatException e) {
+                    // too large for a long
+                }
+            }
+            final double d;
+            try {
+                d = Double.parseDouble(number);
+            } catch (final NumberFormatException e) {
+                throw this.error("illegal number " + number);
+            }
+            // whole decimals are integers as with the JSON tree of FaunusGraphSONUtility
+            if (d == Math.rint(d) && Math.abs(d) < 1e7)
+                return Integer.valueOf((int) d);
+            return Double.valueOf(d);
+        }
+
+        value = negative ? -value : value;
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+            return Integer.valueOf((int) value);
+        return Long.valueOf(value);
+    }
+
+    private String readString(final boolean cached) throws IOException {
+        this.skipWhitespace();
+        this.expect('"');
+        final int start = this.position;
+
+        // ascii without escapes
+        int hash = 0;
+        while (this.position < this.end) {
+            final byte b = this.bytes[this.position];
+            if (b == '"') {
+                final int length = this.position - start;
+                this.position++;
+                if (cached && length <= MAX_CACHED_LENGTH)
+                    return this.cachedString(start, length, hash);
+                return this.toString(start, length);
+            } else if (b == '\\' || b < 0) {
+                break;
+            }
+            hash = (31 * hash) + b;
+            this.position++;
+        }
+
+        // escapes and multi-byte characters
+        int count = 0;
+        for (int i = start; i < this.position; i++) {
+            this.chars = ensureCapacity(this.chars, count + 1);
+            this.chars[count++] = (char) this.bytes[i];
+        }
+        while (this.position < this.end) {
+            this.chars = ensureCapacity(this.chars, count + 2);
+            final int b = this.bytes[this.position++] & 0xFF;
+            if (b == '"') {
+                return new String(this.chars, 0, count);
+            } else if (b == '\\') {
+                if (this.position >= this.end)
+                    break;
+                final byte escaped = this.bytes[this.position++];
+                switch (escaped) {
+                    case 'b':
+                        this.chars[count++] = '\b';
+                        break;
+                    case 'f':
+                        this.chars[count++] = '\f';
+                        break;
+                    case 'n':
+                        this.chars[count++] = '\n';
+                        break;
+                    case 'r':
+                        this.chars[count++] = '\r';
+                        break;
+                    case 't':
+                        this.chars[count++] = '\t';
+                        break;
+                    case 'u':
+                        if (this.position + 4 > this.end)
+                            throw this.error("illegal escape");
+                        this.chars[count++] = (char) Integer.parseInt(new String(this.bytes, this.position, 4, "US-ASCII"), 16);
+                        this.position = this.position + 4;
+                        break;
+                    default:
+                        this.chars[count++] = (char) escaped;
+                }
+            } else if (b < 0x80) {
+                this.chars[count++] = (char) b;
+            } else if (b < 0xE0) {
+                this.chars[count++] = (char) (((b & 0x1F) << 6) | this.continuation());
+            } else if (b < 0xF0) {
+                this.chars[count++] = (char) (((b & 0x0F) << 12) | (this.continuation() << 6) | this.continuation());
+            } else {
+                final int codePoint = ((b & 0x07) << 18) | (this.continuation() << 12) | (this.continuation() << 6) | this.continuation();
+                count = count + Character.toChars(codePoint, this.chars, count);
+            }
+        }
+        throw this.error("unterminated string");
+    }
+
+    private int continuation() throws IOException {
+        if (this.position >= this.end)
+            throw this.error("truncated character");
+        return this.bytes[this.position++] & 0x3F;
+    }
+
+    private String cachedString(final int start, final int length, final int hash) {
+        final int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        final String cached = this.cache[index];
+        if (null != cached && cached.length() == length) {
+            boolean equal = true;
+            for (int i = 0; i < length; i++) {
+                if (cached.charAt(i) != this.bytes[start + i]) {
+                    equal = false;
+                    break;
+                }
+            }
+            if (equal)
+                return cached;
+        }
+        return this.cache[index] = this.toString(start, length);
+    }
+
+    private String toString(final int start, final int length) {
+        this.chars = ensureCapacity(this.chars, length);
+        for (int i = 0; i < length; i++) {
+            this.chars[i] = (char) this.bytes[start + i];
+        }
+        return new String(this.chars, 0, length);
+    }
+
+    private static char[] ensureCapacity(final char[] chars, final int capacity) {
+        if (chars.length >= capacity)
+            return chars;
+        final char[] temp = new char[Math.max(capacity, chars.length * 2)];
+        System.arraycopy(chars, 0, temp, 0, chars.length);
+        return temp;
+    }
+
+    private void skipWhitespace() {
+        while (this.position < this.end) {
+            final byte b = this.bytes[this.position];
+            if (b == ' ' || b == '\t' || b == '\n' || b == '\r')
+                this.position++;
+            else
+                return;
+        }
+    }
+
+    private boolean consume(final char c) {
+        this.skipWhitespace();
+        if (this.position < this.end && this.bytes[this.position] == c) {
+            this.position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(final char c) throws IOException {
+        if (!this.consume(c))
+            throw this.error("expected '" + c + "'");
+    }
+
+    private boolean consumeLiteral(final byte[] literal) {
+        this.skipWhitespace();
+        if (this.position + literal.length > this.end)
+            return false;
+        for (int i = 0; i < literal.length; i++) {
+            if (this.bytes[this.position + i] != literal[i])
+                return false;
+        }
+        this.position = this.position + literal.length;
+        return true;
+    }
+
+    private void expectLiteral(final byte[] literal) throws IOException {
+        if (!this.consumeLiteral(literal))
+            throw this.error("unexpected character");
+    }
+
+    private IOException error(final String message) {
+        return new IOException("Illegal GraphSON at position " + this.position + ": " + message);
+    }
+
+    /**
+     * Write the vertex as a line of GraphSON (without the line terminator).
+     */
+    public void write(final FaunusVertex vertex, final OutputStream out) throws IOException {
+        this.length = 0;
+        this.writeByte('{');
+        this.writeString(GraphSONTokens._ID);
+        this.writeByte(':');
+        this.writeLong(vertex.getIdAsLong());
+        this.writeProperties(vertex.getProperties());
+        this.writeEdges(vertex, OUT, _OUT_E, GraphSONTokens._IN_V);
+        this.writeEdges(vertex, IN, _IN_E, GraphSONTokens._OUT_V);
+        this.writeByte('}');
+        out.write(this.buffer, 0, this.length);
+    }
+
+    private void writeEdges(final FaunusVertex vertex, final Direction direction, final String key, final String otherKey) throws IOException {
+        boolean first = true;
+        for (final Edge e : vertex.getEdges(direction)) {
+            final FaunusEdge edge = (FaunusEdge) e;
+            if (first) {
+                this.writeByte(',');
+                this.writeString(key);
+                this.writeBytes(':', '[');
+                first = false;
+            } else {
+                this.writeByte(',');
+            }
+            this.writeByte('{');
+            this.writeString(GraphSONTokens._ID);
+            this.writeByte(':');
+            this.writeLong(edge.getIdAsLong());
+            this.writeByte(',');
+            this.writeString(GraphSONTokens._LABEL);
+            this.writeByte(':');
+            this.writeValue(edge.getLabel());
+            this.writeByte(',');
+            this.writeString(otherKey);
+            this.writeByte(':');
+            this.writeLong(edge.getVertexId(direction.opposite()));
+            this.writeProperties(edge.getProperties());
+            this.writeByte('}');
+        }
+        if (!first)
+            this.writeByte(']');
+    }
+
+    private void writeProperties(final Map<String, Object> properties) throws IOException {
+        for (final Map.Entry<String, Object> property : properties.entrySet()) {
+            this.writeByte(',');
+            this.writeString(property.getKey());
+            this.writeByte(':');
+            this.writeValue(property.getValue());
+        }
+    }
+
+    private void writeValue(final Object value) throws IOException {
+        if (null == value) {
+            this.writeAscii("null");
+        } else if (value instanceof String) {
+            this.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            this.writeLong(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            if ((value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite()))
+                    || (value instanceof Float && (((Float) value).isNaN() || ((Float) value).isInfinite())))
+                throw new IOException("GraphSON does not allow non-finite numbers: " + value);
+            this.writeAscii(value.toString());
+        } else if (value instanceof Boolean) {
+            this.writeAscii(value.toString());
+        } else if (value instanceof Map) {
+            this.writeByte('{');
+            boolean first = true;
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!first)
+                    this.writeByte(',');
+                this.writeString(String.valueOf(entry.getKey()));
+                this.writeByte(':');
+                this.writeValue(entry.getValue());
+                first = false;
+            }
+            this.writeByte('}');
+        } else if (value instanceof Collection) {
+            this.writeByte('[');
+            boolean first = true;
+            for (final Object object : (Collection) value) {
+                if (!first)
+                    this.writeByte(',');
+                this.writeValue(object);
+                first = false;
+            }
+            this.writeByte(']');
+        } else if (value instanceof Object[]) {
+            this.writeByte('[');
+            final Object[] array = (Object[]) value;
+            for (int i = 0; i < array.length; i++) {
+                if (i > 0)
+                    this.writeByte(',');
+                this.writeValue(array[i]);
+            }
+            this.writeByte(']');
+        } else {
+            this.writeString(value.toString());
+        }
+    }
+
+    private void writeString(final String string) {
+        this.ensureCapacity(string.length() + 2);
+        this.buffer[this.length++] = '"';
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                this.writeByte(c);
+            } else if (c == '"' || c == '\\') {
+                this.writeBytes('\\', c);
+            } else if (c == '\n') {
+                this.writeBytes('\\', 'n');
+            } else if (c == '\r') {
+                this.writeBytes('\\', 'r');
+            } else if (c == '\t') {
+                this.writeBytes('\\', 't');
+            } else if (c == '\b') {
+                this.writeBytes('\\', 'b');
+            } else if (c == '\f') {
+                this.writeBytes('\\', 'f');
+            } else if (c < 0x20) {
+                this.writeBytes('\\', 'u');
+                this.writeBytes('0', '0');
+                this.writeBytes(HEX[c >> 4], HEX[c & 0xF]);
+            } else if (c < 0x800) {
+                this.writeBytes(0xC0 | (c >> 6), 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, string.charAt(++i));
+                this.writeBytes(0xF0 | (codePoint >> 18), 0x80 | ((codePoint >> 12) & 0x3F));
+                this.writeBytes(0x80 | ((codePoint >> 6) & 0x3F), 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate is replaced as with String.getBytes()
+                this.writeByte('?');
+            } else {
+                this.writeByte(0xE0 | (c >> 12));
+                this.writeBytes(0x80 | ((c >> 6) & 0x3F), 0x80 | (c & 0x3F));
+            }
+        }
+        this.writeByte('"');
+    }
+
+    private void writeLong(final long value) {
+        if (value == Long.MIN_VALUE) {
+            this.writeAscii(Long.toString(value));
+            return;
+        }
+        this.ensureCapacity(20);
+        long remaining = value;
+        if (remaining < 0) {
+            this.buffer[this.length++] = '-';
+            remaining = -remaining;
+        }
+        final int start = this.length;
+        do {
+            this.buffer[this.length++] = (byte) ('0' + (remaining % 10));
+            remaining = remaining / 10;
+        } while (remaining > 0);
+        for (int i = start, j = this.length - 1; i < j; i++, j--) {
+            final byte temp = this.buffer[i];
+            this.buffer[i] = this.buffer[j];
+            this.buffer[j] = temp;
+        }
+    }
+
+    private void writeAscii(final String string) {
+        this.ensureCapacity(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            this.buffer[this.length++] = (byte) string.charAt(i);
+        }
+    }
+
+    private void writeByte(final int b) {
+        this.ensureCapacity(1);
+        this.buffer[this.length++] = (byte) b;
+    }
+
+    private void writeBytes(final int b1, final int b2) {
+        this.ensureCapacity(2);
+        this.buffer[this.length++] = (byte) b1;
+        this.buffer[this.length++] = (byte) b2;
+    }
+
+    private void ensureCapacity(final int size) {
+        if (this.length + size > this.buffer.length) {
+            final byte[] temp = new byte[Math.max(this.length + size, this.buffer.length * 2)];
+            System.arraycopy(this.buffer, 0, temp, 0, this.length);
+            this.buffer = temp;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.formats.VertexQueryFilter;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
@@ -13,6 +14,9 @@ import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
 import java.io.IOException;
 
 /**
+ * GraphSONRecordReader reads the vertices of the lines of a GraphSON file with FaunusGraphSONCodec.
+ * The vertex is reused from line to line.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class GraphSONRecordReader extends RecordReader<NullWritable, FaunusVertex> {
@@ -20,7 +24,9 @@ public class GraphSONRecordReader extends RecordReader<NullWritable, FaunusVerte
     private boolean pathEnabled;
     private final LineRecordReader lineRecordReader;
     private final VertexQueryFilter vertexQuery;
-    private FaunusVertex vertex = null;
+    private final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+    private final FaunusVertex vertex = new FaunusVertex();
+    private TaskAttemptContext context;
 
     public GraphSONRecordReader(VertexQueryFilter vertexQuery) {
         this.lineRecordReader = new LineRecordReader();
@@ -31,17 +37,23 @@ public class GraphSONRecordReader extends RecordReader<NullWritable, FaunusVerte
     public void initialize(final InputSplit genericSplit, final TaskAttemptContext context) throws IOException {
         this.lineRecordReader.initialize(genericSplit, context);
         this.pathEnabled = context.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false);
+        this.context = context;
     }
 
     @Override
     public boolean nextKeyValue() throws IOException {
-        if (!this.lineRecordReader.nextKeyValue())
-            return false;
-
-        this.vertex = FaunusGraphSONUtility.fromJSON(this.lineRecordReader.getCurrentValue().toString());
-        this.vertexQuery.defaultFilter(this.vertex);
-        this.vertex.enablePath(this.pathEnabled);
-        return true;
+        while (this.lineRecordReader.nextKeyValue()) {
+            final Text line = this.lineRecordReader.getCurrentValue();
+            if (!this.vertexQuery.mayBeLegal(line.getBytes(), line.getLength(), this.context))
+                continue;
+            this.codec.read(line.getBytes(), 0, line.getLength(), this.vertex);
+            if (!this.vertexQuery.isLegal(this.vertex, this.context))
+                continue;
+            this.vertexQuery.defaultFilter(this.vertex);
+            this.vertex.enablePath(this.pathEnabled);
+            return true;
+        }
+        return false;
     }
 
     @Override
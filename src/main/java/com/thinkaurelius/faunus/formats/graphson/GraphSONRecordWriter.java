@@ -19,6 +19,7 @@ public class GraphSONRecordWriter extends RecordWriter<NullWritable, FaunusVerte
     private static final String UTF8 = "UTF-8";
     private static final byte[] NEWLINE;
     protected DataOutputStream out;
+    private final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
 
     static {
         try {
@@ -36,7 +37,7 @@ public class GraphSONRecordWriter extends RecordWriter<NullWritable, FaunusVerte
     @Override
     public void write(final NullWritable key, final FaunusVertex vertex) throws IOException {
         if (null != vertex) {
-            this.out.write(FaunusGraphSONUtility.toJSON(vertex).toString().getBytes(UTF8));
+            this.codec.write(vertex, this.out);
             this.out.write(NEWLINE);
         }
     }
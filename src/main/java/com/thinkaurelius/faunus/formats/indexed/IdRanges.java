@@ -0,0 +1,127 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IdRanges is a set of vertex id ranges used to prune the blocks of an indexed graph file.
+ * Its string form is a comma separated list of ids and inclusive ranges of non-negative ids (e.g. 1,5-10,20).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IdRanges {
+
+    private static final String COMMA = ",";
+    private static final char DASH = '-';
+
+    // sorted and disjoint
+    private final long[] lows;
+    private final long[] highs;
+
+    private IdRanges(final long[] lows, final long[] highs) {
+        this.lows = lows;
+        this.highs = highs;
+    }
+
+    /**
+     * Parse the string form of the ranges or return null if there are no ranges.
+     */
+    public static IdRanges parse(final String ranges) {
+        if (null == ranges || ranges.trim().isEmpty())
+            return null;
+        final List<long[]> list = new ArrayList<long[]>();
+        for (String range : ranges.split(COMMA)) {
+            range = range.trim();
+            if (range.isEmpty())
+                continue;
+            final int dash = range.indexOf(DASH, 1);
+            if (dash == -1) {
+                final long id = Long.valueOf(range);
+                list.add(new long[]{id, id});
+            } else {
+                final long low = Long.valueOf(range.substring(0, dash).trim());
+                final long high = Long.valueOf(range.substring(dash + 1).trim());
+                if (low > high)
+                    throw new IllegalArgumentException("The range " + range + " has a lower bound that is larger than its upper bound");
+                list.add(new long[]{low, high});
+            }
+        }
+        if (list.isEmpty())
+            return null;
+
+        Collections.sort(list, new java.util.Comparator<long[]>() {
+            public int compare(final long[] range1, final long[] range2) {
+                return Long.valueOf(range1[0]).compareTo(range2[0]);
+            }
+        });
+        final long[] lows = new long[list.size()];
+        final long[] highs = new long[list.size()];
+        int size = 0;
+        for (final long[] range : list) {
+            if (size > 0 && range[0] <= highs[size - 1] + 1) {
+                highs[size - 1] = Math.max(highs[size - 1], range[1]);
+            } else {
+                lows[size] = range[0];
+                highs[size] = range[1];
+                size++;
+            }
+        }
+        return new IdRanges(Arrays.copyOf(lows, size), Arrays.copyOf(highs, size));
+    }
+
+    public static String toString(final long... ids) {
+        final StringBuilder builder = new StringBuilder();
+        for (final long id : ids) {
+            if (builder.length() > 0)
+                builder.append(COMMA);
+            builder.append(id);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Whether the id is in one of the ranges.
+     */
+    public boolean contains(final long id) {
+        final int index = this.floor(id);
+        return index >= 0 && id <= this.highs[index];
+    }
+
+    /**
+     * Whether one of the ranges intersects the inclusive range of ids.
+     */
+    public boolean intersects(final long minId, final long maxId) {
+        final int index = this.floor(maxId);
+        return index >= 0 && this.highs[index] >= minId;
+    }
+
+    /**
+     * The index of the last range with a lower bound that is not larger than the id (or -1).
+     */
+    private int floor(final long id) {
+        int low = 0;
+        int high = this.lows.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (this.lows[middle] <= id)
+                low = middle + 1;
+            else
+                high = middle - 1;
+        }
+        return high;
+    }
+
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.lows.length; i++) {
+            if (i > 0)
+                builder.append(COMMA);
+            builder.append(this.lows[i]);
+            if (this.highs[i] != this.lows[i])
+                builder.append(DASH).append(this.highs[i]);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The layout of an indexed graph file:
+ * <pre>
+ * header: magic, codec class name (empty when the blocks are not compressed)
+ * blocks: uncompressed length (vint), compressed length (vint), compressed records
+ * index:  sorted flag, number of blocks (vint), per block its min id, max id, offset, length (vlongs) and vertex count (vint)
+ * footer: index offset (long), magic
+ * </pre>
+ * The records of a block are sorted by vertex id and every record is its vertex id (vlong), the length of the
+ * serialized vertex (vint) and the serialized vertex, so a reader can skip vertices without deserializing them.
+ * The index is the sparse id index of the file -- the file is sorted when the id ranges of its blocks are ascending
+ * and disjoint, which is the case for the output of a reducer that is keyed by vertex id.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphFile {
+
+    public static final byte[] MAGIC = new byte[]{'F', 'G', 'I', '1'};
+    public static final int FOOTER_LENGTH = 8 + MAGIC.length;
+
+    public static class Block {
+
+        private final long minId;
+        private final long maxId;
+        private final long offset;
+        private final long length;
+        private final int count;
+
+        public Block(final long minId, final long maxId, final long offset, final long length, final int count) {
+            this.minId = minId;
+            this.maxId = maxId;
+            this.offset = offset;
+            this.length = length;
+            this.count = count;
+        }
+
+        public long getMinId() {
+            return this.minId;
+        }
+
+        public long getMaxId() {
+            return this.maxId;
+        }
+
+        public long getOffset() {
+            return this.offset;
+        }
+
+        public long getLength() {
+            return this.length;
+        }
+
+        public int getCount() {
+            return this.count;
+        }
+
+        public boolean intersects(final IdRanges ranges) {
+            return null == ranges || ranges.intersects(this.minId, this.maxId);
+        }
+    }
+
+    public static class Index {
+
+        private final String codec;
+        private final boolean sorted;
+        private final List<Block> blocks;
+
+        public Index(final String codec, final boolean sorted, final List<Block> blocks) {
+            this.codec = codec;
+            this.sorted = sorted;
+            this.blocks = blocks;
+        }
+
+        public CompressionCodec createCodec(final Configuration configuration) throws IOException {
+            if (this.codec.isEmpty())
+                return null;
+            try {
+                return (CompressionCodec) ReflectionUtils.newInstance(configuration.getClassByName(this.codec), configuration);
+            } catch (final ClassNotFoundException e) {
+                throw new IOException("The compression codec of the indexed graph file is not available: " + this.codec, e);
+            }
+        }
+
+        public boolean isSorted() {
+            return this.sorted;
+        }
+
+        public List<Block> getBlocks() {
+            return this.blocks;
+        }
+
+        /**
+         * The blocks that start within the byte range and that may contain a vertex with an id in the ranges.
+         */
+        public List<Block> getBlocks(final long start, final long end, final IdRanges ranges) {
+            final List<Block> list = new ArrayList<Block>();
+            int first = 0;
+            if (this.sorted && null != ranges) {
+                // the blocks that end before the smallest requested id are skipped with the sparse index
+                first = this.firstBlock(ranges);
+            }
+            for (int i = first; i < this.blocks.size(); i++) {
+                final Block block = this.blocks.get(i);
+                if (block.getOffset() >= start && block.getOffset() < end && block.intersects(ranges))
+                    list.add(block);
+            }
+            return list;
+        }
+
+        private int firstBlock(final IdRanges ranges) {
+            int low = 0;
+            int high = this.blocks.size() - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                if (ranges.intersects(Long.MIN_VALUE, this.blocks.get(middle).getMaxId()))
+                    high = middle - 1;
+                else
+                    low = middle + 1;
+            }
+            return low;
+        }
+    }
+
+    public static void writeHeader(final DataOutput out, final CompressionCodec codec) throws IOException {
+        out.write(MAGIC);
+        out.writeUTF(null == codec ? "" : codec.getClass().getName());
+    }
+
+    public static void writeIndex(final DataOutput out, final long indexOffset, final boolean sorted, final List<Block> blocks) throws IOException {
+        out.writeBoolean(sorted);
+        WritableUtils.writeVInt(out, blocks.size());
+        for (final Block block : blocks) {
+            WritableUtils.writeVLong(out, block.getMinId());
+            WritableUtils.writeVLong(out, block.getMaxId());
+            WritableUtils.writeVLong(out, block.getOffset());
+            WritableUtils.writeVLong(out, block.getLength());
+            WritableUtils.writeVInt(out, block.getCount());
+        }
+        out.writeLong(indexOffset);
+        out.write(MAGIC);
+    }
+
+    public static Index readIndex(final FileSystem fs, final Path path) throws IOException {
+        final long length = fs.getFileStatus(path).getLen();
+        final FSDataInputStream in = fs.open(path);
+        try {
+            checkMagic(in, path);
+            final String codec = in.readUTF();
+            if (length < FOOTER_LENGTH)
+                throw new IOException("The indexed graph file is truncated: " + path);
+            in.seek(length - FOOTER_LENGTH);
+            final long indexOffset = in.readLong();
+            checkMagic(in, path);
+
+            in.seek(indexOffset);
+            final boolean sorted = in.readBoolean();
+            final int size = WritableUtils.readVInt(in);
+            final List<Block> blocks = new ArrayList<Block>(size);
+            for (int i = 0; i < size; i++) {
+                blocks.add(new Block(WritableUtils.readVLong(in), WritableUtils.readVLong(in), WritableUtils.readVLong(in), WritableUtils.readVLong(in), WritableUtils.readVInt(in)));
+            }
+            return new Index(codec, sorted, blocks);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void checkMagic(final DataInput in, final Path path) throws IOException {
+        final byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC))
+            throw new IOException("The file is not an indexed graph file: " + path);
+    }
+}
@@ -0,0 +1,106 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IndexedGraphInputFormat reads indexed graph files (see IndexedGraphFile).
+ * When faunus.graph.input.indexed.id-ranges is set, the graph is restricted to the vertices with ids in the ranges:
+ * splits are only created for the blocks whose id statistics intersect the ranges and the record readers skip the
+ * other blocks and vertices. FaunusCompiler sets the ranges for id lookups (see FaunusCompiler.composeJobs()).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphInputFormat extends FileInputFormat<NullWritable, FaunusVertex> implements Configurable {
+
+    public static final String FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES = "faunus.graph.input.indexed.id-ranges";
+
+    private static final Logger logger = Logger.getLogger(IndexedGraphInputFormat.class);
+
+    private VertexQueryFilter vertexQuery;
+    private IdRanges ranges;
+    private Configuration config;
+
+    @Override
+    public List<InputSplit> getSplits(final JobContext job) throws IOException {
+        final long minSize = Math.max(1l, getMinSplitSize(job));
+        final long maxSize = getMaxSplitSize(job);
+        final IdRanges ranges = IdRanges.parse(job.getConfiguration().get(FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES));
+
+        final List<InputSplit> splits = new ArrayList<InputSplit>();
+        int totalBlocks = 0;
+        int selectedBlocks = 0;
+        for (final FileStatus file : listStatus(job)) {
+            if (file.getLen() == 0)
+                continue;
+            final Path path = file.getPath();
+            final FileSystem fs = path.getFileSystem(job.getConfiguration());
+            final IndexedGraphFile.Index index = IndexedGraphFile.readIndex(fs, path);
+            final List<IndexedGraphFile.Block> blocks = index.getBlocks(0, Long.MAX_VALUE, ranges);
+            totalBlocks = totalBlocks + index.getBlocks().size();
+            selectedBlocks = selectedBlocks + blocks.size();
+
+            // a split spans a run of selected blocks -- the blocks between them are skipped by the record reader
+            final long splitSize = computeSplitSize(file.getBlockSize(), minSize, maxSize);
+            long start = -1l;
+            long end = -1l;
+            long bytes = 0l;
+            for (final IndexedGraphFile.Block block : blocks) {
+                if (start == -1l)
+                    start = block.getOffset();
+                end = block.getOffset() + block.getLength();
+                bytes = bytes + block.getLength();
+                if (bytes >= splitSize) {
+                    splits.add(createSplit(fs, file, start, end - start));
+                    start = -1l;
+                    bytes = 0l;
+                }
+            }
+            if (start != -1l)
+                splits.add(createSplit(fs, file, start, end - start));
+        }
+        if (null != ranges)
+            logger.info("Reading " + selectedBlocks + " of " + totalBlocks + " block(s) for the vertex ids " + ranges);
+        return splits;
+    }
+
+    private static FileSplit createSplit(final FileSystem fs, final FileStatus file, final long start, final long length) throws IOException {
+        final BlockLocation[] locations = fs.getFileBlockLocations(file, start, length);
+        return new FileSplit(file.getPath(), start, length, locations.length == 0 ? new String[0] : locations[0].getHosts());
+    }
+
+    @Override
+    public RecordReader<NullWritable, FaunusVertex> createRecordReader(final InputSplit split, final TaskAttemptContext context) {
+        return new IndexedGraphRecordReader(this.vertexQuery, this.ranges);
+    }
+
+    @Override
+    public void setConf(final Configuration config) {
+        this.config = config;
+        this.vertexQuery = VertexQueryFilter.create(config);
+        this.ranges = IdRanges.parse(config.get(FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES));
+    }
+
+    @Override
+    public Configuration getConf() {
+        return this.config;
+    }
+}
@@ -0,0 +1,39 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.FaunusFileOutputFormat;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+
+/**
+ * IndexedGraphOutputFormat writes the graph as indexed graph files (see IndexedGraphFile).
+ * The blocks are compressed with the codec of faunus.graph.output.indexed.codec (DefaultCodec by default).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphOutputFormat extends FaunusFileOutputFormat {
+
+    public static final String FAUNUS_GRAPH_OUTPUT_INDEXED_BLOCK_SIZE = "faunus.graph.output.indexed.block-size";
+    public static final String FAUNUS_GRAPH_OUTPUT_INDEXED_CODEC = "faunus.graph.output.indexed.codec";
+    public static final String FAUNUS_GRAPH_OUTPUT_INDEXED_COMPRESS = "faunus.graph.output.indexed.compress";
+
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    @Override
+    public RecordWriter<NullWritable, FaunusVertex> getRecordWriter(final TaskAttemptContext job) throws IOException, InterruptedException {
+        final Configuration configuration = job.getConfiguration();
+        final CompressionCodec codec = configuration.getBoolean(FAUNUS_GRAPH_OUTPUT_INDEXED_COMPRESS, true) ?
+                ReflectionUtils.newInstance(configuration.getClass(FAUNUS_GRAPH_OUTPUT_INDEXED_CODEC, DefaultCodec.class, CompressionCodec.class), configuration) : null;
+        final Path file = super.getDefaultWorkFile(job, "");
+        return new IndexedGraphRecordWriter(file.getFileSystem(configuration).create(file, false), codec,
+                configuration.getInt(FAUNUS_GRAPH_OUTPUT_INDEXED_BLOCK_SIZE, DEFAULT_BLOCK_SIZE));
+    }
+}
@@ -0,0 +1,137 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * IndexedGraphRecordReader reads the blocks of its split that may contain the requested vertex ids.
+ * The vertices of a block with ids that were not requested are skipped without being deserialized.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphRecordReader extends RecordReader<NullWritable, FaunusVertex> {
+
+    private final VertexQueryFilter vertexQuery;
+    private final IdRanges ranges;
+    private boolean pathEnabled;
+
+    private FSDataInputStream in;
+    private CompressionCodec codec;
+    private List<IndexedGraphFile.Block> blocks;
+    private int currentBlock = 0;
+    private int remainingRecords = 0;
+    private byte[] compressed = new byte[0];
+    private byte[] data = new byte[0];
+    private final DataInputBuffer buffer = new DataInputBuffer();
+    private FaunusVertex vertex;
+    private TaskAttemptContext context;
+
+    public IndexedGraphRecordReader(final VertexQueryFilter vertexQuery, final IdRanges ranges) {
+        this.vertexQuery = vertexQuery;
+        this.ranges = ranges;
+    }
+
+    @Override
+    public void initialize(final InputSplit genericSplit, final TaskAttemptContext context) throws IOException {
+        final Configuration configuration = context.getConfiguration();
+        final FileSplit split = (FileSplit) genericSplit;
+        final FileSystem fs = split.getPath().getFileSystem(configuration);
+        final IndexedGraphFile.Index index = IndexedGraphFile.readIndex(fs, split.getPath());
+        this.blocks = index.getBlocks(split.getStart(), split.getStart() + split.getLength(), this.ranges);
+        this.codec = index.createCodec(configuration);
+        this.in = fs.open(split.getPath());
+        this.vertex = ReflectionUtils.newInstance(FaunusVertex.class, configuration);
+        this.pathEnabled = configuration.getBoolean(FaunusCompiler.PATH_ENABLED, false);
+        this.context = context;
+    }
+
+    @Override
+    public boolean nextKeyValue() throws IOException {
+        while (true) {
+            while (this.remainingRecords == 0) {
+                if (this.currentBlock >= this.blocks.size())
+                    return false;
+                this.readBlock(this.blocks.get(this.currentBlock++));
+            }
+            this.remainingRecords--;
+            final long id = WritableUtils.readVLong(this.buffer);
+            final int length = WritableUtils.readVInt(this.buffer);
+            if (null != this.ranges && !this.ranges.contains(id)) {
+                this.buffer.skipBytes(length);
+                continue;
+            }
+            this.vertex.readFields(this.buffer);
+            if (!this.vertexQuery.isLegal(this.vertex, this.context))
+                continue;
+            this.vertexQuery.defaultFilter(this.vertex);
+            this.vertex.enablePath(this.pathEnabled);
+            return true;
+        }
+    }
+
+    private void readBlock(final IndexedGraphFile.Block block) throws IOException {
+        this.in.seek(block.getOffset());
+        final int length = WritableUtils.readVInt(this.in);
+        final int compressedLength = WritableUtils.readVInt(this.in);
+        if (this.data.length < length)
+            this.data = new byte[length];
+        if (null == this.codec) {
+            this.in.readFully(this.data, 0, length);
+        } else {
+            if (this.compressed.length < compressedLength)
+                this.compressed = new byte[compressedLength];
+            this.in.readFully(this.compressed, 0, compressedLength);
+            final Decompressor decompressor = CodecPool.getDecompressor(this.codec);
+            try {
+                final InputStream decompressed = this.codec.createInputStream(new ByteArrayInputStream(this.compressed, 0, compressedLength), decompressor);
+                IOUtils.readFully(decompressed, this.data, 0, length);
+            } finally {
+                CodecPool.returnDecompressor(decompressor);
+            }
+        }
+        this.buffer.reset(this.data, length);
+        this.remainingRecords = block.getCount();
+    }
+
+    @Override
+    public NullWritable getCurrentKey() {
+        return NullWritable.get();
+    }
+
+    @Override
+    public FaunusVertex getCurrentValue() {
+        return this.vertex;
+    }
+
+    @Override
+    public float getProgress() {
+        return this.blocks.isEmpty() ? 1.0f : (float) this.currentBlock / (float) this.blocks.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (null != this.in)
+            this.in.close();
+    }
+}
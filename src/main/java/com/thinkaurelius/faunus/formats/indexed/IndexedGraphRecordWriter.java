@@ -0,0 +1,126 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * IndexedGraphRecordWriter buffers the serialized vertices of a block, sorts them by id and writes the compressed block.
+ * The index of the blocks is written when the writer is closed.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphRecordWriter extends RecordWriter<NullWritable, FaunusVertex> {
+
+    private final FSDataOutputStream out;
+    private final CompressionCodec codec;
+    private final int blockSize;
+
+    private final List<Record> records = new ArrayList<Record>();
+    private final List<IndexedGraphFile.Block> blocks = new ArrayList<IndexedGraphFile.Block>();
+    private final DataOutputBuffer vertexBuffer = new DataOutputBuffer();
+    private final DataOutputBuffer blockBuffer = new DataOutputBuffer();
+    private final DataOutputBuffer compressedBuffer = new DataOutputBuffer();
+    private int bufferedBytes = 0;
+    private boolean sorted = true;
+
+    private static final Comparator<Record> ID_COMPARATOR = new Comparator<Record>() {
+        public int compare(final Record record1, final Record record2) {
+            return Long.valueOf(record1.id).compareTo(record2.id);
+        }
+    };
+
+    public IndexedGraphRecordWriter(final FSDataOutputStream out, final CompressionCodec codec, final int blockSize) throws IOException {
+        this.out = out;
+        this.codec = codec;
+        this.blockSize = blockSize;
+        IndexedGraphFile.writeHeader(this.out, this.codec);
+    }
+
+    @Override
+    public void write(final NullWritable key, final FaunusVertex vertex) throws IOException {
+        this.vertexBuffer.reset();
+        vertex.write(this.vertexBuffer);
+        this.records.add(new Record(vertex.getIdAsLong(), Arrays.copyOf(this.vertexBuffer.getData(), this.vertexBuffer.getLength())));
+        this.bufferedBytes = this.bufferedBytes + this.vertexBuffer.getLength();
+        if (this.bufferedBytes >= this.blockSize)
+            this.writeBlock();
+    }
+
+    private void writeBlock() throws IOException {
+        if (this.records.isEmpty())
+            return;
+        Collections.sort(this.records, ID_COMPARATOR);
+        final long minId = this.records.get(0).id;
+        final long maxId = this.records.get(this.records.size() - 1).id;
+        if (!this.blocks.isEmpty() && minId <= this.blocks.get(this.blocks.size() - 1).getMaxId())
+            this.sorted = false;
+
+        this.blockBuffer.reset();
+        for (final Record record : this.records) {
+            WritableUtils.writeVLong(this.blockBuffer, record.id);
+            WritableUtils.writeVInt(this.blockBuffer, record.vertex.length);
+            this.blockBuffer.write(record.vertex);
+        }
+
+        final byte[] data;
+        final int length;
+        if (null == this.codec) {
+            data = this.blockBuffer.getData();
+            length = this.blockBuffer.getLength();
+        } else {
+            this.compressedBuffer.reset();
+            final Compressor compressor = CodecPool.getCompressor(this.codec);
+            try {
+                final CompressionOutputStream compressed = this.codec.createOutputStream(this.compressedBuffer, compressor);
+                compressed.write(this.blockBuffer.getData(), 0, this.blockBuffer.getLength());
+                compressed.finish();
+            } finally {
+                CodecPool.returnCompressor(compressor);
+            }
+            data = this.compressedBuffer.getData();
+            length = this.compressedBuffer.getLength();
+        }
+
+        final long offset = this.out.getPos();
+        WritableUtils.writeVInt(this.out, this.blockBuffer.getLength());
+        WritableUtils.writeVInt(this.out, length);
+        this.out.write(data, 0, length);
+        this.blocks.add(new IndexedGraphFile.Block(minId, maxId, offset, this.out.getPos() - offset, this.records.size()));
+
+        this.records.clear();
+        this.bufferedBytes = 0;
+    }
+
+    @Override
+    public synchronized void close(final TaskAttemptContext context) throws IOException {
+        this.writeBlock();
+        IndexedGraphFile.writeIndex(this.out, this.out.getPos(), this.sorted, this.blocks);
+        this.out.close();
+    }
+
+    private static class Record {
+        private final long id;
+        private final byte[] vertex;
+
+        public Record(final long id, final byte[] vertex) {
+            this.id = id;
+            this.vertex = vertex;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.thinkaurelius.faunus.formats.rexster.util.DefaultElementIdHandler;
 import com.thinkaurelius.faunus.formats.rexster.util.ElementIdHandler;
 import com.thinkaurelius.faunus.formats.rexster.util.OrientElementIdHandler;
 import com.thinkaurelius.faunus.formats.rexster.util.TitanBerkeleyJEElementIdHandler;
+import com.thinkaurelius.faunus.formats.rexster.util.VertexCursors;
 import com.thinkaurelius.faunus.formats.rexster.util.VertexToFaunusBinary;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.Vertex;
@@ -34,6 +35,10 @@ import java.util.UUID;
 
 /**
  * Streams the vertex list back in FaunusVertex binary format.
+ * Every vertex is preceded by a VERTEX byte and the stream of a split is terminated by an END byte so that the
+ * client can tell a complete split from a broken stream. The vertex iterator of a split is kept as a cursor of the
+ * job (see VertexCursors) so that the split which starts where it ended does not iterate from the first vertex --
+ * the request of that split waits for the cursor while this request is in flight.
  *
  * @author Stephen Mallette (http://stephen.genoprime.com)
  */
@@ -49,6 +54,12 @@ public class FaunusRexsterInputFormatExtension extends AbstractRexsterExtension
     public static final String EXTENSION_NAME = "rexsterinputformat";
     public static final String EXTENSION_METHOD_STREAM = "stream";
     public static final String EXTENSION_METHOD_COUNT = "count";
+    public static final String CURSOR = "cursor";
+
+    public static final byte VERTEX = 1;
+    public static final byte END = 0;
+
+    private static final VertexCursors CURSORS = new VertexCursors();
 
     @ExtensionDefinition(extensionPoint = ExtensionPoint.GRAPH, produces = MediaType.APPLICATION_JSON,
             method = HttpMethod.GET, path = EXTENSION_METHOD_COUNT)
@@ -80,6 +91,7 @@ public class FaunusRexsterInputFormatExtension extends AbstractRexsterExtension
         final JSONObject requestObject = context.getRequestObject();
         final long start = RequestObjectHelper.getStartOffset(requestObject);
         final long end = RequestObjectHelper.getEndOffset(requestObject);
+        final String job = requestObject.optString(CURSOR, null);
 
         final ElementIdHandler elementIdHandler = this.getElementIdHandler(context.getRexsterApplicationGraph());
         final VertexToFaunusBinary vertexToFaunusBinary = new VertexToFaunusBinary(elementIdHandler);
@@ -92,33 +104,54 @@ public class FaunusRexsterInputFormatExtension extends AbstractRexsterExtension
         return new ExtensionResponse(Response.ok(new StreamingOutput() {
             @Override
             public void write(OutputStream out) throws IOException {
-                long counter = 0;
-                long vertexCount = 0;
-
                 final DataOutputStream dos = new DataOutputStream(out);
-
-                final Iterable<Vertex> vertices = graph.getVertices();
-                for (Vertex vertex : vertices) {
-                    if (counter >= start && counter < end) {
+                // the cursor is only kept if the split was streamed completely, but the request always ends
+                VertexCursors.Cursor completed = null;
+                try {
+                    final VertexCursors.Cursor cursor = openCursor(job, graph, start, end, requestIdentifier);
+                    long vertexCount = 0;
+                    Vertex vertex;
+                    while ((vertex = cursor.next(end)) != null) {
+                        dos.writeByte(VERTEX);
                         vertexToFaunusBinary.writeVertex(vertex, dos);
 
-                        if (logger.isDebugEnabled() && counter % WRITE_STATUS_EVERY == 0) {
+                        if (logger.isDebugEnabled() && vertexCount % WRITE_STATUS_EVERY == 0) {
                             logger.debug(String.format("Request [%s] at [%s] on the way to [%s].",
                                     requestIdentifier, vertexCount, verticesInSplit));
                         }
 
                         vertexCount++;
-
-                    } else if (counter >= end) {
-                        logger.debug(String.format("Request [%s] completed.", requestIdentifier));
-                        break;
                     }
-                    counter++;
+                    dos.writeByte(END);
+                    dos.flush();
+                    completed = cursor;
+                } finally {
+                    CURSORS.put(job, end, completed);
                 }
+                logger.debug(String.format("Request [%s] completed.", requestIdentifier));
             }
         }).build());
     }
 
+    private static VertexCursors.Cursor openCursor(final String job, final Graph graph, final long start, final long end, final UUID requestIdentifier) {
+        final VertexCursors.Cursor cursor = CURSORS.take(job, graph, start, end);
+        try {
+            cursor.skipTo(start);
+            // a resumed cursor is at its start already, so its iterator must be touched to know it is still valid
+            cursor.hasNext();
+            return cursor;
+        } catch (final RuntimeException e) {
+            // the transaction of a kept cursor may be gone
+            if (!cursor.isResumed())
+                throw e;
+            logger.debug(String.format("Request [%s] could not resume at [%s] and starts from the first vertex.",
+                    requestIdentifier, cursor.getPosition()), e);
+            final VertexCursors.Cursor fresh = CURSORS.take(null, graph, start, end);
+            fresh.skipTo(start);
+            return fresh;
+        }
+    }
+
     private ElementIdHandler getElementIdHandler(final RexsterApplicationGraph rag) {
         final ExtensionConfiguration configuration = rag.findExtensionConfiguration(EXTENSION_NAMESPACE, EXTENSION_NAME);
         if (configuration == null) {
@@ -24,6 +24,7 @@ public class RexsterConfiguration {
     public static final String FAUNUS_GRAPH_INPUT_REXSTER_V_ESTIMATE = "faunus.graph.input.rexster.v-estimate";
     public static final String FAUNUS_GRAPH_INPUT_REXSTER_USERNAME = "faunus.graph.input.rexster.username";
     public static final String FAUNUS_GRAPH_INPUT_REXSTER_PASSWORD = "faunus.graph.input.rexster.password";
+    public static final String FAUNUS_GRAPH_INPUT_REXSTER_STREAMS = "faunus.graph.input.rexster.streams";
 
     private Configuration conf;
 
@@ -53,6 +54,15 @@ public class RexsterConfiguration {
         return this.conf.get(FAUNUS_GRAPH_INPUT_REXSTER_GRAPH);
     }
 
+    /**
+     * The number of streams that a split is read with (1 by default).
+     * Every stream resumes from the cursor of the stream before it (see VertexCursors), so the server streams the
+     * ranges of a split one after the other.
+     */
+    public int getStreams() {
+        return Math.max(1, this.conf.getInt(FAUNUS_GRAPH_INPUT_REXSTER_STREAMS, 1));
+    }
+
     public String getAuthenticationHeaderValue() {
         return "Basic " + Base64.encodeBase64URLSafeString(
                 (this.conf.get(FAUNUS_GRAPH_INPUT_REXSTER_USERNAME, "") + ":" + this.conf.get(FAUNUS_GRAPH_INPUT_REXSTER_USERNAME, ""))
@@ -2,25 +2,36 @@ package com.thinkaurelius.faunus.formats.rexster;
 
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.formats.VertexQueryFilter;
-import com.thinkaurelius.faunus.formats.rexster.util.HttpHelper;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Gets vertices from Rexster via the Gremlin Extension and a custom Gremlin script that iterates
- * vertices and converts them to the Faunus GraphSON that is understood by the Faunus GraphSONUtility.
+ * Gets vertices from Rexster via the FaunusRexsterInputFormatExtension which streams the vertices of a split
+ * in the FaunusVertex binary format.
+ * A split may be read with several streams (faunus.graph.input.rexster.streams) that each serve a range of the split.
+ * A stream is opened once the stream before it is open, so that the server serves it from the cursor of the stream
+ * before it (see VertexCursors) once that one has ended. A stream that breaks before the end of its range fails the task.
  *
  * @author Stephen Mallette (http://stephen.genoprime.com)
  */
 public class RexsterRecordReader extends RecordReader<NullWritable, FaunusVertex> {
 
+    private static final int QUEUE_SIZE = 1000;
+    private static final FaunusVertex END_OF_STREAM = new FaunusVertex();
+
     private final RexsterConfiguration rexsterConf;
     private VertexQueryFilter vertexQuery;
 
@@ -31,7 +42,14 @@ public class RexsterRecordReader extends RecordReader<NullWritable, FaunusVertex
      */
     private FaunusVertex vertex = new FaunusVertex();
 
-    private DataInputStream rexsterInputStream;
+    private RexsterStream rexsterStream;
+
+    // the vertices of concurrent streams
+    private ExecutorService executor;
+    private BlockingQueue<FaunusVertex> queue;
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    private final List<RexsterStream> streams = new ArrayList<RexsterStream>();
+    private int openStreams = 0;
 
     private long splitStart;
     private long splitEnd;
@@ -51,25 +69,49 @@ public class RexsterRecordReader extends RecordReader<NullWritable, FaunusVertex
         this.splitEnd = rexsterInputSplit.getEnd();
         this.splitStart = rexsterInputSplit.getStart();
         this.pathEnabled = taskAttemptContext.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false);
-        this.openRexsterStream();
+        final String cursor = taskAttemptContext.getJobID().toString();
+
+        // the range of the last split is not known
+        final int streams = this.splitEnd == Long.MAX_VALUE ? 1 : (int) Math.min(this.rexsterConf.getStreams(), this.splitEnd - this.splitStart);
+        if (streams <= 1) {
+            this.rexsterStream = RexsterStream.open(this.rexsterConf, this.splitStart, this.splitEnd, cursor);
+        } else {
+            this.queue = new ArrayBlockingQueue<FaunusVertex>(QUEUE_SIZE);
+            this.executor = Executors.newFixedThreadPool(streams);
+            final long rangeSize = (this.splitEnd - this.splitStart) / streams;
+            // the streams are opened by their readers as the server holds back a stream until the one before it has ended
+            CountDownLatch previous = null;
+            for (int i = 0; i < streams; i++) {
+                final long start = this.splitStart + (i * rangeSize);
+                final long end = (i + 1) == streams ? this.splitEnd : start + rangeSize;
+                final CountDownLatch opened = new CountDownLatch(1);
+                this.executor.submit(new StreamReader(start, end, cursor, previous, opened));
+                previous = opened;
+            }
+            this.openStreams = streams;
+        }
     }
 
     @Override
     public boolean nextKeyValue() throws IOException, InterruptedException {
-        boolean isNext;
-
-        try {
-            this.vertex.readFields(this.rexsterInputStream);
-            this.vertexQuery.defaultFilter(this.vertex);
-            if (this.pathEnabled)
-                this.vertex.enablePath(true);
-            itemsIterated++;
-            isNext = true;
-        } catch (Exception e) {
-            isNext = false;
+        if (null != this.rexsterStream) {
+            if (!this.rexsterStream.next(this.vertex))
+                return false;
+        } else {
+            FaunusVertex next;
+            while ((next = this.queue.take()) == END_OF_STREAM) {
+                if (null != this.failure.get())
+                    throw new IOException("A Rexster stream of the split failed: " + this.failure.get().getMessage(), this.failure.get());
+                if (--this.openStreams == 0)
+                    return false;
+            }
+            this.vertex = next;
         }
-
-        return isNext;
+        this.vertexQuery.defaultFilter(this.vertex);
+        if (this.pathEnabled)
+            this.vertex.enablePath(true);
+        this.itemsIterated++;
+        return true;
     }
 
     @Override
@@ -94,20 +136,76 @@ public class RexsterRecordReader extends RecordReader<NullWritable, FaunusVertex
 
     @Override
     public void close() throws IOException {
-        this.rexsterInputStream.close();
+        if (null != this.rexsterStream)
+            this.rexsterStream.close();
+        if (null != this.executor) {
+            this.executor.shutdownNow();
+            // a reader may be blocked on its stream
+            synchronized (this.streams) {
+                for (final RexsterStream stream : this.streams) {
+                    stream.close();
+                }
+                this.streams.clear();
+            }
+        }
     }
 
-    private void openRexsterStream() {
-        try {
-            final HttpURLConnection connection = HttpHelper.createConnection(
-                    String.format("%s?rexster.offset.start=%s&rexster.offset.end=%s",
-                            this.rexsterConf.getRestStreamEndpoint(), this.splitStart, this.splitEnd),
-                    this.rexsterConf.getAuthenticationHeaderValue());
-            connection.setDoOutput(true);
-
-            this.rexsterInputStream = new DataInputStream(connection.getInputStream());
-        } catch (Exception e) {
-            throw new RuntimeException(e.getMessage(), e);
+    /**
+     * Opens a stream once the stream before it is open and reads it into the queue of the reader.
+     */
+    private class StreamReader implements Runnable {
+
+        private final long start;
+        private final long end;
+        private final String cursor;
+        private final CountDownLatch previous;
+        private final CountDownLatch opened;
+
+        public StreamReader(final long start, final long end, final String cursor, final CountDownLatch previous, final CountDownLatch opened) {
+            this.start = start;
+            this.end = end;
+            this.cursor = cursor;
+            this.previous = previous;
+            this.opened = opened;
+        }
+
+        @Override
+        public void run() {
+            try {
+                final RexsterStream stream;
+                try {
+                    if (null != this.previous)
+                        this.previous.await();
+                    stream = RexsterStream.open(rexsterConf, this.start, this.end, this.cursor);
+                    synchronized (streams) {
+                        streams.add(stream);
+                    }
+                } finally {
+                    this.opened.countDown();
+                }
+                try {
+                    FaunusVertex next = new FaunusVertex();
+                    while (stream.next(next)) {
+                        queue.put(next);
+                        next = new FaunusVertex();
+                    }
+                } finally {
+                    synchronized (streams) {
+                        streams.remove(stream);
+                    }
+                    stream.close();
+                }
+            } catch (final InterruptedException e) {
+                // the reader was closed
+                return;
+            } catch (final Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+            try {
+                queue.put(END_OF_STREAM);
+            } catch (final InterruptedException e) {
+                // the reader was closed
+            }
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.thinkaurelius.faunus.formats.rexster;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.rexster.util.HttpHelper;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+
+/**
+ * A stream of the vertices of a split as served by FaunusRexsterInputFormatExtension.
+ * The stream must be terminated by the END byte of the extension -- a stream that ends before is broken.
+ *
+ * @author Stephen Mallette (http://stephen.genoprime.com)
+ */
+public class RexsterStream implements Closeable {
+
+    private final DataInputStream in;
+    private boolean ended = false;
+
+    public RexsterStream(final InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+    }
+
+    /**
+     * Open the stream of the vertices between the start (inclusive) and end (exclusive) offsets.
+     *
+     * @param cursor the cursor (job) that the Rexster server keeps the vertex iterator of the stream for
+     */
+    public static RexsterStream open(final RexsterConfiguration rexsterConf, final long start, final long end, final String cursor) throws IOException {
+        try {
+            final HttpURLConnection connection = HttpHelper.createConnection(
+                    String.format("%s?rexster.offset.start=%s&rexster.offset.end=%s&%s=%s",
+                            rexsterConf.getRestStreamEndpoint(), start, end, FaunusRexsterInputFormatExtension.CURSOR, cursor),
+                    rexsterConf.getAuthenticationHeaderValue());
+            connection.setDoOutput(true);
+            return new RexsterStream(connection.getInputStream());
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the next vertex of the stream.
+     *
+     * @return false if the stream has ended
+     * @throws IOException if the stream is broken
+     */
+    public boolean next(final FaunusVertex vertex) throws IOException {
+        if (this.ended)
+            return false;
+        final int marker = this.in.read();
+        if (marker == FaunusRexsterInputFormatExtension.END) {
+            this.ended = true;
+            return false;
+        } else if (marker == -1) {
+            throw new IOException("The Rexster stream ended before the end of its split");
+        } else if (marker != FaunusRexsterInputFormatExtension.VERTEX) {
+            throw new IOException("The Rexster stream is corrupt: unexpected marker " + marker);
+        }
+        vertex.readFields(this.in);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,207 @@
+package com.thinkaurelius.faunus.formats.rexster.util;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * VertexCursors keeps the vertex iterators of finished stream requests so that the request for the next split of a
+ * job resumes iterating the vertices where the last one stopped, rather than counting up to its offset from the
+ * first vertex of the graph. The cursors of a job are keyed by the offset at which their split ended and they are
+ * handed out by split boundary: a request only takes the cursor at its start offset, so a request never takes the
+ * cursor that the split after another split is waiting for. As Hadoop requests the splits of a job concurrently,
+ * a request whose cursor is not there yet waits for it while the request that ends at its start offset is in
+ * flight. A request that times out waiting, or that is made before the request of the split before it, iterates
+ * from the first vertex of the graph. Cursors that are not taken within the timeout are dropped.
+ *
+ * @author Stephen Mallette (http://stephen.genoprime.com)
+ */
+public class VertexCursors {
+
+    public static final long DEFAULT_TIMEOUT = 10l * 60l * 1000l;
+    public static final long DEFAULT_WAIT_TIMEOUT = 5l * 60l * 1000l;
+    public static final int DEFAULT_MAX_CURSORS = 64;
+
+    private final long timeout;
+    private final long waitTimeout;
+    private final int maxCursors;
+    private final Map<String, TreeMap<Long, Cursor>> cursors = new HashMap<String, TreeMap<Long, Cursor>>();
+    // per job, the number of requests in flight by the offset they end at
+    private final Map<String, Map<Long, Integer>> inFlight = new HashMap<String, Map<Long, Integer>>();
+
+    public VertexCursors() {
+        this(DEFAULT_TIMEOUT, DEFAULT_WAIT_TIMEOUT, DEFAULT_MAX_CURSORS);
+    }
+
+    public VertexCursors(final long timeout, final long waitTimeout, final int maxCursors) {
+        this.timeout = timeout;
+        this.waitTimeout = waitTimeout;
+        this.maxCursors = maxCursors;
+    }
+
+    /**
+     * Take the cursor of the job at the start offset or a new cursor at the first vertex of the graph.
+     * The request is in flight until its cursor is put back (see put()) and while a request of the job that ends at the
+     * start offset is in flight, this waits for its cursor. A new cursor is not positioned at the offset (see Cursor.skipTo()).
+     */
+    public synchronized Cursor take(final String job, final Graph graph, final long start, final long end) {
+        if (null != job) {
+            final Cursor cursor = this.await(job, start);
+            Map<Long, Integer> jobRequests = this.inFlight.get(job);
+            if (null == jobRequests) {
+                jobRequests = new HashMap<Long, Integer>();
+                this.inFlight.put(job, jobRequests);
+            }
+            final Integer requests = jobRequests.get(end);
+            jobRequests.put(end, null == requests ? 1 : requests + 1);
+            if (null != cursor)
+                return cursor;
+        }
+        return new Cursor(graph.getVertices().iterator(), 0l, false);
+    }
+
+    private Cursor await(final String job, final long start) {
+        final long deadline = System.currentTimeMillis() + this.waitTimeout;
+        while (true) {
+            this.expire();
+            final TreeMap<Long, Cursor> jobCursors = this.cursors.get(job);
+            if (null != jobCursors) {
+                final Cursor cursor = jobCursors.remove(start);
+                if (null != cursor) {
+                    if (jobCursors.isEmpty())
+                        this.cursors.remove(job);
+                    return cursor;
+                }
+            }
+            final Map<Long, Integer> jobRequests = this.inFlight.get(job);
+            final long remaining = deadline - System.currentTimeMillis();
+            if (null == jobRequests || !jobRequests.containsKey(start) || remaining <= 0)
+                return null;
+            try {
+                this.wait(remaining);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * End the request of the job that ends at the offset and keep its cursor (if any) for the request that starts at
+     * its position.
+     */
+    public synchronized void put(final String job, final long end, final Cursor cursor) {
+        if (null == job)
+            return;
+        final Map<Long, Integer> jobRequests = this.inFlight.get(job);
+        if (null != jobRequests && jobRequests.containsKey(end)) {
+            final int requests = jobRequests.get(end) - 1;
+            if (requests == 0)
+                jobRequests.remove(end);
+            else
+                jobRequests.put(end, requests);
+            if (jobRequests.isEmpty())
+                this.inFlight.remove(job);
+        }
+        if (null != cursor && cursor.iterator.hasNext()) {
+            this.expire();
+            TreeMap<Long, Cursor> jobCursors = this.cursors.get(job);
+            if (null == jobCursors) {
+                jobCursors = new TreeMap<Long, Cursor>();
+                this.cursors.put(job, jobCursors);
+            }
+            if (jobCursors.size() >= this.maxCursors)
+                jobCursors.pollFirstEntry();
+            jobCursors.put(cursor.position, new Cursor(cursor.iterator, cursor.position, true));
+        }
+        this.notifyAll();
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (final TreeMap<Long, Cursor> jobCursors : this.cursors.values()) {
+            size = size + jobCursors.size();
+        }
+        return size;
+    }
+
+    private void expire() {
+        final long now = System.currentTimeMillis();
+        final Iterator<TreeMap<Long, Cursor>> jobs = this.cursors.values().iterator();
+        while (jobs.hasNext()) {
+            final TreeMap<Long, Cursor> jobCursors = jobs.next();
+            final Iterator<Cursor> iterator = jobCursors.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().touched > this.timeout)
+                    iterator.remove();
+            }
+            if (jobCursors.isEmpty())
+                jobs.remove();
+        }
+    }
+
+    /**
+     * An iterator over the vertices of a graph along with the offset of its next vertex.
+     */
+    public static class Cursor {
+
+        private final Iterator<Vertex> iterator;
+        private final boolean resumed;
+        private long position;
+        private final long touched = System.currentTimeMillis();
+
+        private Cursor(final Iterator<Vertex> iterator, final long position, final boolean resumed) {
+            this.iterator = iterator;
+            this.position = position;
+            this.resumed = resumed;
+        }
+
+        /**
+         * Skip the vertices before the offset.
+         *
+         * @return false if the graph has no vertices up to the offset
+         */
+        public boolean skipTo(final long offset) {
+            while (this.position < offset) {
+                if (!this.iterator.hasNext())
+                    return false;
+                this.iterator.next();
+                this.position++;
+            }
+            return true;
+        }
+
+        /**
+         * Whether the graph has a vertex at the position of the cursor.
+         * The iterator of the graph is touched, so the cursor fails here if its transaction is gone.
+         */
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        /**
+         * The next vertex before the end offset or null if there is none.
+         */
+        public Vertex next(final long end) {
+            if (this.position >= end || !this.iterator.hasNext())
+                return null;
+            this.position++;
+            return this.iterator.next();
+        }
+
+        public long getPosition() {
+            return this.position;
+        }
+
+        /**
+         * Whether the cursor was kept by a previous request.
+         */
+        public boolean isResumed() {
+            return this.resumed;
+        }
+    }
+}
@@ -25,12 +25,22 @@ import java.io.IOException;
  * The FaunusVertex argument is a reusable object to avoid object creation (see FaunusVertex.reuse(long)).
  * The String argument is the \n-line out of the file at the faunus.input.location.
  * The boolean denotes whether or not the provided line yielded a successful creation of a FaunusVertex.
+ * <p/>
+ * If faunus.graph.input.script.batch-size is greater than 0, the lines are instead passed in batches of that size to
+ * a method with the following signature:
+ * <p/>
+ * def Iterable&lt;FaunusVertex&gt; readBatch(List&lt;String&gt; lines) { ... }
+ * <p/>
+ * The returned FaunusVertex objects are added to the stream and must not be reused across calls.
+ * The List of lines is reused by the next call.
+ * The methods are resolved from the script once and invoked directly (see javax.script.Invocable) for each line or batch.
  *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class ScriptInputFormat extends FileInputFormat<NullWritable, FaunusVertex> implements Configurable {
 
     public static final String FAUNUS_GRAPH_INPUT_SCRIPT_FILE = "faunus.graph.input.script.file";
+    public static final String FAUNUS_GRAPH_INPUT_SCRIPT_BATCH_SIZE = "faunus.graph.input.script.batch-size";
     private VertexQueryFilter vertexQuery;
     private Configuration config;
 
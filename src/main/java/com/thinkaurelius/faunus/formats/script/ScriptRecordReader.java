@@ -12,30 +12,38 @@ import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
 
-import javax.script.ScriptEngine;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class ScriptRecordReader extends RecordReader<NullWritable, FaunusVertex> {
 
-    private static final String READ_CALL = "read(vertex,line)";
-    private static final String VERTEX = "vertex";
-    private static final String LINE = "line";
+    private static final String READ = "read";
+    private static final String READ_BATCH = "readBatch";
 
-    private final ScriptEngine engine = new FaunusGremlinScriptEngine();
+    private final FaunusGremlinScriptEngine engine = new FaunusGremlinScriptEngine();
     private final VertexQueryFilter vertexQuery;
     private boolean pathEnabled;
+    private final int batchSize;
     private final LineRecordReader lineRecordReader;
     private FaunusVertex vertex;
+    private TaskAttemptContext context;
+
+    private final List<String> lines = new ArrayList<String>();
+    private Iterator<FaunusVertex> batch = Collections.emptyIterator();
 
     public ScriptRecordReader(final VertexQueryFilter vertexQuery, final TaskAttemptContext context) throws IOException {
         this.lineRecordReader = new LineRecordReader();
         this.vertex = new FaunusVertex();
         this.vertexQuery = vertexQuery;
         this.pathEnabled = context.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false);
+        this.batchSize = context.getConfiguration().getInt(ScriptInputFormat.FAUNUS_GRAPH_INPUT_SCRIPT_BATCH_SIZE, 0);
 
         final FileSystem fs = FileSystem.get(context.getConfiguration());
         try {
@@ -47,17 +55,19 @@ public class ScriptRecordReader extends RecordReader<NullWritable, FaunusVertex>
 
     public void initialize(final InputSplit genericSplit, final TaskAttemptContext context) throws IOException {
         this.lineRecordReader.initialize(genericSplit, context);
+        this.context = context;
     }
 
     public boolean nextKeyValue() throws IOException {
+        if (this.batchSize > 0)
+            return this.nextBatchKeyValue();
+
         while (true) {
             if (!this.lineRecordReader.nextKeyValue())
                 return false;
             else {
                 try {
-                    this.engine.put(LINE, this.lineRecordReader.getCurrentValue().toString());
-                    this.engine.put(VERTEX, this.vertex);
-                    if ((Boolean) engine.eval(READ_CALL)) {
+                    if ((Boolean) this.engine.invokeFunction(READ, this.vertex, this.lineRecordReader.getCurrentValue().toString()) && this.vertexQuery.isLegal(this.vertex, this.context)) {
                         this.vertex.enablePath(this.pathEnabled);
                         this.vertexQuery.defaultFilter(this.vertex);
                         return true;
@@ -69,6 +79,33 @@ public class ScriptRecordReader extends RecordReader<NullWritable, FaunusVertex>
         }
     }
 
+    private boolean nextBatchKeyValue() throws IOException {
+        while (true) {
+            while (this.batch.hasNext()) {
+                final FaunusVertex temp = this.batch.next();
+                if (null != temp && this.vertexQuery.isLegal(temp, this.context)) {
+                    this.vertex = temp;
+                    this.vertex.enablePath(this.pathEnabled);
+                    this.vertexQuery.defaultFilter(this.vertex);
+                    return true;
+                }
+            }
+
+            this.lines.clear();
+            while (this.lines.size() < this.batchSize && this.lineRecordReader.nextKeyValue()) {
+                this.lines.add(this.lineRecordReader.getCurrentValue().toString());
+            }
+            if (this.lines.isEmpty())
+                return false;
+            try {
+                final Iterable<FaunusVertex> vertices = (Iterable<FaunusVertex>) this.engine.invokeFunction(READ_BATCH, this.lines);
+                this.batch = null == vertices ? Collections.<FaunusVertex>emptyIterator() : vertices.iterator();
+            } catch (Exception e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+    }
+
     @Override
     public NullWritable getCurrentKey() {
         return NullWritable.get();
@@ -86,4 +123,4 @@ public class ScriptRecordReader extends RecordReader<NullWritable, FaunusVertex>
     public synchronized void close() throws IOException {
         this.lineRecordReader.close();
     }
-}
\ No newline at end of file
+}
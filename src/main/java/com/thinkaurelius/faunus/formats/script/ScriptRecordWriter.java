@@ -9,7 +9,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
-import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -20,10 +19,9 @@ import java.io.InputStreamReader;
  */
 public class ScriptRecordWriter extends RecordWriter<NullWritable, FaunusVertex> {
     protected final DataOutputStream out;
-    private final ScriptEngine engine = new FaunusGremlinScriptEngine();
+    private final FaunusGremlinScriptEngine engine = new FaunusGremlinScriptEngine();
 
-    private static final String WRITE_CALL = "write(vertex,output)";
-    private static final String VERTEX = "vertex";
+    private static final String WRITE = "write";
     private static final String OUTPUT = "output";
 
     public ScriptRecordWriter(final DataOutputStream out, final Configuration configuration) throws IOException {
@@ -40,10 +38,11 @@ public class ScriptRecordWriter extends RecordWriter<NullWritable, FaunusVertex>
     public void write(final NullWritable key, final FaunusVertex vertex) throws IOException {
         if (null != vertex) {
             try {
-                this.engine.put(VERTEX, vertex);
-                this.engine.eval(WRITE_CALL);
+                this.engine.invokeFunction(WRITE, vertex, this.out);
             } catch (final ScriptException e) {
                 throw new IOException(e.getMessage());
+            } catch (final NoSuchMethodException e) {
+                throw new IOException(e.getMessage());
             }
         }
     }
@@ -0,0 +1,229 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.carrotsearch.hppc.LongObjectOpenHashMap;
+import com.esotericsoftware.kryo.io.Input;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.titan.core.Order;
+import com.thinkaurelius.titan.core.TitanKey;
+import com.thinkaurelius.titan.core.TitanType;
+import com.thinkaurelius.titan.diskstorage.ReadBuffer;
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
+import com.thinkaurelius.titan.graphdb.database.idhandling.VariableLong;
+import com.thinkaurelius.titan.graphdb.database.serialize.Serializer;
+import com.thinkaurelius.titan.graphdb.database.serialize.kryo.KryoSerializer;
+import com.thinkaurelius.titan.graphdb.internal.InternalType;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
+import com.thinkaurelius.titan.graphdb.types.system.SystemType;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the entries of the rows of a Titan edge store straight into the vertex of a FaunusVertexLoader.
+ * Unlike EdgeSerializer.readRelation(), the decoder keeps its state across the entries it decodes: the types of
+ * the graph are looked up once per decoder, the properties of an edge are collected in reused lists and the Kryo
+ * objects are read from the array of an entry without copying it.
+ * An entry that can not be decoded is counted by the loader (and the first ones are logged) rather than failing the row.
+ * A decoder is not thread-safe.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class FaunusEntryDecoder {
+
+    public static final Logger logger = Logger.getLogger(FaunusEntryDecoder.class);
+    private static final int MAX_LOGGED_ENTRIES = 10;
+
+    private final StandardTitanTx tx;
+    private final Serializer serializer;
+    private final LongObjectOpenHashMap<Type> types = new LongObjectOpenHashMap<Type>();
+
+    private final List<Type> propertyTypes = new ArrayList<Type>();
+    private final List<Object> propertyValues = new ArrayList<Object>();
+
+    private final Input input = new Input();
+    private final StaticBuffer.Factory<Input> inputFactory = new StaticBuffer.Factory<Input>() {
+        @Override
+        public Input get(final byte[] array, final int offset, final int limit) {
+            input.setBuffer(array, offset, limit - offset);
+            return input;
+        }
+    };
+
+    private long corrupt = 0;
+
+    public FaunusEntryDecoder(final StandardTitanTx tx, final Serializer serializer) {
+        this.tx = tx;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Decode the entry into the vertex of the loader.
+     *
+     * @return false if the entry could not be decoded
+     */
+    public boolean decode(final FaunusVertexLoader loader, final Entry entry) {
+        try {
+            this.decode(loader, entry.getReadColumn(), entry.getReadValue());
+            return true;
+        } catch (final Exception e) {
+            loader.corrupt();
+            if (this.corrupt++ < MAX_LOGGED_ENTRIES)
+                logger.warn("Could not decode an entry of vertex " + loader.getVertexID() + ": " + entry, e);
+            return false;
+        }
+    }
+
+    private void decode(final FaunusVertexLoader loader, final ReadBuffer column, final ReadBuffer value) {
+        final long[] typeAndDir = IDHandler.readEdgeType(column);
+        final Type type = this.getType(typeAndDir[0]);
+        if (type.system) {
+            if (type.typeClass)
+                loader.setSystemType();
+            return;
+        }
+
+        final Direction direction;
+        switch ((int) typeAndDir[1]) {
+            case IDHandler.PROPERTY_DIR:
+            case IDHandler.EDGE_OUT_DIR:
+                direction = Direction.OUT;
+                break;
+            case IDHandler.EDGE_IN_DIR:
+                direction = Direction.IN;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid dirID read from disk: " + typeAndDir[1]);
+        }
+        if (type.propertyKey != ((int) typeAndDir[1] == IDHandler.PROPERTY_DIR))
+            throw new IllegalArgumentException("The type " + type.name + " does not match the dirID read from disk: " + typeAndDir[1]);
+        final boolean unique = direction.equals(Direction.OUT) ? type.uniqueOut : type.uniqueIn;
+
+        if (type.propertyKey) {
+            // the value of a unique property follows its relation id while the properties of a property are not loaded
+            if (unique)
+                VariableLong.read(value);
+            loader.loadProperty(type.name, type.generic ? this.readClassAndObject(value) : this.readObject(value, type.dataType, false));
+            return;
+        }
+
+        this.propertyTypes.clear();
+        this.propertyValues.clear();
+        final long relationIdDiff;
+        final long vertexIdDiff;
+        if (unique) {
+            vertexIdDiff = VariableLong.read(value);
+            relationIdDiff = VariableLong.read(value);
+            this.readInlineTypes(type.sortKey, value);
+        } else {
+            this.readInlineTypes(type.sortKey, type.descending ? column.invert() : column);
+            // move the position to the end to read backwards
+            column.movePosition(column.length() - column.getPosition() - 1);
+            relationIdDiff = VariableLong.readBackward(column);
+            vertexIdDiff = VariableLong.readBackward(column);
+        }
+        this.readInlineTypes(type.signature, value);
+        while (value.hasRemaining()) {
+            final Type propertyType = this.getType(IDHandler.readInlineEdgeType(value));
+            this.addProperty(propertyType, this.readInline(value, propertyType));
+        }
+
+        final long vertexId = loader.getVertexID();
+        final FaunusEdge edge = loader.loadEdge(direction, vertexId + relationIdDiff, vertexId + vertexIdDiff, type.name);
+        if (null != edge) {
+            for (int i = 0; i < this.propertyTypes.size(); i++) {
+                edge.setProperty(this.propertyTypes.get(i).name, this.propertyValues.get(i));
+            }
+        }
+    }
+
+    private void readInlineTypes(final long[] typeIds, final ReadBuffer in) {
+        for (final long typeId : typeIds) {
+            final Type type = this.getType(typeId);
+            this.addProperty(type, this.readInline(in, type));
+        }
+    }
+
+    private void addProperty(final Type type, final Object value) {
+        if (null != value) {
+            this.propertyTypes.add(type);
+            this.propertyValues.add(value);
+        }
+    }
+
+    private Object readInline(final ReadBuffer in, final Type type) {
+        if (type.propertyKey) {
+            return type.generic ? this.readClassAndObject(in) : this.readObject(in, type.dataType, true);
+        } else {
+            final long id = VariableLong.readPositive(in);
+            return id == 0 ? null : id;
+        }
+    }
+
+    private Object readClassAndObject(final ReadBuffer buffer) {
+        if (!(this.serializer instanceof KryoSerializer))
+            return this.serializer.readClassAndObject(buffer);
+        final Input in = buffer.asRelative(this.inputFactory);
+        final int start = in.position();
+        final Object value = ((KryoSerializer) this.serializer).getKryo().readClassAndObject(in);
+        buffer.movePosition(in.position() - start);
+        return value;
+    }
+
+    private Object readObject(final ReadBuffer buffer, final Class<?> dataType, final boolean nullable) {
+        if (!(this.serializer instanceof KryoSerializer))
+            return nullable ? this.serializer.readObject(buffer, dataType) : this.serializer.readObjectNotNull(buffer, dataType);
+        final Input in = buffer.asRelative(this.inputFactory);
+        final int start = in.position();
+        final Object value = nullable ?
+                ((KryoSerializer) this.serializer).getKryo().readObjectOrNull(in, dataType) :
+                ((KryoSerializer) this.serializer).getKryo().readObject(in, dataType);
+        buffer.movePosition(in.position() - start);
+        return value;
+    }
+
+    private Type getType(final long typeId) {
+        Type type = this.types.get(typeId);
+        if (null == type) {
+            type = new Type(this.tx.getExistingType(typeId));
+            this.types.put(typeId, type);
+        }
+        return type;
+    }
+
+    /**
+     * The metadata of a type of the graph that is needed to decode its relations.
+     */
+    private static class Type {
+
+        private final String name;
+        private final boolean system;
+        private final boolean typeClass;
+        private final boolean propertyKey;
+        private final boolean uniqueOut;
+        private final boolean uniqueIn;
+        private final long[] sortKey;
+        private final long[] signature;
+        private final boolean descending;
+        private final Class<?> dataType;
+        private final boolean generic;
+
+        public Type(final TitanType type) {
+            this.name = type.getName();
+            this.system = type instanceof SystemType;
+            this.typeClass = type == SystemKey.TypeClass;
+            this.propertyKey = type.isPropertyKey();
+            this.uniqueOut = type.isUnique(Direction.OUT);
+            this.uniqueIn = type.isUnique(Direction.IN);
+            this.sortKey = ((InternalType) type).getSortKey();
+            this.signature = ((InternalType) type).getSignature();
+            this.descending = ((InternalType) type).getSortOrder() == Order.DESC;
+            this.dataType = this.propertyKey ? ((TitanKey) type).getDataType() : null;
+            this.generic = Object.class.equals(this.dataType);
+        }
+    }
+}
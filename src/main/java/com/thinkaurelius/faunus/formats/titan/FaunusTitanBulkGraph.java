@@ -0,0 +1,192 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.core.TitanKey;
+import com.thinkaurelius.titan.core.TitanLabel;
+import com.thinkaurelius.titan.diskstorage.BackendTransaction;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import com.thinkaurelius.titan.graphdb.configuration.GraphDatabaseConfiguration;
+import com.thinkaurelius.titan.graphdb.database.StandardTitanGraph;
+import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
+import com.thinkaurelius.titan.graphdb.internal.ElementLifeCycle;
+import com.thinkaurelius.titan.graphdb.internal.InternalVertex;
+import com.thinkaurelius.titan.graphdb.relations.StandardEdge;
+import com.thinkaurelius.titan.graphdb.relations.StandardProperty;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTransactionBuilder;
+import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
+import com.thinkaurelius.titan.graphdb.vertices.StandardVertex;
+import org.apache.commons.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The backend agnostic Titan graph writer for bulk loading a Faunus graph into Titan.
+ * The ids of the vertices and relations are drawn from the id blocks that the graph allocates from its IDAuthority.
+ * The relations are serialized with the EdgeSerializer and IndexSerializer of the graph and their entries are
+ * written to the (buffered) stores of a batch loading transaction without the bookkeeping of StandardTitanTx.
+ * A transaction only serves to resolve types and to commit the stores every commitMutations mutations.
+ * The types are expected to exist (see SchemaInferencerMapReduce) -- missing types are made by the default type
+ * maker of the graph.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class FaunusTitanBulkGraph extends StandardTitanGraph {
+
+    private final long commitMutations;
+    private final Map<String, TitanKey> keys = new HashMap<String, TitanKey>();
+    private final Map<String, TitanLabel> labels = new HashMap<String, TitanLabel>();
+    private StandardTitanTx tx;
+    private long mutations = 0l;
+    private long commits = 0l;
+    private long temporaryId = 0l;
+
+    public FaunusTitanBulkGraph(final Configuration configuration, final long commitMutations) {
+        super(new GraphDatabaseConfiguration(configuration));
+        this.commitMutations = commitMutations;
+    }
+
+    /**
+     * Write the vertex and its properties.
+     *
+     * @return the Titan id of the vertex
+     */
+    public long addVertex(final FaunusVertex faunusVertex) throws StorageException {
+        final StandardTitanTx tx = this.getTx();
+        final StandardVertex vertex = new StandardVertex(tx, --this.temporaryId, ElementLifeCycle.New);
+        this.assignID(vertex);
+
+        // the buffered stores keep the lists of their mutations
+        final List<Entry> additions = new ArrayList<Entry>(faunusVertex.getPropertyCount() + 1);
+        additions.add(this.writeProperty(vertex, SystemKey.VertexState, SystemKey.VertexStates.DEFAULT.getValue()));
+        for (final String property : faunusVertex.getPropertyKeys()) {
+            final TitanKey key = this.getPropertyKey(property);
+            additions.add(this.writeProperty(vertex, key, tx.verifyAttribute(key, faunusVertex.getProperty(property))));
+        }
+        tx.getTxHandle().mutateEdges(IDHandler.getKey(vertex.getID()), additions, KeyColumnValueStore.NO_DELETIONS);
+        this.mutated(additions.size());
+        return vertex.getID();
+    }
+
+    private Entry writeProperty(final StandardVertex vertex, final TitanKey key, final Object value) throws StorageException {
+        final StandardProperty property = new StandardProperty(--this.temporaryId, key, vertex, value, ElementLifeCycle.New);
+        this.assignID(property);
+        if (key != SystemKey.VertexState)
+            this.indexSerializer.addProperty(property, this.tx.getTxHandle());
+        return this.edgeSerializer.writeRelation(property, 0, this.tx);
+    }
+
+    /**
+     * Write the edge (and its properties) to the rows of both of its (already written) vertices.
+     */
+    public void addEdge(final long outId, final long inId, final FaunusEdge faunusEdge) throws StorageException {
+        final StandardTitanTx tx = this.getTx();
+        final InternalVertex outVertex = new StandardVertex(tx, outId, ElementLifeCycle.Loaded);
+        final InternalVertex inVertex = outId == inId ? outVertex : new StandardVertex(tx, inId, ElementLifeCycle.Loaded);
+        final StandardEdge edge = new StandardEdge(--this.temporaryId, this.getEdgeLabel(faunusEdge.getLabel()), outVertex, inVertex, ElementLifeCycle.New);
+        for (final String property : faunusEdge.getPropertyKeys()) {
+            final TitanKey key = this.getPropertyKey(property);
+            edge.setPropertyDirect(key, tx.verifyAttribute(key, faunusEdge.getProperty(property)));
+        }
+        this.assignID(edge);
+
+        final BackendTransaction mutator = tx.getTxHandle();
+        for (int position = 0; position < edge.getLen(); position++) {
+            final List<Entry> additions = new ArrayList<Entry>(1);
+            additions.add(this.edgeSerializer.writeRelation(edge, position, tx));
+            mutator.mutateEdges(IDHandler.getKey(edge.getVertex(position).getID()), additions, KeyColumnValueStore.NO_DELETIONS);
+        }
+        this.indexSerializer.addEdge(edge, mutator);
+        this.mutated(edge.getLen());
+    }
+
+    private TitanKey getPropertyKey(final String name) {
+        TitanKey key = this.keys.get(name);
+        if (null == key) {
+            key = this.tx.getPropertyKey(name);
+            this.keys.put(name, key);
+        }
+        return key;
+    }
+
+    private TitanLabel getEdgeLabel(final String name) {
+        TitanLabel label = this.labels.get(name);
+        if (null == label) {
+            label = this.tx.getEdgeLabel(name);
+            this.labels.put(name, label);
+        }
+        return label;
+    }
+
+    private StandardTitanTx getTx() {
+        if (null == this.tx)
+            this.tx = this.newTransaction(new StandardTransactionBuilder(this.getConfiguration(), this).enableBatchLoading());
+        return this.tx;
+    }
+
+    private void mutated(final int mutations) {
+        this.mutations = this.mutations + mutations;
+        if (this.commitMutations > 0 && this.mutations >= this.commitMutations)
+            this.commit();
+    }
+
+    /**
+     * Commit the mutations (and any types made) of the current batch.
+     */
+    @Override
+    public void commit() {
+        if (null == this.tx)
+            return;
+        try {
+            this.tx.commit();
+            this.commits++;
+        } finally {
+            // the types of a transaction are not used beyond it
+            this.tx = null;
+            this.keys.clear();
+            this.labels.clear();
+            this.mutations = 0l;
+        }
+    }
+
+    @Override
+    public void rollback() {
+        if (null == this.tx)
+            return;
+        try {
+            this.tx.rollback();
+        } finally {
+            this.tx = null;
+            this.keys.clear();
+            this.labels.clear();
+            this.mutations = 0l;
+        }
+    }
+
+    @Override
+    public void shutdown() throws TitanException {
+        this.rollback();
+        super.shutdown();
+    }
+
+    /**
+     * The number of uncommitted mutations.
+     */
+    public long getMutations() {
+        return this.mutations;
+    }
+
+    /**
+     * The number of committed transactions.
+     */
+    public long getCommits() {
+        return this.commits;
+    }
+}
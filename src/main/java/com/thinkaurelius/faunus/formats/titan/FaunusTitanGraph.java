@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 public class FaunusTitanGraph extends StandardTitanGraph {
 
     private final StandardTitanTx tx; /* it's only for reading a Titan graph into Hadoop. */
+    private final FaunusEntryDecoder decoder;
 
     public FaunusTitanGraph(final Configuration configuration) {
         this(configuration, true);
@@ -32,20 +33,34 @@ public class FaunusTitanGraph extends StandardTitanGraph {
         //Used to be TranscationConfig(this.getConfiguration, false) indicating that this is not threadBound
         //which is the defaul for Transaction
         this.tx = (autoTx) ? newTransaction(new StandardTransactionBuilder(this.getConfiguration(), this)) : null;
+        this.decoder = (autoTx) ? new FaunusEntryDecoder(this.tx, super.serializer) : null;
     }
 
     protected FaunusVertex readFaunusVertex(final ByteBuffer key, Iterable<Entry> entries) {
         final FaunusVertexLoader loader = new FaunusVertexLoader(new StaticByteBuffer(key));
+        this.readEntries(loader, entries);
+        return loader.getVertex();
+    }
+
+    /**
+     * Load the entries of a page of the row of the loader's vertex.
+     * The properties of a row precede its edges, so once the loader is truncated the remaining entries are edges
+     * that would be dropped and they are not deserialized.
+     * The entries that can not be decoded are counted by the loader.
+     *
+     * @return the number of entries of the page
+     */
+    public long readEntries(final FaunusVertexLoader loader, final Iterable<Entry> entries) {
+        long count = 0;
         for (final Entry data : entries) {
-            try {
-                final FaunusVertexLoader.RelationFactory factory = loader.getFactory();
-                super.edgeSerializer.readRelation(factory,data,tx);
-                factory.build();
-            } catch (Exception e) {
-                //  TODO: log exception
+            count++;
+            if (loader.isTruncated()) {
+                loader.drop();
+                continue;
             }
+            this.decoder.decode(loader, data);
         }
-        return loader.getVertex();
+        return count;
     }
 
     @Override
@@ -3,19 +3,15 @@ package com.thinkaurelius.faunus.formats.titan;
 import com.google.common.base.Preconditions;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
-import com.thinkaurelius.titan.core.TitanType;
 import com.thinkaurelius.titan.diskstorage.StaticBuffer;
 import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
-import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
-import com.thinkaurelius.titan.graphdb.types.system.SystemType;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.util.ExceptionFactory;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Creates a FaunusVertex given a TitanVertex reference.
+ * The number of edges that are loaded may be capped, in which case the vertex is truncated and the edges
+ * beyond the cap are dropped.
  *
  * @author Matthias Broecheler (me@matthiasb.com)
  * @author Marko A. Rodriguez (marko@markorodriguez.com)
@@ -25,99 +21,106 @@ public class FaunusVertexLoader {
 
     // private final boolean filterSystemTypes = true;
     private final FaunusVertex vertex;
+    private final long maxEdges;
 
     private boolean isSystemType = false;
+    private long edges = 0;
+    private long dropped = 0;
+    private long corrupt = 0;
+    private boolean truncated = false;
 
     public FaunusVertexLoader(final StaticBuffer key) {
         this(IDHandler.getKeyID(key));
     }
 
     public FaunusVertexLoader(final long id) {
-        Preconditions.checkArgument(id > 0);
-        this.vertex = new FaunusVertex(id);
+        this(id, Long.MAX_VALUE);
     }
 
-    public FaunusVertex getVertex() {
-        return this.isSystemType ? null : this.vertex;
+    public FaunusVertexLoader(final StaticBuffer key, final long maxEdges) {
+        this(IDHandler.getKeyID(key), maxEdges);
     }
 
-    public RelationFactory getFactory() {
-        return new RelationFactory();
+    public FaunusVertexLoader(final long id, final long maxEdges) {
+        Preconditions.checkArgument(id > 0);
+        Preconditions.checkArgument(maxEdges >= 0);
+        this.vertex = new FaunusVertex(id);
+        this.maxEdges = maxEdges;
     }
 
-    public class RelationFactory implements com.thinkaurelius.titan.graphdb.database.RelationFactory {
-
-        private final Map<String, Object> properties = new HashMap<String, Object>();
-
-        private Direction direction;
-        private TitanType type;
-        private long relationID;
-        private long otherVertexID;
-        private Object value;
+    /**
+     * Whether edges were dropped as the vertex has more edges than the cap.
+     */
+    public boolean isTruncated() {
+        return this.truncated;
+    }
 
+    /**
+     * Drop an edge of a truncated vertex without loading it.
+     */
+    public void drop() {
+        this.dropped++;
+    }
 
-        @Override
-        public long getVertexID() {
-            return vertex.getIdAsLong();
-        }
+    /**
+     * The number of edges that were dropped.
+     */
+    public long getDropped() {
+        return this.dropped;
+    }
 
-        @Override
-        public void setDirection(final Direction direction) {
-            this.direction = direction;
-        }
+    /**
+     * Count an entry of the row that could not be decoded.
+     */
+    public void corrupt() {
+        this.corrupt++;
+    }
 
-        @Override
-        public void setType(final TitanType type) {
-            if (type == SystemKey.TypeClass) isSystemType = true;
-            this.type = type;
-        }
+    /**
+     * The number of entries of the row that could not be decoded.
+     */
+    public long getCorrupt() {
+        return this.corrupt;
+    }
 
-        @Override
-        public void setRelationID(final long relationID) {
-            this.relationID = relationID;
-        }
+    /**
+     * Mark the vertex as a type of the graph (which is not loaded).
+     */
+    public void setSystemType() {
+        this.isSystemType = true;
+    }
 
-        @Override
-        public void setOtherVertexID(final long vertexId) {
-            this.otherVertexID = vertexId;
-        }
+    public void loadProperty(final String key, final Object value) {
+        Preconditions.checkNotNull(value);
+        this.vertex.setProperty(key, value);
+    }
 
-        @Override
-        public void setValue(final Object value) {
-            this.value = value;
+    /**
+     * Add an edge of the vertex.
+     *
+     * @return the edge or null if the edge was dropped as the vertex is truncated
+     */
+    public FaunusEdge loadEdge(final Direction direction, final long relationID, final long otherVertexID, final String label) {
+        if (direction.equals(Direction.BOTH))
+            throw ExceptionFactory.bothIsNotSupported();
+        if (this.edges >= this.maxEdges) {
+            this.truncated = true;
+            this.dropped++;
+            return null;
         }
+        final FaunusEdge edge = direction.equals(Direction.IN) ?
+                new FaunusEdge(relationID, otherVertexID, this.vertex.getIdAsLong(), label) :
+                new FaunusEdge(relationID, this.vertex.getIdAsLong(), otherVertexID, label);
+        this.edges++;
+        this.vertex.addEdge(direction, edge);
+        return edge;
+    }
 
-        @Override
-        public void addProperty(final TitanType type, final Object value) {
-            properties.put(type.getName(), value);
-        }
+    public long getVertexID() {
+        return this.vertex.getIdAsLong();
+    }
 
-        public void build() {
-            if (this.type instanceof SystemType) return;
-
-            if (this.type.isPropertyKey()) {
-                Preconditions.checkNotNull(value);
-                vertex.setProperty(this.type.getName(), this.value);
-            } else {
-                Preconditions.checkArgument(this.type.isEdgeLabel());
-                FaunusEdge edge = null;
-                if (this.direction.equals(Direction.IN))
-                    edge = new FaunusEdge(this.relationID, this.otherVertexID, getVertexID(), this.type.getName());
-                else if (this.direction.equals(Direction.OUT))
-                    edge = new FaunusEdge(this.relationID, getVertexID(), this.otherVertexID, this.type.getName());
-                else if (this.direction.equals(Direction.BOTH))
-                    throw ExceptionFactory.bothIsNotSupported();
-
-                if (null != edge) {
-                    // load edge properties
-                    for (final Map.Entry<String, Object> entry : this.properties.entrySet()) {
-                        if (entry.getValue() != null) {
-                            edge.setProperty(entry.getKey(), entry.getValue());
-                        }
-                    }
-                    vertex.addEdge(this.direction, edge);
-                }
-            }
-        }
+    public FaunusVertex getVertex() {
+        return this.isSystemType ? null : this.vertex;
     }
 }
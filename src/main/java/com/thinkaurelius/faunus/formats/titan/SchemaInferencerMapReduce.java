@@ -1,116 +1,235 @@
 package com.thinkaurelius.faunus.formats.titan;
 
 import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.formats.BlueprintsGraphOutputMapReduce;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
-import com.thinkaurelius.titan.core.DefaultTypeMaker;
+import com.thinkaurelius.faunus.mapreduce.util.SafeMapperOutputs;
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.thinkaurelius.titan.graphdb.blueprints.BlueprintsDefaultTypeMaker;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
-import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
+ * SchemaInferencerMapReduce makes the property keys and edge labels of a Faunus graph in Titan before it is written.
+ * The graph passes through a map-only stage that records the keys and labels of its vertices and edges, along with
+ * the data types of the property values. Every task writes its distinct schema entries to a small side-effect file
+ * of the job (the schema named output) and the counters only carry the total number of entries.
+ * Once the job has completed, the driver merges the files of the tasks and makes the types once (see makeTypes()).
+ * Integral and floating point values are typed as Long and Double, strings as String and booleans as Boolean.
+ * A key with values of several types (other than Long and Double) or of any other type is typed as Object.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class SchemaInferencerMapReduce {
 
+    public static final Logger LOGGER = Logger.getLogger(SchemaInferencerMapReduce.class);
+
     public enum Counters {
+        SCHEMA_ENTRIES_WRITTEN,
         EDGE_LABELS_CREATED,
         PROPERTY_KEYS_CREATED
     }
 
-    private static final long funnyLong = -123456789l;
-    private static final LongWritable funnyKey = new LongWritable(funnyLong);
+    // schema entries are <kind><type><name> where the kind is a key or a label
+    private static final char KEY = 't';
+    private static final char LABEL = 'l';
+    private static final char LONG = 'L';
+    private static final char DOUBLE = 'D';
+    private static final char STRING = 'S';
+    private static final char BOOLEAN = 'B';
+    private static final char OBJECT = 'O';
 
     public static Configuration createConfiguration() {
         return new EmptyConfiguration();
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, LongWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
+
+        private final Set<String> schema = new HashSet<String>();
+        private final Text text = new Text();
+        private SafeMapperOutputs outputs;
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.outputs = new SafeMapperOutputs(context);
+        }
 
-        private final FaunusVertex funnyVertex = new FaunusVertex(funnyKey.get());
-        private final LongWritable longWritable = new LongWritable();
+        @Override
+        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
 
         @Override
-        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) {
             for (final String property : value.getPropertyKeys()) {
-                this.funnyVertex.setProperty("t" + property, Object.class.getName());
-                // TODO: Automated type inference
-                /*final Object temp = this.funnyVertex.getProperty("t" + property);
-                if (null == temp) {
-                    this.funnyVertex.setProperty("t" + property, value.getProperty(property).getClass().getName());
-                } else if (!value.getProperty(property).equals(temp)) {
-                    this.funnyVertex.setProperty("t" + property, Object.class.getName());
-                }*/
+                this.schema.add(entry(KEY, getType(value.getProperty(property)), property));
             }
-
             for (final Edge edge : value.getEdges(Direction.OUT)) {
-                this.funnyVertex.setProperty("l" + edge.getLabel(), String.class.getName());
+                this.schema.add(entry(LABEL, STRING, edge.getLabel()));
                 for (final String property : edge.getPropertyKeys()) {
-                    this.funnyVertex.setProperty("t" + property, Object.class.getName());
+                    this.schema.add(entry(KEY, getType(edge.getProperty(property)), property));
                 }
             }
-
-            this.longWritable.set(value.getIdAsLong());
-            context.write(this.longWritable, value);
+            return value;
         }
 
         @Override
-        public void cleanup(final Mapper<NullWritable, FaunusVertex, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            context.write(funnyKey, this.funnyVertex);
+        public void cleanup(final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            for (final String entry : this.schema) {
+                this.text.set(entry);
+                this.outputs.write(Tokens.SCHEMA, this.text, NullWritable.get());
+            }
+            context.getCounter(Counters.SCHEMA_ENTRIES_WRITTEN).increment(this.schema.size());
+            this.schema.clear();
+            this.outputs.close();
+        }
+
+        /**
+         * The schema entries of the vertices processed since the last cleanup.
+         */
+        public Set<String> getSchema() {
+            return this.schema;
         }
     }
 
-    public static class Reduce extends org.apache.hadoop.mapreduce.Reducer<LongWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    private static String entry(final char kind, final char type, final String name) {
+        return new StringBuilder(name.length() + 2).append(kind).append(type).append(name).toString();
+    }
 
-        private TitanGraph graph;
+    private static char getType(final Object value) {
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return LONG;
+        else if (value instanceof Double || value instanceof Float)
+            return DOUBLE;
+        else if (value instanceof String)
+            return STRING;
+        else if (value instanceof Boolean)
+            return BOOLEAN;
+        else
+            return OBJECT;
+    }
 
-        @Override
-        public void setup(final Reduce.Context context) throws IOException, InterruptedException {
-            this.graph = (TitanGraph) BlueprintsGraphOutputMapReduce.generateGraph(context.getConfiguration());
+    private static Class<?> getDataType(final char type) {
+        switch (type) {
+            case LONG:
+                return Long.class;
+            case DOUBLE:
+                return Double.class;
+            case STRING:
+                return String.class;
+            case BOOLEAN:
+                return Boolean.class;
+            default:
+                return Object.class;
         }
+    }
 
-        @Override
-        public void reduce(final LongWritable key, final Iterable<FaunusVertex> value, final Reducer<LongWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            if (key.get() == funnyLong) {
-                final DefaultTypeMaker typeMaker = BlueprintsDefaultTypeMaker.INSTANCE;
-                for (final FaunusVertex vertex : value) {
-                    for (final String property : vertex.getPropertyKeys()) {
-                        final String property2 = property.substring(1);
-                        if (property.startsWith("t")) {
-                            if (null == graph.getType(property2)) {
-                                // TODO: Automated type inference
-                                // typeMaker.makeKey(property2, graph.makeType().dataType(Class.forName(vertex.getProperty(property).toString())));
-                                typeMaker.makeKey(graph.makeKey(property2));
-                                context.getCounter(Counters.PROPERTY_KEYS_CREATED).increment(1l);
-                            }
-                        } else {
-                            if (null == graph.getType(property2)) {
-                                //typeMaker.makeLabel(property2, graph.makeType());
-                                typeMaker.makeLabel(graph.makeLabel(property2));
-                                context.getCounter(Counters.EDGE_LABELS_CREATED).increment(1l);
-                            }
-                        }
-                    }
-                }
-            } else {
-                for (final FaunusVertex vertex : value) {
-                    context.write(NullWritable.get(), vertex);
+    /**
+     * Read the schema entries that the tasks of a job wrote to its output location.
+     */
+    public static Set<String> readSchema(final Path output, final Configuration configuration) throws IOException {
+        final Set<String> schema = new HashSet<String>();
+        final FileSystem fs = output.getFileSystem(configuration);
+        final FileStatus[] files = fs.globStatus(new Path(output, Tokens.SCHEMA + "*"));
+        if (null == files)
+            return schema;
+        final Text entry = new Text();
+        for (final FileStatus file : files) {
+            final SequenceFile.Reader reader = new SequenceFile.Reader(fs, file.getPath(), configuration);
+            try {
+                while (reader.next(entry, NullWritable.get())) {
+                    schema.add(entry.toString());
                 }
+            } finally {
+                reader.close();
             }
         }
+        return schema;
+    }
 
-        @Override
-        public void cleanup(final Reducer<LongWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            this.graph.commit();
-            this.graph.shutdown();
+    /**
+     * Merge the schema entries of the tasks of a job into the data types of the property keys.
+     */
+    public static java.util.Map<String, Class<?>> getPropertyKeys(final Iterable<String> schema) {
+        final java.util.Map<String, Character> types = new HashMap<String, Character>();
+        for (final String entry : schema) {
+            if (entry.charAt(0) != KEY)
+                continue;
+            final String name = entry.substring(2);
+            final char type = entry.charAt(1);
+            final Character previous = types.get(name);
+            if (null == previous || previous == type)
+                types.put(name, type);
+            else if ((previous == LONG || previous == DOUBLE) && (type == LONG || type == DOUBLE))
+                types.put(name, DOUBLE);
+            else
+                types.put(name, OBJECT);
+        }
+        final java.util.Map<String, Class<?>> keys = new HashMap<String, Class<?>>();
+        for (final java.util.Map.Entry<String, Character> entry : types.entrySet()) {
+            keys.put(entry.getKey(), getDataType(entry.getValue()));
+        }
+        return keys;
+    }
+
+    /**
+     * The edge labels recorded in the schema entries of the tasks of a job.
+     */
+    public static Set<String> getEdgeLabels(final Iterable<String> schema) {
+        final Set<String> labels = new HashSet<String>();
+        for (final String entry : schema) {
+            if (entry.charAt(0) == LABEL)
+                labels.add(entry.substring(2));
+        }
+        return labels;
+    }
+
+    /**
+     * Make the types of the schema entries of a job that do not yet exist in the Titan output graph.
+     * This is called by the driver once the job has completed and before the graph is written.
+     *
+     * @param output the output location of the job
+     */
+    public static void makeTypes(final Path output, final Configuration configuration, final org.apache.hadoop.mapreduce.Counters counters) throws IOException {
+        final Set<String> schema = readSchema(output, configuration);
+        final java.util.Map<String, Class<?>> keys = getPropertyKeys(schema);
+        final Set<String> labels = getEdgeLabels(schema);
+        if (keys.isEmpty() && labels.isEmpty())
+            return;
+        final TitanGraph graph = (TitanGraph) BlueprintsGraphOutputMapReduce.generateGraph(configuration);
+        try {
+            for (final java.util.Map.Entry<String, Class<?>> entry : keys.entrySet()) {
+                if (null == graph.getType(entry.getKey())) {
+                    // as BlueprintsDefaultTypeMaker but with the inferred data type
+                    graph.makeKey(entry.getKey()).dataType(entry.getValue()).make();
+                    counters.findCounter(Counters.PROPERTY_KEYS_CREATED).increment(1l);
+                }
+            }
+            for (final String label : labels) {
+                if (null == graph.getType(label)) {
+                    BlueprintsDefaultTypeMaker.INSTANCE.makeLabel(graph.makeLabel(label));
+                    counters.findCounter(Counters.EDGE_LABELS_CREATED).increment(1l);
+                }
+            }
+            graph.commit();
+        } finally {
+            graph.shutdown();
         }
     }
 }
@@ -0,0 +1,170 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Holder;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.formats.BlueprintsGraphOutputMapReduce;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.tinkerpop.blueprints.Edge;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.HashMap;
+
+import static com.tinkerpop.blueprints.Direction.IN;
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * TitanBulkLoaderMapReduce writes a [NullWritable, FaunusVertex] stream to Titan in a single MapReduce job.
+ * Unlike BlueprintsGraphOutputMapReduce, no Blueprints elements are created.
+ * The vertices and edges are serialized by a FaunusTitanBulkGraph straight into the rows of the storage backend.
+ * During the Map phase, all the vertices of the graph (and their properties) are written.
+ * The Titan id of each vertex is sent to the reducers of the vertices adjacent to it by its incoming edges.
+ * During the Reduce phase, all the edges of the graph are written from their out vertex.
+ * Vertices are only created: the getOrCreate functions of the script file are not used by the bulk loader.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TitanBulkLoaderMapReduce {
+
+    public enum Counters {
+        VERTICES_WRITTEN,
+        VERTEX_PROPERTIES_WRITTEN,
+        EDGES_WRITTEN,
+        EDGE_PROPERTIES_WRITTEN,
+        NULL_VERTEX_EDGES_IGNORED,
+        NULL_VERTICES_IGNORED,
+        SUCCESSFUL_TRANSACTIONS
+    }
+
+    public static final Logger LOGGER = Logger.getLogger(TitanBulkLoaderMapReduce.class);
+
+    public static final String TITAN_ID = "_tId0192834";
+
+    public static Configuration createConfiguration() {
+        return BlueprintsGraphOutputMapReduce.createConfiguration();
+    }
+
+    public static FaunusTitanBulkGraph generateGraph(final Configuration config) {
+        return new FaunusTitanBulkGraph(GraphFactory.generateTitanConfiguration(config, TitanOutputFormat.FAUNUS_GRAPH_OUTPUT_TITAN),
+                config.getLong(BlueprintsGraphOutputMapReduce.FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_MUTATIONS, BlueprintsGraphOutputMapReduce.DEFAULT_COMMIT_MUTATIONS));
+    }
+
+    // WRITE ALL THE VERTICES AND THEIR PROPERTIES
+    public static class Map extends Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>> {
+
+        private FaunusTitanBulkGraph graph;
+        private final Holder<FaunusVertex> vertexHolder = new Holder<FaunusVertex>();
+        private final LongWritable longWritable = new LongWritable();
+        private final FaunusVertex shellVertex = new FaunusVertex();
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.graph = TitanBulkLoaderMapReduce.generateGraph(context.getConfiguration());
+        }
+
+        @Override
+        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws IOException, InterruptedException {
+            final long titanId;
+            try {
+                titanId = this.graph.addVertex(value);
+            } catch (final StorageException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            context.getCounter(Counters.VERTICES_WRITTEN).increment(1l);
+            context.getCounter(Counters.VERTEX_PROPERTIES_WRITTEN).increment(value.getPropertyCount());
+
+            // Propagate shell vertices with Titan ids
+            this.shellVertex.reuse(value.getIdAsLong());
+            this.shellVertex.setProperty(TITAN_ID, titanId);
+            for (final Edge faunusEdge : value.getEdges(IN)) {
+                this.longWritable.set(((FaunusEdge) faunusEdge).getVertexId(OUT));
+                context.write(this.longWritable, this.vertexHolder.set('s', this.shellVertex));
+            }
+
+            this.longWritable.set(value.getIdAsLong());
+            value.getProperties().clear();  // no longer needed in reduce phase
+            value.setProperty(TITAN_ID, titanId); // need this for id resolution in reduce phase
+            value.removeEdges(Tokens.Action.DROP, IN);
+            context.write(this.longWritable, this.vertexHolder.set('v', value));
+        }
+
+        @Override
+        public void cleanup(final Mapper<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>>.Context context) throws IOException, InterruptedException {
+            try {
+                this.graph.commit();
+                context.getCounter(Counters.SUCCESSFUL_TRANSACTIONS).increment(this.graph.getCommits());
+            } finally {
+                this.graph.shutdown();
+            }
+        }
+    }
+
+    // WRITE ALL THE EDGES FROM THEIR OUT VERTEX
+    public static class Reduce extends Reducer<LongWritable, Holder<FaunusVertex>, NullWritable, FaunusVertex> {
+
+        private FaunusTitanBulkGraph graph;
+        private static final FaunusVertex DEAD_FAUNUS_VERTEX = new FaunusVertex();
+
+        @Override
+        public void setup(final Reducer.Context context) throws IOException, InterruptedException {
+            this.graph = TitanBulkLoaderMapReduce.generateGraph(context.getConfiguration());
+        }
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<Holder<FaunusVertex>> values, final Reducer<LongWritable, Holder<FaunusVertex>, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            FaunusVertex faunusVertex = null;
+            // generate a map of the faunus id with the titan id for all shell vertices (vertices incoming adjacent)
+            final java.util.Map<Long, Long> faunusTitanIdMap = new HashMap<Long, Long>();
+            for (final Holder<FaunusVertex> holder : values) {
+                if (holder.getTag() == 's') {
+                    faunusTitanIdMap.put(holder.get().getIdAsLong(), (Long) holder.get().getProperty(TITAN_ID));
+                } else {
+                    final FaunusVertex toClone = holder.get();
+                    faunusVertex = new FaunusVertex(toClone.getIdAsLong());
+                    faunusVertex.setProperty(TITAN_ID, toClone.getProperty(TITAN_ID));
+                    faunusVertex.addEdges(OUT, toClone);
+                }
+            }
+            if (null == faunusVertex) {
+                LOGGER.warn("No source vertex: faunusVertex[" + key.get() + "]");
+                context.getCounter(Counters.NULL_VERTICES_IGNORED).increment(1l);
+                return;
+            }
+
+            final long titanOutId = (Long) faunusVertex.getProperty(TITAN_ID);
+            try {
+                for (final Edge edge : faunusVertex.getEdges(OUT)) {
+                    final FaunusEdge faunusEdge = (FaunusEdge) edge;
+                    final Long titanInId = faunusTitanIdMap.get(faunusEdge.getVertexId(IN));
+                    if (null == titanInId) {
+                        context.getCounter(Counters.NULL_VERTEX_EDGES_IGNORED).increment(1l);
+                        continue;
+                    }
+                    this.graph.addEdge(titanOutId, titanInId, faunusEdge);
+                    context.getCounter(Counters.EDGES_WRITTEN).increment(1l);
+                    context.getCounter(Counters.EDGE_PROPERTIES_WRITTEN).increment(faunusEdge.getPropertyKeys().size());
+                }
+            } catch (final StorageException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            context.write(NullWritable.get(), DEAD_FAUNUS_VERTEX);
+        }
+
+        @Override
+        public void cleanup(final Reducer<LongWritable, Holder<FaunusVertex>, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            try {
+                this.graph.commit();
+                context.getCounter(Counters.SUCCESSFUL_TRANSACTIONS).increment(this.graph.getCommits());
+            } finally {
+                this.graph.shutdown();
+            }
+        }
+    }
+}
@@ -9,10 +9,15 @@ import com.thinkaurelius.titan.diskstorage.util.StaticByteBuffer;
 import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
 import com.thinkaurelius.titan.graphdb.internal.RelationType;
 import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputFormat;
 
 /**
+ * The rows of vertices with many edges may be read in pages of columns (faunus.graph.input.titan.page-size) and
+ * the edges of a vertex may be capped (faunus.graph.input.titan.max-edges) so that a supernode does not have to
+ * fit in the heap of a mapper. A vertex over the cap is either truncated or skipped (max-edges-policy).
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public abstract class TitanInputFormat extends InputFormat<NullWritable, FaunusVertex> implements Configurable {
@@ -20,10 +25,48 @@ public abstract class TitanInputFormat extends InputFormat<NullWritable, FaunusV
     public static final String FAUNUS_GRAPH_INPUT_TITAN_STORAGE_HOSTNAME = "faunus.graph.input.titan.storage.hostname";
     public static final String FAUNUS_GRAPH_INPUT_TITAN_STORAGE_PORT = "faunus.graph.input.titan.storage.port";
     public static final String FAUNUS_GRAPH_INPUT_TITAN = "faunus.graph.input.titan";
+    public static final String FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE = "faunus.graph.input.titan.page-size";
+    public static final String FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES = "faunus.graph.input.titan.max-edges";
+    public static final String FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY = "faunus.graph.input.titan.max-edges-policy";
+
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+    public static final String TRUNCATE = "truncate";
+    public static final String SKIP = "skip";
+
+    public enum Counters {
+        ROWS_PAGED,
+        ROWS_TRUNCATED,
+        ROWS_SKIPPED,
+        EDGES_DROPPED,
+        CORRUPT_ENTRIES
+    }
 
     private static final StaticBuffer DEFAULT_COLUMN = new StaticByteBuffer(new byte[0]);
     private static final SliceQuery DEFAULT_SLICE_QUERY = new SliceQuery(DEFAULT_COLUMN, DEFAULT_COLUMN);
 
+    /**
+     * The number of columns of a page or 0 if rows are not paged.
+     * Rows are paged by default when the edges of a vertex are capped.
+     */
+    public static int getPageSize(final Configuration config) {
+        return config.getInt(FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE, getMaxEdges(config) == Long.MAX_VALUE ? 0 : DEFAULT_PAGE_SIZE);
+    }
+
+    public static long getMaxEdges(final Configuration config) {
+        final long maxEdges = config.getLong(FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES, -1l);
+        return maxEdges < 0 ? Long.MAX_VALUE : maxEdges;
+    }
+
+    public static boolean getSkipTruncated(final Configuration config) {
+        final String policy = config.get(FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY, TRUNCATE);
+        if (policy.equals(SKIP))
+            return true;
+        else if (policy.equals(TRUNCATE))
+            return false;
+        else
+            throw new IllegalArgumentException("Unknown " + FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY + ": " + policy);
+    }
+
     public static SliceQuery inputSlice(final VertexQueryFilter inputFilter, final TitanGraph graph) {
         if (inputFilter.limit == 0) {
             final StaticBuffer[] endPoints = IDHandler.getBounds(RelationType.PROPERTY);
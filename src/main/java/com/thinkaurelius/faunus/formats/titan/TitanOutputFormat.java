@@ -17,18 +17,28 @@ public abstract class TitanOutputFormat extends NoOpOutputFormat implements MapR
 
     public static final String FAUNUS_GRAPH_OUTPUT_TITAN = "faunus.graph.output.titan";
     public static final String FAUNUS_GRAPH_OUTPUT_TITAN_INFER_SCHEMA = "faunus.graph.output.titan.infer-schema";
+    public static final String FAUNUS_GRAPH_OUTPUT_TITAN_BULK_LOAD = "faunus.graph.output.titan.bulk-load";
 
     @Override
     public void addMapReduceJobs(final FaunusCompiler compiler) {
         if (compiler.getConf().getBoolean(FAUNUS_GRAPH_OUTPUT_TITAN_INFER_SCHEMA, true)) {
-            compiler.addMapReduce(SchemaInferencerMapReduce.Map.class,
+            // the types are made by the driver between the inference and the writing of the graph
+            compiler.addMap(SchemaInferencerMapReduce.Map.class,
+                    NullWritable.class,
+                    FaunusVertex.class,
+                    SchemaInferencerMapReduce.createConfiguration());
+            compiler.completeSequence();
+        }
+        if (compiler.getConf().getBoolean(FAUNUS_GRAPH_OUTPUT_TITAN_BULK_LOAD, false)) {
+            compiler.addMapReduce(TitanBulkLoaderMapReduce.Map.class,
                     null,
-                    SchemaInferencerMapReduce.Reduce.class,
+                    TitanBulkLoaderMapReduce.Reduce.class,
                     LongWritable.class,
-                    FaunusVertex.class,
+                    Holder.class,
                     NullWritable.class,
                     FaunusVertex.class,
-                    SchemaInferencerMapReduce.createConfiguration());
+                    TitanBulkLoaderMapReduce.createConfiguration());
+            return;
         }
         compiler.addMapReduce(BlueprintsGraphOutputMapReduce.VertexMap.class,
                 null,
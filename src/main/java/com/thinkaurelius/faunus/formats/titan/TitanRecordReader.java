@@ -0,0 +1,123 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.util.StaticByteBuffer;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The backend agnostic reader of the rows of a Titan edge store.
+ * The backend reader hands out pages of the columns of a row and the consecutive pages with the same key are
+ * read into one vertex. A row that is not paged is a single page.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public abstract class TitanRecordReader extends RecordReader<NullWritable, FaunusVertex> {
+
+    private final FaunusTitanGraph graph;
+    private final VertexQueryFilter vertexQuery;
+    private final boolean pathEnabled;
+
+    private FaunusVertex vertex;
+    private TaskAttemptContext context;
+
+    private int pageSize;
+    private long maxEdges;
+    private boolean skipTruncated;
+    // whether the backend reader is at a page that is not read yet
+    private boolean pending = false;
+
+    public TitanRecordReader(final FaunusTitanGraph graph, final VertexQueryFilter vertexQuery, final boolean pathEnabled) {
+        this.graph = graph;
+        this.vertexQuery = vertexQuery;
+        this.pathEnabled = pathEnabled;
+    }
+
+    @Override
+    public void initialize(final InputSplit inputSplit, final TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+        this.context = taskAttemptContext;
+        final Configuration configuration = taskAttemptContext.getConfiguration();
+        this.pageSize = TitanInputFormat.getPageSize(configuration);
+        this.maxEdges = TitanInputFormat.getMaxEdges(configuration);
+        this.skipTruncated = TitanInputFormat.getSkipTruncated(configuration);
+    }
+
+    /**
+     * Advance the backend reader to its next page.
+     *
+     * @return false if there are no more pages
+     */
+    protected abstract boolean nextPage() throws IOException, InterruptedException;
+
+    /**
+     * The key of the row of the current page.
+     */
+    protected abstract ByteBuffer getPageKey() throws IOException, InterruptedException;
+
+    /**
+     * The entries of the current page.
+     */
+    protected abstract Iterable<Entry> getPageEntries() throws IOException, InterruptedException;
+
+    @Override
+    public boolean nextKeyValue() throws IOException, InterruptedException {
+        while (this.pending || this.nextPage()) {
+            final ByteBuffer key = this.getPageKey();
+            final FaunusVertexLoader loader = new FaunusVertexLoader(new StaticByteBuffer(key), this.maxEdges);
+            long columns = 0;
+            do {
+                columns = columns + this.graph.readEntries(loader, this.getPageEntries());
+            } while ((this.pending = this.nextPage()) && key.equals(this.getPageKey()));
+
+            if (loader.getCorrupt() > 0)
+                this.incrementCounter(TitanInputFormat.Counters.CORRUPT_ENTRIES, loader.getCorrupt());
+            if (this.pageSize > 0 && columns > this.pageSize)
+                this.incrementCounter(TitanInputFormat.Counters.ROWS_PAGED, 1l);
+            if (loader.isTruncated()) {
+                this.incrementCounter(TitanInputFormat.Counters.EDGES_DROPPED, loader.getDropped());
+                this.incrementCounter(this.skipTruncated ? TitanInputFormat.Counters.ROWS_SKIPPED : TitanInputFormat.Counters.ROWS_TRUNCATED, 1l);
+                if (this.skipTruncated)
+                    continue;
+            }
+
+            final FaunusVertex temp = loader.getVertex();
+            if (null != temp && this.vertexQuery.isLegal(temp, this.context)) {
+                if (this.pathEnabled) temp.enablePath(true);
+                this.vertex = temp;
+                this.vertexQuery.defaultFilter(this.vertex);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void incrementCounter(final TitanInputFormat.Counters counter, final long amount) {
+        // the record reader of a map task is initialized with the context of the mapper
+        if (this.context instanceof TaskInputOutputContext)
+            ((TaskInputOutputContext) this.context).getCounter(counter).increment(amount);
+    }
+
+    @Override
+    public NullWritable getCurrentKey() throws IOException, InterruptedException {
+        return NullWritable.get();
+    }
+
+    @Override
+    public FaunusVertex getCurrentValue() throws IOException, InterruptedException {
+        return this.vertex;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.graph.shutdown();
+    }
+}
@@ -32,6 +32,10 @@ public class FaunusTitanCassandraGraph extends FaunusTitanGraph {
         return super.readFaunusVertex(key, new CassandraMapIterable(value));
     }
 
+    public static Iterable<Entry> getEntries(final SortedMap<ByteBuffer, IColumn> value) {
+        return new CassandraMapIterable(value);
+    }
+
     private static class CassandraMapIterable implements Iterable<Entry> {
 
         private final SortedMap<ByteBuffer, IColumn> columnValues;
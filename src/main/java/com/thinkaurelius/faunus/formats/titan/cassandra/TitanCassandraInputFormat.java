@@ -34,6 +34,7 @@ public class TitanCassandraInputFormat extends TitanInputFormat {
     private boolean pathEnabled;
     private Configuration config;
     private VertexQueryFilter vertexQuery;
+    private SliceQuery wideRowSlice;
 
     @Override
     public List<InputSplit> getSplits(final JobContext jobContext) throws IOException, InterruptedException {
@@ -42,7 +43,7 @@ public class TitanCassandraInputFormat extends TitanInputFormat {
 
     @Override
     public RecordReader<NullWritable, FaunusVertex> createRecordReader(final InputSplit inputSplit, final TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-        return new TitanCassandraRecordReader(this.graph, this.vertexQuery, this.pathEnabled, (ColumnFamilyRecordReader) this.columnFamilyInputFormat.createRecordReader(inputSplit, taskAttemptContext));
+        return new TitanCassandraRecordReader(this.graph, this.vertexQuery, this.pathEnabled, (ColumnFamilyRecordReader) this.columnFamilyInputFormat.createRecordReader(inputSplit, taskAttemptContext), this.wideRowSlice);
     }
 
     @Override
@@ -52,9 +53,18 @@ public class TitanCassandraInputFormat extends TitanInputFormat {
         this.pathEnabled = config.getBoolean(FaunusCompiler.PATH_ENABLED, false);
 
         config.set("cassandra.input.keyspace", config.get(FAUNUS_GRAPH_INPUT_TITAN_STORAGE_KEYSPACE));
-        ConfigHelper.setInputColumnFamily(config, ConfigHelper.getInputKeyspace(config), Backend.EDGESTORE_NAME);
         final SlicePredicate predicate = new SlicePredicate();
-        predicate.setSlice_range(getSliceRange(this.vertexQuery, config.getInt("cassandra.range.batch.size", Integer.MAX_VALUE)));
+        final int pageSize = TitanInputFormat.getPageSize(config);
+        if (pageSize > 0) {
+            // wide rows are read in pages of columns that are merged back into one vertex by the record reader
+            ConfigHelper.setInputColumnFamily(config, ConfigHelper.getInputKeyspace(config), Backend.EDGESTORE_NAME, true);
+            ConfigHelper.setRangeBatchSize(config, pageSize);
+            predicate.setSlice_range(getSliceRange(this.vertexQuery, pageSize));
+            this.wideRowSlice = TitanInputFormat.inputSlice(this.vertexQuery, this.graph);
+        } else {
+            ConfigHelper.setInputColumnFamily(config, ConfigHelper.getInputKeyspace(config), Backend.EDGESTORE_NAME);
+            predicate.setSlice_range(getSliceRange(this.vertexQuery, config.getInt("cassandra.range.batch.size", Integer.MAX_VALUE)));
+        }
         ConfigHelper.setInputSlicePredicate(config, predicate);
         ConfigHelper.setInputInitialAddress(config, config.get(FAUNUS_GRAPH_INPUT_TITAN_STORAGE_HOSTNAME));
         ConfigHelper.setInputRpcPort(config, config.get(FAUNUS_GRAPH_INPUT_TITAN_STORAGE_PORT));
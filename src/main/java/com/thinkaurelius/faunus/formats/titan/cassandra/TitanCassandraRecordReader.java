@@ -1,67 +1,70 @@
 package com.thinkaurelius.faunus.formats.titan.cassandra;
 
-import com.thinkaurelius.faunus.FaunusVertex;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Iterables;
 import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.faunus.formats.titan.TitanRecordReader;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
 import org.apache.cassandra.hadoop.ColumnFamilyRecordReader;
-import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
-import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
-public class TitanCassandraRecordReader extends RecordReader<NullWritable, FaunusVertex> {
+public class TitanCassandraRecordReader extends TitanRecordReader {
 
     private ColumnFamilyRecordReader reader;
-    private FaunusTitanCassandraGraph graph;
-    private boolean pathEnabled;
-    private VertexQueryFilter vertexQuery;
-
-    private FaunusVertex vertex;
+    // the slice of a wide row reader which pages all columns of a row regardless of the slice predicate
+    private final SliceQuery slice;
 
     public TitanCassandraRecordReader(final FaunusTitanCassandraGraph graph, final VertexQueryFilter vertexQuery, final boolean pathEnabled, final ColumnFamilyRecordReader reader) {
-        this.graph = graph;
-        this.vertexQuery = vertexQuery;
-        this.pathEnabled = pathEnabled;
-        this.reader = reader;
+        this(graph, vertexQuery, pathEnabled, reader, null);
+    }
 
+    public TitanCassandraRecordReader(final FaunusTitanCassandraGraph graph, final VertexQueryFilter vertexQuery, final boolean pathEnabled, final ColumnFamilyRecordReader reader, final SliceQuery slice) {
+        super(graph, vertexQuery, pathEnabled);
+        this.reader = reader;
+        this.slice = slice;
     }
 
     @Override
     public void initialize(final InputSplit inputSplit, final TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+        super.initialize(inputSplit, taskAttemptContext);
         this.reader.initialize(inputSplit, taskAttemptContext);
     }
 
     @Override
-    public boolean nextKeyValue() throws IOException, InterruptedException {
-        while (this.reader.nextKeyValue()) {
-            final FaunusVertex temp = this.graph.readFaunusVertex(this.reader.getCurrentKey().duplicate(), this.reader.getCurrentValue());
-            if (null != temp) {
-                if (this.pathEnabled) temp.enablePath(true);
-                this.vertex = temp;
-                this.vertexQuery.defaultFilter(this.vertex);
-                return true;
-            }
-        }
-        return false;
+    protected boolean nextPage() throws IOException {
+        return this.reader.nextKeyValue();
     }
 
     @Override
-    public NullWritable getCurrentKey() throws IOException, InterruptedException {
-        return NullWritable.get();
+    protected ByteBuffer getPageKey() {
+        return this.reader.getCurrentKey().duplicate();
     }
 
     @Override
-    public FaunusVertex getCurrentValue() throws IOException, InterruptedException {
-        return this.vertex;
+    protected Iterable<Entry> getPageEntries() {
+        final Iterable<Entry> entries = FaunusTitanCassandraGraph.getEntries(this.reader.getCurrentValue());
+        if (null == this.slice)
+            return entries;
+        return Iterables.filter(entries, new Predicate<Entry>() {
+            @Override
+            public boolean apply(final Entry entry) {
+                return entry.getColumn().compareTo(slice.getSliceStart()) >= 0 &&
+                        (slice.getSliceEnd().length() == 0 || entry.getColumn().compareTo(slice.getSliceEnd()) < 0);
+            }
+        });
     }
 
     @Override
     public void close() throws IOException {
-        this.graph.shutdown();
+        super.close();
         this.reader.close();
     }
 
@@ -5,7 +5,7 @@ import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.formats.titan.FaunusTitanGraph;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
 import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
-import com.thinkaurelius.titan.diskstorage.util.StaticByteBuffer;
+import com.thinkaurelius.titan.diskstorage.util.StaticArrayBuffer;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
@@ -33,6 +33,10 @@ public class FaunusTitanHBaseGraph extends FaunusTitanGraph {
         return super.readFaunusVertex(ByteBuffer.wrap(key), new HBaseMapIterable(rowMap));
     }
 
+    public static Iterable<Entry> getEntries(final NavigableMap<byte[], NavigableMap<Long, byte[]>> rowMap) {
+        return new HBaseMapIterable(rowMap);
+    }
+
     private static class HBaseMapIterable implements Iterable<Entry> {
 
         private final NavigableMap<byte[], NavigableMap<Long, byte[]>> columnValues;
@@ -65,7 +69,7 @@ public class FaunusTitanHBaseGraph extends FaunusTitanGraph {
         @Override
         public Entry next() {
             final Map.Entry<byte[], NavigableMap<Long, byte[]>> entry = iterator.next();
-            return new StaticBufferEntry(new StaticByteBuffer(entry.getKey()), new StaticByteBuffer(entry.getValue().lastEntry().getValue()));
+            return new StaticBufferEntry(new StaticArrayBuffer(entry.getKey()), new StaticArrayBuffer(entry.getValue().lastEntry().getValue()));
         }
 
         @Override
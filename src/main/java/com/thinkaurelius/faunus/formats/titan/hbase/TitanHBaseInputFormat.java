@@ -64,6 +64,10 @@ public class TitanHBaseInputFormat extends TitanInputFormat {
         Scan scanner = new Scan();
         scanner.addFamily(Backend.EDGESTORE_NAME.getBytes());
         scanner.setFilter(getColumnFilter(this.vertexQuery));
+        // wide rows are read in pages of columns that are merged back into one vertex by the record reader
+        final int pageSize = TitanInputFormat.getPageSize(config);
+        if (pageSize > 0)
+            scanner.setBatch(pageSize);
         //TODO (minor): should we set other options in http://hbase.apache.org/apidocs/org/apache/hadoop/hbase/client/Scan.html for optimization?
         Method converter;
         try {
@@ -0,0 +1,68 @@
+package com.thinkaurelius.faunus.hdfs;
+
+import com.thinkaurelius.faunus.Tokens;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * MapFileReaders looks up records in partitioned MapFiles (e.g. those written by MapFileOutputFormat).
+ * A key is looked up in the partition that the HashPartitioner assigned it to when the MapFiles were written.
+ * Looking up keys in sorted order only seeks forward in each MapFile.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MapFileReaders {
+
+    private final MapFile.Reader[] readers;
+    private final HashPartitioner<WritableComparable, Writable> partitioner = new HashPartitioner<WritableComparable, Writable>();
+
+    public MapFileReaders(final Path location, final Configuration configuration) throws IOException {
+        this(location, Tokens.PART, configuration);
+    }
+
+    /**
+     * @param prefix the name of the output the MapFiles were written to (e.g. part or a named output)
+     */
+    public MapFileReaders(final Path location, final String prefix, final Configuration configuration) throws IOException {
+        final FileSystem fs = location.getFileSystem(configuration);
+        final FileStatus[] partitions = fs.listStatus(location, new PathFilter() {
+            public boolean accept(final Path path) {
+                return path.getName().startsWith(prefix);
+            }
+        });
+        if (null == partitions)
+            throw new IOException("The MapFile location does not exist: " + location);
+        Arrays.sort(partitions);
+        this.readers = new MapFile.Reader[partitions.length];
+        for (int i = 0; i < partitions.length; i++) {
+            this.readers[i] = new MapFile.Reader(fs, partitions[i].getPath().toString(), configuration);
+        }
+    }
+
+    /**
+     * Read the value of the key into the provided value.
+     *
+     * @return the provided value or null if the key does not exist
+     */
+    public <V extends Writable> V get(final WritableComparable key, final V value) throws IOException {
+        if (this.readers.length == 0)
+            return null;
+        return (V) this.readers[this.partitioner.getPartition(key, value, this.readers.length)].get(key, value);
+    }
+
+    public void close() throws IOException {
+        for (final MapFile.Reader reader : this.readers) {
+            reader.close();
+        }
+    }
+}
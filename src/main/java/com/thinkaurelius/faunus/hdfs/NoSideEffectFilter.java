@@ -2,8 +2,10 @@ package com.thinkaurelius.faunus.hdfs;
 
 import com.thinkaurelius.faunus.Tokens;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.MapFile;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -14,10 +16,12 @@ public class NoSideEffectFilter implements PathFilter {
 
     public boolean accept(final Path path) {
         try {
-            if (!path.getFileSystem(new Configuration()).isFile(path))
-                return true;
+            final FileSystem fs = path.getFileSystem(new Configuration());
+            if (!fs.isFile(path))
+                // the messages of a superstep are map files that the next superstep looks up (see VertexProgramMapReduce)
+                return !(path.getName().startsWith(Tokens.MESSAGES) && fs.exists(new Path(path, MapFile.INDEX_FILE_NAME)));
             else
-                return !path.getName().startsWith(Tokens.SIDEEFFECT);
+                return !path.getName().startsWith(Tokens.SIDEEFFECT) && !path.getName().startsWith(Tokens.SCHEMA);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }
@@ -5,17 +5,49 @@ import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.formats.FormatTools;
 import com.thinkaurelius.faunus.formats.JobConfigurationFormat;
+import com.thinkaurelius.faunus.formats.MapFileOutputFormat;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.faunus.formats.indexed.IdRanges;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphInputFormat;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphOutputFormat;
+import com.thinkaurelius.faunus.formats.noop.NoOpOutputFormat;
+import com.thinkaurelius.faunus.formats.titan.SchemaInferencerMapReduce;
 import com.thinkaurelius.faunus.hdfs.NoSideEffectFilter;
+import com.thinkaurelius.faunus.mapreduce.compute.VertexProgramMapReduce;
+import com.thinkaurelius.faunus.mapreduce.filter.IntervalFilterMap;
+import com.thinkaurelius.faunus.mapreduce.filter.PropertyFilterMap;
+import com.thinkaurelius.faunus.mapreduce.local.LocalJobRunner;
+import com.thinkaurelius.faunus.mapreduce.local.MemoryInputFormat;
+import com.thinkaurelius.faunus.mapreduce.local.MemoryOutputFormat;
+import com.thinkaurelius.faunus.mapreduce.local.MemoryStore;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.GroupCountMapReduce;
+import com.thinkaurelius.faunus.mapreduce.sideeffect.ValueGroupCountMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.StateJoinMap;
+import com.thinkaurelius.faunus.mapreduce.transform.EdgesMap;
+import com.thinkaurelius.faunus.mapreduce.transform.OrderMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.TopologyMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.VertexMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesStateMapReduce;
+import com.thinkaurelius.faunus.mapreduce.util.CountMapReduce;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.Mapper;
@@ -33,8 +65,12 @@ import org.apache.log4j.Logger;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -46,6 +82,8 @@ public class FaunusCompiler extends Configured implements Tool {
 
     public static final String PATH_ENABLED = Tokens.makeNamespace(FaunusCompiler.class) + ".pathEnabled";
     public static final String TESTING = Tokens.makeNamespace(FaunusCompiler.class) + ".testing";
+    // the keys that are staged for the stages of a job (key + "-" + stage) so that fusion only renumbers those
+    public static final String STAGED_KEYS = Tokens.makeNamespace(FaunusCompiler.class) + ".stagedKeys";
     public static final Logger logger = Logger.getLogger(FaunusCompiler.class);
 
     private FaunusGraph graph;
@@ -64,13 +102,34 @@ public class FaunusCompiler extends Configured implements Tool {
 
     private static final Class<? extends InputFormat> INTERMEDIATE_INPUT_FORMAT = SequenceFileInputFormat.class;
     private static final Class<? extends OutputFormat> INTERMEDIATE_OUTPUT_FORMAT = SequenceFileOutputFormat.class;
+    // the reducers that only aggregate side-effects of what their mappers emit
+    private static final List<String> SIDE_EFFECT_REDUCERS = Arrays.asList(CountMapReduce.Reduce.class.getName(),
+            GroupCountMapReduce.Reduce.class.getName(), ValueGroupCountMapReduce.Reduce.class.getName(), OrderMapReduce.Reduce.class.getName());
 
     private boolean pathEnabled = false;
+    // true while traversal steps join against the topology of a sparse traversal
+    private boolean sparseTraversal = false;
+    private final Set<String> dictionary = new LinkedHashSet<String>();
+    private final Set<String> stagedKeys = new HashSet<String>();
 
     public FaunusCompiler(final FaunusGraph graph) {
         this.graph = graph;
         this.setConf(new Configuration());
         this.addConfiguration(this.graph.getConf());
+        final String[] strings = this.graph.getConf().getStrings(Tokens.FAUNUS_GRAPH_DICTIONARY);
+        if (null != strings)
+            this.addToDictionary(strings);
+    }
+
+    /**
+     * Add labels and property keys to the dictionary that intermediate job outputs are encoded with.
+     * Strings containing a comma can not be stored in the configuration and are written as is.
+     */
+    public void addToDictionary(final String... strings) {
+        for (final String string : strings) {
+            if (null != string && !string.isEmpty() && !string.contains(","))
+                this.dictionary.add(string);
+        }
     }
 
     private String toStringOfJob(final Class sequenceClass) {
@@ -98,6 +157,9 @@ public class FaunusCompiler extends Configured implements Tool {
                 this.pathEnabled = true;
             this.getConf().set(entry.getKey() + "-" + this.mapSequenceClasses.size(), entry.getValue());
             this.getConf().set(entry.getKey(), entry.getValue());
+            // a key with a comma can not be listed and is left as is by fusion
+            if (!entry.getKey().contains(","))
+                this.stagedKeys.add(entry.getKey());
         }
     }
 
@@ -111,6 +173,7 @@ public class FaunusCompiler extends Configured implements Tool {
                              final Class<? extends WritableComparable> reduceOutputValue,
                              final Configuration configuration) {
 
+        this.closeSparseTraversal();
         this.addConfiguration(configuration);
         this.mapSequenceClasses.add(mapper);
         this.combinerClass = combiner;
@@ -120,7 +183,7 @@ public class FaunusCompiler extends Configured implements Tool {
         this.mapOutputValue = mapOutputValue;
         this.outputKey = reduceOutputKey;
         this.outputValue = reduceOutputValue;
-        this.completeSequence();
+        this.completeJob();
     }
 
     public void addMapReduce(final Class<? extends Mapper> mapper,
@@ -132,6 +195,7 @@ public class FaunusCompiler extends Configured implements Tool {
                              final Class<? extends WritableComparable> reduceOutputValue,
                              final Configuration configuration) {
 
+        this.closeSparseTraversal();
         this.addConfiguration(configuration);
         this.mapSequenceClasses.add(mapper);
         this.combinerClass = combiner;
@@ -140,7 +204,7 @@ public class FaunusCompiler extends Configured implements Tool {
         this.mapOutputValue = mapOutputValue;
         this.outputKey = reduceOutputKey;
         this.outputValue = reduceOutputValue;
-        this.completeSequence();
+        this.completeJob();
     }
 
     public void addMap(final Class<? extends Mapper> mapper,
@@ -148,6 +212,7 @@ public class FaunusCompiler extends Configured implements Tool {
                        final Class<? extends WritableComparable> mapOutputValue,
                        final Configuration configuration) {
 
+        this.closeSparseTraversal();
         this.addConfiguration(configuration);
         this.mapSequenceClasses.add(mapper);
         this.mapOutputKey = mapOutputKey;
@@ -157,44 +222,56 @@ public class FaunusCompiler extends Configured implements Tool {
 
     }
 
-    public void completeSequence() {
-        if (this.mapSequenceClasses.size() > 0) {
-            this.getConf().setStrings(MapSequence.MAP_CLASSES, toStringMapSequenceClasses());
-            final Job job;
-            try {
-                job = new Job(this.getConf(), this.toStringOfJob(MapSequence.class));
-            } catch (IOException e) {
-                throw new RuntimeException(e.getMessage(), e);
-            }
-
-            job.setJarByClass(FaunusCompiler.class);
-            job.setMapperClass(MapSequence.Map.class);
-            if (null != this.reduceClass) {
-                job.setReducerClass(this.reduceClass);
-                if (null != this.combinerClass)
-                    job.setCombinerClass(this.combinerClass);
-                // if there is a reduce task, compress the map output to limit network traffic
-                if (null == job.getConfiguration().get(MAPRED_COMPRESS_MAP_OUTPUT, null))
-                    job.getConfiguration().setBoolean(MAPRED_COMPRESS_MAP_OUTPUT, true);
-                if (null == job.getConfiguration().get(MAPRED_MAP_OUTPUT_COMPRESSION_CODEC, null))
-                    job.getConfiguration().setClass(MAPRED_MAP_OUTPUT_COMPRESSION_CODEC, DefaultCodec.class, CompressionCodec.class);
-            } else {
-                job.setNumReduceTasks(0);
-            }
+    /**
+     * Add a traversal step that only shuffles path counts.
+     * The first step of a traversal writes the topology sorted by vertex id (TopologyMapReduce),
+     * every step looks up adjacencies in it (VerticesVerticesStateMapReduce) and the next non-traversal step
+     * starts with joining the path counts back onto the topology (StateJoinMap).
+     */
+    public void addSparseTraversal(final Direction direction, final String... labels) {
+        if (!this.sparseTraversal)
+            this.addMapReduce(TopologyMapReduce.Map.class,
+                    null,
+                    TopologyMapReduce.Reduce.class,
+                    LongWritable.class,
+                    FaunusVertex.class,
+                    LongWritable.class,
+                    FaunusVertex.class,
+                    TopologyMapReduce.createConfiguration());
+        // the step must not close the traversal it is part of
+        this.sparseTraversal = false;
+        this.addMapReduce(VerticesVerticesStateMapReduce.Map.class,
+                VerticesVerticesStateMapReduce.Combiner.class,
+                VerticesVerticesStateMapReduce.Reduce.class,
+                LongWritable.class,
+                LongWritable.class,
+                LongWritable.class,
+                LongWritable.class,
+                VerticesVerticesStateMapReduce.createConfiguration(direction, labels));
+        this.sparseTraversal = true;
+    }
 
-            job.setMapOutputKeyClass(this.mapOutputKey);
-            job.setMapOutputValueClass(this.mapOutputValue);
-            if (null != this.comparatorClass)
-                job.setSortComparatorClass(this.comparatorClass);
-            // else
-            //   job.setSortComparatorClass(NullWritable.Comparator.class);
-            job.setOutputKeyClass(this.outputKey);
-            job.setOutputValueClass(this.outputValue);
+    private void closeSparseTraversal() {
+        if (this.sparseTraversal) {
+            this.sparseTraversal = false;
+            this.addMap(StateJoinMap.Map.class,
+                    NullWritable.class,
+                    FaunusVertex.class,
+                    StateJoinMap.createConfiguration());
+        }
+    }
 
+    public void completeSequence() {
+        this.closeSparseTraversal();
+        this.completeJob();
+    }
 
-            this.jobs.add(job);
+    private void completeJob() {
+        if (this.mapSequenceClasses.size() > 0) {
+            this.jobs.add(this.createJob());
 
             this.setConf(new Configuration());
+            this.stagedKeys.clear();
             this.addConfiguration(this.graph.getConf());
             this.mapSequenceClasses.clear();
             this.combinerClass = null;
@@ -203,13 +280,229 @@ public class FaunusCompiler extends Configured implements Tool {
         }
     }
 
+    private Job createJob() {
+        this.getConf().setStrings(MapSequence.MAP_CLASSES, toStringMapSequenceClasses());
+        this.getConf().setStrings(STAGED_KEYS, this.stagedKeys.toArray(new String[this.stagedKeys.size()]));
+        final Job job;
+        try {
+            job = new Job(this.getConf(), this.toStringOfJob(MapSequence.class));
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+
+        job.setJarByClass(FaunusCompiler.class);
+        job.setMapperClass(MapSequence.Map.class);
+        if (null != this.reduceClass) {
+            job.setReducerClass(this.reduceClass);
+            if (null != this.combinerClass)
+                job.setCombinerClass(this.combinerClass);
+            // if there is a reduce task, compress the map output to limit network traffic
+            if (null == job.getConfiguration().get(MAPRED_COMPRESS_MAP_OUTPUT, null))
+                job.getConfiguration().setBoolean(MAPRED_COMPRESS_MAP_OUTPUT, true);
+            if (null == job.getConfiguration().get(MAPRED_MAP_OUTPUT_COMPRESSION_CODEC, null))
+                job.getConfiguration().setClass(MAPRED_MAP_OUTPUT_COMPRESSION_CODEC, DefaultCodec.class, CompressionCodec.class);
+        } else {
+            job.setNumReduceTasks(0);
+        }
+
+        job.setMapOutputKeyClass(this.mapOutputKey);
+        job.setMapOutputValueClass(this.mapOutputValue);
+        if (null != this.comparatorClass)
+            job.setSortComparatorClass(this.comparatorClass);
+        // else
+        //   job.setSortComparatorClass(NullWritable.Comparator.class);
+        job.setOutputKeyClass(this.outputKey);
+        job.setOutputValueClass(this.outputValue);
+        return job;
+    }
+
+    /**
+     * Fuse adjacent jobs of the job chain.
+     * The leading vertex stages of a job are run on the reduce side of the job before it (see ReduceSequence)
+     * when that job reduces to vertices. The vertices they filter are never written between the jobs and
+     * a job that is left without stages is not run at all (e.g. g.V.out._ is a single job).
+     */
+    public void fuseJobs() {
+        fuseJobs(this.jobs);
+    }
+
+    private static void fuseJobs(final List<Job> jobs) {
+        int i = 0;
+        while (i < jobs.size() - 1) {
+            final Job job = jobs.get(i);
+            final Job next = jobs.get(i + 1);
+            final String[] nextMapClasses = next.getConfiguration().getStrings(MapSequence.MAP_CLASSES, new String[0]);
+            final int fusible = countFusibleStages(job, nextMapClasses);
+            if (fusible == 0) {
+                i++;
+            } else {
+                appendReduceStages(job, next, Arrays.copyOf(nextMapClasses, fusible));
+                if (fusible == nextMapClasses.length && next.getNumReduceTasks() == 0) {
+                    // the job after the removed job may fuse into this job as well
+                    jobs.remove(i + 1);
+                } else {
+                    jobs.set(i + 1, removeMapStages(next, fusible));
+                    i++;
+                }
+            }
+        }
+    }
+
+    private static int countFusibleStages(final Job job, final String[] nextMapClasses) {
+        if (job.getNumReduceTasks() == 0 || !job.getOutputKeyClass().equals(NullWritable.class) || !job.getOutputValueClass().equals(FaunusVertex.class))
+            return 0;
+        // the supersteps after a superstep are skipped once the vertex program halts
+        if (hasMapClass(job, VertexProgramMapReduce.Map.class))
+            return 0;
+        int fusible = 0;
+        for (final String mapClass : nextMapClasses) {
+            // the join reads the topology of a sparse traversal and not the output of the job before it
+            if (mapClass.equals(StateJoinMap.Map.class.getName()))
+                break;
+            try {
+                if (!VertexStage.class.isAssignableFrom(Class.forName(mapClass)))
+                    break;
+            } catch (final ClassNotFoundException e) {
+                break;
+            }
+            fusible++;
+        }
+        return fusible;
+    }
+
+    private static void appendReduceStages(final Job job, final Job next, final String[] mapClasses) {
+        final Configuration configuration = job.getConfiguration();
+        final List<String> reduceMapClasses = new ArrayList<String>(Arrays.asList(configuration.getStrings(ReduceSequence.MAP_CLASSES, new String[0])));
+        if (reduceMapClasses.isEmpty()) {
+            configuration.set(ReduceSequence.REDUCE_CLASS, getReducerClassName(job));
+            job.setReducerClass(ReduceSequence.Reduce.class);
+        }
+        final int offset = configuration.getStrings(MapSequence.MAP_CLASSES, new String[0]).length + reduceMapClasses.size();
+        final Set<String> stagedKeys = getStagedKeys(next.getConfiguration());
+        for (final Map.Entry<String, String> entry : next.getConfiguration()) {
+            final int stage = getStage(entry.getKey(), stagedKeys);
+            if (stage != -1 && stage < mapClasses.length)
+                configuration.set(entry.getKey().substring(0, entry.getKey().lastIndexOf('-') + 1) + (offset + stage), entry.getValue());
+        }
+        stagedKeys.addAll(getStagedKeys(configuration));
+        configuration.setStrings(STAGED_KEYS, stagedKeys.toArray(new String[stagedKeys.size()]));
+        reduceMapClasses.addAll(Arrays.asList(mapClasses));
+        configuration.setStrings(ReduceSequence.MAP_CLASSES, reduceMapClasses.toArray(new String[reduceMapClasses.size()]));
+        job.setJobName(job.getJobName() + ReduceSequence.class.getSimpleName() + Arrays.asList(mapClasses));
+    }
+
+    private static Job removeMapStages(final Job job, final int count) {
+        // the stage configurations are renumbered and a configuration can not unset a key
+        final Configuration configuration = new Configuration(false);
+        final Set<String> stagedKeys = getStagedKeys(job.getConfiguration());
+        for (final Map.Entry<String, String> entry : job.getConfiguration()) {
+            final int stage = getStage(entry.getKey(), stagedKeys);
+            if (stage == -1)
+                configuration.set(entry.getKey(), entry.getValue());
+            else if (stage >= count)
+                configuration.set(entry.getKey().substring(0, entry.getKey().lastIndexOf('-') + 1) + (stage - count), entry.getValue());
+        }
+        final String[] mapClasses = job.getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        configuration.setStrings(MapSequence.MAP_CLASSES, Arrays.copyOfRange(mapClasses, count, mapClasses.length));
+        try {
+            return new Job(configuration, job.getJobName());
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static Set<String> getStagedKeys(final Configuration configuration) {
+        return new HashSet<String>(configuration.getStringCollection(STAGED_KEYS));
+    }
+
+    /**
+     * The stage that a configuration key is staged for (see MemoryMapContext.stageConfiguration()) or -1 if none.
+     * Only the copies of the keys that addConfiguration() staged are stage keys -- any other key that ends with
+     * a dash and digits is a key of its own.
+     */
+    private static int getStage(final String key, final Set<String> stagedKeys) {
+        final int index = key.lastIndexOf('-');
+        if (index == -1 || stagedKeys.contains(key) || !stagedKeys.contains(key.substring(0, index)))
+            return -1;
+        final String stage = key.substring(index + 1);
+        if (stage.isEmpty())
+            return -1;
+        for (int i = 0; i < stage.length(); i++) {
+            if (!Character.isDigit(stage.charAt(i)))
+                return -1;
+        }
+        return Integer.valueOf(stage);
+    }
+
+    /**
+     * A description of the jobs compiled so far and of the jobs they are fused into.
+     */
+    public String toStringOfJobs() {
+        final List<Job> plan = new ArrayList<Job>();
+        try {
+            for (final Job job : this.jobs) {
+                plan.add(new Job(new Configuration(job.getConfiguration()), job.getJobName()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        if (this.mapSequenceClasses.size() > 0)
+            plan.add(this.createJob());
+        if (plan.isEmpty())
+            return Tokens.EMPTY_STRING;
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append("Compiled to ").append(plan.size()).append(" MapReduce job(s)");
+        for (final Job job : plan) {
+            builder.append("\n  ").append(toStringOfPlan(job));
+        }
+        fuseJobs(plan);
+        builder.append("\nFused to ").append(plan.size()).append(" MapReduce job(s)");
+        for (final Job job : plan) {
+            builder.append("\n  ").append(toStringOfPlan(job));
+        }
+        return builder.toString();
+    }
+
+    private static String toStringOfPlan(final Job job) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append(MapSequence.class.getSimpleName()).append(toSimpleNames(job.getConfiguration().getStrings(MapSequence.MAP_CLASSES, new String[0])));
+        if (job.getNumReduceTasks() > 0) {
+            final String reduceClass = job.getConfiguration().get(ReduceSequence.REDUCE_CLASS);
+            if (null == reduceClass)
+                builder.append(" -> ").append(toSimpleNames(getReducerClassName(job)).get(0));
+            else
+                builder.append(" -> ").append(ReduceSequence.class.getSimpleName()).append(toSimpleNames(reduceClass)).append(toSimpleNames(job.getConfiguration().getStrings(ReduceSequence.MAP_CLASSES)));
+        }
+        return builder.toString();
+    }
+
+    private static String getReducerClassName(final Job job) {
+        try {
+            return job.getReducerClass().getName();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static List<String> toSimpleNames(final String... classNames) {
+        final List<String> list = new ArrayList<String>();
+        for (final String className : classNames) {
+            list.add(className.substring(className.lastIndexOf('.') + 1).replace('$', '.'));
+        }
+        return list;
+    }
+
     public void composeJobs() throws IOException {
         if (this.jobs.size() == 0) {
             return;
         }
 
+        // local execution runs the jobs in this JVM and does not need the job jar
+        final boolean local = this.graph.getLocalExecution();
+        final boolean indexed = this.graph.getConf().getBoolean(Tokens.FAUNUS_PIPELINE_INDEXED_INTERMEDIATE, false);
         String hadoopFileJar = graph.getConf().get("mapred.jar", null);
-        if (null == hadoopFileJar) {
+        if (null == hadoopFileJar && !local) {
             if (new File("target/" + Tokens.FAUNUS_JOB_JAR).exists()) {
                 hadoopFileJar = "target/" + Tokens.FAUNUS_JOB_JAR;
                 logger.warn("Using the developer Faunus job jar: " + hadoopFileJar);
@@ -231,54 +524,214 @@ public class FaunusCompiler extends Configured implements Tool {
                     logger.info("Using the distribution Faunus job jar: " + hadoopFileJar);
                 }
             }
-        } else {
+        } else if (null != hadoopFileJar) {
             logger.info("Using the provided Faunus job jar: " + hadoopFileJar);
         }
-        if (null == hadoopFileJar)
+        if (null == hadoopFileJar && !local)
             throw new IllegalStateException("The Faunus Hadoop job jar could not be found: " + Tokens.FAUNUS_JOB_JAR);
 
         if (this.pathEnabled)
             logger.warn("Path calculations are enabled for this Faunus job (space and time expensive)");
 
+        for (final Job job : this.jobs) {
+            if (this.pathEnabled && hasMapClass(job, VerticesVerticesStateMapReduce.Map.class))
+                throw new IllegalStateException("Sparse traversals only propagate path counts and can not be used with path calculations");
+        }
+
+        if (this.graph.getConf().getBoolean(Tokens.FAUNUS_PIPELINE_JOB_FUSION, true)) {
+            final int compiled = this.jobs.size();
+            this.fuseJobs();
+            if (this.jobs.size() < compiled)
+                logger.info("Fused " + compiled + " MapReduce job(s) into " + this.jobs.size());
+        }
+
         final FileSystem hdfs = FileSystem.get(this.graph.getConf());
         final String outputJobPrefix = this.graph.getOutputLocation().toString() + "/" + Tokens.JOB;
         hdfs.mkdirs(this.graph.getOutputLocation());
 
         //////// CHAINING JOBS TOGETHER
 
+        // the job that wrote the topology of the current sparse traversal
+        int topologyJob = -1;
         for (int i = 0; i < this.jobs.size(); i++) {
             final Job job = this.jobs.get(i);
             job.getConfiguration().setBoolean(PATH_ENABLED, this.pathEnabled);
-            job.getConfiguration().set("mapred.jar", hadoopFileJar);
+            if (null != hadoopFileJar)
+                job.getConfiguration().set("mapred.jar", hadoopFileJar);
+
+            final Class<? extends InputFormat> intermediateInputFormat = i == 0 ? INTERMEDIATE_INPUT_FORMAT : getIntermediateInputFormat(this.jobs.get(i - 1), local, indexed);
+            final Class<? extends OutputFormat> intermediateOutputFormat = getIntermediateOutputFormat(local, indexed);
+
+            // intermediate outputs carry dictionary ids -- the final output is readable without the dictionary
+            if (!this.dictionary.isEmpty())
+                job.getConfiguration().setStrings(Tokens.FAUNUS_GRAPH_DICTIONARY, this.dictionary.toArray(new String[this.dictionary.size()]));
+            job.getConfiguration().setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, !this.dictionary.isEmpty() && i < this.jobs.size() - 1);
 
             FileOutputFormat.setOutputPath(job, new Path(outputJobPrefix + "-" + i));
 
             // configure job inputs
-            if (i == 0) {
+            if (hasMapClass(job, StateJoinMap.Map.class)) {
+                // the topology is the input and the path counts of the previous step are looked up
+                job.getConfiguration().set(StateJoinMap.STATE_LOCATION, outputJobPrefix + "-" + (i - 1));
+                job.getConfiguration().set(StateJoinMap.TOPOLOGY_LOCATION, outputJobPrefix + "-" + topologyJob);
+                job.setInputFormatClass(INTERMEDIATE_INPUT_FORMAT);
+                FileInputFormat.setInputPaths(job, new Path(outputJobPrefix + "-" + topologyJob));
+                FileInputFormat.setInputPathFilter(job, NoSideEffectFilter.class);
+            } else if (i == 0) {
                 job.setInputFormatClass(this.graph.getGraphInputFormat());
+                VertexQueryFilter.compile(job.getConfiguration());
+                // a lookup that does not write the graph only reads the vertices it starts from
+                final boolean lookup = this.jobs.size() == 1 && isVertexLookup(job) && NoOpOutputFormat.class.equals(this.graph.getGraphOutputFormat());
+                if (lookup)
+                    pushDownPredicates(job);
+                if (lookup && IndexedGraphInputFormat.class.isAssignableFrom(this.graph.getGraphInputFormat()) && null != job.getConfiguration().get(VertexMap.IDS + "-0")
+                        && null == job.getConfiguration().get(IndexedGraphInputFormat.FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES)) {
+                    final String[] ids = job.getConfiguration().getStrings(VertexMap.IDS + "-0", new String[0]);
+                    final long[] longs = new long[ids.length];
+                    for (int j = 0; j < ids.length; j++) {
+                        longs[j] = Long.valueOf(ids[j]);
+                    }
+                    job.getConfiguration().set(IndexedGraphInputFormat.FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES, IdRanges.toString(longs));
+                }
                 if (FileInputFormat.class.isAssignableFrom(this.graph.getGraphInputFormat())) {
                     FileInputFormat.setInputPaths(job, this.graph.getInputLocation());
                     FileInputFormat.setInputPathFilter(job, NoSideEffectFilter.class);
                 }
             } else {
-                job.setInputFormatClass(INTERMEDIATE_INPUT_FORMAT);
+                job.setInputFormatClass(intermediateInputFormat);
                 FileInputFormat.setInputPaths(job, new Path(outputJobPrefix + "-" + (i - 1)));
                 FileInputFormat.setInputPathFilter(job, NoSideEffectFilter.class);
             }
 
+            if (hasMapClass(job, VerticesVerticesStateMapReduce.Map.class))
+                job.getConfiguration().set(VerticesVerticesStateMapReduce.TOPOLOGY_LOCATION, outputJobPrefix + "-" + topologyJob);
+            // a superstep looks up the messages of the previous superstep (the supersteps are never fused or reordered)
+            if (isSuperstep(job, 1))
+                job.getConfiguration().set(VertexProgramMapReduce.MESSAGES_LOCATION, outputJobPrefix + "-" + (i - 1));
+
             // configure job outputs
-            if (i == this.jobs.size() - 1) {
+            if (writesMapFiles(job)) {
+                // every partition must exist for lookups so the output is not lazy
+                job.setOutputFormatClass(MapFileOutputFormat.class);
+                MultipleOutputs.addNamedOutput(job, Tokens.SIDEEFFECT, this.graph.getSideEffectOutputFormat(), job.getOutputKeyClass(), job.getOutputKeyClass());
+                MultipleOutputs.addNamedOutput(job, Tokens.GRAPH, INTERMEDIATE_OUTPUT_FORMAT, NullWritable.class, FaunusVertex.class);
+                if (hasMapClass(job, TopologyMapReduce.Map.class))
+                    topologyJob = i;
+            } else if (i == this.jobs.size() - 1) {
                 LazyOutputFormat.setOutputFormatClass(job, this.graph.getGraphOutputFormat());
                 MultipleOutputs.addNamedOutput(job, Tokens.SIDEEFFECT, this.graph.getSideEffectOutputFormat(), job.getOutputKeyClass(), job.getOutputKeyClass());
                 MultipleOutputs.addNamedOutput(job, Tokens.GRAPH, this.graph.getGraphOutputFormat(), NullWritable.class, FaunusVertex.class);
             } else {
-                LazyOutputFormat.setOutputFormatClass(job, INTERMEDIATE_OUTPUT_FORMAT);
+                LazyOutputFormat.setOutputFormatClass(job, intermediateOutputFormat);
                 MultipleOutputs.addNamedOutput(job, Tokens.SIDEEFFECT, this.graph.getSideEffectOutputFormat(), job.getOutputKeyClass(), job.getOutputKeyClass());
-                MultipleOutputs.addNamedOutput(job, Tokens.GRAPH, INTERMEDIATE_OUTPUT_FORMAT, NullWritable.class, FaunusVertex.class);
+                MultipleOutputs.addNamedOutput(job, Tokens.GRAPH, intermediateOutputFormat, NullWritable.class, FaunusVertex.class);
+            }
+
+            // the schema entries of the inference are merged by the driver once the job has completed
+            if (hasStageClass(job, SchemaInferencerMapReduce.Map.class))
+                MultipleOutputs.addNamedOutput(job, Tokens.SCHEMA, SequenceFileOutputFormat.class, Text.class, NullWritable.class);
+        }
+    }
+
+    /**
+     * Whether the job executes a superstep of a vertex program that is at least the provided superstep.
+     */
+    private static boolean isSuperstep(final Job job, final int superstep) {
+        return hasMapClass(job, VertexProgramMapReduce.Map.class) && job.getConfiguration().getInt(VertexProgramMapReduce.SUPERSTEP, 0) >= superstep;
+    }
+
+    /**
+     * The format of the intermediate graph written by the jobs.
+     * Local execution hands the graph from job to job in memory.
+     */
+    private static Class<? extends OutputFormat> getIntermediateOutputFormat(final boolean local, final boolean indexed) {
+        if (local)
+            return MemoryOutputFormat.class;
+        else if (indexed)
+            return IndexedGraphOutputFormat.class;
+        else
+            return INTERMEDIATE_OUTPUT_FORMAT;
+    }
+
+    /**
+     * The format of the intermediate graph read by the job that follows the provided job.
+     * Map files are always written to the file system for lookups.
+     */
+    private static Class<? extends InputFormat> getIntermediateInputFormat(final Job previous, final boolean local, final boolean indexed) {
+        if (writesMapFiles(previous))
+            return INTERMEDIATE_INPUT_FORMAT;
+        final Class<? extends OutputFormat> outputFormat = getIntermediateOutputFormat(local, indexed);
+        if (MemoryOutputFormat.class.equals(outputFormat))
+            return MemoryInputFormat.class;
+        else if (IndexedGraphOutputFormat.class.equals(outputFormat))
+            return IndexedGraphInputFormat.class;
+        else
+            return INTERMEDIATE_INPUT_FORMAT;
+    }
+
+    /**
+     * Whether the job starts at the vertices of the graph or at particular vertices and only processes the vertices
+     * it starts from (e.g. g.V.has('type','person').name or g.v(1,2).name). The job may end with a side-effect
+     * aggregation (e.g. g.V.has('type','person').count()) as its reducer only sees what the vertices it starts from emit.
+     */
+    private static boolean isVertexLookup(final Job job) {
+        if (job.getNumReduceTasks() != 0 && !SIDE_EFFECT_REDUCERS.contains(getReducerClassName(job)))
+            return false;
+        final List<String> mapClasses = Arrays.asList(job.getConfiguration().getStrings(MapSequence.MAP_CLASSES, new String[0]));
+        if (mapClasses.isEmpty() || !(mapClasses.get(0).equals(VertexMap.Map.class.getName()) || mapClasses.get(0).equals(VerticesMap.Map.class.getName())))
+            return false;
+        for (final String mapClass : mapClasses.subList(1, mapClasses.size())) {
+            if (mapClass.equals(VertexMap.Map.class.getName()) || mapClass.equals(VerticesMap.Map.class.getName()) || mapClass.equals(EdgesMap.Map.class.getName()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Push the vertex filters that directly follow the start of the job down into the graph input format
+     * (see VertexQueryFilter.addPredicate()). The vertices that do not satisfy them never get paths, so dropping them
+     * while reading is only sound for lookups -- the filter steps are still executed.
+     */
+    private static void pushDownPredicates(final Job job) {
+        final Configuration configuration = job.getConfiguration();
+        final String[] mapClasses = configuration.getStrings(MapSequence.MAP_CLASSES, new String[0]);
+        for (int j = 1; j < mapClasses.length; j++) {
+            if (mapClasses[j].equals(PropertyFilterMap.Map.class.getName())
+                    && configuration.getClass(PropertyFilterMap.CLASS + "-" + j, Element.class, Element.class).equals(Vertex.class)) {
+                VertexQueryFilter.addPredicate(configuration, configuration.get(PropertyFilterMap.KEY + "-" + j),
+                        Compare.valueOf(configuration.get(PropertyFilterMap.COMPARE + "-" + j)),
+                        configuration.getClass(PropertyFilterMap.VALUE_CLASS + "-" + j, String.class),
+                        configuration.getStrings(PropertyFilterMap.VALUES + "-" + j, new String[0]));
+            } else if (mapClasses[j].equals(IntervalFilterMap.Map.class.getName())
+                    && configuration.getClass(IntervalFilterMap.CLASS + "-" + j, Element.class, Element.class).equals(Vertex.class)) {
+                final String key = configuration.get(IntervalFilterMap.KEY + "-" + j);
+                final Class valueClass = configuration.getClass(IntervalFilterMap.VALUE_CLASS + "-" + j, String.class);
+                VertexQueryFilter.addPredicate(configuration, key, Compare.GREATER_THAN_EQUAL, valueClass, configuration.get(IntervalFilterMap.START_VALUE + "-" + j));
+                VertexQueryFilter.addPredicate(configuration, key, Compare.LESS_THAN, valueClass, configuration.get(IntervalFilterMap.END_VALUE + "-" + j));
+            } else {
+                break;
             }
         }
     }
 
+    /**
+     * Whether the job writes map files that are looked up by later jobs (the topology and path counts of a sparse traversal).
+     */
+    private static boolean writesMapFiles(final Job job) {
+        return hasMapClass(job, TopologyMapReduce.Map.class) || hasMapClass(job, VerticesVerticesStateMapReduce.Map.class);
+    }
+
+    private static boolean hasMapClass(final Job job, final Class<? extends Mapper> mapClass) {
+        return Arrays.asList(job.getConfiguration().getStrings(MapSequence.MAP_CLASSES, new String[0])).contains(mapClass.getName());
+    }
+
+    /**
+     * Whether the mapper is a stage of the job on either its map side or (once fused) its reduce side.
+     */
+    private static boolean hasStageClass(final Job job, final Class<? extends Mapper> mapClass) {
+        return hasMapClass(job, mapClass) || Arrays.asList(job.getConfiguration().getStrings(ReduceSequence.MAP_CLASSES, new String[0])).contains(mapClass.getName());
+    }
+
     public int run(final String[] args) throws Exception {
         String script = null;
         boolean showHeader = true;
@@ -315,17 +768,50 @@ public class FaunusCompiler extends Configured implements Tool {
         this.composeJobs();
         logger.info("Compiled to " + this.jobs.size() + " MapReduce job(s)");
         final String jobPath = this.graph.getOutputLocation().toString() + "/" + Tokens.JOB;
+        // the last job that was executed -- the remaining supersteps of a vertex program are skipped once it halts
+        int previous = -1;
+        boolean halted = false;
+        final LocalJobRunner runner = this.graph.getLocalExecution() ? new LocalJobRunner(this.graph.getLocalThreads()) : null;
         for (int i = 0; i < this.jobs.size(); i++) {
             final Job job = this.jobs.get(i);
+            if (halted && isSuperstep(job, 1)) {
+                logger.info("Skipping job " + (i + 1) + " out of " + this.jobs.size() + " as the vertex program has halted: " + job.getJobName());
+                continue;
+            }
+            halted = false;
+            if (previous != i - 1)
+                FileInputFormat.setInputPaths(job, new Path(jobPath + "-" + previous));
             try {
                 ((JobConfigurationFormat) (FormatTools.getBaseOutputFormatClass(job).newInstance())).updateJob(job);
             } catch (final Exception e) {
             }
+            // a total order is range partitioned by a sample of its input
+            if (hasMapClass(job, OrderMapReduce.Map.class) && job.getConfiguration().getBoolean(OrderMapReduce.TOTAL_ORDER, false)) {
+                final int partitions = null == runner ? job.getNumReduceTasks() : this.graph.getLocalThreads();
+                if (partitions > 1) {
+                    OrderMapReduce.setSplitPoints(job, partitions);
+                    logger.info("Sampled the split points of the " + partitions + " partition(s) of the total order");
+                }
+            }
             logger.info("Executing job " + (i + 1) + " out of " + this.jobs.size() + ": " + job.getJobName());
             logger.info("Job data location: " + jobPath + "-" + i);
-            boolean success = job.waitForCompletion(true);
-            if (i > 0) {
-                final Path path = new Path(jobPath + "-" + (i - 1));
+            boolean success;
+            Counters counters = null;
+            if (null == runner)
+                success = job.waitForCompletion(true);
+            else {
+                try {
+                    counters = runner.run(job);
+                    success = true;
+                } catch (final IOException e) {
+                    logger.error(e.getMessage(), e);
+                    success = false;
+                }
+            }
+            // the topology of a sparse traversal is kept until its path counts are joined -- that of a vertex program is only read by its first superstep
+            if (previous != -1 && (!hasMapClass(this.jobs.get(previous), TopologyMapReduce.Map.class) || isSuperstep(job, 0))) {
+                final Path path = new Path(jobPath + "-" + previous);
+                MemoryStore.remove(path, job.getConfiguration());
                 // delete previous intermediate graph data
                 for (final FileStatus temp : hdfs.globStatus(new Path(path.toString() + "/" + Tokens.GRAPH + "*"))) {
                     hdfs.delete(temp.getPath(), true);
@@ -334,12 +820,47 @@ public class FaunusCompiler extends Configured implements Tool {
                 for (final FileStatus temp : hdfs.globStatus(new Path(path.toString() + "/" + Tokens.PART + "*"))) {
                     hdfs.delete(temp.getPath(), true);
                 }
+                // delete previous superstep messages
+                for (final FileStatus temp : hdfs.globStatus(new Path(path.toString() + "/" + Tokens.MESSAGES + "*"))) {
+                    hdfs.delete(temp.getPath(), true);
+                }
+            }
+            if (hasMapClass(job, StateJoinMap.Map.class)) {
+                for (final FileStatus temp : hdfs.globStatus(new Path(job.getConfiguration().get(StateJoinMap.TOPOLOGY_LOCATION) + "/" + Tokens.PART + "*"))) {
+                    hdfs.delete(temp.getPath(), true);
+                }
             }
             if (!success) {
                 logger.error("Faunus job error -- remaining MapReduce jobs have been canceled");
+                if (null != runner)
+                    runner.shutdown();
                 return -1;
             }
+            previous = i;
+
+            if (hasStageClass(job, SchemaInferencerMapReduce.Map.class)) {
+                if (null == counters)
+                    counters = job.getCounters();
+                SchemaInferencerMapReduce.makeTypes(new Path(jobPath + "-" + i), job.getConfiguration(), counters);
+            }
+            if (isSuperstep(job, 0)) {
+                if (null == counters)
+                    counters = job.getCounters();
+                final long active = counters.findCounter(VertexProgramMapReduce.Counters.ACTIVE_VERTICES).getValue();
+                final long messages = counters.findCounter(VertexProgramMapReduce.Counters.MESSAGES_SENT).getValue();
+                if (active == 0 && messages == 0) {
+                    logger.info("The vertex program halted after superstep " + job.getConfiguration().getInt(VertexProgramMapReduce.SUPERSTEP, 0));
+                    halted = true;
+                } else if (i < this.jobs.size() - 1 && isSuperstep(this.jobs.get(i + 1), 1)) {
+                    // the aggregates of the superstep are available to the next superstep
+                    for (final Counter counter : counters.getGroup(VertexProgramMapReduce.AGGREGATES)) {
+                        this.jobs.get(i + 1).getConfiguration().setLong(VertexProgramMapReduce.AGGREGATE + "." + counter.getName(), counter.getValue());
+                    }
+                }
+            }
         }
+        if (null != runner)
+            runner.shutdown();
         return 0;
     }
 }
\ No newline at end of file
@@ -30,19 +30,23 @@ public class IdentityMap {
         return new EmptyConfiguration();
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
 
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             context.getCounter(Counters.VERTEX_COUNT).increment(1l);
-            context.getCounter(Counters.VERTEX_PROPERTY_COUNT).increment(value.getProperties().size());
+            context.getCounter(Counters.VERTEX_PROPERTY_COUNT).increment(value.getPropertyCount());
 
             long edgeCount = 0;
             long edgePropertyCount = 0;
             for (final Edge edge : value.getEdges(Direction.IN)) {
                 edgeCount++;
-                edgePropertyCount = edgePropertyCount + ((FaunusEdge) edge).getProperties().size();
+                edgePropertyCount = edgePropertyCount + ((FaunusEdge) edge).getPropertyCount();
             }
             context.getCounter(Counters.IN_EDGE_COUNT).increment(edgeCount);
             context.getCounter(Counters.IN_EDGE_PROPERTY_COUNT).increment(edgePropertyCount);
@@ -51,13 +55,12 @@ public class IdentityMap {
             edgePropertyCount = 0;
             for (final Edge edge : value.getEdges(Direction.OUT)) {
                 edgeCount++;
-                edgePropertyCount = edgePropertyCount + ((FaunusEdge) edge).getProperties().size();
+                edgePropertyCount = edgePropertyCount + ((FaunusEdge) edge).getPropertyCount();
             }
             context.getCounter(Counters.OUT_EDGE_COUNT).increment(edgeCount);
             context.getCounter(Counters.OUT_EDGE_PROPERTY_COUNT).increment(edgePropertyCount);
 
-            context.write(NullWritable.get(), value);
-
+            return value;
         }
     }
 }
@@ -1,6 +1,9 @@
 package com.thinkaurelius.faunus.mapreduce;
 
+import com.thinkaurelius.faunus.FaunusElement;
+import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Mapper;
 
@@ -19,6 +22,7 @@ public class MapSequence {
     public static class Map extends MemoryMapper<Writable, Writable, Writable, Writable> {
 
         private List<Mapper<Writable, Writable, Writable, Writable>> mappers = new ArrayList<Mapper<Writable, Writable, Writable, Writable>>();
+        private List<VertexStage> stages = new ArrayList<VertexStage>();
         private List<Method> mapMethods = new ArrayList<Method>();
         private List<Method> cleanupMethods = new ArrayList<Method>();
         private int size = 0;
@@ -26,6 +30,8 @@ public class MapSequence {
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            // input formats that do not read FaunusVertex records never hand the configuration to the dictionary
+            FaunusElement.ElementDictionary.configure(context.getConfiguration());
             if (this.mappers.size() == 0) {
                 try {
                     final MemoryMapContext memoryContext = new MemoryMapContext(context);
@@ -41,10 +47,17 @@ public class MapSequence {
                                 // there is no setup method and that is okay.
                             }
                             this.mappers.add(mapper);
-                            for (final Method method : mapClass.getMethods()) {
-                                if (method.getName().equals(Tokens.MAP)) {
-                                    this.mapMethods.add(method);
-                                    break;
+                            // vertex stages are called directly -- reflection is only needed for other mappers
+                            if (mapper instanceof VertexStage) {
+                                this.stages.add((VertexStage) mapper);
+                                this.mapMethods.add(null);
+                            } else {
+                                this.stages.add(null);
+                                for (final Method method : mapClass.getMethods()) {
+                                    if (method.getName().equals(Tokens.MAP)) {
+                                        this.mapMethods.add(method);
+                                        break;
+                                    }
                                 }
                             }
                             try {
@@ -66,19 +79,31 @@ public class MapSequence {
         public void map(final Writable key, final Writable value, final Mapper<Writable, Writable, Writable, Writable>.Context context) throws IOException, InterruptedException {
             try {
                 this.memoryContext.setContext(context);
-                this.memoryContext.write(key, value);
+                Writable currentKey = key;
+                Writable currentValue = value;
 
-                for (int i = 0; i < this.size - 1; i++) {
-                    this.mapMethods.get(i).invoke(this.mappers.get(i), this.memoryContext.getCurrentKey(), this.memoryContext.getCurrentValue(), this.memoryContext);
-                    if (!this.memoryContext.nextKeyValue()) {
-                        break;
+                for (int i = 0; i < this.size; i++) {
+                    final boolean last = i == this.size - 1;
+                    final VertexStage stage = this.stages.get(i);
+                    if (null != stage && currentValue instanceof FaunusVertex) {
+                        final FaunusVertex vertex = stage.process((FaunusVertex) currentValue, last ? context : this.memoryContext);
+                        if (last)
+                            context.write(NullWritable.get(), vertex);
+                        else {
+                            currentKey = NullWritable.get();
+                            currentValue = vertex;
+                        }
+                    } else if (last) {
+                        this.mapMethods.get(i).invoke(this.mappers.get(i), currentKey, currentValue, context);
+                    } else {
+                        this.mapMethods.get(i).invoke(this.mappers.get(i), currentKey, currentValue, this.memoryContext);
+                        if (!this.memoryContext.nextKeyValue())
+                            break;
+                        currentKey = this.memoryContext.getCurrentKey();
+                        currentValue = this.memoryContext.getCurrentValue();
                     }
                 }
 
-                if (this.memoryContext.nextKeyValue()) {
-                    this.mapMethods.get(this.size - 1).invoke(this.mappers.get(this.size - 1), this.memoryContext.getCurrentKey(), this.memoryContext.getCurrentValue(), context);
-                }
-
             } catch (final Exception e) {
                 throw new IOException(e.getMessage(), e);
             }
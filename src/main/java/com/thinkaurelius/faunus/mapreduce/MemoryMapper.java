@@ -5,6 +5,7 @@ import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
 
 import java.io.IOException;
 import java.util.Map;
@@ -30,7 +31,7 @@ public class MemoryMapper<A, B, C, D> extends Mapper<A, B, C, D> {
         private Writable value = null;
         private Writable tempKey = null;
         private Writable tempValue = null;
-        private Mapper.Context context;
+        private TaskInputOutputContext context;
         private Configuration globalConfiguration;
 
         public MemoryMapContext(final Mapper.Context context) throws IOException, InterruptedException {
@@ -39,6 +40,15 @@ public class MemoryMapper<A, B, C, D> extends Mapper<A, B, C, D> {
             this.globalConfiguration = context.getConfiguration();
         }
 
+        /**
+         * A context for mappers that are run outside of a map task (see ReduceSequence).
+         */
+        public MemoryMapContext(final TaskInputOutputContext context) throws IOException, InterruptedException {
+            super(context.getConfiguration(), context.getTaskAttemptID() == null ? new TaskAttemptID() : context.getTaskAttemptID(), null, null, context.getOutputCommitter(), null, null);
+            this.context = context;
+            this.globalConfiguration = context.getConfiguration();
+        }
+
         @Override
         public void write(final Object key, final Object value) throws IOException, InterruptedException {
             this.key = (Writable) key;
@@ -79,7 +89,7 @@ public class MemoryMapper<A, B, C, D> extends Mapper<A, B, C, D> {
             return this.currentConfiguration;
         }
 
-        public void setContext(final Mapper.Context context) {
+        public void setContext(final TaskInputOutputContext context) {
             this.context = context;
         }
 
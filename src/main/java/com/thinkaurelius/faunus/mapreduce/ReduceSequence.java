@@ -0,0 +1,194 @@
+package com.thinkaurelius.faunus.mapreduce;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.util.Progress;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReduceSequence runs a chain of vertex stages on the vertices emitted by a reducer.
+ * FaunusCompiler fuses the leading vertex stages of a job into the reduce phase of the job before it (see FaunusCompiler.fuseJobs()).
+ * The stages are configured like the stages of a MapSequence, where the reduce-side stages are numbered after the map-side stages.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ReduceSequence {
+
+    public static final String REDUCE_CLASS = Tokens.makeNamespace(ReduceSequence.class) + ".reduceClass";
+    public static final String MAP_CLASSES = Tokens.makeNamespace(ReduceSequence.class) + ".mapClasses";
+
+    private static final RawKeyValueIterator NO_INPUT = new RawKeyValueIterator() {
+        public DataInputBuffer getKey() {
+            return null;
+        }
+
+        public DataInputBuffer getValue() {
+            return null;
+        }
+
+        public boolean next() {
+            return false;
+        }
+
+        public void close() {
+        }
+
+        public Progress getProgress() {
+            return null;
+        }
+    };
+
+    public static class Reduce extends Reducer<Writable, Writable, Writable, Writable> {
+
+        private Reducer<Writable, Writable, Writable, Writable> reducer;
+        private Method reduceMethod;
+        private Method reduceCleanupMethod;
+        private List<Mapper<Writable, Writable, Writable, Writable>> mappers = new ArrayList<Mapper<Writable, Writable, Writable, Writable>>();
+        private List<VertexStage> stages = new ArrayList<VertexStage>();
+        private List<Method> cleanupMethods = new ArrayList<Method>();
+        private MemoryMapper.MemoryMapContext memoryContext;
+        private SequenceContext sequenceContext;
+        private Reducer.Context context;
+
+        @Override
+        public void setup(final Reducer.Context context) throws IOException, InterruptedException {
+            this.context = context;
+            try {
+                final Configuration configuration = context.getConfiguration();
+                final Class<Reducer<Writable, Writable, Writable, Writable>> reduceClass = (Class) Class.forName(configuration.get(REDUCE_CLASS));
+                this.reducer = reduceClass.getConstructor().newInstance();
+                try {
+                    reduceClass.getMethod(Tokens.SETUP, Reducer.Context.class).invoke(this.reducer, context);
+                } catch (final NoSuchMethodException e) {
+                    // there is no setup method and that is okay.
+                }
+                for (final Method method : reduceClass.getMethods()) {
+                    if (method.getName().equals(Tokens.REDUCE)) {
+                        this.reduceMethod = method;
+                        break;
+                    }
+                }
+                if (null == this.reduceMethod)
+                    throw new IOException("The reducer has no public reduce method: " + reduceClass.getName());
+                try {
+                    this.reduceCleanupMethod = reduceClass.getMethod(Tokens.CLEANUP, Reducer.Context.class);
+                } catch (final NoSuchMethodException e) {
+                    this.reduceCleanupMethod = null;
+                }
+
+                // the reduce-side stages follow the map-side stages of the job
+                final int offset = configuration.getStrings(MapSequence.MAP_CLASSES, new String[0]).length;
+                final String[] mapClassNames = configuration.getStrings(MAP_CLASSES, new String[0]);
+                final MemoryMapper.MemoryMapContext memoryContext = new MemoryMapper<Writable, Writable, Writable, Writable>().new MemoryMapContext(context);
+                for (int i = 0; i < mapClassNames.length; i++) {
+                    memoryContext.stageConfiguration(offset + i);
+                    final Class<Mapper<Writable, Writable, Writable, Writable>> mapClass = (Class) Class.forName(mapClassNames[i]);
+                    final Mapper<Writable, Writable, Writable, Writable> mapper = mapClass.getConstructor().newInstance();
+                    try {
+                        mapClass.getMethod(Tokens.SETUP, Mapper.Context.class).invoke(mapper, memoryContext);
+                    } catch (final NoSuchMethodException e) {
+                        // there is no setup method and that is okay.
+                    }
+                    this.mappers.add(mapper);
+                    this.stages.add((VertexStage) mapper);
+                    try {
+                        this.cleanupMethods.add(mapClass.getMethod(Tokens.CLEANUP, Mapper.Context.class));
+                    } catch (final NoSuchMethodException e) {
+                        this.cleanupMethods.add(null);
+                    }
+                }
+                this.memoryContext = new MemoryMapper<Writable, Writable, Writable, Writable>().new MemoryMapContext(context);
+                this.sequenceContext = new SequenceContext(context);
+            } catch (final IOException e) {
+                throw e;
+            } catch (final Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void reduce(final Writable key, final Iterable<Writable> values, final Reducer<Writable, Writable, Writable, Writable>.Context context) throws IOException, InterruptedException {
+            this.context = context;
+            this.memoryContext.setContext(context);
+            try {
+                this.reduceMethod.invoke(this.reducer, key, values, this.sequenceContext);
+            } catch (final Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void cleanup(final Reducer<Writable, Writable, Writable, Writable>.Context context) throws IOException, InterruptedException {
+            this.context = context;
+            try {
+                // the reducer may emit vertices on cleanup and those still pass through the stages
+                if (null != this.reduceCleanupMethod)
+                    this.reduceCleanupMethod.invoke(this.reducer, this.sequenceContext);
+                for (int i = 0; i < this.mappers.size(); i++) {
+                    final Method cleanup = this.cleanupMethods.get(i);
+                    if (null != cleanup)
+                        cleanup.invoke(this.mappers.get(i), this.memoryContext);
+                }
+            } catch (final Exception e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        private void write(final Writable key, final Writable value) throws IOException, InterruptedException {
+            if (value instanceof FaunusVertex) {
+                FaunusVertex vertex = (FaunusVertex) value;
+                for (final VertexStage stage : this.stages) {
+                    vertex = stage.process(vertex, this.memoryContext);
+                    if (null == vertex)
+                        return;
+                }
+                this.context.write(NullWritable.get(), vertex);
+            } else {
+                this.context.write(key, value);
+            }
+        }
+
+        /**
+         * The context handed to the reducer. Its writes are routed through the stages of the sequence.
+         */
+        public class SequenceContext extends Reducer.Context {
+
+            public SequenceContext(final Reducer.Context context) throws IOException, InterruptedException {
+                super(context.getConfiguration(), context.getTaskAttemptID() == null ? new TaskAttemptID() : context.getTaskAttemptID(), NO_INPUT, null, null, null, context.getOutputCommitter(), null, null, NullWritable.class, NullWritable.class);
+            }
+
+            @Override
+            public void write(final Object key, final Object value) throws IOException, InterruptedException {
+                Reduce.this.write((Writable) key, (Writable) value);
+            }
+
+            @Override
+            public Counter getCounter(final String groupName, final String counterName) {
+                return Reduce.this.context.getCounter(groupName, counterName);
+            }
+
+            @Override
+            public Counter getCounter(final Enum counterName) {
+                return Reduce.this.context.getCounter(counterName);
+            }
+
+            @Override
+            public void progress() {
+                Reduce.this.context.progress();
+            }
+        }
+    }
+}
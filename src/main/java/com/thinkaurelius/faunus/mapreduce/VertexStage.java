@@ -0,0 +1,27 @@
+package com.thinkaurelius.faunus.mapreduce;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * A VertexStage is a mapper that consumes a FaunusVertex and emits exactly one FaunusVertex.
+ * MapSequence calls process() directly for such mappers rather than reflectively invoking map()
+ * and routing the record through a MemoryMapContext.
+ * Mappers that implement VertexStage must have map() behave as process() followed by a write of the result.
+ * Filtering stages do not drop the vertex, they clear its paths so that the vertex is still written with the graph.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public interface VertexStage {
+
+    /**
+     * Process the vertex and return the vertex to hand to the next stage.
+     *
+     * @param value   the vertex to process
+     * @param context the context of the map task (used for counters)
+     * @return the vertex to emit (never null)
+     */
+    public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException;
+}
@@ -0,0 +1,37 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * ClearHaltedMap follows the supersteps of a VertexProgram and removes the flag of the vertices that voted to halt
+ * (see VertexProgramMapReduce.HALTED).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ClearHaltedMap {
+
+    public static Configuration createConfiguration() {
+        return new EmptyConfiguration();
+    }
+
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
+
+        @Override
+        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
+
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) {
+            value.removeProperty(VertexProgramMapReduce.HALTED);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+
+import java.io.IOException;
+
+/**
+ * ConnectedComponentsVertexProgram labels every vertex with the smallest vertex id of its (weakly) connected component.
+ * The label is stored in the COMPONENT property. A vertex only sends messages when its label changes,
+ * so the program halts once the labels no longer change.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ConnectedComponentsVertexProgram implements VertexProgram<LongWritable>, MessageCombiner<LongWritable> {
+
+    public static final String COMPONENT = "component";
+
+    public static final String LABELS = Tokens.makeNamespace(ConnectedComponentsVertexProgram.class) + ".labels";
+
+    private String[] labels;
+    private final LongWritable longWritable = new LongWritable();
+
+    public ConnectedComponentsVertexProgram() {
+        this(new String[0]);
+    }
+
+    /**
+     * @param labels the labels of the edges that connect the vertices of a component (all edges if none)
+     */
+    public ConnectedComponentsVertexProgram(final String... labels) {
+        this.labels = labels;
+    }
+
+    public void storeState(final Configuration configuration) {
+        configuration.setStrings(LABELS, this.labels);
+    }
+
+    public void loadState(final Configuration configuration) {
+        this.labels = configuration.getStrings(LABELS, new String[0]);
+    }
+
+    public Class<LongWritable> getMessageClass() {
+        return LongWritable.class;
+    }
+
+    public void execute(final FaunusVertex vertex, final Messenger<LongWritable> messenger, final int superstep) throws IOException {
+        long component;
+        boolean changed = false;
+        if (superstep == 0) {
+            component = vertex.getIdAsLong();
+            changed = true;
+        } else {
+            component = vertex.<Long>getProperty(COMPONENT);
+        }
+        for (final LongWritable message : messenger.receiveMessages()) {
+            if (message.get() < component) {
+                component = message.get();
+                changed = true;
+            }
+        }
+        if (changed) {
+            vertex.setProperty(COMPONENT, component);
+            this.longWritable.set(component);
+            messenger.sendMessageToNeighbors(Direction.BOTH, this.longWritable, this.labels);
+        }
+        messenger.voteToHalt();
+    }
+
+    public LongWritable combine(final LongWritable message1, final LongWritable message2) {
+        if (message2.get() < message1.get())
+            message1.set(message2.get());
+        return message1;
+    }
+}
@@ -0,0 +1,19 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * A VertexProgram that implements MessageCombiner has the messages to a vertex combined into a single message
+ * by the sender, by the combiner of the shuffle and by the receiver.
+ * Combining must be commutative and associative.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public interface MessageCombiner<M extends Writable> {
+
+    /**
+     * Combine the second message into the first message and return the first message.
+     * The second message may be reused by the caller once combined.
+     */
+    public M combine(final M message1, final M message2);
+}
@@ -0,0 +1,86 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MessageHolder holds the messages to a vertex, both in the shuffle of a superstep and in the messages it writes.
+ * The class of the messages is that of the VertexProgram of the job (see VertexProgramMapReduce.MESSAGE_CLASS).
+ * Every message that is read is a new instance so the messages can be held on to while further holders are read.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MessageHolder implements WritableComparable<MessageHolder>, Configurable {
+
+    private final List<Writable> messages = new ArrayList<Writable>();
+    private Configuration configuration;
+
+    public MessageHolder() {
+    }
+
+    public MessageHolder setMessage(final Writable message) {
+        this.messages.clear();
+        this.messages.add(message);
+        return this;
+    }
+
+    public MessageHolder addMessage(final Writable message) {
+        this.messages.add(message);
+        return this;
+    }
+
+    public MessageHolder clear() {
+        this.messages.clear();
+        return this;
+    }
+
+    public List<Writable> getMessages() {
+        return this.messages;
+    }
+
+    @Override
+    public void write(final DataOutput out) throws IOException {
+        WritableUtils.writeVInt(out, this.messages.size());
+        for (final Writable message : this.messages) {
+            message.write(out);
+        }
+    }
+
+    @Override
+    public void readFields(final DataInput in) throws IOException {
+        if (null == this.configuration)
+            throw new IOException("The message class is unknown as the message holder has no configuration");
+        this.messages.clear();
+        final int size = WritableUtils.readVInt(in);
+        for (int i = 0; i < size; i++) {
+            final Writable message = (Writable) ReflectionUtils.newInstance(this.configuration.getClass(VertexProgramMapReduce.MESSAGE_CLASS, null), this.configuration);
+            message.readFields(in);
+            this.messages.add(message);
+        }
+    }
+
+    @Override
+    public int compareTo(final MessageHolder holder) {
+        return 0;
+    }
+
+    @Override
+    public void setConf(final Configuration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return this.configuration;
+    }
+}
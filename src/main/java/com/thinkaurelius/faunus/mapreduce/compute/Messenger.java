@@ -0,0 +1,44 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * The Messenger of a vertex during the execution of a VertexProgram.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public interface Messenger<M extends Writable> {
+
+    /**
+     * The messages sent to the vertex in the previous superstep.
+     * The messages are combined into a single message when the program is a MessageCombiner.
+     */
+    public Iterable<M> receiveMessages();
+
+    /**
+     * Send a message to be received by the vertex in the next superstep.
+     * The message is copied and can be reused by the program.
+     */
+    public void sendMessage(final long vertexId, final M message);
+
+    /**
+     * Send a message to every adjacent vertex in the direction along the labeled edges.
+     */
+    public void sendMessageToNeighbors(final Direction direction, final M message, final String... labels);
+
+    /**
+     * The vertex is not executed in further supersteps unless it receives messages.
+     */
+    public void voteToHalt();
+
+    /**
+     * Add the value to the named aggregate of the superstep.
+     */
+    public void aggregate(final String name, final long value);
+
+    /**
+     * The total of the named aggregate in the previous superstep (0 if nothing was aggregated).
+     */
+    public long getAggregate(final String name);
+}
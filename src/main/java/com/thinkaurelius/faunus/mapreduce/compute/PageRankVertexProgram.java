@@ -0,0 +1,77 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DoubleWritable;
+
+import java.io.IOException;
+
+/**
+ * PageRankVertexProgram computes the (unnormalized) PageRank of every vertex along its outgoing edges.
+ * The rank is stored in the PAGE_RANK property and a vertex starts with a rank of 1.0.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class PageRankVertexProgram implements VertexProgram<DoubleWritable>, MessageCombiner<DoubleWritable> {
+
+    public static final String PAGE_RANK = "pageRank";
+
+    public static final String ALPHA = Tokens.makeNamespace(PageRankVertexProgram.class) + ".alpha";
+    public static final String LABELS = Tokens.makeNamespace(PageRankVertexProgram.class) + ".labels";
+
+    private double alpha;
+    private String[] labels;
+    private final DoubleWritable doubleWritable = new DoubleWritable();
+
+    public PageRankVertexProgram() {
+        this(0.85d);
+    }
+
+    /**
+     * @param alpha  the probability of following an edge rather than teleporting
+     * @param labels the labels of the edges to follow (all edges if none)
+     */
+    public PageRankVertexProgram(final double alpha, final String... labels) {
+        this.alpha = alpha;
+        this.labels = labels;
+    }
+
+    public void storeState(final Configuration configuration) {
+        configuration.setFloat(ALPHA, (float) this.alpha);
+        configuration.setStrings(LABELS, this.labels);
+    }
+
+    public void loadState(final Configuration configuration) {
+        this.alpha = configuration.getFloat(ALPHA, 0.85f);
+        this.labels = configuration.getStrings(LABELS, new String[0]);
+    }
+
+    public Class<DoubleWritable> getMessageClass() {
+        return DoubleWritable.class;
+    }
+
+    public void execute(final FaunusVertex vertex, final Messenger<DoubleWritable> messenger, final int superstep) throws IOException {
+        double rank = 1.0d;
+        if (superstep > 0) {
+            double total = 0.0d;
+            for (final DoubleWritable message : messenger.receiveMessages()) {
+                total = total + message.get();
+            }
+            rank = (1.0d - this.alpha) + (this.alpha * total);
+        }
+        vertex.setProperty(PAGE_RANK, rank);
+
+        final long degree = vertex.getVertexIds(Direction.OUT, this.labels).length;
+        if (degree > 0) {
+            this.doubleWritable.set(rank / degree);
+            messenger.sendMessageToNeighbors(Direction.OUT, this.doubleWritable, this.labels);
+        }
+    }
+
+    public DoubleWritable combine(final DoubleWritable message1, final DoubleWritable message2) {
+        message1.set(message1.get() + message2.get());
+        return message1;
+    }
+}
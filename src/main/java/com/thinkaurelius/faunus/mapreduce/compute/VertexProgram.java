@@ -0,0 +1,47 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Writable;
+
+import java.io.IOException;
+
+/**
+ * A VertexProgram is an iterative algorithm expressed from the perspective of a single vertex (bulk synchronous parallel).
+ * In every superstep, the program is executed on every vertex with the messages that were sent to the vertex in the
+ * previous superstep. The program may update the vertex, send messages to other vertices, aggregate values
+ * and vote to halt. The computation ends when every vertex voted to halt in a superstep in which no message was sent
+ * or when the maximum number of supersteps has been executed.
+ * <p/>
+ * A program is instantiated by its class in every task and must have a public no-argument constructor.
+ * The parameters of a program are stored in the configuration of the job (see storeState()).
+ * A program that also implements MessageCombiner has its messages combined before they are shuffled.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public interface VertexProgram<M extends Writable> {
+
+    /**
+     * Store the parameters of the program in the configuration of the job.
+     */
+    public void storeState(final Configuration configuration);
+
+    /**
+     * Load the parameters of the program at the start of a task.
+     */
+    public void loadState(final Configuration configuration);
+
+    /**
+     * The class of the messages that are sent between vertices.
+     */
+    public Class<M> getMessageClass();
+
+    /**
+     * Execute the program on a vertex.
+     *
+     * @param vertex    the vertex that is written with any changes made to it
+     * @param messenger the messages sent to the vertex and the means to send messages, aggregate and halt
+     * @param superstep the superstep starting from 0
+     */
+    public void execute(final FaunusVertex vertex, final Messenger<M> messenger, final int superstep) throws IOException;
+}
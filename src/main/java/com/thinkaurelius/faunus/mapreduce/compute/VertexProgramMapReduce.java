@@ -0,0 +1,304 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.hdfs.MapFileReaders;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import com.thinkaurelius.faunus.mapreduce.util.SafeMapperOutputs;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * VertexProgramMapReduce executes a superstep of a VertexProgram. Only the messages are shuffled.
+ * The graph is written once sorted and partitioned by vertex id (TopologyMapReduce) and every superstep maps over
+ * the vertices as they were written by the previous superstep, so the vertex partitions keep their order and stay
+ * co-partitioned with the messages. The map looks up the messages of a vertex in the messages written by the previous
+ * superstep (a map-side join -- see MapFileReaders), executes the program and writes the vertex to the graph output.
+ * The messages sent by the program are shuffled to the reduce, which writes them as MapFiles to the messages output
+ * of the job (see Tokens.MESSAGES). The messages of the last superstep are not written.
+ * <p/>
+ * A vertex that voted to halt is flagged (see HALTED) and is not executed in the following supersteps unless it
+ * receives messages. The number of vertices that did not vote to halt and the number of messages sent are counted
+ * so that FaunusCompiler can skip the remaining supersteps of a program that has halted.
+ * Messages sent to vertices that do not exist are never received (see MESSAGES_WRITTEN and MESSAGES_RECEIVED).
+ * Aggregates are counters of the AGGREGATES group which FaunusCompiler hands to the next superstep.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class VertexProgramMapReduce {
+
+    public static final String PROGRAM_CLASS = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".programClass";
+    public static final String MESSAGE_CLASS = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".messageClass";
+    public static final String SUPERSTEP = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".superstep";
+    public static final String MAX_SUPERSTEPS = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".maxSupersteps";
+    public static final String MESSAGES_LOCATION = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".messagesLocation";
+    public static final String AGGREGATE = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".aggregate";
+    public static final String AGGREGATES = Tokens.makeNamespace(VertexProgramMapReduce.class) + ".aggregates";
+
+    // the property that flags a vertex that voted to halt until the program has completed (see ClearHaltedMap)
+    public static final String HALTED = "_halted";
+
+    public enum Counters {
+        VERTICES_EXECUTED,
+        VERTICES_SKIPPED,
+        ACTIVE_VERTICES,
+        MESSAGES_SENT,
+        MESSAGES_WRITTEN,
+        MESSAGES_RECEIVED
+    }
+
+    public static Configuration createConfiguration(final VertexProgram program, final int superstep, final int maxSupersteps) {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.setClass(PROGRAM_CLASS, program.getClass(), VertexProgram.class);
+        configuration.setClass(MESSAGE_CLASS, program.getMessageClass(), Writable.class);
+        configuration.setInt(SUPERSTEP, superstep);
+        configuration.setInt(MAX_SUPERSTEPS, maxSupersteps);
+        program.storeState(configuration);
+        return configuration;
+    }
+
+    private static VertexProgram<Writable> loadProgram(final Configuration configuration) throws IOException {
+        try {
+            final VertexProgram<Writable> program = (VertexProgram<Writable>) configuration.getClass(PROGRAM_CLASS, null, VertexProgram.class).getConstructor().newInstance();
+            program.loadState(configuration);
+            return program;
+        } catch (final Exception e) {
+            throw new IOException("The vertex program could not be instantiated: " + e.getMessage(), e);
+        }
+    }
+
+    public static class Map extends Mapper<Writable, FaunusVertex, LongWritable, MessageHolder> {
+
+        private VertexProgram<Writable> program;
+        private MessageCombiner<Writable> combiner;
+        private Configuration configuration;
+        private int superstep;
+        private boolean lastSuperstep;
+        private int mapSpillOver;
+        private MapFileReaders inbox = null;
+        private SafeMapperOutputs outputs;
+
+        private final MapMessenger messenger = new MapMessenger();
+        private final LongWritable longWritable = new LongWritable();
+        private final MessageHolder received = new MessageHolder();
+        private final MessageHolder sent = new MessageHolder();
+        // making use of in-map combining of the messages sent to the same vertex
+        private final java.util.Map<Long, Writable> outbox = new HashMap<Long, Writable>();
+        private Mapper.Context context;
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.configuration = context.getConfiguration();
+            this.program = loadProgram(this.configuration);
+            this.combiner = this.program instanceof MessageCombiner ? (MessageCombiner<Writable>) this.program : null;
+            this.superstep = this.configuration.getInt(SUPERSTEP, 0);
+            this.lastSuperstep = this.superstep >= this.configuration.getInt(MAX_SUPERSTEPS, 1) - 1;
+            this.mapSpillOver = this.configuration.getInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, Tokens.DEFAULT_MAP_SPILL_OVER);
+            this.received.setConf(this.configuration);
+            if (this.superstep > 0) {
+                final String location = this.configuration.get(MESSAGES_LOCATION);
+                if (null == location)
+                    throw new IOException("The location of the messages of the previous superstep has not been provided: " + MESSAGES_LOCATION);
+                this.inbox = new MapFileReaders(new Path(location), Tokens.MESSAGES, this.configuration);
+            }
+            this.outputs = new SafeMapperOutputs(context);
+            this.context = context;
+        }
+
+        @Override
+        public void map(final Writable key, final FaunusVertex value, final Mapper<Writable, FaunusVertex, LongWritable, MessageHolder>.Context context) throws IOException, InterruptedException {
+            this.context = context;
+            List<Writable> messages = Collections.emptyList();
+            if (null != this.inbox) {
+                this.longWritable.set(value.getIdAsLong());
+                if (null != this.inbox.get(this.longWritable, this.received)) {
+                    messages = this.received.getMessages();
+                    context.getCounter(Counters.MESSAGES_RECEIVED).increment(messages.size());
+                }
+            }
+
+            if (messages.isEmpty() && null != value.getProperty(HALTED)) {
+                context.getCounter(Counters.VERTICES_SKIPPED).increment(1l);
+            } else {
+                value.removeProperty(HALTED);
+                this.messenger.reset(value, messages);
+                this.program.execute(value, this.messenger, this.superstep);
+                context.getCounter(Counters.VERTICES_EXECUTED).increment(1l);
+                if (this.messenger.halted)
+                    value.setProperty(HALTED, true);
+                else
+                    context.getCounter(Counters.ACTIVE_VERTICES).increment(1l);
+            }
+            this.outputs.write(Tokens.GRAPH, NullWritable.get(), value);
+
+            // protected against memory explosion
+            if (this.outbox.size() > this.mapSpillOver)
+                this.dischargeOutbox();
+        }
+
+        private void writeMessage(final long vertexId, final Writable message) throws IOException, InterruptedException {
+            this.longWritable.set(vertexId);
+            this.context.write(this.longWritable, this.sent.setMessage(message));
+        }
+
+        private void dischargeOutbox() throws IOException, InterruptedException {
+            for (final java.util.Map.Entry<Long, Writable> entry : this.outbox.entrySet()) {
+                this.writeMessage(entry.getKey(), entry.getValue());
+            }
+            this.outbox.clear();
+        }
+
+        @Override
+        public void cleanup(final Mapper<Writable, FaunusVertex, LongWritable, MessageHolder>.Context context) throws IOException, InterruptedException {
+            this.context = context;
+            this.dischargeOutbox();
+            if (null != this.inbox)
+                this.inbox.close();
+            this.outputs.close();
+        }
+
+        private class MapMessenger implements Messenger<Writable> {
+
+            private FaunusVertex vertex;
+            private List<Writable> messages;
+            private boolean halted;
+
+            public void reset(final FaunusVertex vertex, final List<Writable> messages) {
+                this.vertex = vertex;
+                this.messages = messages;
+                this.halted = false;
+            }
+
+            public Iterable<Writable> receiveMessages() {
+                return Collections.unmodifiableList(this.messages);
+            }
+
+            public void sendMessage(final long vertexId, final Writable message) {
+                Map.this.context.getCounter(Counters.MESSAGES_SENT).increment(1l);
+                // no superstep follows to receive the message
+                if (Map.this.lastSuperstep)
+                    return;
+                try {
+                    if (null == Map.this.combiner)
+                        Map.this.writeMessage(vertexId, message);
+                    else {
+                        final Writable previous = Map.this.outbox.get(vertexId);
+                        if (null == previous)
+                            Map.this.outbox.put(vertexId, WritableUtils.clone(message, Map.this.configuration));
+                        else
+                            Map.this.outbox.put(vertexId, Map.this.combiner.combine(previous, message));
+                    }
+                } catch (final Exception e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            }
+
+            public void sendMessageToNeighbors(final Direction direction, final Writable message, final String... labels) {
+                if (direction.equals(Direction.OUT) || direction.equals(Direction.BOTH)) {
+                    for (final long id : this.vertex.getVertexIds(Direction.OUT, labels)) {
+                        this.sendMessage(id, message);
+                    }
+                }
+                if (direction.equals(Direction.IN) || direction.equals(Direction.BOTH)) {
+                    for (final long id : this.vertex.getVertexIds(Direction.IN, labels)) {
+                        this.sendMessage(id, message);
+                    }
+                }
+            }
+
+            public void voteToHalt() {
+                this.halted = true;
+            }
+
+            public void aggregate(final String name, final long value) {
+                Map.this.context.getCounter(AGGREGATES, name).increment(value);
+            }
+
+            public long getAggregate(final String name) {
+                return Map.this.configuration.getLong(AGGREGATE + "." + name, 0l);
+            }
+        }
+    }
+
+    public static class Combiner extends Reducer<LongWritable, MessageHolder, LongWritable, MessageHolder> {
+
+        private MessageCombiner<Writable> combiner;
+        private final MessageHolder holder = new MessageHolder();
+
+        @Override
+        public void setup(final Reducer.Context context) throws IOException, InterruptedException {
+            this.combiner = (MessageCombiner<Writable>) loadProgram(context.getConfiguration());
+        }
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<MessageHolder> values, final Reducer<LongWritable, MessageHolder, LongWritable, MessageHolder>.Context context) throws IOException, InterruptedException {
+            Writable message = null;
+            for (final MessageHolder holder : values) {
+                for (final Writable other : holder.getMessages()) {
+                    message = null == message ? other : this.combiner.combine(message, other);
+                }
+            }
+            if (null != message)
+                context.write(key, this.holder.setMessage(message));
+        }
+    }
+
+    public static class Reduce extends Reducer<LongWritable, MessageHolder, NullWritable, FaunusVertex> {
+
+        private MessageCombiner<Writable> combiner;
+        private MapFile.Writer writer = null;
+        private final MessageHolder holder = new MessageHolder();
+
+        @Override
+        public void setup(final Reducer.Context context) throws IOException, InterruptedException {
+            final Configuration configuration = context.getConfiguration();
+            final VertexProgram<Writable> program = loadProgram(configuration);
+            this.combiner = program instanceof MessageCombiner ? (MessageCombiner<Writable>) program : null;
+            // every partition is written (even if empty) as the next superstep looks messages up by their partition
+            if (configuration.getInt(SUPERSTEP, 0) < configuration.getInt(MAX_SUPERSTEPS, 1) - 1) {
+                final Path file = new Path(FileOutputFormat.getWorkOutputPath(context), FileOutputFormat.getUniqueFile(context, Tokens.MESSAGES, ""));
+                this.writer = new MapFile.Writer(configuration, file.getFileSystem(configuration), file.toString(), LongWritable.class, MessageHolder.class);
+            }
+        }
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<MessageHolder> values, final Reducer<LongWritable, MessageHolder, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            Writable message = null;
+            this.holder.clear();
+            for (final MessageHolder holder : values) {
+                for (final Writable other : holder.getMessages()) {
+                    if (null == this.combiner)
+                        this.holder.addMessage(other);
+                    else
+                        message = null == message ? other : this.combiner.combine(message, other);
+                }
+            }
+            if (null != message)
+                this.holder.setMessage(message);
+            if (null != this.writer) {
+                this.writer.append(key, this.holder);
+                context.getCounter(Counters.MESSAGES_WRITTEN).increment(this.holder.getMessages().size());
+            }
+        }
+
+        @Override
+        public void cleanup(final Reducer<LongWritable, MessageHolder, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            if (null != this.writer)
+                this.writer.close();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.thinkaurelius.faunus.FaunusElement;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -37,7 +38,7 @@ public class CyclicPathFilterMap {
         return configuration;
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         private boolean isVertex;
         private HashSet set = new HashSet();
@@ -49,7 +50,11 @@ public class CyclicPathFilterMap {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
 
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             long pathsFiltered = 0l;
             if (this.isVertex) {
                 if (value.hasPaths()) {
@@ -83,7 +88,7 @@ public class CyclicPathFilterMap {
             }
 
             context.getCounter(Counters.PATHS_FILTERED).increment(pathsFiltered);
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
@@ -5,6 +5,7 @@ import com.thinkaurelius.faunus.FaunusElement;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
@@ -35,7 +36,7 @@ public class DuplicateFilterMap {
         return configuration;
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         private boolean isVertex;
         private boolean pathEnabled;
@@ -48,7 +49,11 @@ public class DuplicateFilterMap {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
 
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths()) {
                     if (this.pathEnabled) {
@@ -80,7 +85,7 @@ public class DuplicateFilterMap {
                 context.getCounter(Counters.EDGES_DEDUPED).increment(counter);
             }
 
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
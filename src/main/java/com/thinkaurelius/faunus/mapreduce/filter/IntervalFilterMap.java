@@ -3,6 +3,7 @@ package com.thinkaurelius.faunus.mapreduce.filter;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.ElementChecker;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Compare;
@@ -54,7 +55,7 @@ public class IntervalFilterMap {
         return configuration;
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         private boolean isVertex;
         private ElementChecker startChecker;
@@ -83,6 +84,11 @@ public class IntervalFilterMap {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
+
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths() && !(this.startChecker.isLegal(value) && this.endChecker.isLegal(value))) {
                     value.clearPaths();
@@ -99,7 +105,7 @@ public class IntervalFilterMap {
                 }
                 context.getCounter(Counters.EDGES_FILTERED).increment(counter);
             }
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
@@ -3,6 +3,7 @@ package com.thinkaurelius.faunus.mapreduce.filter;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.ElementChecker;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Compare;
@@ -54,7 +55,7 @@ public class PropertyFilterMap {
         return configuration;
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         private boolean isVertex;
         private ElementChecker elementChecker;
@@ -93,7 +94,11 @@ public class PropertyFilterMap {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
 
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths() && !this.elementChecker.isLegal(value)) {
                     value.clearPaths();
@@ -111,7 +116,7 @@ public class PropertyFilterMap {
                 context.getCounter(Counters.EDGES_FILTERED).increment(edgesFiltered);
             }
 
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
@@ -0,0 +1,426 @@
+package com.thinkaurelius.faunus.mapreduce.local;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.RawKeyValueIterator;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.JobID;
+import org.apache.hadoop.mapreduce.JobStatus;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.OutputCommitter;
+import org.apache.hadoop.mapreduce.OutputFormat;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.util.Progress;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LocalJobRunner executes a MapReduce job within the current JVM.
+ * The map tasks (one per input split) and the reduce tasks (one per thread) run in parallel on a thread pool.
+ * The map output is partitioned with the partitioner of the job, combined per map task when the job has a combiner,
+ * sorted with the sort comparator of the job and grouped with its grouping comparator -- the Mapper and Reducer classes
+ * of the job are executed as they are on a cluster. The output format of the job is used with the usual committer lifecycle.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class LocalJobRunner {
+
+    private static final String TASK_COUNTERS = "org.apache.hadoop.mapred.Task$Counter";
+    private static final String MAPRED_MAX_SPLIT_SIZE = "mapred.max.split.size";
+    private static final String JOB_TRACKER = "local";
+    private static final AtomicInteger jobIds = new AtomicInteger(0);
+
+    public static final Logger logger = Logger.getLogger(LocalJobRunner.class);
+
+    private final int threads;
+    private final ExecutorService pool;
+
+    public LocalJobRunner(final int threads) {
+        this.threads = threads;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * Execute the job and return its counters.
+     */
+    public Counters run(final Job job) throws IOException, InterruptedException {
+        final Configuration configuration = job.getConfiguration();
+        final Counters counters = new Counters();
+
+        try {
+            final InputFormat inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), configuration);
+            // file inputs are split so that every thread has a map task
+            if (inputFormat instanceof FileInputFormat && null == configuration.get(MAPRED_MAX_SPLIT_SIZE))
+                configuration.setLong(MAPRED_MAX_SPLIT_SIZE, this.getSplitSize(job));
+
+            final JobID jobId = new JobID(JOB_TRACKER, jobIds.incrementAndGet());
+            final JobContext jobContext = new JobContext(configuration, jobId);
+            final OutputFormat outputFormat = ReflectionUtils.newInstance(job.getOutputFormatClass(), configuration);
+            outputFormat.checkOutputSpecs(jobContext);
+            final OutputCommitter committer = outputFormat.getOutputCommitter(new TaskAttemptContext(configuration, new TaskAttemptID(JOB_TRACKER, jobId.getId(), true, 0, 0)));
+            committer.setupJob(jobContext);
+
+            try {
+                final List<InputSplit> splits = inputFormat.getSplits(jobContext);
+                final int partitions = job.getNumReduceTasks() == 0 ? 0 : this.threads;
+                logger.info("Executing " + splits.size() + " map task(s) and " + partitions + " reduce task(s) on " + this.threads + " thread(s)");
+
+                final List<Callable<List<List<Record>>>> mapTasks = new ArrayList<Callable<List<List<Record>>>>();
+                for (int i = 0; i < splits.size(); i++) {
+                    mapTasks.add(new MapTask(job, jobId, i, splits.get(i), inputFormat, outputFormat, partitions, counters));
+                }
+                final List<List<List<Record>>> mapOutputs = this.invokeAll(mapTasks);
+
+                if (partitions > 0) {
+                    final List<Callable<List<List<Record>>>> reduceTasks = new ArrayList<Callable<List<List<Record>>>>();
+                    for (int i = 0; i < partitions; i++) {
+                        final List<Record> records = new ArrayList<Record>();
+                        for (final List<List<Record>> mapOutput : mapOutputs) {
+                            records.addAll(mapOutput.get(i));
+                            // the map output is released as soon as it has been handed to its reduce task
+                            mapOutput.set(i, Collections.<Record>emptyList());
+                        }
+                        reduceTasks.add(new ReduceTask(job, jobId, i, records, outputFormat, counters));
+                    }
+                    mapOutputs.clear();
+                    this.invokeAll(reduceTasks);
+                }
+                committer.commitJob(jobContext);
+            } catch (final IOException e) {
+                committer.abortJob(jobContext, JobStatus.State.FAILED);
+                throw e;
+            }
+        } catch (final ClassNotFoundException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return counters;
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    private long getSplitSize(final JobContext context) throws IOException {
+        long length = 0l;
+        for (final Path path : FileInputFormat.getInputPaths(context)) {
+            if (path.getFileSystem(context.getConfiguration()).exists(path))
+                length = length + path.getFileSystem(context.getConfiguration()).getContentSummary(path).getLength();
+        }
+        return Math.max(1l, (length / this.threads) + 1);
+    }
+
+    private <T> List<T> invokeAll(final List<Callable<T>> tasks) throws IOException, InterruptedException {
+        final List<T> results = new ArrayList<T>();
+        for (final Future<T> future : this.pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private static TaskAttemptContext createTaskContext(final Job job, final JobID jobId, final boolean isMap, final int task) {
+        return new TaskAttemptContext(job.getConfiguration(), new TaskAttemptID(JOB_TRACKER, jobId.getId(), isMap, task, 0));
+    }
+
+    private static void mergeCounters(final Counters counters, final Counters taskCounters) {
+        synchronized (counters) {
+            counters.incrAllCounters(taskCounters);
+        }
+    }
+
+    /**
+     * A serialized key/value pair of the map output.
+     */
+    private static class Record {
+        private final byte[] key;
+        private final byte[] value;
+
+        public Record(final byte[] key, final byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static class RecordComparator implements Comparator<Record> {
+        private final RawComparator comparator;
+
+        public RecordComparator(final RawComparator comparator) {
+            this.comparator = comparator;
+        }
+
+        public int compare(final Record record1, final Record record2) {
+            return this.comparator.compare(record1.key, 0, record1.key.length, record2.key, 0, record2.key.length);
+        }
+    }
+
+    /**
+     * Serializes the map output into the partitions of the reduce tasks.
+     */
+    private static class PartitionWriter extends RecordWriter<Writable, Writable> {
+
+        private final DataOutputBuffer buffer = new DataOutputBuffer();
+        private final Partitioner partitioner;
+        private final List<List<Record>> partitions;
+        private final Counter outputRecords;
+
+        public PartitionWriter(final Partitioner partitioner, final int numberOfPartitions, final Counter outputRecords) {
+            this.partitioner = partitioner;
+            this.partitions = new ArrayList<List<Record>>(numberOfPartitions);
+            for (int i = 0; i < numberOfPartitions; i++) {
+                this.partitions.add(new ArrayList<Record>());
+            }
+            this.outputRecords = outputRecords;
+        }
+
+        @Override
+        public void write(final Writable key, final Writable value) throws IOException {
+            final int partition = null == this.partitioner ? 0 : this.partitioner.getPartition(key, value, this.partitions.size());
+            this.buffer.reset();
+            key.write(this.buffer);
+            final byte[] keyBytes = Arrays.copyOf(this.buffer.getData(), this.buffer.getLength());
+            this.buffer.reset();
+            value.write(this.buffer);
+            this.partitions.get(partition).add(new Record(keyBytes, Arrays.copyOf(this.buffer.getData(), this.buffer.getLength())));
+            if (null != this.outputRecords)
+                this.outputRecords.increment(1l);
+        }
+
+        @Override
+        public void close(final TaskAttemptContext context) {
+        }
+
+        public List<List<Record>> getPartitions() {
+            return this.partitions;
+        }
+    }
+
+    /**
+     * Feeds sorted records to a Reducer.Context which groups them as the reduce task of a cluster does.
+     */
+    private static class RecordIterator implements RawKeyValueIterator {
+
+        private final List<Record> records;
+        private final DataInputBuffer key = new DataInputBuffer();
+        private final DataInputBuffer value = new DataInputBuffer();
+        private final Progress progress = new Progress();
+        private int index = -1;
+
+        public RecordIterator(final List<Record> records) {
+            this.records = records;
+        }
+
+        public DataInputBuffer getKey() {
+            return this.key;
+        }
+
+        public DataInputBuffer getValue() {
+            return this.value;
+        }
+
+        public boolean next() {
+            if (++this.index >= this.records.size())
+                return false;
+            final Record record = this.records.get(this.index);
+            this.key.reset(record.key, record.key.length);
+            this.value.reset(record.value, record.value.length);
+            return true;
+        }
+
+        public void close() {
+        }
+
+        public Progress getProgress() {
+            return this.progress;
+        }
+    }
+
+    private static class LocalStatusReporter extends StatusReporter {
+
+        private final Counters counters;
+
+        public LocalStatusReporter(final Counters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public Counter getCounter(final Enum<?> name) {
+            return this.counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(final String group, final String name) {
+            return this.counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public void setStatus(final String status) {
+        }
+
+        public float getProgress() {
+            return 0.0f;
+        }
+    }
+
+    private static void reduce(final Reducer reducer, final Job job, final TaskAttemptContext taskContext, final List<Record> records,
+                                       final RecordWriter writer, final OutputCommitter committer, final Counters taskCounters) throws Exception {
+        final Configuration configuration = job.getConfiguration();
+        final RecordIterator iterator = new RecordIterator(records);
+        final Reducer.Context context = reducer.new Context(configuration, taskContext.getTaskAttemptID(), iterator,
+                taskCounters.findCounter(TASK_COUNTERS, "REDUCE_INPUT_GROUPS"), taskCounters.findCounter(TASK_COUNTERS, "REDUCE_INPUT_RECORDS"),
+                writer, committer, new LocalStatusReporter(taskCounters), job.getGroupingComparator(),
+                job.getMapOutputKeyClass(), job.getMapOutputValueClass());
+        reducer.run(context);
+    }
+
+    private static class MapTask implements Callable<List<List<Record>>> {
+
+        private final Job job;
+        private final JobID jobId;
+        private final int task;
+        private final InputSplit split;
+        private final InputFormat inputFormat;
+        private final OutputFormat outputFormat;
+        private final int partitions;
+        private final Counters counters;
+
+        public MapTask(final Job job, final JobID jobId, final int task, final InputSplit split, final InputFormat inputFormat,
+                       final OutputFormat outputFormat, final int partitions, final Counters counters) {
+            this.job = job;
+            this.jobId = jobId;
+            this.task = task;
+            this.split = split;
+            this.inputFormat = inputFormat;
+            this.outputFormat = outputFormat;
+            this.partitions = partitions;
+            this.counters = counters;
+        }
+
+        public List<List<Record>> call() throws Exception {
+            final Configuration configuration = this.job.getConfiguration();
+            final TaskAttemptContext taskContext = createTaskContext(this.job, this.jobId, true, this.task);
+            final Counters taskCounters = new Counters();
+
+            final RecordReader reader = this.inputFormat.createRecordReader(this.split, taskContext);
+
+            final RecordWriter writer;
+            final OutputCommitter committer;
+            final PartitionWriter partitionWriter;
+            if (0 == this.partitions) {
+                // a map-only job writes to the output format of the job
+                committer = this.outputFormat.getOutputCommitter(taskContext);
+                committer.setupTask(taskContext);
+                writer = this.outputFormat.getRecordWriter(taskContext);
+                partitionWriter = null;
+            } else {
+                committer = null;
+                partitionWriter = new PartitionWriter(ReflectionUtils.newInstance(this.job.getPartitionerClass(), configuration),
+                        this.partitions, taskCounters.findCounter(TASK_COUNTERS, "MAP_OUTPUT_RECORDS"));
+                writer = partitionWriter;
+            }
+
+            final Mapper mapper = ReflectionUtils.newInstance(this.job.getMapperClass(), configuration);
+            final Mapper.Context context = mapper.new Context(configuration, taskContext.getTaskAttemptID(), reader, writer, committer, new LocalStatusReporter(taskCounters), this.split);
+            // as with Hadoop, the reader is initialized with the context of the mapper so it can increment counters
+            reader.initialize(this.split, context);
+            mapper.run(context);
+            reader.close();
+            writer.close(taskContext);
+
+            List<List<Record>> output = null;
+            if (null == partitionWriter) {
+                if (committer.needsTaskCommit(taskContext))
+                    committer.commitTask(taskContext);
+            } else {
+                output = partitionWriter.getPartitions();
+                final Comparator<Record> comparator = new RecordComparator(this.job.getSortComparator());
+                for (int i = 0; i < output.size(); i++) {
+                    Collections.sort(output.get(i), comparator);
+                    if (null != this.job.getCombinerClass() && output.get(i).size() > 1) {
+                        // the combiner output of a partition stays in the partition
+                        final PartitionWriter combinerWriter = new PartitionWriter(null, 1, null);
+                        reduce(ReflectionUtils.newInstance(this.job.getCombinerClass(), configuration), this.job, taskContext, output.get(i), combinerWriter, null, taskCounters);
+                        output.set(i, combinerWriter.getPartitions().get(0));
+                        Collections.sort(output.get(i), comparator);
+                    }
+                }
+            }
+            mergeCounters(this.counters, taskCounters);
+            return output;
+        }
+    }
+
+    private static class ReduceTask implements Callable<List<List<Record>>> {
+
+        private final Job job;
+        private final JobID jobId;
+        private final int task;
+        private final List<Record> records;
+        private final OutputFormat outputFormat;
+        private final Counters counters;
+
+        public ReduceTask(final Job job, final JobID jobId, final int task, final List<Record> records, final OutputFormat outputFormat, final Counters counters) {
+            this.job = job;
+            this.jobId = jobId;
+            this.task = task;
+            this.records = records;
+            this.outputFormat = outputFormat;
+            this.counters = counters;
+        }
+
+        public List<List<Record>> call() throws Exception {
+            final TaskAttemptContext taskContext = createTaskContext(this.job, this.jobId, false, this.task);
+            final Counters taskCounters = new Counters();
+
+            Collections.sort(this.records, new RecordComparator(this.job.getSortComparator()));
+            final OutputCommitter committer = this.outputFormat.getOutputCommitter(taskContext);
+            committer.setupTask(taskContext);
+            final RecordWriter writer = this.outputFormat.getRecordWriter(taskContext);
+            reduce(ReflectionUtils.newInstance(this.job.getReducerClass(), this.job.getConfiguration()), this.job, taskContext, this.records, writer, committer, taskCounters);
+            writer.close(taskContext);
+            if (committer.needsTaskCommit(taskContext))
+                committer.commitTask(taskContext);
+            this.records.clear();
+
+            mergeCounters(this.counters, taskCounters);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.thinkaurelius.faunus.mapreduce.local;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MemoryInputFormat reads the partitions of the MemoryStore at the input paths of the job (one split per partition).
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MemoryInputFormat extends InputFormat<Writable, Writable> {
+
+    @Override
+    public List<InputSplit> getSplits(final JobContext context) throws IOException {
+        final List<InputSplit> splits = new ArrayList<InputSplit>();
+        for (final Path path : FileInputFormat.getInputPaths(context)) {
+            for (final MemoryStore.Partition partition : MemoryStore.getPartitions(path, context.getConfiguration())) {
+                if (partition.size() > 0)
+                    splits.add(new MemorySplit(partition));
+            }
+        }
+        return splits;
+    }
+
+    @Override
+    public RecordReader<Writable, Writable> createRecordReader(final InputSplit split, final TaskAttemptContext context) {
+        return new MemoryRecordReader();
+    }
+
+    public static class MemorySplit extends InputSplit {
+
+        private final MemoryStore.Partition partition;
+
+        public MemorySplit(final MemoryStore.Partition partition) {
+            this.partition = partition;
+        }
+
+        public MemoryStore.Partition getPartition() {
+            return this.partition;
+        }
+
+        @Override
+        public long getLength() {
+            return this.partition.getLength();
+        }
+
+        @Override
+        public String[] getLocations() {
+            return new String[0];
+        }
+    }
+
+    public static class MemoryRecordReader extends RecordReader<Writable, Writable> {
+
+        private final DataInputBuffer buffer = new DataInputBuffer();
+        private MemoryStore.Partition partition;
+        private Writable key;
+        private Writable value;
+        private long read = 0l;
+
+        @Override
+        public void initialize(final InputSplit split, final TaskAttemptContext context) {
+            final Configuration configuration = context.getConfiguration();
+            this.partition = ((MemorySplit) split).getPartition();
+            this.buffer.reset(this.partition.getData(), this.partition.getLength());
+            // the key and value are reused as with sequence files
+            this.key = this.partition.createKey(configuration);
+            this.value = this.partition.createValue(configuration);
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException {
+            if (this.read >= this.partition.size())
+                return false;
+            this.key.readFields(this.buffer);
+            this.value.readFields(this.buffer);
+            this.read++;
+            return true;
+        }
+
+        @Override
+        public Writable getCurrentKey() {
+            return this.key;
+        }
+
+        @Override
+        public Writable getCurrentValue() {
+            return this.value;
+        }
+
+        @Override
+        public float getProgress() {
+            return 0 == this.partition.size() ? 1.0f : (float) this.read / (float) this.partition.size();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.thinkaurelius.faunus.mapreduce.local;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.RecordWriter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+import java.io.IOException;
+
+/**
+ * MemoryOutputFormat writes the key/value pairs of a task to a partition of the MemoryStore at the output path of the job.
+ * It is a FileOutputFormat so that the side-effect files of the job are still committed to the output path.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MemoryOutputFormat extends FileOutputFormat<Writable, Writable> {
+
+    @Override
+    public RecordWriter<Writable, Writable> getRecordWriter(final TaskAttemptContext context) throws IOException, InterruptedException {
+        final MemoryStore.Partition partition = MemoryStore.createPartition(getOutputPath(context), context.getConfiguration(),
+                (Class<? extends Writable>) context.getOutputKeyClass(), (Class<? extends Writable>) context.getOutputValueClass());
+        return new RecordWriter<Writable, Writable>() {
+            @Override
+            public void write(final Writable key, final Writable value) throws IOException {
+                partition.write(key, value);
+            }
+
+            @Override
+            public void close(final TaskAttemptContext context) {
+            }
+        };
+    }
+}
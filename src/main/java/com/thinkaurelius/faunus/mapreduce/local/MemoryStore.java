@@ -0,0 +1,105 @@
+package com.thinkaurelius.faunus.mapreduce.local;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * MemoryStore holds the intermediate outputs of the jobs that LocalJobRunner executes.
+ * An output location is a list of partitions (one per task that wrote to it) and a partition is a buffer of
+ * serialized key/value pairs. The data is handed from one job to the next without touching the file system.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class MemoryStore {
+
+    private static final ConcurrentMap<String, List<Partition>> locations = new ConcurrentHashMap<String, List<Partition>>();
+
+    public static Partition createPartition(final Path path, final Configuration configuration, final Class<? extends Writable> keyClass, final Class<? extends Writable> valueClass) throws IOException {
+        final String location = toLocation(path, configuration);
+        List<Partition> partitions = locations.get(location);
+        if (null == partitions) {
+            partitions = new CopyOnWriteArrayList<Partition>();
+            final List<Partition> previous = locations.putIfAbsent(location, partitions);
+            if (null != previous)
+                partitions = previous;
+        }
+        final Partition partition = new Partition(keyClass, valueClass);
+        partitions.add(partition);
+        return partition;
+    }
+
+    public static List<Partition> getPartitions(final Path path, final Configuration configuration) throws IOException {
+        final List<Partition> partitions = locations.get(toLocation(path, configuration));
+        return null == partitions ? Collections.<Partition>emptyList() : new ArrayList<Partition>(partitions);
+    }
+
+    public static void remove(final Path path, final Configuration configuration) throws IOException {
+        locations.remove(toLocation(path, configuration));
+    }
+
+    public static void clear() {
+        locations.clear();
+    }
+
+    private static String toLocation(final Path path, final Configuration configuration) throws IOException {
+        // input paths are qualified while output paths are not
+        return path.makeQualified(path.getFileSystem(configuration)).toString();
+    }
+
+    public static class Partition {
+
+        private final Class<? extends Writable> keyClass;
+        private final Class<? extends Writable> valueClass;
+        private final DataOutputBuffer buffer = new DataOutputBuffer();
+        private long size = 0l;
+
+        private Partition(final Class<? extends Writable> keyClass, final Class<? extends Writable> valueClass) {
+            this.keyClass = keyClass;
+            this.valueClass = valueClass;
+        }
+
+        public void write(final Writable key, final Writable value) throws IOException {
+            key.write(this.buffer);
+            value.write(this.buffer);
+            this.size++;
+        }
+
+        public Writable createKey(final Configuration configuration) {
+            return newInstance(this.keyClass, configuration);
+        }
+
+        public Writable createValue(final Configuration configuration) {
+            return newInstance(this.valueClass, configuration);
+        }
+
+        public byte[] getData() {
+            return this.buffer.getData();
+        }
+
+        public int getLength() {
+            return this.buffer.getLength();
+        }
+
+        public long size() {
+            return this.size;
+        }
+
+        private static Writable newInstance(final Class<? extends Writable> writableClass, final Configuration configuration) {
+            if (NullWritable.class.equals(writableClass))
+                return NullWritable.get();
+            return ReflectionUtils.newInstance(writableClass, configuration);
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package com.thinkaurelius.faunus.mapreduce.sideeffect;
 
+import com.google.common.base.Predicate;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Direction;
-import com.tinkerpop.blueprints.Edge;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -34,9 +34,20 @@ public class CommitEdgesMap {
     }
 
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
         private boolean drop;
+        // the edges kept by the last pass of the predicate
+        private long kept;
+        private final Predicate<FaunusEdge> keep = new Predicate<FaunusEdge>() {
+            public boolean apply(final FaunusEdge edge) {
+                if (drop != edge.hasPaths()) {
+                    kept++;
+                    return true;
+                }
+                return false;
+            }
+        };
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
@@ -45,51 +56,24 @@ public class CommitEdgesMap {
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
-            Iterator<Edge> itty = value.getEdges(Direction.IN).iterator();
-            long edgesKept = 0;
-            long edgesDropped = 0;
-            while (itty.hasNext()) {
-                if (this.drop) {
-                    if ((((FaunusEdge) itty.next()).hasPaths())) {
-                        itty.remove();
-                        edgesDropped++;
-                    } else
-                        edgesKept++;
-                } else {
-                    if (!(((FaunusEdge) itty.next()).hasPaths())) {
-                        itty.remove();
-                        edgesDropped++;
-                    } else
-                        edgesKept++;
-                }
-            }
+            context.write(NullWritable.get(), this.process(value, context));
+        }
+
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
+            this.kept = 0l;
+            long edgesDropped = value.retainEdges(Direction.IN, this.keep);
             context.getCounter(Counters.IN_EDGES_DROPPED).increment(edgesDropped);
-            context.getCounter(Counters.IN_EDGES_KEPT).increment(edgesKept);
+            context.getCounter(Counters.IN_EDGES_KEPT).increment(this.kept);
 
             ///////////////////
 
-            itty = value.getEdges(Direction.OUT).iterator();
-            edgesKept = 0;
-            edgesDropped = 0;
-            while (itty.hasNext()) {
-                if (this.drop) {
-                    if ((((FaunusEdge) itty.next()).hasPaths())) {
-                        itty.remove();
-                        edgesDropped++;
-                    } else
-                        edgesKept++;
-                } else {
-                    if (!(((FaunusEdge) itty.next()).hasPaths())) {
-                        itty.remove();
-                        edgesDropped++;
-                    } else
-                        edgesKept++;
-                }
-            }
+            this.kept = 0l;
+            edgesDropped = value.retainEdges(Direction.OUT, this.keep);
             context.getCounter(Counters.OUT_EDGES_DROPPED).increment(edgesDropped);
-            context.getCounter(Counters.OUT_EDGES_KEPT).increment(edgesKept);
+            context.getCounter(Counters.OUT_EDGES_KEPT).increment(this.kept);
 
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
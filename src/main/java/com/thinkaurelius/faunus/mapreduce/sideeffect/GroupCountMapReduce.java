@@ -3,6 +3,7 @@ package com.thinkaurelius.faunus.mapreduce.sideeffect;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.util.ClosureCompiler;
 import com.thinkaurelius.faunus.mapreduce.util.CounterMap;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.thinkaurelius.faunus.mapreduce.util.SafeMapperOutputs;
@@ -11,8 +12,7 @@ import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
-import groovy.lang.Closure;
+import com.tinkerpop.pipes.PipeFunction;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -20,8 +20,6 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
 import java.io.IOException;
 
 /**
@@ -32,7 +30,6 @@ public class GroupCountMapReduce {
     public static final String KEY_CLOSURE = Tokens.makeNamespace(GroupCountMapReduce.class) + ".keyClosure";
     public static final String VALUE_CLOSURE = Tokens.makeNamespace(GroupCountMapReduce.class) + ".valueClosure";
     public static final String CLASS = Tokens.makeNamespace(GroupCountMapReduce.class) + ".class";
-    private static final ScriptEngine engine = new GremlinGroovyScriptEngine();
 
     public enum Counters {
         VERTICES_PROCESSED,
@@ -46,13 +43,15 @@ public class GroupCountMapReduce {
             configuration.set(KEY_CLOSURE, keyClosure);
         if (null != valueClosure)
             configuration.set(VALUE_CLOSURE, valueClosure);
+        ClosureCompiler.compileClosure(configuration, KEY_CLOSURE);
+        ClosureCompiler.compileClosure(configuration, VALUE_CLOSURE);
         return configuration;
     }
 
     public static class Map extends Mapper<NullWritable, FaunusVertex, Text, LongWritable> {
 
-        private Closure keyClosure;
-        private Closure valueClosure;
+        private PipeFunction<Element, Object> keyClosure;
+        private PipeFunction<Element, Number> valueClosure;
         private boolean isVertex;
         private CounterMap<Object> map;
 
@@ -62,23 +61,9 @@ public class GroupCountMapReduce {
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
-            try {
-                this.mapSpillOver = context.getConfiguration().getInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, Tokens.DEFAULT_MAP_SPILL_OVER);
-                final String keyClosureString = context.getConfiguration().get(KEY_CLOSURE, null);
-                if (null == keyClosureString)
-                    this.keyClosure = null;
-                else
-                    this.keyClosure = (Closure) engine.eval(keyClosureString);
-
-                final String valueClosureString = context.getConfiguration().get(VALUE_CLOSURE, null);
-                if (null == valueClosureString)
-                    this.valueClosure = null;
-                else
-                    this.valueClosure = (Closure) engine.eval(valueClosureString);
-
-            } catch (final ScriptException e) {
-                throw new IOException(e.getMessage(), e);
-            }
+            this.mapSpillOver = context.getConfiguration().getInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, Tokens.DEFAULT_MAP_SPILL_OVER);
+            this.keyClosure = ClosureCompiler.getClosure(context.getConfiguration(), KEY_CLOSURE);
+            this.valueClosure = ClosureCompiler.getClosure(context.getConfiguration(), VALUE_CLOSURE);
             this.isVertex = context.getConfiguration().getClass(CLASS, Element.class, Element.class).equals(Vertex.class);
             this.map = new CounterMap<Object>();
             this.outputs = new SafeMapperOutputs(context);
@@ -88,8 +73,8 @@ public class GroupCountMapReduce {
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, Text, LongWritable>.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths()) {
-                    final Object object = (null == this.keyClosure) ? new FaunusVertex.MicroVertex(value.getIdAsLong()) : this.keyClosure.call(value);
-                    final Number number = (null == this.valueClosure) ? 1 : (Number) this.valueClosure.call(value);
+                    final Object object = (null == this.keyClosure) ? new FaunusVertex.MicroVertex(value.getIdAsLong()) : this.keyClosure.compute(value);
+                    final Number number = (null == this.valueClosure) ? 1 : this.valueClosure.compute(value);
                     this.map.incr(object, number.longValue() * value.pathCount());
                     context.getCounter(Counters.VERTICES_PROCESSED).increment(1l);
                 }
@@ -98,8 +83,8 @@ public class GroupCountMapReduce {
                 for (final Edge e : value.getEdges(Direction.OUT)) {
                     final FaunusEdge edge = (FaunusEdge) e;
                     if (edge.hasPaths()) {
-                        final Object object = (null == this.keyClosure) ? new FaunusEdge.MicroEdge(edge.getIdAsLong()) : this.keyClosure.call(edge);
-                        final Number number = (null == this.valueClosure) ? 1 : (Number) this.valueClosure.call(edge);
+                        final Object object = (null == this.keyClosure) ? new FaunusEdge.MicroEdge(edge.getIdAsLong()) : this.keyClosure.compute(edge);
+                        final Number number = (null == this.valueClosure) ? 1 : this.valueClosure.compute(edge);
                         this.map.incr(object, number.longValue() * edge.pathCount());
                         edgesProcessed++;
                     }
@@ -12,7 +12,6 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
 
-import javax.script.ScriptEngine;
 import java.io.IOException;
 import java.io.InputStreamReader;
 
@@ -26,10 +25,9 @@ public class ScriptMap {
     public static final String SCRIPT_ARGS = Tokens.makeNamespace(ScriptMap.class) + ".scriptArgs";
 
     private static final String ARGS = "args";
-    private static final String V = "v";
-    private static final String SETUP_ARGS = "setup(args)";
-    private static final String MAP_V_ARGS = "map(v,args)";
-    private static final String CLEANUP_ARGS = "cleanup(args)";
+    private static final String SETUP = "setup";
+    private static final String MAP = "map";
+    private static final String CLEANUP = "cleanup";
 
     public static Configuration createConfiguration(final String scriptUri, final String... args) {
         Configuration configuration = new EmptyConfiguration();
@@ -40,7 +38,8 @@ public class ScriptMap {
 
     public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
 
-        private final ScriptEngine engine = new FaunusGremlinScriptEngine();
+        private final FaunusGremlinScriptEngine engine = new FaunusGremlinScriptEngine();
+        private String[] args;
         private SafeMapperOutputs outputs;
         private Text textWritable = new Text();
 
@@ -49,8 +48,9 @@ public class ScriptMap {
             final FileSystem fs = FileSystem.get(context.getConfiguration());
             try {
                 this.engine.eval(new InputStreamReader(fs.open(new Path(context.getConfiguration().get(SCRIPT_PATH)))));
-                this.engine.put(ARGS, context.getConfiguration().getStrings(SCRIPT_ARGS));
-                this.engine.eval(SETUP_ARGS);
+                this.args = context.getConfiguration().getStrings(SCRIPT_ARGS);
+                this.engine.put(ARGS, this.args);
+                this.engine.invokeFunction(SETUP, (Object) this.args);
             } catch (Exception e) {
                 throw new InterruptedException(e.getMessage());
             }
@@ -63,8 +63,7 @@ public class ScriptMap {
             if (value.hasPaths()) {
                 final Object result;
                 try {
-                    this.engine.put(V, value);
-                    result = engine.eval(MAP_V_ARGS);
+                    result = this.engine.invokeFunction(MAP, value, this.args);
                 } catch (Exception e) {
                     throw new InterruptedException(e.getMessage());
                 }
@@ -77,7 +76,7 @@ public class ScriptMap {
         @Override
         public void cleanup(final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
             try {
-                this.engine.eval(CLEANUP_ARGS);
+                this.engine.invokeFunction(CLEANUP, (Object) this.args);
             } catch (Exception e) {
                 throw new InterruptedException(e.getMessage());
             }
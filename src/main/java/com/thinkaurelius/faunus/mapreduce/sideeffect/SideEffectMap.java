@@ -3,19 +3,18 @@ package com.thinkaurelius.faunus.mapreduce.sideeffect;
 import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
+import com.thinkaurelius.faunus.mapreduce.util.ClosureCompiler;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
-import com.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
-import groovy.lang.Closure;
+import com.tinkerpop.pipes.PipeFunction;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.Mapper;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
 import java.io.IOException;
 
 /**
@@ -25,7 +24,6 @@ public class SideEffectMap {
 
     public static final String CLASS = Tokens.makeNamespace(SideEffectMap.class) + ".class";
     public static final String CLOSURE = Tokens.makeNamespace(SideEffectMap.class) + ".closure";
-    private static final ScriptEngine engine = new GremlinGroovyScriptEngine();
 
     public enum Counters {
         VERTICES_PROCESSED,
@@ -36,30 +34,32 @@ public class SideEffectMap {
         final Configuration configuration = new EmptyConfiguration();
         configuration.setClass(CLASS, klass, Element.class);
         configuration.set(CLOSURE, closure);
+        ClosureCompiler.compileClosure(configuration, CLOSURE);
         return configuration;
     }
 
-    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+    public static class Map extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
 
-        private Closure closure;
+        private PipeFunction<Element, Object> closure;
         private boolean isVertex;
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
             this.isVertex = context.getConfiguration().getClass(CLASS, Element.class, Element.class).equals(Vertex.class);
-            try {
-                this.closure = (Closure) engine.eval(context.getConfiguration().get(CLOSURE));
-            } catch (final ScriptException e) {
-                throw new IOException(e.getMessage(), e);
-            }
+            this.closure = ClosureCompiler.getClosure(context.getConfiguration(), CLOSURE);
         }
 
         @Override
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
+
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths()) {
                     //for (int i = 0; i < value.pathCount(); i++) {
-                    this.closure.call(value);
+                    this.closure.compute(value);
                     //}
                     context.getCounter(Counters.VERTICES_PROCESSED).increment(1);
                 }
@@ -70,14 +70,14 @@ public class SideEffectMap {
                     if (edge.hasPaths()) {
                         edgesProcessed++;
                         //for (int i = 0; i < edge.pathCount(); i++) {
-                        this.closure.call(edge);
+                        this.closure.compute(edge);
                         //}
                     }
                 }
                 context.getCounter(Counters.OUT_EDGES_PROCESSED).increment(edgesProcessed);
             }
 
-            context.write(NullWritable.get(), value);
+            return value;
         }
     }
 }
@@ -1,6 +1,7 @@
 package com.thinkaurelius.faunus.mapreduce.transform;
 
 import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusElement;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.mapreduce.util.ElementPicker;
@@ -14,6 +15,7 @@ import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.pipes.transform.TransformPipe;
+import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.FloatWritable;
@@ -23,12 +25,34 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.WritableComparable;
 import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Partitioner;
+import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.util.ReflectionUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 
 /**
+ * OrderMapReduce sorts the elements by a property value in the shuffle.
+ * With a limit, only the top-k elements are wanted: every mapper keeps a bounded heap of its best k elements,
+ * the combiner cuts its sorted run after k elements and a single reducer emits the global top-k.
+ * Without a limit, the elements are fully sorted. In the total-order mode (faunus.pipeline.total-order), the keys of
+ * the input are sampled before the job (see setSplitPoints()) and the elements are range partitioned such that the
+ * reducers write consecutive ranges of the order.
+ *
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
 public class OrderMapReduce {
@@ -37,6 +61,13 @@ public class OrderMapReduce {
     public static final String KEY = Tokens.makeNamespace(OrderMapReduce.class) + ".key";
     public static final String TYPE = Tokens.makeNamespace(OrderMapReduce.class) + ".type";
     public static final String ELEMENT_KEY = Tokens.makeNamespace(OrderMapReduce.class) + ".elementKey";
+    public static final String ORDER = Tokens.makeNamespace(OrderMapReduce.class) + ".order";
+    public static final String LIMIT = Tokens.makeNamespace(OrderMapReduce.class) + ".limit";
+    public static final String TOTAL_ORDER = Tokens.makeNamespace(OrderMapReduce.class) + ".totalOrder";
+    public static final String SPLIT_POINTS = Tokens.makeNamespace(OrderMapReduce.class) + ".splitPoints";
+
+    private static final int MAX_SAMPLED_SPLITS = 10;
+    private static final int MAX_SAMPLES_PER_SPLIT = 10000;
 
     public enum Counters {
         VERTICES_PROCESSED,
@@ -47,11 +78,33 @@ public class OrderMapReduce {
                                                     final String key,
                                                     final Class<? extends WritableComparable> type,
                                                     final String elementKey) {
+        return createConfiguration(klass, key, type, elementKey, TransformPipe.Order.INCR, -1, false);
+    }
+
+    /**
+     * @param limit      the number of elements of the top-k or -1 to order all elements
+     * @param totalOrder whether all elements are range partitioned over the reducers (ignored with a limit)
+     */
+    public static Configuration createConfiguration(final Class<? extends Element> klass,
+                                                    final String key,
+                                                    final Class<? extends WritableComparable> type,
+                                                    final String elementKey,
+                                                    final TransformPipe.Order order,
+                                                    final long limit,
+                                                    final boolean totalOrder) {
         final Configuration configuration = new EmptyConfiguration();
         configuration.setClass(OrderMapReduce.CLASS, klass, Element.class);
         configuration.set(OrderMapReduce.KEY, key);
         configuration.setClass(OrderMapReduce.TYPE, type, WritableComparable.class);
         configuration.set(OrderMapReduce.ELEMENT_KEY, elementKey);
+        configuration.set(OrderMapReduce.ORDER, order.name());
+        configuration.setLong(OrderMapReduce.LIMIT, limit);
+        configuration.setBoolean(OrderMapReduce.TOTAL_ORDER, totalOrder && limit < 0);
+        if (limit >= 0) {
+            // the global top-k is emitted by a single reducer
+            configuration.setInt("mapred.reduce.tasks", 1);
+            configuration.setClass(JobContext.PARTITIONER_CLASS_ATTR, SinglePartitioner.class, Partitioner.class);
+        }
         return configuration;
     }
 
@@ -77,14 +130,31 @@ public class OrderMapReduce {
         private WritableHandler handler;
         private String elementKey;
         private SafeMapperOutputs outputs;
+        private Configuration configuration;
 
+        // the best elements of the mapper for a top-k (the worst element is the head)
+        private long limit;
+        private int sign;
+        private PriorityQueue<Ranked> heap;
+        private long heapSize = 0;
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.configuration = context.getConfiguration();
             this.isVertex = context.getConfiguration().getClass(CLASS, Element.class, Element.class).equals(Vertex.class);
             this.key = context.getConfiguration().get(KEY);
             this.handler = new WritableHandler(context.getConfiguration().getClass(TYPE, Text.class, WritableComparable.class));
             this.elementKey = context.getConfiguration().get(ELEMENT_KEY);
+            this.limit = context.getConfiguration().getLong(LIMIT, -1);
+            this.sign = getSign(context.getConfiguration());
+            if (this.limit >= 0) {
+                this.heap = new PriorityQueue<Ranked>(11, new Comparator<Ranked>() {
+                    @Override
+                    public int compare(final Ranked a, final Ranked b) {
+                        return -sign * a.key.compareTo(b.key);
+                    }
+                });
+            }
             this.outputs = new SafeMapperOutputs(context);
         }
 
@@ -95,20 +165,7 @@ public class OrderMapReduce {
         public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, WritableComparable, Text>.Context context) throws IOException, InterruptedException {
             if (this.isVertex) {
                 if (value.hasPaths()) {
-                    this.text.set(ElementPicker.getPropertyAsString(value, this.elementKey));
-                    final Object temp = ElementPicker.getProperty(value, this.key);
-                    if (this.key.equals(Tokens._COUNT)) {
-                        this.writable = this.handler.set(temp);
-                        context.write(this.writable, this.text);
-                    } else if (temp instanceof Number) {
-                        this.writable = this.handler.set(multiplyPathCount((Number) temp, value.pathCount()));
-                        context.write(this.writable, this.text);
-                    } else {
-                        this.writable = this.handler.set(temp);
-                        for (int i = 0; i < value.pathCount(); i++) {
-                            context.write(this.writable, this.text);
-                        }
-                    }
+                    this.emit(value, context);
                     context.getCounter(Counters.VERTICES_PROCESSED).increment(1l);
                 }
             } else {
@@ -116,20 +173,7 @@ public class OrderMapReduce {
                 for (final Edge e : value.getEdges(Direction.OUT)) {
                     final FaunusEdge edge = (FaunusEdge) e;
                     if (edge.hasPaths()) {
-                        this.text.set(ElementPicker.getPropertyAsString(edge, this.elementKey));
-                        final Object temp = ElementPicker.getProperty(edge, this.key);
-                        if (this.key.equals(Tokens._COUNT)) {
-                            this.writable = this.handler.set(temp);
-                            context.write(this.writable, this.text);
-                        } else if (temp instanceof Number) {
-                            this.writable = this.handler.set(multiplyPathCount((Number) temp, edge.pathCount()));
-                            context.write(this.writable, this.text);
-                        } else {
-                            this.writable = this.handler.set(temp);
-                            for (int i = 0; i < edge.pathCount(); i++) {
-                                context.write(this.writable, this.text);
-                            }
-                        }
+                        this.emit(edge, context);
                         edgesProcessed++;
                     }
                 }
@@ -139,25 +183,102 @@ public class OrderMapReduce {
             this.outputs.write(Tokens.GRAPH, NullWritable.get(), value);
         }
 
+        private void emit(final FaunusElement element, final Mapper<NullWritable, FaunusVertex, WritableComparable, Text>.Context context) throws IOException, InterruptedException {
+            this.text.set(ElementPicker.getPropertyAsString(element, this.elementKey));
+            final Object temp = ElementPicker.getProperty(element, this.key);
+            final long count;
+            if (this.key.equals(Tokens._COUNT)) {
+                this.writable = this.handler.set(temp);
+                count = 1;
+            } else if (temp instanceof Number) {
+                this.writable = this.handler.set(multiplyPathCount((Number) temp, element.pathCount()));
+                count = 1;
+            } else {
+                this.writable = this.handler.set(temp);
+                count = element.pathCount();
+            }
+
+            if (null == this.heap) {
+                for (long i = 0; i < count; i++) {
+                    context.write(this.writable, this.text);
+                }
+            } else {
+                this.offer(count);
+            }
+        }
+
+        /**
+         * Add the current element to the heap if it is among the best elements of the mapper.
+         * An element that is emitted multiple times counts as many elements.
+         */
+        private void offer(final long count) {
+            if (this.limit == 0 || (this.heapSize >= this.limit && this.sign * this.writable.compareTo(this.heap.peek().key) >= 0))
+                return;
+            final Ranked ranked = new Ranked(WritableUtils.clone(this.writable, this.configuration), new Text(this.text), Math.min(count, this.limit));
+            this.heap.add(ranked);
+            this.heapSize = this.heapSize + ranked.count;
+            while (this.heapSize - this.heap.peek().count >= this.limit) {
+                this.heapSize = this.heapSize - this.heap.poll().count;
+            }
+        }
+
         @Override
         public void cleanup(final Mapper<NullWritable, FaunusVertex, WritableComparable, Text>.Context context) throws IOException, InterruptedException {
+            if (null != this.heap) {
+                for (final Ranked ranked : this.heap) {
+                    for (long i = 0; i < ranked.count; i++) {
+                        context.write(ranked.key, ranked.value);
+                    }
+                }
+                this.heap.clear();
+            }
             this.outputs.close();
         }
     }
 
+    /**
+     * Cuts a sorted run of map output after the top-k elements.
+     */
+    public static class Combiner extends Reducer<WritableComparable, Text, WritableComparable, Text> {
+
+        private long limit;
+        private long emitted = 0;
+
+        @Override
+        public void setup(final Reducer<WritableComparable, Text, WritableComparable, Text>.Context context) throws IOException, InterruptedException {
+            this.limit = context.getConfiguration().getLong(LIMIT, -1);
+        }
+
+        @Override
+        public void reduce(final WritableComparable key, final Iterable<Text> values, final Reducer<WritableComparable, Text, WritableComparable, Text>.Context context) throws IOException, InterruptedException {
+            for (final Text value : values) {
+                if (this.limit >= 0 && this.emitted >= this.limit)
+                    return;
+                context.write(key, value);
+                this.emitted++;
+            }
+        }
+    }
+
     public static class Reduce extends Reducer<WritableComparable, Text, Text, WritableComparable> {
 
         private SafeReducerOutputs outputs;
+        private long limit;
+        private long emitted = 0;
 
         @Override
         public void setup(final Reducer<WritableComparable, Text, Text, WritableComparable>.Context context) throws IOException, InterruptedException {
             this.outputs = new SafeReducerOutputs(context);
+            this.limit = context.getConfiguration().getLong(LIMIT, -1);
         }
 
         @Override
         public void reduce(final WritableComparable key, final Iterable<Text> values, final Reducer<WritableComparable, Text, Text, WritableComparable>.Context context) throws IOException, InterruptedException {
             for (final Text value : values) {
+                if (this.limit >= 0 && this.emitted >= this.limit)
+                    return;
                 this.outputs.write(Tokens.SIDEEFFECT, value, key);
+                this.emitted++;
             }
         }
 
@@ -167,6 +288,151 @@ public class OrderMapReduce {
         }
     }
 
+    /**
+     * Sends all elements of a top-k to the same reducer.
+     */
+    public static class SinglePartitioner extends Partitioner<WritableComparable, Text> {
+
+        @Override
+        public int getPartition(final WritableComparable key, final Text value, final int numPartitions) {
+            return 0;
+        }
+    }
+
+    /**
+     * Partitions the elements by the ranges between the split points of the order (see setSplitPoints()).
+     * If there are fewer or more partitions than ranges, consecutive ranges are spread evenly over the partitions.
+     */
+    public static class RangePartitioner extends Partitioner<WritableComparable, Text> implements Configurable {
+
+        private Configuration configuration;
+        private int sign;
+        private final List<WritableComparable> splitPoints = new ArrayList<WritableComparable>();
+
+        @Override
+        public void setConf(final Configuration configuration) {
+            this.configuration = configuration;
+            this.sign = getSign(configuration);
+            this.splitPoints.clear();
+            final WritableHandler handler = new WritableHandler(configuration.getClass(TYPE, Text.class, WritableComparable.class));
+            final int size = configuration.getInt(SPLIT_POINTS, 0);
+            for (int i = 0; i < size; i++) {
+                this.splitPoints.add(WritableUtils.clone(handler.set(configuration.get(SPLIT_POINTS + "." + i)), configuration));
+            }
+        }
+
+        @Override
+        public Configuration getConf() {
+            return this.configuration;
+        }
+
+        @Override
+        public int getPartition(final WritableComparable key, final Text value, final int numPartitions) {
+            // the number of split points that are before or at the key
+            int low = 0;
+            int high = this.splitPoints.size();
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (this.sign * this.splitPoints.get(middle).compareTo(key) <= 0)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return (int) (((long) low * numPartitions) / (this.splitPoints.size() + 1));
+        }
+    }
+
+    /**
+     * Sample the order keys of the input of the job and range partition the job by the split points of the sample.
+     * The input of the job must be the elements with their paths (i.e. the order must be the first step of its job).
+     */
+    public static void setSplitPoints(final Job job, final int partitions) throws IOException, InterruptedException {
+        final Configuration configuration = job.getConfiguration();
+        final boolean isVertex = configuration.getClass(CLASS, Element.class, Element.class).equals(Vertex.class);
+        final String key = configuration.get(KEY);
+        final WritableHandler handler = new WritableHandler(configuration.getClass(TYPE, Text.class, WritableComparable.class));
+        final int sign = getSign(configuration);
+
+        final List<WritableComparable> samples = new ArrayList<WritableComparable>();
+        try {
+            final InputFormat inputFormat = ReflectionUtils.newInstance(job.getInputFormatClass(), configuration);
+            final List<InputSplit> splits = inputFormat.getSplits(job);
+            final int step = Math.max(1, splits.size() / MAX_SAMPLED_SPLITS);
+            for (int i = 0; i < splits.size(); i = i + step) {
+                final TaskAttemptContext context = new TaskAttemptContext(configuration, new TaskAttemptID());
+                final RecordReader reader = inputFormat.createRecordReader(splits.get(i), context);
+                reader.initialize(splits.get(i), context);
+                int sampled = 0;
+                while (sampled < MAX_SAMPLES_PER_SPLIT && reader.nextKeyValue()) {
+                    final FaunusVertex vertex = (FaunusVertex) reader.getCurrentValue();
+                    if (isVertex) {
+                        if (vertex.hasPaths()) {
+                            samples.add(WritableUtils.clone(getKey(vertex, key, handler), configuration));
+                            sampled++;
+                        }
+                    } else {
+                        for (final Edge e : vertex.getEdges(Direction.OUT)) {
+                            final FaunusEdge edge = (FaunusEdge) e;
+                            if (edge.hasPaths()) {
+                                samples.add(WritableUtils.clone(getKey(edge, key, handler), configuration));
+                                sampled++;
+                            }
+                        }
+                    }
+                }
+                reader.close();
+            }
+        } catch (final ClassNotFoundException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+
+        Collections.sort(samples, new Comparator<WritableComparable>() {
+            @Override
+            public int compare(final WritableComparable a, final WritableComparable b) {
+                return sign * a.compareTo(b);
+            }
+        });
+        final List<WritableComparable> splitPoints = new ArrayList<WritableComparable>();
+        for (int i = 1; i < partitions && !samples.isEmpty(); i++) {
+            final WritableComparable splitPoint = samples.get((int) (((long) i * samples.size()) / partitions));
+            if (splitPoints.isEmpty() || splitPoints.get(splitPoints.size() - 1).compareTo(splitPoint) != 0)
+                splitPoints.add(splitPoint);
+        }
+        configuration.setInt(SPLIT_POINTS, splitPoints.size());
+        for (int i = 0; i < splitPoints.size(); i++) {
+            configuration.set(SPLIT_POINTS + "." + i, splitPoints.get(i).toString());
+        }
+        job.setPartitionerClass(RangePartitioner.class);
+    }
+
+    private static WritableComparable getKey(final FaunusElement element, final String key, final WritableHandler handler) {
+        final Object temp = ElementPicker.getProperty(element, key);
+        if (!key.equals(Tokens._COUNT) && temp instanceof Number)
+            return handler.set(multiplyPathCount((Number) temp, element.pathCount()));
+        else
+            return handler.set(temp);
+    }
+
+    private static int getSign(final Configuration configuration) {
+        return TransformPipe.Order.valueOf(configuration.get(ORDER, TransformPipe.Order.INCR.name())).equals(TransformPipe.Order.INCR) ? 1 : -1;
+    }
+
+    /**
+     * An element of the top-k heap of a mapper.
+     */
+    private static class Ranked {
+
+        private final WritableComparable key;
+        private final Text value;
+        private final long count;
+
+        public Ranked(final WritableComparable key, final Text value, final long count) {
+            this.key = key;
+            this.value = value;
+            this.count = count;
+        }
+    }
+
     private static Number multiplyPathCount(final Number value, final Long pathCount) {
         if (value instanceof Long)
             return (Long) value * pathCount;
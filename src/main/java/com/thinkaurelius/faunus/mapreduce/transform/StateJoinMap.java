@@ -0,0 +1,74 @@
+package com.thinkaurelius.faunus.mapreduce.transform;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.hdfs.MapFileReaders;
+import com.thinkaurelius.faunus.mapreduce.VertexStage;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+
+import java.io.IOException;
+
+/**
+ * StateJoinMap ends a sparse traversal. It reads the topology written by TopologyMapReduce and sets the path count
+ * of every vertex to the count written by the last VerticesVerticesStateMapReduce step.
+ * Both are sorted and partitioned by vertex id so the join happens map-side without a shuffle.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class StateJoinMap {
+
+    public static final String STATE_LOCATION = Tokens.makeNamespace(StateJoinMap.class) + ".stateLocation";
+    public static final String TOPOLOGY_LOCATION = Tokens.makeNamespace(StateJoinMap.class) + ".topologyLocation";
+
+    public enum Counters {
+        VERTICES_JOINED,
+        PATHS_JOINED
+    }
+
+    public static Configuration createConfiguration() {
+        return new EmptyConfiguration();
+    }
+
+    public static class Map extends Mapper<Writable, FaunusVertex, NullWritable, FaunusVertex> implements VertexStage {
+
+        private MapFileReaders state;
+        private final LongWritable id = new LongWritable();
+        private final LongWritable pathCount = new LongWritable();
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            final String location = context.getConfiguration().get(STATE_LOCATION);
+            if (null == location)
+                throw new IOException("The location of the traversal state has not been provided: " + STATE_LOCATION);
+            this.state = new MapFileReaders(new Path(location), context.getConfiguration());
+        }
+
+        @Override
+        public void map(final Writable key, final FaunusVertex value, final Mapper<Writable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), this.process(value, context));
+        }
+
+        @Override
+        public FaunusVertex process(final FaunusVertex value, final Mapper.Context context) throws IOException, InterruptedException {
+            value.clearPaths();
+            this.id.set(value.getIdAsLong());
+            if (null != this.state.get(this.id, this.pathCount)) {
+                value.incrPath(this.pathCount.get());
+                context.getCounter(Counters.VERTICES_JOINED).increment(1l);
+                context.getCounter(Counters.PATHS_JOINED).increment(this.pathCount.get());
+            }
+            return value;
+        }
+
+        @Override
+        public void cleanup(final Mapper<Writable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            this.state.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.thinkaurelius.faunus.mapreduce.transform;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+/**
+ * TopologyMapReduce writes the graph keyed and sorted by vertex id (see MapFileOutputFormat).
+ * It is the first job of a sparse traversal: the following VerticesVerticesStateMapReduce steps look up adjacencies
+ * in this topology and only shuffle path counts, and StateJoinMap finally attaches the path counts to the topology.
+ * The path counts of the vertices written are the starting state of the traversal.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TopologyMapReduce {
+
+    public enum Counters {
+        VERTICES_STORED
+    }
+
+    public static Configuration createConfiguration() {
+        return new EmptyConfiguration();
+    }
+
+    public static class Map extends Mapper<NullWritable, FaunusVertex, LongWritable, FaunusVertex> {
+
+        private final LongWritable longWritable = new LongWritable();
+
+        @Override
+        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            this.longWritable.set(value.getIdAsLong());
+            context.write(this.longWritable, value);
+        }
+    }
+
+    public static class Reduce extends Reducer<LongWritable, FaunusVertex, LongWritable, FaunusVertex> {
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<FaunusVertex> values, final Reducer<LongWritable, FaunusVertex, LongWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            for (final FaunusVertex vertex : values) {
+                context.write(key, vertex);
+                context.getCounter(Counters.VERTICES_STORED).increment(1l);
+            }
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.thinkaurelius.faunus.mapreduce.transform;
 
-import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Holder;
 import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
+import com.thinkaurelius.faunus.mapreduce.util.CounterMap;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
 import com.tinkerpop.blueprints.Direction;
-import com.tinkerpop.blueprints.Edge;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -27,7 +26,9 @@ public class VerticesVerticesMapReduce {
     public static final String LABELS = Tokens.makeNamespace(VerticesVerticesMapReduce.class) + ".labels";
 
     public enum Counters {
-        EDGES_TRAVERSED
+        EDGES_TRAVERSED,
+        PATH_RECORDS_EMITTED,
+        PATH_RECORDS_COMBINED
     }
 
     public static Configuration createConfiguration(final Direction direction, final String... labels) {
@@ -41,17 +42,23 @@ public class VerticesVerticesMapReduce {
 
         private Direction direction;
         private String[] labels;
+        private boolean pathEnabled;
 
         private FaunusVertex vertex;
         private final Holder<FaunusVertex> holder = new Holder<FaunusVertex>();
         private final LongWritable longWritable = new LongWritable();
-
+        // making use of in-map aggregation of path counts when paths are not enabled
+        private CounterMap<Long> map;
+        private int mapSpillOver;
 
         @Override
         public void setup(final Mapper.Context context) throws IOException, InterruptedException {
             this.direction = Direction.valueOf(context.getConfiguration().get(DIRECTION));
             this.labels = context.getConfiguration().getStrings(LABELS, new String[0]);
-            this.vertex = new FaunusVertex(context.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false));
+            this.pathEnabled = context.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false);
+            this.vertex = new FaunusVertex(this.pathEnabled);
+            this.map = new CounterMap<Long>();
+            this.mapSpillOver = context.getConfiguration().getInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, Tokens.DEFAULT_MAP_SPILL_OVER);
         }
 
         @Override
@@ -60,31 +67,91 @@ public class VerticesVerticesMapReduce {
             if (value.hasPaths()) {
                 long edgesTraversed = 0l;
                 if (this.direction.equals(OUT) || this.direction.equals(BOTH)) {
-                    for (final Edge edge : value.getEdges(OUT, this.labels)) {
-                        this.vertex.reuse(((FaunusEdge) edge).getVertexId(IN));
-                        this.vertex.getPaths(value, false);
-                        this.longWritable.set(this.vertex.getIdAsLong());
-                        context.write(this.longWritable, this.holder.set('p', this.vertex));
+                    for (final long id : value.getVertexIds(OUT, this.labels)) {
+                        this.traverse(id, value, context);
                         edgesTraversed++;
                     }
                 }
 
                 if (this.direction.equals(IN) || this.direction.equals(BOTH)) {
-                    for (final Edge edge : value.getEdges(IN, this.labels)) {
-                        this.vertex.reuse(((FaunusEdge) edge).getVertexId(OUT));
-                        this.vertex.getPaths(value, false);
-                        this.longWritable.set(this.vertex.getIdAsLong());
-                        context.write(this.longWritable, this.holder.set('p', this.vertex));
+                    for (final long id : value.getVertexIds(IN, this.labels)) {
+                        this.traverse(id, value, context);
                         edgesTraversed++;
                     }
                 }
                 value.clearPaths();
                 context.getCounter(Counters.EDGES_TRAVERSED).increment(edgesTraversed);
+
+                // protected against memory explosion
+                if (this.map.size() > this.mapSpillOver) {
+                    this.dischargeMap(context);
+                }
             }
 
             this.longWritable.set(value.getIdAsLong());
             context.write(this.longWritable, this.holder.set('v', value));
         }
+
+        private void traverse(final long id, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, LongWritable, Holder>.Context context) throws IOException, InterruptedException {
+            if (this.pathEnabled) {
+                this.vertex.reuse(id);
+                this.vertex.getPaths(value, false);
+                this.longWritable.set(id);
+                context.write(this.longWritable, this.holder.set('p', this.vertex));
+                context.getCounter(Counters.PATH_RECORDS_EMITTED).increment(1l);
+            } else {
+                this.map.incr(id, value.pathCount());
+            }
+        }
+
+        public void dischargeMap(final Mapper<NullWritable, FaunusVertex, LongWritable, Holder>.Context context) throws IOException, InterruptedException {
+            for (final java.util.Map.Entry<Long, Long> entry : this.map.entrySet()) {
+                this.vertex.reuse(entry.getKey());
+                this.vertex.incrPath(entry.getValue());
+                this.longWritable.set(entry.getKey());
+                context.write(this.longWritable, this.holder.set('p', this.vertex));
+            }
+            context.getCounter(Counters.PATH_RECORDS_EMITTED).increment(this.map.size());
+            this.map.clear();
+        }
+
+        @Override
+        public void cleanup(final Mapper<NullWritable, FaunusVertex, LongWritable, Holder>.Context context) throws IOException, InterruptedException {
+            this.dischargeMap(context);
+        }
+    }
+
+    public static class Combiner extends Reducer<LongWritable, Holder, LongWritable, Holder> {
+
+        private boolean pathEnabled;
+        private FaunusVertex vertex;
+        private final Holder<FaunusVertex> holder = new Holder<FaunusVertex>();
+
+        @Override
+        public void setup(final Reducer.Context context) throws IOException, InterruptedException {
+            this.pathEnabled = context.getConfiguration().getBoolean(FaunusCompiler.PATH_ENABLED, false);
+            this.vertex = new FaunusVertex(this.pathEnabled);
+        }
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<Holder> values, final Reducer<LongWritable, Holder, LongWritable, Holder>.Context context) throws IOException, InterruptedException {
+            long pathCount = 0l;
+            long pathRecords = 0l;
+            for (final Holder holder : values) {
+                if (holder.getTag() == 'p' && !this.pathEnabled) {
+                    pathCount = pathCount + holder.get().pathCount();
+                    pathRecords++;
+                } else {
+                    context.write(key, holder);
+                }
+            }
+            if (pathRecords > 0) {
+                this.vertex.reuse(key.get());
+                this.vertex.incrPath(pathCount);
+                context.write(key, this.holder.set('p', this.vertex));
+                context.getCounter(Counters.PATH_RECORDS_COMBINED).increment(pathRecords - 1);
+            }
+        }
     }
 
     public static class Reduce extends Reducer<LongWritable, Holder, NullWritable, FaunusVertex> {
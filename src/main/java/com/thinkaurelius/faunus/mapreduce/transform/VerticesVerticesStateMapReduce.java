@@ -0,0 +1,165 @@
+package com.thinkaurelius.faunus.mapreduce.transform;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.hdfs.MapFileReaders;
+import com.thinkaurelius.faunus.mapreduce.util.CounterMap;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.Reducer;
+
+import java.io.IOException;
+
+import static com.tinkerpop.blueprints.Direction.*;
+
+/**
+ * VerticesVerticesStateMapReduce is the sparse counterpart of VerticesVerticesMapReduce.
+ * Only (vertex id, path count) pairs are shuffled -- the adjacency of a vertex is looked up in the topology
+ * written by TopologyMapReduce. The input is either the topology itself (the first step of a traversal)
+ * or the path counts written by the previous step, which are sorted and partitioned like the topology.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class VerticesVerticesStateMapReduce {
+
+    public static final String DIRECTION = Tokens.makeNamespace(VerticesVerticesStateMapReduce.class) + ".direction";
+    public static final String LABELS = Tokens.makeNamespace(VerticesVerticesStateMapReduce.class) + ".labels";
+    public static final String TOPOLOGY_LOCATION = Tokens.makeNamespace(VerticesVerticesStateMapReduce.class) + ".topologyLocation";
+
+    public enum Counters {
+        EDGES_TRAVERSED,
+        TOPOLOGY_LOOKUPS,
+        PATH_RECORDS_EMITTED
+    }
+
+    public static Configuration createConfiguration(final Direction direction, final String... labels) {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(DIRECTION, direction.name());
+        configuration.setStrings(LABELS, labels);
+        return configuration;
+    }
+
+    public static class Map extends Mapper<Writable, Writable, LongWritable, LongWritable> {
+
+        private Direction direction;
+        private String[] labels;
+        private Configuration configuration;
+        private MapFileReaders topology = null;
+
+        private final FaunusVertex vertex = new FaunusVertex();
+        private final LongWritable longWritable1 = new LongWritable();
+        private final LongWritable longWritable2 = new LongWritable();
+        // making use of in-map aggregation/combiner
+        private CounterMap<Long> map;
+        private int mapSpillOver;
+
+        @Override
+        public void setup(final Mapper.Context context) throws IOException, InterruptedException {
+            this.configuration = context.getConfiguration();
+            this.direction = Direction.valueOf(this.configuration.get(DIRECTION));
+            this.labels = this.configuration.getStrings(LABELS, new String[0]);
+            this.map = new CounterMap<Long>();
+            this.mapSpillOver = this.configuration.getInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, Tokens.DEFAULT_MAP_SPILL_OVER);
+        }
+
+        @Override
+        public void map(final Writable key, final Writable value, final Mapper<Writable, Writable, LongWritable, LongWritable>.Context context) throws IOException, InterruptedException {
+            final FaunusVertex vertex;
+            final long pathCount;
+            if (value instanceof FaunusVertex) {
+                vertex = (FaunusVertex) value;
+                pathCount = vertex.pathCount();
+            } else {
+                pathCount = ((LongWritable) value).get();
+                vertex = this.getTopology().get((LongWritable) key, this.vertex);
+                context.getCounter(Counters.TOPOLOGY_LOOKUPS).increment(1l);
+                if (null == vertex)
+                    return;
+            }
+
+            if (pathCount > 0) {
+                long edgesTraversed = 0l;
+                if (this.direction.equals(OUT) || this.direction.equals(BOTH)) {
+                    for (final long id : vertex.getVertexIds(OUT, this.labels)) {
+                        this.map.incr(id, pathCount);
+                        edgesTraversed++;
+                    }
+                }
+                if (this.direction.equals(IN) || this.direction.equals(BOTH)) {
+                    for (final long id : vertex.getVertexIds(IN, this.labels)) {
+                        this.map.incr(id, pathCount);
+                        edgesTraversed++;
+                    }
+                }
+                context.getCounter(Counters.EDGES_TRAVERSED).increment(edgesTraversed);
+
+                // protected against memory explosion
+                if (this.map.size() > this.mapSpillOver) {
+                    this.dischargeMap(context);
+                }
+            }
+        }
+
+        private MapFileReaders getTopology() throws IOException {
+            if (null == this.topology) {
+                final String location = this.configuration.get(TOPOLOGY_LOCATION);
+                if (null == location)
+                    throw new IOException("The location of the topology has not been provided: " + TOPOLOGY_LOCATION);
+                this.topology = new MapFileReaders(new Path(location), this.configuration);
+            }
+            return this.topology;
+        }
+
+        public void dischargeMap(final Mapper<Writable, Writable, LongWritable, LongWritable>.Context context) throws IOException, InterruptedException {
+            for (final java.util.Map.Entry<Long, Long> entry : this.map.entrySet()) {
+                this.longWritable1.set(entry.getKey());
+                this.longWritable2.set(entry.getValue());
+                context.write(this.longWritable1, this.longWritable2);
+            }
+            context.getCounter(Counters.PATH_RECORDS_EMITTED).increment(this.map.size());
+            this.map.clear();
+        }
+
+        @Override
+        public void cleanup(final Mapper<Writable, Writable, LongWritable, LongWritable>.Context context) throws IOException, InterruptedException {
+            this.dischargeMap(context);
+            if (null != this.topology)
+                this.topology.close();
+        }
+    }
+
+    public static class Combiner extends Reducer<LongWritable, LongWritable, LongWritable, LongWritable> {
+
+        private final LongWritable longWritable = new LongWritable();
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<LongWritable> values, final Reducer<LongWritable, LongWritable, LongWritable, LongWritable>.Context context) throws IOException, InterruptedException {
+            long totalCount = 0;
+            for (final LongWritable token : values) {
+                totalCount = totalCount + token.get();
+            }
+            this.longWritable.set(totalCount);
+            context.write(key, this.longWritable);
+        }
+    }
+
+    public static class Reduce extends Reducer<LongWritable, LongWritable, LongWritable, LongWritable> {
+
+        private final LongWritable longWritable = new LongWritable();
+
+        @Override
+        public void reduce(final LongWritable key, final Iterable<LongWritable> values, final Reducer<LongWritable, LongWritable, LongWritable, LongWritable>.Context context) throws IOException, InterruptedException {
+            long totalCount = 0;
+            for (final LongWritable token : values) {
+                totalCount = totalCount + token.get();
+            }
+            this.longWritable.set(totalCount);
+            context.write(key, this.longWritable);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.thinkaurelius.faunus.mapreduce.util;
+
+import com.tinkerpop.gremlin.groovy.Gremlin;
+import com.tinkerpop.gremlin.groovy.jsr223.DefaultImportCustomizerProvider;
+import com.tinkerpop.pipes.PipeFunction;
+import groovy.lang.GroovyClassLoader;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.log4j.Logger;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.tools.GroovyClass;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ClosureCompiler compiles the Gremlin closures of a pipeline into classes when the pipeline is constructed.
+ * The bytecode is stored next to the closure in the configuration and tasks define the classes from it
+ * rather than creating a script engine and compiling the closure in every task JVM.
+ * The compiled classes implement PipeFunction and the closure body is the body of compute() where possible.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ClosureCompiler {
+
+    public static final Logger logger = Logger.getLogger(ClosureCompiler.class);
+
+    public static final String COMPILED = ".compiled";
+
+    private static final String IT = "it";
+    private static final String CLASS_PREFIX = "FaunusFunction";
+    private static final String EQUALS = "=";
+    // a closure with a single untyped parameter: { name -> body }
+    private static final Pattern PARAMETER = Pattern.compile("^\\{\\s*([a-zA-Z_$][\\w$]*)\\s*->(.*)\\}$", Pattern.DOTALL);
+    private static final Pattern NO_PARAMETER = Pattern.compile("^\\{(.*)\\}$", Pattern.DOTALL);
+
+    private static final ConcurrentMap<String, Class<? extends PipeFunction>> functions = new ConcurrentHashMap<String, Class<? extends PipeFunction>>();
+
+    static {
+        Gremlin.load();
+    }
+
+    /**
+     * Compile the closure stored at the key and store its bytecode at key + COMPILED.
+     * A closure that does not compile is left to fail where it is used (e.g. it references a class that is only on the
+     * classpath of the tasks) -- the compilation error is logged at debug level.
+     */
+    public static void compileClosure(final Configuration configuration, final String key) {
+        final String closure = configuration.get(key);
+        if (null == closure)
+            return;
+        try {
+            final String[] function = toFunction(closure);
+            storeClasses(configuration, key, compile(function[0], function[1]));
+        } catch (final CompilationFailedException e) {
+            try {
+                storeClasses(configuration, key, compile(IT, toCall(closure)));
+            } catch (final CompilationFailedException e1) {
+                logger.debug("The closure at " + key + " is compiled by the tasks as it did not compile: " + closure, e1);
+            }
+        }
+    }
+
+    /**
+     * Compile the script stored at the key into a function of the provided parameter and store its bytecode at key + COMPILED.
+     *
+     * @throws IllegalArgumentException if the script does not compile
+     */
+    public static void compileScript(final Configuration configuration, final String key, final String parameter) {
+        final String script = configuration.get(key);
+        if (null == script)
+            return;
+        try {
+            storeClasses(configuration, key, compile(parameter, script));
+        } catch (final CompilationFailedException e) {
+            throw new IllegalArgumentException("The script at " + key + " does not compile: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the function of the closure stored at the key or null if there is no closure.
+     */
+    public static PipeFunction getClosure(final Configuration configuration, final String key) throws IOException {
+        final String closure = configuration.get(key);
+        if (null == closure)
+            return null;
+        final String[] function = toFunction(closure);
+        final String call = toCall(closure);
+        try {
+            // the closure was compiled as a call when its body could not be the body of compute()
+            if (hasClasses(configuration, key, toClassName(IT, call)))
+                return newInstance(IT, call, configuration, key);
+            try {
+                return newInstance(function[0], function[1], configuration, key);
+            } catch (final CompilationFailedException e) {
+                return newInstance(IT, call, configuration, key);
+            }
+        } catch (final Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the function of the script stored at the key (or of the default script) where the script is a function of the parameter.
+     */
+    public static PipeFunction getScript(final Configuration configuration, final String key, final String parameter, final String defaultScript) throws IOException {
+        final String script = configuration.get(key, defaultScript);
+        try {
+            return newInstance(parameter, script, configuration, key);
+        } catch (final Exception e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static String[] toFunction(final String closure) {
+        final String trimmed = closure.trim();
+        Matcher matcher = PARAMETER.matcher(trimmed);
+        if (matcher.matches())
+            return new String[]{matcher.group(1), matcher.group(2)};
+        matcher = NO_PARAMETER.matcher(trimmed);
+        if (matcher.matches() && !matcher.group(1).contains("->"))
+            return new String[]{IT, matcher.group(1)};
+        return new String[]{IT, toCall(closure)};
+    }
+
+    private static String toCall(final String closure) {
+        return "(" + closure + ").call(" + IT + ")";
+    }
+
+    private static String toClassName(final String parameter, final String body) {
+        return CLASS_PREFIX + DigestUtils.md5Hex(parameter + EQUALS + body);
+    }
+
+    private static boolean hasClasses(final Configuration configuration, final String key, final String name) {
+        final String[] classes = configuration.getStrings(key + COMPILED);
+        return null != classes && classes.length > 0 && classes[0].startsWith(name + EQUALS);
+    }
+
+    private static PipeFunction newInstance(final String parameter, final String body, final Configuration configuration, final String key) throws Exception {
+        final String name = toClassName(parameter, body);
+        Class<? extends PipeFunction> function = functions.get(name);
+        if (null == function) {
+            final Map<String, byte[]> classes = hasClasses(configuration, key, name) ? loadClasses(configuration, key) : compile(parameter, body);
+            function = (Class<? extends PipeFunction>) new BytecodeClassLoader(classes).loadClass(name);
+            final Class<? extends PipeFunction> previous = functions.putIfAbsent(name, function);
+            if (null != previous)
+                function = previous;
+        }
+        return function.newInstance();
+    }
+
+    private static Map<String, byte[]> compile(final String parameter, final String body) throws CompilationFailedException {
+        final String name = toClassName(parameter, body);
+        final String source = "class " + name + " implements " + PipeFunction.class.getName() + " {\n" +
+                "  Object compute(Object " + parameter + ") {\n" + body + "\n  }\n}";
+
+        final CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        compilerConfiguration.addCompilationCustomizers(new DefaultImportCustomizerProvider().getImportCustomizer());
+        final CompilationUnit unit = new CompilationUnit(compilerConfiguration, null, new GroovyClassLoader(ClosureCompiler.class.getClassLoader(), compilerConfiguration));
+        unit.addSource(name + ".groovy", source);
+        unit.compile(Phases.CLASS_GENERATION);
+
+        // the function class comes first and is followed by the classes of the closures it contains
+        final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (final Object object : unit.getClasses()) {
+            final GroovyClass groovyClass = (GroovyClass) object;
+            if (groovyClass.getName().equals(name))
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+        }
+        for (final Object object : unit.getClasses()) {
+            final GroovyClass groovyClass = (GroovyClass) object;
+            if (!groovyClass.getName().equals(name))
+                classes.put(groovyClass.getName(), groovyClass.getBytes());
+        }
+        return classes;
+    }
+
+    private static void storeClasses(final Configuration configuration, final String key, final Map<String, byte[]> classes) {
+        final String[] strings = new String[classes.size()];
+        int i = 0;
+        for (final Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            strings[i++] = entry.getKey() + EQUALS + new String(Base64.encodeBase64(entry.getValue()));
+        }
+        configuration.setStrings(key + COMPILED, strings);
+    }
+
+    private static Map<String, byte[]> loadClasses(final Configuration configuration, final String key) {
+        final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (final String string : configuration.getStrings(key + COMPILED)) {
+            final int index = string.indexOf(EQUALS);
+            classes.put(string.substring(0, index), Base64.decodeBase64(string.substring(index + 1).getBytes()));
+        }
+        return classes;
+    }
+
+    private static class BytecodeClassLoader extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        public BytecodeClassLoader(final Map<String, byte[]> classes) {
+            super(ClosureCompiler.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            final byte[] bytes = this.classes.get(name);
+            if (null == bytes)
+                throw new ClassNotFoundException(name);
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -108,7 +108,8 @@ public class KryoSerializer extends DefaultAttributeHandling implements Serializ
         objectVerificationCache.put(type,Boolean.TRUE);
     }
 
-    Kryo getKryo() {
+    //Used by Faunus - DON'T REMOVE
+    public Kryo getKryo() {
         return kryos.get();
     }
 
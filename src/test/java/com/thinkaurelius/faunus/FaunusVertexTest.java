@@ -1,5 +1,6 @@
 package com.thinkaurelius.faunus;
 
+import com.google.common.base.Predicate;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
@@ -16,6 +17,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +80,154 @@ public class FaunusVertexTest extends BaseTest {
 
     }
 
+    public void testCompactAdjacencySerialization() throws IOException {
+        FaunusVertex vertex1 = new FaunusVertex(10l);
+        vertex1.addEdge(OUT, new FaunusEdge(1l, 10l, 2l, "knows"));
+        vertex1.addEdge(OUT, new FaunusEdge(2l, 10l, 3l, "knows"));
+        vertex1.addEdge(IN, new FaunusEdge(3l, 4l, 10l, "created")).setProperty("weight", 0.5d);
+
+        ByteArrayOutputStream bytes1 = new ByteArrayOutputStream();
+        vertex1.write(new DataOutputStream(bytes1));
+        FaunusVertex vertex2 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(bytes1.toByteArray())));
+
+        assertEquals(vertex2.getVertexIds(OUT).length, 2);
+        assertEquals(vertex2.getVertexIds(IN, "created")[0], 4l);
+        assertEquals(vertex2.getVertexIds(BOTH, "knows", "created").length, 3);
+
+        // re-serializing a vertex whose edges were never touched yields the same bytes
+        ByteArrayOutputStream bytes2 = new ByteArrayOutputStream();
+        vertex2.write(new DataOutputStream(bytes2));
+        assertTrue(Arrays.equals(bytes1.toByteArray(), bytes2.toByteArray()));
+
+        final FaunusEdge edge = (FaunusEdge) vertex2.getEdges(OUT, "knows").iterator().next();
+        assertEquals(edge.getVertexId(OUT), 10l);
+        assertSame(edge, vertex2.getEdges(OUT, "knows").iterator().next());
+        edge.setProperty("since", 2012);
+        assertEquals(vertex2.getEdges(IN).iterator().next().getProperty("weight"), 0.5d);
+
+        ByteArrayOutputStream bytes3 = new ByteArrayOutputStream();
+        vertex2.write(new DataOutputStream(bytes3));
+        FaunusVertex vertex3 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(bytes3.toByteArray())));
+        int counter = 0;
+        for (final Edge e : vertex3.getEdges(OUT, "knows")) {
+            if (((FaunusEdge) e).getIdAsLong() == edge.getIdAsLong()) {
+                assertEquals(e.getProperty("since"), 2012);
+                counter++;
+            } else
+                assertNull(e.getProperty("since"));
+        }
+        assertEquals(counter, 1);
+    }
+
+    public void testLazyPropertySerialization() throws IOException {
+        FaunusVertex vertex1 = new FaunusVertex(10l);
+        vertex1.setProperty("name", "marko");
+        vertex1.setProperty("age", 32);
+        vertex1.addEdge(OUT, new FaunusEdge(1l, 10l, 2l, "knows")).setProperty("weight", 0.5d);
+
+        ByteArrayOutputStream bytes1 = new ByteArrayOutputStream();
+        vertex1.write(new DataOutputStream(bytes1));
+        FaunusVertex vertex2 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(bytes1.toByteArray())));
+        assertEquals(vertex2.getPropertyCount(), 2);
+
+        // untouched properties are written back as the bytes that were read
+        ByteArrayOutputStream bytes2 = new ByteArrayOutputStream();
+        vertex2.write(new DataOutputStream(bytes2));
+        assertTrue(Arrays.equals(bytes1.toByteArray(), bytes2.toByteArray()));
+
+        FaunusVertex vertex3 = new FaunusVertex(10l);
+        vertex3.addAll(vertex2);
+        assertEquals(vertex3.getPropertyCount(), 2);
+        assertEquals(vertex3.getProperty("name"), "marko");
+        assertEquals(vertex2.getProperty("age"), 32);
+        assertEquals(((FaunusEdge) vertex2.getEdges(OUT).iterator().next()).getPropertyCount(), 1);
+        assertEquals(vertex2.getEdges(OUT).iterator().next().getProperty("weight"), 0.5d);
+
+        vertex2.setProperty("name", "okram");
+        ByteArrayOutputStream bytes3 = new ByteArrayOutputStream();
+        vertex2.write(new DataOutputStream(bytes3));
+        FaunusVertex vertex4 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(bytes3.toByteArray())));
+        assertEquals(vertex4.getProperty("name"), "okram");
+        assertEquals(vertex4.getProperty("age"), 32);
+        assertEquals(vertex4.getPropertyKeys().size(), 2);
+    }
+
+    public void testDictionaryEncodedSerialization() throws IOException {
+        FaunusVertex vertex1 = new FaunusVertex(10l);
+        vertex1.setProperty("name", "marko");
+        vertex1.setProperty("location", "santa fe");
+        vertex1.addEdge(OUT, new FaunusEdge(1l, 10l, 2l, "knows")).setProperty("weight", 0.5d);
+        vertex1.addEdge(OUT, new FaunusEdge(2l, 10l, 3l, "created"));
+        vertex1.addEdge(IN, new FaunusEdge(3l, 4l, 10l, "likes"));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        vertex1.write(new DataOutputStream(plain));
+
+        final Configuration encode = new Configuration();
+        encode.setStrings(Tokens.FAUNUS_GRAPH_DICTIONARY, "knows", "created", "name", "weight");
+        encode.setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, true);
+        final Configuration decode = new Configuration(encode);
+        decode.setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, false);
+        try {
+            FaunusElement.ElementDictionary.configure(encode);
+            ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+            vertex1.write(new DataOutputStream(encoded));
+            assertTrue(encoded.size() < plain.size());
+
+            // plain records are still readable and are re-encoded when written
+            FaunusVertex vertex2 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(plain.toByteArray())));
+            ByteArrayOutputStream reencoded = new ByteArrayOutputStream();
+            vertex2.write(new DataOutputStream(reencoded));
+            assertEquals(reencoded.size(), encoded.size());
+
+            // the final job of a chain reads with the dictionary but writes plain strings
+            FaunusElement.ElementDictionary.configure(decode);
+            FaunusVertex vertex3 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(encoded.toByteArray())));
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            vertex3.write(new DataOutputStream(decoded));
+            assertEquals(decoded.size(), plain.size());
+
+            assertEquals(vertex3.getProperty("name"), "marko");
+            assertEquals(vertex3.getProperty("location"), "santa fe");
+            assertEquals(vertex3.getEdges(OUT, "knows").iterator().next().getProperty("weight"), 0.5d);
+            assertEquals(vertex3.getVertexIds(OUT, "created")[0], 3l);
+            assertEquals(vertex3.getVertexIds(IN, "likes")[0], 4l);
+            assertEquals(vertex3.getVertexIds(BOTH).length, 3);
+        } finally {
+            final Configuration reset = new Configuration();
+            reset.setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, false);
+            FaunusElement.ElementDictionary.configure(reset);
+        }
+    }
+
+    public void testBareEdgeSerialization() throws IOException {
+        FaunusVertex vertex1 = new FaunusVertex(10l);
+        vertex1.addEdge(OUT, new FaunusEdge(1l, 10l, 2l, "knows"));
+        vertex1.addEdge(IN, new FaunusEdge(2l, 3l, 10l, "knows"));
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        vertex1.write(new DataOutputStream(plain));
+        // the edges of the read vertex are not materialized
+        FaunusVertex vertex2 = new FaunusVertex(new DataInputStream(new ByteArrayInputStream(plain.toByteArray())));
+
+        final Configuration encode = new Configuration();
+        encode.setStrings(Tokens.FAUNUS_GRAPH_DICTIONARY, "knows");
+        encode.setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, true);
+        try {
+            // bare and materialized edges share the element header and so the flags it carries
+            FaunusElement.ElementDictionary.configure(encode);
+            ByteArrayOutputStream materialized = new ByteArrayOutputStream();
+            vertex1.write(new DataOutputStream(materialized));
+            ByteArrayOutputStream bare = new ByteArrayOutputStream();
+            vertex2.write(new DataOutputStream(bare));
+            assertTrue(Arrays.equals(materialized.toByteArray(), bare.toByteArray()));
+        } finally {
+            final Configuration reset = new Configuration();
+            reset.setBoolean(Tokens.FAUNUS_GRAPH_DICTIONARY_ENCODE, false);
+            FaunusElement.ElementDictionary.configure(reset);
+        }
+    }
+
     public void testVertexSerialization() throws IOException {
 
         FaunusVertex vertex1 = new FaunusVertex(10);
@@ -257,6 +407,52 @@ public class FaunusVertexTest extends BaseTest {
         assertEquals(vertex.getProperty("name"), "marko");
     }
 
+    public void testRetainingEdges() {
+        FaunusVertex vertex = new FaunusVertex(1l);
+        for (long i = 0; i < 10; i++) {
+            vertex.addEdge(OUT, new FaunusEdge(i, vertex.getIdAsLong(), i, i % 2 == 0 ? "knows" : "created"));
+            vertex.addEdge(IN, new FaunusEdge(i, i, vertex.getIdAsLong(), "knows"));
+        }
+        final Predicate<FaunusEdge> even = new Predicate<FaunusEdge>() {
+            public boolean apply(final FaunusEdge edge) {
+                return edge.getIdAsLong() % 2 == 0;
+            }
+        };
+        assertEquals(vertex.retainEdges(OUT, even, "knows"), 0l);
+        assertEquals(vertex.retainEdges(OUT, even), 5l);
+        assertEquals(asList(vertex.getEdges(OUT, "created")).size(), 0);
+        assertEquals(asList(vertex.getEdges(OUT, "knows")).size(), 5);
+        assertEquals(vertex.retainEdges(BOTH, even), 5l);
+        assertEquals(asList(vertex.getEdges(BOTH)).size(), 10);
+
+        vertex.removeEdgesToFrom(new HashSet<Long>(Arrays.asList(0l, 2l)));
+        assertEquals(asList(vertex.getEdges(OUT)).size(), 3);
+        assertEquals(asList(vertex.getEdges(IN)).size(), 3);
+        for (final Edge edge : vertex.getEdges(OUT)) {
+            assertFalse(((FaunusEdge) edge).getVertexId(IN) == 0l || ((FaunusEdge) edge).getVertexId(IN) == 2l);
+        }
+    }
+
+    public void testRetainingEdgesOfHighDegree() {
+        final Predicate<FaunusEdge> even = new Predicate<FaunusEdge>() {
+            public boolean apply(final FaunusEdge edge) {
+                return edge.getVertexId(IN) % 2 == 0;
+            }
+        };
+        final FaunusVertex vertex = new FaunusVertex(1l);
+        for (long i = 0; i < 1000; i++) {
+            vertex.addEdge(OUT, new FaunusEdge(i, vertex.getIdAsLong(), i, "knows"));
+        }
+        assertEquals(vertex.retainEdges(OUT, even), 500l);
+        // the kept edges are in their original order
+        long next = 0;
+        for (final Edge edge : vertex.getEdges(OUT)) {
+            assertEquals(((FaunusEdge) edge).getVertexId(IN), next);
+            next = next + 2;
+        }
+        assertEquals(next, 1000l);
+    }
+
     public void testGetVerticesAndQuery() throws Exception {
         Map<Long, FaunusVertex> graph = generateGraph(ExampleGraph.TINKERGRAPH, new Configuration());
         for (FaunusVertex vertex : graph.values()) {
@@ -6,7 +6,9 @@ import com.thinkaurelius.faunus.Holder;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
 import com.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
@@ -25,8 +27,10 @@ import org.apache.log4j.Level;
 import javax.script.ScriptException;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -502,6 +506,81 @@ public class BlueprintsGraphOutputMapReduceTest extends BaseTest {
         assertTrue(vertices.contains(josh));
     }
 
+    public void testBatchedCommits() throws Exception {
+        final FlakyTransactionalGraph flakyGraph = new FlakyTransactionalGraph(1);
+        TinkerGraphOutputMapReduce.graph = flakyGraph;
+        Configuration conf = BlueprintsGraphOutputMapReduce.createConfiguration();
+        conf.setLong(BlueprintsGraphOutputMapReduce.FAUNUS_GRAPH_OUTPUT_BLUEPRINTS_COMMIT_MUTATIONS, 6l);
+        vertexMapReduceDriver.withConfiguration(conf);
+        Map<Long, FaunusVertex> graph = runWithGraph(generateGraph(BaseTest.ExampleGraph.TINKERGRAPH, conf), vertexMapReduceDriver);
+        assertEquals(graph.size(), 6);
+        // the first batch failed to commit and was written again
+        assertEquals(vertexMapReduceDriver.getCounters().findCounter(BlueprintsGraphOutputMapReduce.Counters.FAILED_TRANSACTIONS).getValue(), 1l);
+        assertEquals(vertexMapReduceDriver.getCounters().findCounter(BlueprintsGraphOutputMapReduce.Counters.RETRIED_TRANSACTIONS).getValue(), 1l);
+        assertEquals(vertexMapReduceDriver.getCounters().findCounter(BlueprintsGraphOutputMapReduce.Counters.SUCCESSFUL_TRANSACTIONS).getValue(), 3l);
+        assertEquals(count(flakyGraph.getVertices()), 6);
+
+        edgeMapReduceDriver.withConfiguration(conf);
+        for (Map.Entry<Long, FaunusVertex> entry : graph.entrySet()) {
+            edgeMapReduceDriver.withInput(NullWritable.get(), entry.getValue());
+        }
+        assertEquals(edgeMapReduceDriver.run().size(), 6);
+        assertEquals(edgeMapReduceDriver.getCounters().findCounter(BlueprintsGraphOutputMapReduce.Counters.FAILED_TRANSACTIONS).getValue(), 0l);
+        assertEquals(count(flakyGraph.getEdges()), 6);
+        for (final Vertex vertex : flakyGraph.getVertices()) {
+            assertEquals(vertex.getPropertyKeys().size(), 2);
+        }
+    }
+
+    /**
+     * A TinkerGraph with transactions that undo the elements added since the last commit and that fails the
+     * first commits.
+     */
+    public static class FlakyTransactionalGraph extends TinkerGraph implements TransactionalGraph {
+
+        private final List<Element> added = new ArrayList<Element>();
+        private int failures;
+
+        public FlakyTransactionalGraph(final int failures) {
+            this.failures = failures;
+        }
+
+        public Vertex addVertex(final Object id) {
+            final Vertex vertex = super.addVertex(id);
+            this.added.add(vertex);
+            return vertex;
+        }
+
+        public Edge addEdge(final Object id, final Vertex outVertex, final Vertex inVertex, final String label) {
+            final Edge edge = super.addEdge(id, outVertex, inVertex, label);
+            this.added.add(edge);
+            return edge;
+        }
+
+        public void commit() {
+            if (this.failures-- > 0)
+                throw new RuntimeException("The transaction failed to commit");
+            this.added.clear();
+        }
+
+        public void rollback() {
+            for (int i = this.added.size() - 1; i >= 0; i--) {
+                if (this.added.get(i) instanceof Vertex)
+                    this.removeVertex((Vertex) this.added.get(i));
+                else
+                    this.removeEdge((Edge) this.added.get(i));
+            }
+            this.added.clear();
+        }
+
+        public void stopTransaction(final Conclusion conclusion) {
+            if (conclusion == Conclusion.SUCCESS)
+                this.commit();
+            else
+                this.rollback();
+        }
+    }
+
     public static class TinkerGraphOutputMapReduce extends BlueprintsGraphOutputMapReduce {
 
         private static Graph graph = new TinkerGraph();
@@ -2,6 +2,8 @@ package com.thinkaurelius.faunus.formats;
 
 import com.thinkaurelius.faunus.formats.graphson.GraphSONInputFormat;
 import com.thinkaurelius.faunus.formats.graphson.GraphSONOutputFormat;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphInputFormat;
+import com.thinkaurelius.faunus.formats.indexed.IndexedGraphOutputFormat;
 import com.thinkaurelius.faunus.formats.noop.NoOpOutputFormat;
 import com.thinkaurelius.faunus.formats.script.ScriptInputFormat;
 import com.thinkaurelius.faunus.formats.script.ScriptOutputFormat;
@@ -26,6 +28,7 @@ public class InverterTest extends TestCase {
         assertEquals(Inverter.invertInputFormat(TitanHBaseInputFormat.class), TitanHBaseOutputFormat.class);
         assertEquals(Inverter.invertInputFormat(TitanCassandraInputFormat.class), TitanCassandraOutputFormat.class);
         assertEquals(Inverter.invertInputFormat(ScriptInputFormat.class), ScriptOutputFormat.class);
+        assertEquals(Inverter.invertInputFormat(IndexedGraphInputFormat.class), IndexedGraphOutputFormat.class);
         try {
             Inverter.invertInputFormat(TextInputFormat.class);
             assertFalse(true);
@@ -40,6 +43,7 @@ public class InverterTest extends TestCase {
         assertEquals(Inverter.invertOutputFormat(TitanCassandraOutputFormat.class), TitanCassandraInputFormat.class);
         assertEquals(Inverter.invertOutputFormat(TitanHBaseOutputFormat.class), TitanHBaseInputFormat.class);
         assertEquals(Inverter.invertOutputFormat(ScriptOutputFormat.class), ScriptInputFormat.class);
+        assertEquals(Inverter.invertOutputFormat(IndexedGraphOutputFormat.class), IndexedGraphInputFormat.class);
         try {
             Inverter.invertOutputFormat(NoOpOutputFormat.class);
             assertFalse(true);
@@ -2,6 +2,8 @@ package com.thinkaurelius.faunus.formats;
 
 import com.thinkaurelius.faunus.BaseTest;
 import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONUtility;
+import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import org.apache.hadoop.conf.Configuration;
@@ -90,4 +92,52 @@ public class VertexQueryFilterTest extends BaseTest {
         assertEquals(counter, 6);
     }
 
+    public void testVertexPredicates() {
+        Configuration config = new Configuration();
+        VertexQueryFilter.addPredicate(config, "name", Compare.EQUAL, String.class, "marko", "josh");
+        VertexQueryFilter.addPredicate(config, "age", Compare.GREATER_THAN, Integer.class, "30");
+        VertexQueryFilter query = VertexQueryFilter.create(config);
+        assertTrue(query.hasPredicates());
+        assertFalse(query.doesFilter());
+        Map<Long, FaunusVertex> graph = generateGraph(ExampleGraph.TINKERGRAPH);
+        assertTrue(query.isLegal(graph.get(4l), null));
+        assertFalse(query.isLegal(graph.get(1l), null));
+        assertFalse(query.isLegal(graph.get(6l), null));
+        assertFalse(query.isLegal(graph.get(3l), null));
+        assertFalse(VertexQueryFilter.create(new Configuration()).hasPredicates());
+    }
+
+    public void testVertexPredicatesRecords() throws Exception {
+        Configuration config = new Configuration();
+        VertexQueryFilter.addPredicate(config, "name", Compare.EQUAL, String.class, "marko", "josh");
+        VertexQueryFilter query = VertexQueryFilter.create(config);
+        assertTrue(mayBeLegal(query, "{\"name\":\"marko\",\"_id\":1}"));
+        assertTrue(mayBeLegal(query, "{\"name\":\"peter\",\"knows\":\"josh\",\"_id\":6}"));
+        assertFalse(mayBeLegal(query, "{\"name\":\"peter\",\"_id\":6}"));
+
+        config = new Configuration();
+        VertexQueryFilter.addPredicate(config, "name", Compare.NOT_EQUAL, String.class, "marko");
+        VertexQueryFilter.addPredicate(config, "age", Compare.EQUAL, Integer.class, "29");
+        query = VertexQueryFilter.create(config);
+        assertTrue(mayBeLegal(query, "{\"name\":\"peter\",\"_id\":6}"));
+    }
+
+    public void testVertexPredicatesEscapedRecords() throws Exception {
+        Configuration config = new Configuration();
+        VertexQueryFilter.addPredicate(config, "name", Compare.EQUAL, String.class, "marko", "http://josh");
+        VertexQueryFilter query = VertexQueryFilter.create(config);
+        assertTrue(mayBeLegal(query, "{\"name\":\"http://josh\",\"_id\":4}"));
+        assertFalse(mayBeLegal(query, "{\"name\":\"peter\",\"_id\":6}"));
+
+        // the escaped spellings of a matching value are not rejected and decode to a legal vertex
+        for (final String record : new String[]{"{\"name\":\"http:\\/\\/josh\",\"_id\":4}", "{\"name\":\"\\u006Darko\",\"_id\":1}"}) {
+            assertTrue(mayBeLegal(query, record));
+            assertTrue(query.isLegal(FaunusGraphSONUtility.fromJSON(record), null));
+        }
+    }
+
+    private static boolean mayBeLegal(final VertexQueryFilter query, final String record) throws Exception {
+        final byte[] bytes = record.getBytes("UTF-8");
+        return query.mayBeLegal(bytes, bytes.length, null);
+    }
 }
@@ -5,6 +5,7 @@ import com.thinkaurelius.faunus.FaunusEdge;
 import com.thinkaurelius.faunus.FaunusElement;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
@@ -136,4 +137,48 @@ public class EdgeListInputMapReduceTest extends BaseTest {
         assertEquals(results.get(1l).getEdges(Direction.OUT).iterator().next().getProperty("weight"), 1.2f);
         assertEquals(results.get(2l).getEdges(Direction.IN).iterator().next().getProperty("weight"), 1.2f);
     }
+
+    private void addTriangle() {
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusVertex(1));
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusVertex(2));
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusVertex(3));
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusEdge(1, 2, "likes"));
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusEdge(2, 3, "hates"));
+        mapReduceDriver.addInput(NullWritable.get(), new FaunusEdge(3, 1, "likes"));
+    }
+
+    private void assertTriangle(final Map<Long, FaunusVertex> results) {
+        assertEquals(results.size(), 3);
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(count(results.get(id).getEdges(Direction.OUT)), 1);
+            assertEquals(count(results.get(id).getEdges(Direction.IN)), 1);
+        }
+        assertEquals(results.get(2l).getEdges(Direction.OUT).iterator().next().getLabel(), "hates");
+        assertEquals(results.get(3l).getEdges(Direction.IN).iterator().next().getLabel(), "hates");
+    }
+
+    public void testBufferSize() throws IOException {
+        addTriangle();
+        assertTriangle(BaseTest.run(mapReduceDriver));
+        assertEquals(mapReduceDriver.getCounters().findCounter(EdgeListInputMapReduce.Counters.BUFFER_FLUSHES).getValue(), 1l);
+        assertEquals(mapReduceDriver.getCounters().findCounter(EdgeListInputMapReduce.Counters.VERTICES_EMITTED).getValue(), 3l);
+
+        // every element is flushed on its own
+        setUp();
+        Configuration config = new Configuration();
+        config.setLong(EdgeListInputMapReduce.FAUNUS_GRAPH_INPUT_EDGELIST_BUFFER_SIZE, 1l);
+        mapReduceDriver.withConfiguration(config);
+        addTriangle();
+        assertTriangle(BaseTest.run(mapReduceDriver));
+        assertEquals(mapReduceDriver.getCounters().findCounter(EdgeListInputMapReduce.Counters.BUFFER_FLUSHES).getValue(), 6l);
+        assertEquals(mapReduceDriver.getCounters().findCounter(EdgeListInputMapReduce.Counters.VERTICES_EMITTED).getValue(), 9l);
+    }
+
+    public void testCopyElements() throws IOException {
+        Configuration config = new Configuration();
+        config.setBoolean(EdgeListInputMapReduce.FAUNUS_GRAPH_INPUT_EDGELIST_COPY_ELEMENTS, true);
+        mapReduceDriver.withConfiguration(config);
+        addTriangle();
+        assertTriangle(BaseTest.run(mapReduceDriver));
+    }
 }
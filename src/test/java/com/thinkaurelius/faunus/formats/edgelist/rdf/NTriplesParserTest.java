@@ -0,0 +1,71 @@
+package com.thinkaurelius.faunus.formats.edgelist.rdf;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class NTriplesParserTest extends TestCase {
+
+    private static boolean parse(final NTriplesParser parser, final String line) throws IOException {
+        final byte[] bytes = line.getBytes("UTF-8");
+        return parser.parse(bytes, bytes.length);
+    }
+
+    public void testTriples() throws IOException {
+        final NTriplesParser parser = new NTriplesParser(false);
+        assertTrue(parse(parser, "<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> ."));
+        assertEquals(parser.getSubject(), "http://tinkerpop.com#josh");
+        assertEquals(parser.getSubjectType(), NTriplesParser.URI);
+        assertEquals(parser.getPredicate(), "http://tinkerpop.com#created");
+        assertEquals(parser.getObject(), "http://tinkerpop.com#ripple");
+        assertEquals(parser.getObjectType(), NTriplesParser.URI);
+        assertNull(parser.getContext());
+
+        assertTrue(parse(parser, "_:b1\t<http://tinkerpop.com#age> \"32\"^^<http://www.w3.org/2001/XMLSchema#int>.  # comment"));
+        assertEquals(parser.getSubject(), "b1");
+        assertEquals(parser.getSubjectType(), NTriplesParser.BNODE);
+        assertEquals(parser.getObject(), "32");
+        assertEquals(parser.getObjectType(), NTriplesParser.LITERAL);
+        assertEquals(parser.getDatatype(), "http://www.w3.org/2001/XMLSchema#int");
+        assertNull(parser.getLanguage());
+
+        assertTrue(parse(parser, "<http://tinkerpop.com#josh> <http://tinkerpop.com#name> \"J\\u00f6sh \\\"π\\\"\\n\"@en ."));
+        assertEquals(parser.getObject(), "Jösh \"π\"\n");
+        assertEquals(parser.getLanguage(), "en");
+        assertNull(parser.getDatatype());
+
+        assertTrue(parse(parser, "<http://tinkerpop.com#josh> <http://tinkerpop.com#knows> _:b2 ."));
+        assertEquals(parser.getObject(), "b2");
+        assertEquals(parser.getObjectType(), NTriplesParser.BNODE);
+
+        assertFalse(parse(parser, ""));
+        assertFalse(parse(parser, "   "));
+        assertFalse(parse(parser, "# a comment"));
+    }
+
+    public void testQuads() throws IOException {
+        final NTriplesParser parser = new NTriplesParser(true);
+        assertTrue(parse(parser, "<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> <http://tinkerpop.com#graph> ."));
+        assertEquals(parser.getObject(), "http://tinkerpop.com#ripple");
+        assertEquals(parser.getContext(), "http://tinkerpop.com#graph");
+        assertEquals(parser.getContextType(), NTriplesParser.URI);
+        assertTrue(parse(parser, "<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> ."));
+        assertNull(parser.getContext());
+    }
+
+    public void testIllegalLines() {
+        final NTriplesParser parser = new NTriplesParser(false);
+        for (final String line : new String[]{"<http://a> <http://b> <http://c>", "<http://a> <http://b> \"c .", "<http://a <http://b> <http://c> .",
+                "<http://a> <http://b> <http://c> <http://d> .", "\"a\" <http://b> <http://c> ."}) {
+            try {
+                parse(parser, line);
+                fail("Illegal line was parsed: " + line);
+            } catch (IOException e) {
+                assertTrue(true);
+            }
+        }
+    }
+}
@@ -163,6 +163,53 @@ public class RDFBlueprintsHandlerTest extends TestCase {
         assertFalse(handler.hasNext());
     }
 
+    public void testMergeSubjects() throws Exception {
+        Configuration config = new Configuration();
+        config.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_USE_LOCALNAME, true);
+        config.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_LITERAL_AS_PROPERTY, true);
+        config.set(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT, "n-triples");
+        RDFBlueprintsHandler handler = new RDFBlueprintsHandler(config);
+        handler.setMergeSubjects(true);
+
+        handler.parse("<http://tinkerpop.com#josh> <http://tinkerpop.com#age> \"32\"^^<http://www.w3.org/2001/XMLSchema#int> .");
+        assertFalse(handler.hasNext());
+        handler.parse("<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> .");
+        assertEquals(handler.next().getProperty("uri"), "http://tinkerpop.com#ripple");
+        assertEquals(((FaunusEdge) handler.next()).getLabel(), "created");
+        assertFalse(handler.hasNext());
+        handler.parse("<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> .");
+        // ripple was already described
+        assertEquals(((FaunusEdge) handler.next()).getLabel(), "created");
+        assertFalse(handler.hasNext());
+
+        handler.parse("<http://tinkerpop.com#ripple> <http://tinkerpop.com#name> \"ripple\" .");
+        FaunusVertex josh = (FaunusVertex) handler.next();
+        assertEquals(josh.getProperty("name"), "josh");
+        assertEquals(josh.getProperty("age"), 32);
+        assertEquals(josh.getPropertyKeys().size(), 3);
+        assertFalse(handler.hasNext());
+        handler.flush();
+        FaunusVertex ripple = (FaunusVertex) handler.next();
+        assertEquals(ripple.getProperty("name"), "ripple");
+        assertEquals(ripple.getProperty("uri"), "http://tinkerpop.com#ripple");
+        assertFalse(handler.hasNext());
+    }
+
+    public void testNQuads() throws Exception {
+        Configuration config = new Configuration();
+        config.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_USE_LOCALNAME, true);
+        config.set(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT, "n-quads");
+        RDFBlueprintsHandler handler = new RDFBlueprintsHandler(config);
+
+        handler.parse("<http://tinkerpop.com#josh> <http://tinkerpop.com#created> <http://tinkerpop.com#ripple> <http://tinkerpop.com#graph> .");
+        assertEquals(handler.next().getProperty("name"), "josh");
+        assertEquals(handler.next().getProperty("name"), "ripple");
+        FaunusEdge created = (FaunusEdge) handler.next();
+        assertEquals(created.getLabel(), "created");
+        assertEquals(created.getProperty(RDFInputFormat.CONTEXT), "http://tinkerpop.com#graph");
+        assertFalse(handler.hasNext());
+    }
+
     /*
     TODO: Make multiline work with buffering
     public void testMultiLineTriple() throws Exception {
@@ -1,12 +1,22 @@
 package com.thinkaurelius.faunus.formats.edgelist.rdf;
 
 import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusElement;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.edgelist.EdgeListInputMapReduce;
+import com.tinkerpop.blueprints.Direction;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 import org.apache.hadoop.mapreduce.TaskAttemptID;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
@@ -16,6 +26,7 @@ public class RDFRecordReaderTest extends BaseTest {
     public void testRecordReader() throws Exception {
         Configuration conf = new Configuration();
         conf.set(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT, "n-triples");
+        conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_MERGE_SUBJECTS, false);
         RDFRecordReader reader = new RDFRecordReader(conf);
         reader.initialize(new FileSplit(new Path(RDFRecordReaderTest.class.getResource("graph-example-1.ntriple").toURI()), 0, Long.MAX_VALUE, new String[]{}),
                 new TaskAttemptContext(conf, new TaskAttemptID()));
@@ -29,4 +40,70 @@ public class RDFRecordReaderTest extends BaseTest {
         assertEquals(counter, 18 * 3);
         reader.close();
     }
+
+    private static List<FaunusElement> readElements(final Configuration conf) throws Exception {
+        final RDFRecordReader reader = new RDFRecordReader(conf);
+        reader.initialize(new FileSplit(new Path(RDFRecordReaderTest.class.getResource("graph-example-1.ntriple").toURI()), 0, Long.MAX_VALUE, new String[]{}),
+                new TaskAttemptContext(conf, new TaskAttemptID()));
+        final List<FaunusElement> elements = new ArrayList<FaunusElement>();
+        while (reader.nextKeyValue()) {
+            elements.add(reader.getCurrentValue());
+        }
+        reader.close();
+        return elements;
+    }
+
+    private static Map<Long, FaunusVertex> loadGraph(final List<FaunusElement> elements) throws Exception {
+        final MapReduceDriver<NullWritable, FaunusElement, LongWritable, FaunusVertex, NullWritable, FaunusVertex> driver = new MapReduceDriver<NullWritable, FaunusElement, LongWritable, FaunusVertex, NullWritable, FaunusVertex>();
+        driver.setMapper(new EdgeListInputMapReduce.Map());
+        driver.setCombiner(new EdgeListInputMapReduce.Combiner());
+        driver.setReducer(new EdgeListInputMapReduce.Reduce());
+        for (final FaunusElement element : elements) {
+            driver.addInput(NullWritable.get(), element);
+        }
+        return BaseTest.run(driver);
+    }
+
+    public void testMergedSubjects() throws Exception {
+        for (final boolean literalAsProperty : new boolean[]{false, true}) {
+            Configuration conf = new Configuration();
+            conf.set(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT, "n-triples");
+            conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_USE_LOCALNAME, true);
+            conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_LITERAL_AS_PROPERTY, literalAsProperty);
+            final List<FaunusElement> merged = readElements(conf);
+            conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_MERGE_SUBJECTS, false);
+            final List<FaunusElement> unmerged = readElements(conf);
+            assertTrue(merged.size() < unmerged.size());
+            if (!literalAsProperty)
+                assertEquals(merged.size(), 42);
+
+            // the merged elements load the same graph
+            final Map<Long, FaunusVertex> graph1 = loadGraph(merged);
+            final Map<Long, FaunusVertex> graph2 = loadGraph(unmerged);
+            assertEquals(graph1.size(), literalAsProperty ? 6 : 17);
+            assertEquals(graph1.size(), graph2.size());
+            for (final FaunusVertex vertex : graph2.values()) {
+                final FaunusVertex other = graph1.get(vertex.getIdAsLong());
+                assertEquals(other.getProperties(), vertex.getProperties());
+                assertEquals(count(other.getEdges(Direction.OUT)), count(vertex.getEdges(Direction.OUT)));
+                assertEquals(count(other.getEdges(Direction.IN)), count(vertex.getEdges(Direction.IN)));
+            }
+        }
+    }
+
+    public void testRioAndFastPath() throws Exception {
+        Configuration conf = new Configuration();
+        conf.set(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FORMAT, "n-triples");
+        conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_USE_LOCALNAME, true);
+        conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_MERGE_SUBJECTS, false);
+        final List<FaunusElement> fast = readElements(conf);
+        conf.setBoolean(RDFInputFormat.FAUNUS_GRAPH_INPUT_RDF_FAST_NTRIPLES, false);
+        final List<FaunusElement> rio = readElements(conf);
+        assertEquals(fast.size(), rio.size());
+        for (int i = 0; i < fast.size(); i++) {
+            assertEquals(fast.get(i).getClass(), rio.get(i).getClass());
+            assertEquals(fast.get(i).getIdAsLong(), rio.get(i).getIdAsLong());
+            assertEquals(fast.get(i).getProperties(), rio.get(i).getProperties());
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package com.thinkaurelius.faunus.formats.graphson;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.blueprints.Edge;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.tinkerpop.blueprints.Direction.BOTH;
+import static com.tinkerpop.blueprints.Direction.IN;
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class FaunusGraphSONCodecTest extends BaseTest {
+
+    private static FaunusVertex read(final FaunusGraphSONCodec codec, final String line, final FaunusVertex vertex) throws IOException {
+        final byte[] bytes = line.getBytes("UTF-8");
+        return codec.read(bytes, 0, bytes.length, vertex);
+    }
+
+    private static String write(final FaunusGraphSONCodec codec, final FaunusVertex vertex) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(vertex, out);
+        return new String(out.toByteArray(), "UTF-8");
+    }
+
+    public void testParser() throws IOException {
+        final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+        FaunusVertex vertex = read(codec, "{\"_id\":1}", new FaunusVertex());
+        assertEquals(vertex.getId(), 1l);
+        assertFalse(vertex.getEdges(BOTH).iterator().hasNext());
+
+        vertex = read(codec, "{\"_id\":4, \"name\":\"josh\", \"age\":32, \"_outE\":[{\"_inV\":3, \"_label\":\"created\", \"weight\":0.4}, {\"_inV\":5, \"_label\":\"created\", \"weight\":1.0}], \"_inE\":[{\"_outV\":1, \"_label\":\"knows\", \"weight\":1.0}]}", vertex);
+        assertEquals(vertex.getId(), 4l);
+        assertEquals(vertex.getPropertyKeys().size(), 2);
+        assertEquals(vertex.getProperty("name"), "josh");
+        assertEquals(vertex.getProperty("age"), 32);
+        List<Edge> edges = BaseTest.asList(vertex.getEdges(OUT));
+        assertEquals(edges.size(), 2);
+        for (final Edge edge : edges) {
+            assertEquals(edge.getLabel(), "created");
+            assertEquals(((FaunusEdge) edge).getVertexId(OUT), 4l);
+            assertTrue(((FaunusEdge) edge).getVertexId(IN) == 3l || ((FaunusEdge) edge).getVertexId(IN) == 5l);
+            assertTrue(edge.getProperty("weight").equals(0.4d) || edge.getProperty("weight").equals(1));
+        }
+        edges = BaseTest.asList(vertex.getEdges(IN));
+        assertEquals(edges.size(), 1);
+        assertEquals(edges.get(0).getLabel(), "knows");
+        assertEquals(edges.get(0).getProperty("weight"), 1);
+        assertEquals(((FaunusEdge) edges.get(0)).getVertexId(OUT), 1l);
+        assertEquals(((FaunusEdge) edges.get(0)).getVertexId(IN), 4l);
+
+        // the vertex is reused
+        assertSame(read(codec, "{\"name\":\"marko\"}", vertex), vertex);
+        assertEquals(vertex.getId(), -1l);
+        assertEquals(vertex.getPropertyKeys().size(), 1);
+        assertFalse(vertex.getEdges(BOTH).iterator().hasNext());
+    }
+
+    public void testParserIdAfterEdges() throws IOException {
+        final FaunusVertex vertex = read(new FaunusGraphSONCodec(), "{\"_outE\":[{\"_inV\":2,\"_label\":\"knows\",\"since\":2010}],\"name\":\"marko\",\"_id\":1}", new FaunusVertex());
+        assertEquals(vertex.getId(), 1l);
+        assertEquals(vertex.getProperty("name"), "marko");
+        final FaunusEdge edge = (FaunusEdge) vertex.getEdges(OUT).iterator().next();
+        assertEquals(edge.getVertexId(OUT), 1l);
+        assertEquals(edge.getVertexId(IN), 2l);
+        assertEquals(edge.getProperty("since"), 2010);
+    }
+
+    public void testParserValues() throws IOException {
+        final FaunusVertex vertex = read(new FaunusGraphSONCodec(), "{\"_id\":\"7\",\"_type\":\"vertex\",\"long\":12345678901,\"double\":1.5e10,\"bool\":true," +
+                "\"none\":null,\"list\":[1,\"a\"],\"map\":{\"b\":false},\"text\":\"\\\"caf\\u00e9\\\" π 😀\\n\"}", new FaunusVertex());
+        assertEquals(vertex.getId(), 7l);
+        assertEquals(vertex.getPropertyKeys().size(), 6);
+        assertEquals(vertex.getProperty("long"), 12345678901l);
+        assertEquals(vertex.getProperty("double"), 1.5e10d);
+        assertEquals(vertex.getProperty("bool"), true);
+        assertEquals(vertex.getProperty("list"), Arrays.asList(1, "a"));
+        assertEquals(((Map) vertex.getProperty("map")).get("b"), false);
+        assertEquals(vertex.getProperty("text"), "\"café\" π 😀\n");
+    }
+
+    public void testIllegalLines() {
+        final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+        for (final String line : new String[]{"", "{", "{\"_id\":1", "{\"_id\":}", "{\"_id\":1} x", "{\"name\":\"marko}"}) {
+            try {
+                read(codec, line, new FaunusVertex());
+                fail("Illegal line was read: " + line);
+            } catch (IOException e) {
+                assertTrue(true);
+            }
+        }
+    }
+
+    public void testWriter() throws IOException {
+        final FaunusVertex marko = new FaunusVertex(1l);
+        marko.setProperty("name", "marko \"π\"");
+        marko.setProperty("age", 29);
+        marko.addEdge(OUT, new FaunusEdge(1l, 2l, "knows")).setProperty("weight", 0.5d);
+        marko.addEdge(IN, new FaunusEdge(3l, 1l, "knows")).setProperty("weight", 1);
+
+        final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+        final String line = write(codec, marko);
+        assertTrue(line.startsWith("{\"_id\":1,"));
+        assertEquals(line.indexOf('\n'), -1);
+
+        // the line is read back by both the codec and FaunusGraphSONUtility
+        for (final FaunusVertex vertex : new FaunusVertex[]{read(codec, line, new FaunusVertex()), FaunusGraphSONUtility.fromJSON(line)}) {
+            assertEquals(vertex.getId(), 1l);
+            assertEquals(vertex.getProperty("name"), "marko \"π\"");
+            assertEquals(vertex.getProperty("age"), 29);
+            final FaunusEdge out = (FaunusEdge) vertex.getEdges(OUT).iterator().next();
+            assertEquals(out.getVertexId(IN), 2l);
+            assertEquals(out.getProperty("weight"), 0.5d);
+            final FaunusEdge in = (FaunusEdge) vertex.getEdges(IN).iterator().next();
+            assertEquals(in.getVertexId(OUT), 3l);
+            assertEquals(in.getProperty("weight"), 1);
+        }
+    }
+
+    public void testGraphOfTheGods() throws IOException {
+        final FaunusGraphSONCodec codec = new FaunusGraphSONCodec();
+        final FaunusVertex reused = new FaunusVertex();
+        final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(FaunusGraphSONUtility.class.getResourceAsStream("graph-of-the-gods.json"), "UTF-8"));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            final FaunusVertex vertex = new FaunusVertex();
+            vertex.addAll(read(codec, line, reused));
+            graph.put(vertex.getIdAsLong(), vertex);
+            // the written line is read as the same vertex
+            assertEquals(FaunusGraphSONUtility.toJSON(read(codec, write(codec, vertex), reused)).toString().length(),
+                    FaunusGraphSONUtility.toJSON(vertex).toString().length());
+        }
+        reader.close();
+        assertEquals(graph.size(), 12);
+        identicalStructure(graph, ExampleGraph.GRAPH_OF_THE_GODS);
+    }
+}
@@ -4,6 +4,7 @@ import com.thinkaurelius.faunus.BaseTest;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.formats.VertexQueryFilter;
 import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import com.tinkerpop.blueprints.Compare;
 import com.tinkerpop.blueprints.Direction;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
@@ -30,7 +31,9 @@ public class GraphSONRecordReaderTest extends BaseTest {
         while (reader.nextKeyValue()) {
             counter++;
             assertEquals(reader.getCurrentKey(), NullWritable.get());
-            FaunusVertex vertex = reader.getCurrentValue();
+            // the reader reuses its vertex
+            FaunusVertex vertex = new FaunusVertex();
+            vertex.addAll(reader.getCurrentValue());
             graph.put(vertex.getIdAsLong(), vertex);
         }
         identicalStructure(graph, ExampleGraph.GRAPH_OF_THE_GODS);
@@ -71,4 +74,19 @@ public class GraphSONRecordReaderTest extends BaseTest {
         assertEquals(counter, 12);
         reader.close();
     }
+
+    public void testRecordReaderWithVertexPredicates() throws Exception {
+        Configuration config = new Configuration();
+        VertexQueryFilter.addPredicate(config, "type", Compare.EQUAL, String.class, "god");
+        GraphSONRecordReader reader = new GraphSONRecordReader(VertexQueryFilter.create(config));
+        reader.initialize(new FileSplit(new Path(GraphSONRecordReaderTest.class.getResource("graph-of-the-gods.json").toURI()), 0, Long.MAX_VALUE, new String[]{}),
+                new TaskAttemptContext(new Configuration(), new TaskAttemptID()));
+        int counter = 0;
+        while (reader.nextKeyValue()) {
+            counter++;
+            assertEquals(reader.getCurrentValue().getProperty("type"), "god");
+        }
+        assertEquals(counter, 3);
+        reader.close();
+    }
 }
@@ -0,0 +1,143 @@
+package com.thinkaurelius.faunus.formats.indexed;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.compress.DefaultCodec;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.util.ReflectionUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class IndexedGraphFormatTest extends BaseTest {
+
+    private File file;
+    private Configuration configuration;
+
+    public void setUp() throws Exception {
+        this.file = File.createTempFile("faunus-indexed", ".graph");
+        this.configuration = new Configuration();
+    }
+
+    public void tearDown() {
+        this.file.delete();
+    }
+
+    private void writeGraph(final boolean sorted, final int blockSize) throws Exception {
+        final List<FaunusVertex> vertices = new ArrayList<FaunusVertex>(generateGraph(ExampleGraph.GRAPH_OF_THE_GODS).values());
+        Collections.sort(vertices);
+        if (!sorted)
+            Collections.reverse(vertices);
+        final FileSystem fs = FileSystem.getLocal(this.configuration);
+        final IndexedGraphRecordWriter writer = new IndexedGraphRecordWriter(fs.create(new Path(this.file.toURI()), true), new DefaultCodec(), blockSize);
+        for (final FaunusVertex vertex : vertices) {
+            writer.write(NullWritable.get(), vertex);
+        }
+        writer.close(null);
+    }
+
+    private Map<Long, FaunusVertex> readGraph(final String ranges) throws Exception {
+        final Job job = new Job(this.configuration);
+        FileInputFormat.setInputPaths(job, new Path(this.file.toURI()));
+        if (null != ranges)
+            job.getConfiguration().set(IndexedGraphInputFormat.FAUNUS_GRAPH_INPUT_INDEXED_ID_RANGES, ranges);
+        final IndexedGraphInputFormat inputFormat = ReflectionUtils.newInstance(IndexedGraphInputFormat.class, job.getConfiguration());
+
+        final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+        for (final InputSplit split : inputFormat.getSplits(job)) {
+            final IndexedGraphRecordReader reader = (IndexedGraphRecordReader) inputFormat.createRecordReader(split, null);
+            reader.initialize(split, new TaskAttemptContext(job.getConfiguration(), new TaskAttemptID()));
+            while (reader.nextKeyValue()) {
+                assertEquals(reader.getCurrentKey(), NullWritable.get());
+                final FaunusVertex vertex = new FaunusVertex();
+                vertex.addAll(reader.getCurrentValue());
+                graph.put(vertex.getIdAsLong(), vertex);
+            }
+            reader.close();
+        }
+        return graph;
+    }
+
+    public void testFullGraph() throws Exception {
+        for (final boolean sorted : new boolean[]{true, false}) {
+            for (final int blockSize : new int[]{1, 256, IndexedGraphOutputFormat.DEFAULT_BLOCK_SIZE}) {
+                this.writeGraph(sorted, blockSize);
+                final Map<Long, FaunusVertex> graph = this.readGraph(null);
+                assertEquals(graph.size(), 12);
+                identicalStructure(graph, ExampleGraph.GRAPH_OF_THE_GODS);
+            }
+        }
+    }
+
+    public void testIndex() throws Exception {
+        this.writeGraph(true, 1);
+        IndexedGraphFile.Index index = IndexedGraphFile.readIndex(FileSystem.getLocal(this.configuration), new Path(this.file.toURI()));
+        assertTrue(index.isSorted());
+        assertEquals(index.getBlocks().size(), 12);
+        assertEquals(index.getBlocks(0, Long.MAX_VALUE, IdRanges.parse("0-2")).size(), 3);
+        assertEquals(index.getBlocks(0, Long.MAX_VALUE, IdRanges.parse("100")).size(), 0);
+
+        this.writeGraph(false, 1);
+        index = IndexedGraphFile.readIndex(FileSystem.getLocal(this.configuration), new Path(this.file.toURI()));
+        assertFalse(index.isSorted());
+        assertEquals(index.getBlocks(0, Long.MAX_VALUE, IdRanges.parse("0-2")).size(), 3);
+    }
+
+    public void testIdRanges() throws Exception {
+        for (final boolean sorted : new boolean[]{true, false}) {
+            for (final int blockSize : new int[]{1, 256, IndexedGraphOutputFormat.DEFAULT_BLOCK_SIZE}) {
+                this.writeGraph(sorted, blockSize);
+                Map<Long, FaunusVertex> graph = this.readGraph("1,4-6");
+                assertEquals(graph.size(), 4);
+                assertTrue(graph.containsKey(1l));
+                assertTrue(graph.containsKey(4l));
+                assertTrue(graph.containsKey(5l));
+                assertTrue(graph.containsKey(6l));
+
+                graph = this.readGraph("100-200");
+                assertEquals(graph.size(), 0);
+            }
+        }
+    }
+
+    public void testIdRangesParsing() {
+        assertNull(IdRanges.parse(null));
+        assertNull(IdRanges.parse(" "));
+        final IdRanges ranges = IdRanges.parse("10-20, 5, 15-25,26,40");
+        assertEquals(ranges.toString(), "5,10-26,40");
+        assertTrue(ranges.contains(5));
+        assertFalse(ranges.contains(6));
+        assertTrue(ranges.contains(26));
+        assertFalse(ranges.contains(27));
+        assertTrue(ranges.intersects(0, 5));
+        assertTrue(ranges.intersects(6, 10));
+        assertFalse(ranges.intersects(27, 39));
+        assertFalse(ranges.intersects(41, 100));
+        assertEquals(IdRanges.toString(1, 2, 3), "1,2,3");
+    }
+
+    public void testVertexQueryFilter() throws Exception {
+        this.writeGraph(true, 256);
+        this.configuration.set(VertexQueryFilter.FAUNUS_GRAPH_INPUT_VERTEX_QUERY_FILTER, "v.query().limit(0)");
+        for (final FaunusVertex vertex : this.readGraph(null).values()) {
+            assertFalse(vertex.getEdges(Direction.BOTH).iterator().hasNext());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.thinkaurelius.faunus.formats.rexster;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.rexster.util.VertexToFaunusBinary;
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author Stephen Mallette (http://stephen.genoprime.com)
+ */
+public class RexsterStreamTest extends TestCase {
+
+    private static byte[] stream(final boolean terminated) throws IOException {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        for (final Vertex vertex : graph.getVertices()) {
+            out.writeByte(FaunusRexsterInputFormatExtension.VERTEX);
+            VertexToFaunusBinary.write(vertex, out);
+        }
+        if (terminated)
+            out.writeByte(FaunusRexsterInputFormatExtension.END);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public void testTerminatedStream() throws IOException {
+        final RexsterStream stream = new RexsterStream(new ByteArrayInputStream(stream(true)));
+        final FaunusVertex vertex = new FaunusVertex();
+        int count = 0;
+        while (stream.next(vertex)) {
+            assertNotNull(vertex.getProperty("name"));
+            count++;
+        }
+        assertEquals(count, 6);
+        assertFalse(stream.next(vertex));
+        stream.close();
+    }
+
+    public void testBrokenStream() throws IOException {
+        final byte[] bytes = stream(true);
+        for (final byte[] broken : new byte[][]{stream(false), Arrays.copyOf(bytes, bytes.length / 2), new byte[]{7}}) {
+            final RexsterStream stream = new RexsterStream(new ByteArrayInputStream(broken));
+            final FaunusVertex vertex = new FaunusVertex();
+            try {
+                while (stream.next(vertex)) {
+                }
+                fail("A broken stream was read to its end");
+            } catch (IOException e) {
+                assertTrue(true);
+            }
+        }
+    }
+}
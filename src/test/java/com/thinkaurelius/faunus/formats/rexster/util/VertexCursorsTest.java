@@ -0,0 +1,160 @@
+package com.thinkaurelius.faunus.formats.rexster.util;
+
+import com.tinkerpop.blueprints.Graph;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraphFactory;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * @author Stephen Mallette (http://stephen.genoprime.com)
+ */
+public class VertexCursorsTest extends TestCase {
+
+    private static List<Object> read(final VertexCursors.Cursor cursor, final long start, final long end) {
+        final List<Object> ids = new ArrayList<Object>();
+        assertTrue(cursor.skipTo(start));
+        Vertex vertex;
+        while ((vertex = cursor.next(end)) != null) {
+            ids.add(vertex.getId());
+        }
+        return ids;
+    }
+
+    public void testResumeSplits() {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final List<Object> all = read(new VertexCursors().take(null, graph, 0, Long.MAX_VALUE), 0, Long.MAX_VALUE);
+        assertEquals(all.size(), 6);
+
+        final VertexCursors cursors = new VertexCursors();
+        final List<Object> ids = new ArrayList<Object>();
+        for (long start = 0; start < 6; start = start + 2) {
+            final VertexCursors.Cursor cursor = cursors.take("job", graph, start, start + 2);
+            // every split after the first resumes where the split before it ended
+            assertEquals(cursor.isResumed(), start > 0);
+            assertEquals(cursor.getPosition(), start);
+            ids.addAll(read(cursor, start, start + 2));
+            cursors.put("job", start + 2, cursor);
+        }
+        assertEquals(ids, all);
+        // the last cursor is exhausted and is not kept
+        assertEquals(cursors.size(), 0);
+    }
+
+    public void testCursorAtSplitBoundary() {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final VertexCursors cursors = new VertexCursors();
+        final VertexCursors.Cursor cursor = cursors.take("job", graph, 0, 2);
+        read(cursor, 0, 2);
+        cursors.put("job", 2, cursor);
+        assertEquals(cursors.size(), 1);
+
+        // other jobs and other offsets do not take the cursor
+        assertFalse(cursors.take("other", graph, 2, 4).isResumed());
+        assertFalse(cursors.take("job", graph, 1, 3).isResumed());
+        assertFalse(cursors.take("job", graph, 4, 6).isResumed());
+        assertEquals(cursors.size(), 1);
+        final VertexCursors.Cursor resumed = cursors.take("job", graph, 2, 4);
+        assertTrue(resumed.isResumed());
+        assertEquals(resumed.getPosition(), 2l);
+        assertEquals(read(resumed, 2, 4).size(), 2);
+        assertEquals(cursors.size(), 0);
+    }
+
+    public void testConcurrentSplits() throws Exception {
+        final Graph graph = new TinkerGraph();
+        for (int i = 0; i < 100; i++) {
+            graph.addVertex(i);
+        }
+        final List<Object> all = read(new VertexCursors().take(null, graph, 0, Long.MAX_VALUE), 0, Long.MAX_VALUE);
+        assertEquals(all.size(), 100);
+
+        final VertexCursors cursors = new VertexCursors();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<List<Object>>> splits = new ArrayList<Future<List<Object>>>();
+        for (long start = 0; start < 100; start = start + 10) {
+            final long splitStart = start;
+            splits.add(executor.submit(new Callable<List<Object>>() {
+                @Override
+                public List<Object> call() {
+                    final VertexCursors.Cursor cursor = cursors.take("job", graph, splitStart, splitStart + 10);
+                    // a cursor is only handed out to the split that starts where it ended
+                    assertTrue(!cursor.isResumed() || cursor.getPosition() == splitStart);
+                    final List<Object> ids = read(cursor, splitStart, splitStart + 10);
+                    cursors.put("job", splitStart + 10, cursor);
+                    return ids;
+                }
+            }));
+        }
+        executor.shutdown();
+
+        final List<Object> ids = new ArrayList<Object>();
+        for (int i = 0; i < splits.size(); i++) {
+            final List<Object> split = splits.get(i).get();
+            // every split gets its own vertices whether it resumed a cursor or not
+            assertEquals(split, all.subList(i * 10, (i + 1) * 10));
+            ids.addAll(split);
+        }
+        assertEquals(ids, all);
+    }
+
+    public void testWaitForSplitInFlight() throws Exception {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final VertexCursors cursors = new VertexCursors();
+        final VertexCursors.Cursor first = cursors.take("job", graph, 0, 2);
+
+        // the request of the next split is made while the first split is still in flight
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final Future<VertexCursors.Cursor> second = executor.submit(new Callable<VertexCursors.Cursor>() {
+            @Override
+            public VertexCursors.Cursor call() {
+                return cursors.take("job", graph, 2, 4);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+        read(first, 0, 2);
+        cursors.put("job", 2, first);
+        assertTrue(second.get().isResumed());
+        assertEquals(second.get().getPosition(), 2l);
+
+        // a request that fails ends without a cursor and the request waiting for it iterates from the first vertex
+        final Future<VertexCursors.Cursor> third = executor.submit(new Callable<VertexCursors.Cursor>() {
+            @Override
+            public VertexCursors.Cursor call() {
+                return cursors.take("job", graph, 4, 6);
+            }
+        });
+        Thread.sleep(50);
+        assertFalse(third.isDone());
+        cursors.put("job", 4, null);
+        assertFalse(third.get().isResumed());
+        assertEquals(third.get().getPosition(), 0l);
+        executor.shutdown();
+    }
+
+    public void testWaitTimeout() {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final VertexCursors cursors = new VertexCursors(VertexCursors.DEFAULT_TIMEOUT, 10l, VertexCursors.DEFAULT_MAX_CURSORS);
+        cursors.take("job", graph, 0, 2);
+        assertFalse(cursors.take("job", graph, 2, 4).isResumed());
+    }
+
+    public void testExpiredCursors() throws Exception {
+        final Graph graph = TinkerGraphFactory.createTinkerGraph();
+        final VertexCursors cursors = new VertexCursors(0l, 0l, 1);
+        final VertexCursors.Cursor cursor = cursors.take("job", graph, 0, 2);
+        read(cursor, 0, 2);
+        cursors.put("job", 2, cursor);
+        Thread.sleep(5);
+        assertFalse(cursors.take("job", graph, 2, 4).isResumed());
+        assertEquals(cursors.size(), 0);
+    }
+}
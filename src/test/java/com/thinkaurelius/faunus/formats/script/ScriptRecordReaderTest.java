@@ -40,4 +40,30 @@ public class ScriptRecordReaderTest extends BaseTest {
         assertEquals(counter, 12);
         reader.close();
     }
+
+    public void testRecordReaderBatch() throws Exception {
+        final Configuration conf = new Configuration();
+        conf.setStrings(ScriptInputFormat.FAUNUS_GRAPH_INPUT_SCRIPT_FILE, ScriptRecordReaderTest.class.getResource("ScriptInput.groovy").getFile());
+        conf.setInt(ScriptInputFormat.FAUNUS_GRAPH_INPUT_SCRIPT_BATCH_SIZE, 5);
+        ScriptRecordReader reader = new ScriptRecordReader(VertexQueryFilter.create(new EmptyConfiguration()), new TaskAttemptContext(conf, new TaskAttemptID()));
+        reader.initialize(new FileSplit(new Path(ScriptRecordReaderTest.class.getResource("graph-of-the-gods.id").toURI()), 0, Long.MAX_VALUE, new String[]{}),
+                new TaskAttemptContext(conf, new TaskAttemptID()));
+        int counter = 0;
+        FaunusVertex previous = null;
+        while (reader.nextKeyValue()) {
+            FaunusVertex vertex = reader.getCurrentValue();
+            assertFalse(vertex == previous);
+            previous = vertex;
+            long id = vertex.getIdAsLong();
+            assertEquals(id, counter++);
+            assertEquals(count(vertex.getEdges(Direction.IN)), 0);
+            if (id == 1 || id == 2 || id == 3 || id == 7 || id == 11) {
+                assertTrue(count(vertex.getEdges(Direction.OUT)) > 0);
+            } else {
+                assertTrue(count(vertex.getEdges(Direction.OUT)) == 0);
+            }
+        }
+        assertEquals(counter, 12);
+        reader.close();
+    }
 }
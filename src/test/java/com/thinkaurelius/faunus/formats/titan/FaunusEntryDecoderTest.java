@@ -0,0 +1,264 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.titan.core.Order;
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanKey;
+import com.thinkaurelius.titan.core.TitanType;
+import com.thinkaurelius.titan.core.TitanVertex;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StaticBufferEntry;
+import com.thinkaurelius.titan.graphdb.database.RelationFactory;
+import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
+import com.thinkaurelius.titan.graphdb.internal.RelationType;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.thinkaurelius.titan.graphdb.types.system.SystemKey;
+import com.thinkaurelius.titan.graphdb.types.system.SystemType;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.commons.configuration.Configuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class FaunusEntryDecoderTest extends BaseTest {
+
+    private static final SliceQuery ALL_RELATIONS = new SliceQuery(IDHandler.getBounds(RelationType.RELATION)[0], IDHandler.getBounds(RelationType.RELATION)[1]).setLimit(Integer.MAX_VALUE);
+
+    private final Configuration configuration = SharedInMemoryStoreManager.getConfiguration();
+    private final Map<String, Long> ids = new HashMap<String, Long>();
+
+    public void setUp() {
+        SharedInMemoryStoreManager.clear();
+
+        final TitanGraph graph = TitanFactory.open(this.configuration);
+        final TitanKey name = graph.makeKey("name").dataType(String.class).indexed(Vertex.class).single().unique().make();
+        final TitanKey nickname = graph.makeKey("nickname").dataType(String.class).list().make();
+        final TitanKey data = graph.makeKey("data").dataType(Object.class).single().make();
+        final TitanKey time = graph.makeKey("time").dataType(Long.class).single().make();
+        final TitanKey weight = graph.makeKey("weight").dataType(Double.class).single().make();
+        graph.makeKey("note").dataType(String.class).single().make();
+        graph.makeLabel("knows").sortKey(time).sortOrder(Order.DESC).signature(weight).manyToMany().make();
+        graph.makeLabel("livesIn").sortKey(time).signature(weight).manyToOne().make();
+        graph.commit();
+
+        final Vertex marko = this.addVertex(graph, "marko");
+        marko.setProperty(nickname.getName(), "mr");
+        marko.setProperty(data.getName(), 1.5f);
+        final Vertex vadas = this.addVertex(graph, "vadas");
+        vadas.setProperty(data.getName(), "text");
+        final Vertex lop = this.addVertex(graph, "lop");
+        final Vertex santaFe = this.addVertex(graph, "santa fe");
+
+        final Edge e1 = marko.addEdge("knows", vadas);
+        e1.setProperty("time", 1l);
+        e1.setProperty("weight", 0.5d);
+        e1.setProperty("note", "friends");
+        final Edge e2 = marko.addEdge("knows", lop);
+        e2.setProperty("time", 2l);
+        vadas.addEdge("knows", marko);
+        final Edge e3 = marko.addEdge("livesIn", santaFe);
+        e3.setProperty("time", 3l);
+        e3.setProperty("weight", 1.0d);
+        e3.setProperty("note", "since 2010");
+        vadas.addEdge("livesIn", santaFe);
+        graph.commit();
+        graph.shutdown();
+    }
+
+    public void tearDown() {
+        SharedInMemoryStoreManager.clear();
+    }
+
+    private Vertex addVertex(final TitanGraph graph, final String name) {
+        final TitanVertex vertex = graph.addVertex(null);
+        vertex.setProperty("name", name);
+        this.ids.put(name, vertex.getID());
+        return vertex;
+    }
+
+    public void testDecoderMatchesEdgeSerializer() {
+        final FaunusTitanGraph graph = new FaunusTitanGraph(this.configuration);
+        final StandardTitanTx tx = (StandardTitanTx) graph.newTransaction();
+        try {
+            for (final long id : this.ids.values()) {
+                final List<Entry> entries = graph.edgeQuery(id, ALL_RELATIONS, tx.getTxHandle());
+                assertTrue(entries.size() > 0);
+
+                final FaunusVertexLoader loader = new FaunusVertexLoader(id);
+                assertEquals(graph.readEntries(loader, entries), entries.size());
+                assertEquals(loader.getCorrupt(), 0);
+
+                final FaunusVertexLoader expected = new FaunusVertexLoader(id);
+                for (final Entry entry : entries) {
+                    final LoaderRelationFactory factory = new LoaderRelationFactory(expected);
+                    graph.getEdgeSerializer().readRelation(factory, entry, tx);
+                    factory.build();
+                }
+                assertSameVertex(loader.getVertex(), expected.getVertex());
+            }
+
+            final FaunusVertexLoader loader = new FaunusVertexLoader(this.ids.get("marko"));
+            graph.readEntries(loader, graph.edgeQuery(this.ids.get("marko"), ALL_RELATIONS, tx.getTxHandle()));
+            final FaunusVertex marko = loader.getVertex();
+            assertEquals(marko.getProperty("name"), "marko");
+            assertEquals(marko.getProperty("nickname"), "mr");
+            assertEquals(marko.getProperty("data"), 1.5f);
+            assertEquals(count(marko.getEdges(Direction.OUT, "knows")), 2);
+            assertEquals(count(marko.getEdges(Direction.IN, "knows")), 1);
+            for (final Edge edge : marko.getEdges(Direction.OUT, "knows")) {
+                final long other = ((FaunusEdge) edge).getVertexId(Direction.IN);
+                if (other == this.ids.get("vadas")) {
+                    assertEquals(edge.getProperty("time"), 1l);
+                    assertEquals(edge.getProperty("weight"), 0.5d);
+                    assertEquals(edge.getProperty("note"), "friends");
+                } else {
+                    assertEquals(other, this.ids.get("lop").longValue());
+                    assertEquals(edge.getProperty("time"), 2l);
+                    assertEquals(edge.getPropertyKeys().size(), 1);
+                }
+            }
+            final Edge livesIn = marko.getEdges(Direction.OUT, "livesIn").iterator().next();
+            assertEquals(((FaunusEdge) livesIn).getVertexId(Direction.IN), this.ids.get("santa fe").longValue());
+            assertEquals(livesIn.getProperty("time"), 3l);
+            assertEquals(livesIn.getProperty("weight"), 1.0d);
+            assertEquals(livesIn.getProperty("note"), "since 2010");
+            assertEquals(count(loader.getVertex().getEdges(Direction.BOTH)), 4);
+        } finally {
+            tx.rollback();
+            graph.shutdown();
+        }
+    }
+
+    public void testTruncatedEntryIsCorrupt() {
+        final FaunusTitanGraph graph = new FaunusTitanGraph(this.configuration);
+        final StandardTitanTx tx = (StandardTitanTx) graph.newTransaction();
+        try {
+            final long id = this.ids.get("marko");
+            final List<Entry> entries = new ArrayList<Entry>();
+            int truncated = 0;
+            for (final Entry entry : graph.edgeQuery(id, ALL_RELATIONS, tx.getTxHandle())) {
+                final LoaderRelationFactory factory = new LoaderRelationFactory(new FaunusVertexLoader(id));
+                graph.getEdgeSerializer().readRelation(factory, entry, tx);
+                // the value of the knows edge to vadas holds its weight and note, cut it in the middle of the weight
+                if (factory.type.getName().equals("knows") && factory.otherVertexID == this.ids.get("vadas") && factory.direction == Direction.OUT) {
+                    entries.add(StaticBufferEntry.of(entry.getColumn(), entry.getValue().subrange(0, 2)));
+                    truncated++;
+                } else {
+                    entries.add(StaticBufferEntry.of(entry.getColumn(), entry.getValue()));
+                }
+            }
+            assertEquals(truncated, 1);
+
+            final FaunusVertexLoader loader = new FaunusVertexLoader(id);
+            assertEquals(graph.readEntries(loader, entries), entries.size());
+            assertEquals(loader.getCorrupt(), 1);
+            // the other entries of the row are still loaded
+            assertEquals(loader.getVertex().getProperty("name"), "marko");
+            assertEquals(count(loader.getVertex().getEdges(Direction.OUT, "knows")), 1);
+            assertEquals(count(loader.getVertex().getEdges(Direction.IN, "knows")), 1);
+            assertEquals(count(loader.getVertex().getEdges(Direction.OUT, "livesIn")), 1);
+        } finally {
+            tx.rollback();
+            graph.shutdown();
+        }
+    }
+
+    private static void assertSameVertex(final FaunusVertex actual, final FaunusVertex expected) {
+        assertEquals(actual.getIdAsLong(), expected.getIdAsLong());
+        assertEquals(actual.getProperties(), expected.getProperties());
+        for (final Direction direction : new Direction[]{Direction.OUT, Direction.IN}) {
+            final List<Edge> actualEdges = asList(actual.getEdges(direction));
+            final List<Edge> expectedEdges = asList(expected.getEdges(direction));
+            assertEquals(actualEdges.size(), expectedEdges.size());
+            for (int i = 0; i < actualEdges.size(); i++) {
+                final FaunusEdge actualEdge = (FaunusEdge) actualEdges.get(i);
+                final FaunusEdge expectedEdge = (FaunusEdge) expectedEdges.get(i);
+                assertEquals(actualEdge.getIdAsLong(), expectedEdge.getIdAsLong());
+                assertEquals(actualEdge.getLabel(), expectedEdge.getLabel());
+                assertEquals(actualEdge.getVertexId(Direction.OUT), expectedEdge.getVertexId(Direction.OUT));
+                assertEquals(actualEdge.getVertexId(Direction.IN), expectedEdge.getVertexId(Direction.IN));
+                assertEquals(actualEdge.getProperties(), expectedEdge.getProperties());
+            }
+        }
+    }
+
+    /**
+     * Loads the relations that EdgeSerializer.readRelation() reads into a FaunusVertexLoader.
+     */
+    private static class LoaderRelationFactory implements RelationFactory {
+
+        private final FaunusVertexLoader loader;
+        private final Map<String, Object> properties = new HashMap<String, Object>();
+
+        private Direction direction;
+        private TitanType type;
+        private long relationID;
+        private long otherVertexID;
+        private Object value;
+
+        public LoaderRelationFactory(final FaunusVertexLoader loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public long getVertexID() {
+            return this.loader.getVertexID();
+        }
+
+        @Override
+        public void setDirection(final Direction direction) {
+            this.direction = direction;
+        }
+
+        @Override
+        public void setType(final TitanType type) {
+            if (type == SystemKey.TypeClass)
+                this.loader.setSystemType();
+            this.type = type;
+        }
+
+        @Override
+        public void setRelationID(final long relationID) {
+            this.relationID = relationID;
+        }
+
+        @Override
+        public void setOtherVertexID(final long vertexId) {
+            this.otherVertexID = vertexId;
+        }
+
+        @Override
+        public void setValue(final Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public void addProperty(final TitanType type, final Object value) {
+            this.properties.put(type.getName(), value);
+        }
+
+        public void build() {
+            if (this.type instanceof SystemType)
+                return;
+            if (this.type.isPropertyKey()) {
+                this.loader.loadProperty(this.type.getName(), this.value);
+            } else {
+                final FaunusEdge edge = this.loader.loadEdge(this.direction, this.relationID, this.otherVertexID, this.type.getName());
+                for (final Map.Entry<String, Object> entry : this.properties.entrySet()) {
+                    edge.setProperty(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+}
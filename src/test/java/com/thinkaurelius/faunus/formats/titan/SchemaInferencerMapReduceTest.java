@@ -0,0 +1,132 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.tinkerpop.blueprints.Direction.OUT;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class SchemaInferencerMapReduceTest extends BaseTest {
+
+    MapReduceDriver<NullWritable, FaunusVertex, NullWritable, FaunusVertex, NullWritable, FaunusVertex> mapReduceDriver;
+
+    public void setUp() {
+        mapReduceDriver = new MapReduceDriver<NullWritable, FaunusVertex, NullWritable, FaunusVertex, NullWritable, FaunusVertex>();
+        mapReduceDriver.setMapper(new SchemaInferencerMapReduce.Map());
+        mapReduceDriver.setReducer(new Reducer<NullWritable, FaunusVertex, NullWritable, FaunusVertex>());
+    }
+
+    private static Set<String> inferSchema(final Map<Long, FaunusVertex> graph) {
+        final SchemaInferencerMapReduce.Map map = new SchemaInferencerMapReduce.Map();
+        for (final FaunusVertex vertex : graph.values()) {
+            map.process(vertex, null);
+        }
+        return new HashSet<String>(map.getSchema());
+    }
+
+    public void testGraphPassesThrough() throws Exception {
+        Configuration config = SchemaInferencerMapReduce.createConfiguration();
+        mapReduceDriver.withConfiguration(config);
+        Map<Long, FaunusVertex> graph = runWithGraph(generateGraph(ExampleGraph.TINKERGRAPH, config), mapReduceDriver);
+        identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+        // name, age, lang, weight, knows and created are written at least once
+        assertTrue(mapReduceDriver.getCounters().findCounter(SchemaInferencerMapReduce.Counters.SCHEMA_ENTRIES_WRITTEN).getValue() >= 6);
+    }
+
+    public void testTinkerGraphSchema() throws Exception {
+        final Set<String> schema = inferSchema(generateGraph(ExampleGraph.TINKERGRAPH, SchemaInferencerMapReduce.createConfiguration()));
+        final Map<String, Class<?>> keys = SchemaInferencerMapReduce.getPropertyKeys(schema);
+        assertEquals(keys.size(), 4);
+        assertEquals(keys.get("name"), String.class);
+        assertEquals(keys.get("age"), Long.class);
+        assertEquals(keys.get("lang"), String.class);
+        // the weights are both integers and doubles
+        assertEquals(keys.get("weight"), Double.class);
+        assertEquals(SchemaInferencerMapReduce.getEdgeLabels(schema), new HashSet<String>(Arrays.asList("knows", "created")));
+    }
+
+    public void testMixedTypes() throws Exception {
+        final FaunusVertex a = new FaunusVertex(1l);
+        a.setProperty("flag", true);
+        a.setProperty("mixed", "a");
+        a.setProperty("list", Arrays.asList(1, 2));
+        a.addEdge(OUT, new FaunusEdge(1l, 2l, "likes"));
+        final FaunusVertex b = new FaunusVertex(2l);
+        b.setProperty("flag", false);
+        b.setProperty("mixed", 1);
+        final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+        graph.put(1l, a);
+        graph.put(2l, b);
+
+        final Set<String> schema = inferSchema(graph);
+        final Map<String, Class<?>> keys = SchemaInferencerMapReduce.getPropertyKeys(schema);
+        assertEquals(keys.get("flag"), Boolean.class);
+        assertEquals(keys.get("mixed"), Object.class);
+        assertEquals(keys.get("list"), Object.class);
+        final Set<String> labels = SchemaInferencerMapReduce.getEdgeLabels(schema);
+        assertEquals(labels.size(), 1);
+        assertTrue(labels.contains("likes"));
+    }
+
+    public void testMergeSchemaFilesOfTasks() throws Exception {
+        final Configuration config = new Configuration();
+        final File output = new File(computeTestDataRoot(), "job-0");
+        FileUtil.fullyDelete(output);
+        final FileSystem local = FileSystem.getLocal(config);
+        final StringBuilder longName = new StringBuilder();
+        while (longName.length() <= 100) {
+            longName.append("aVeryLongPropertyKey");
+        }
+
+        // the vertices of two tasks
+        final FaunusVertex a = new FaunusVertex(1l);
+        a.setProperty("weight", 1);
+        a.setProperty(longName.toString(), "a");
+        a.addEdge(OUT, new FaunusEdge(1l, 2l, "likes"));
+        final FaunusVertex b = new FaunusVertex(2l);
+        b.setProperty("weight", 0.5d);
+        b.addEdge(OUT, new FaunusEdge(2l, 1l, "hates"));
+        int task = 0;
+        for (final FaunusVertex vertex : Arrays.asList(a, b)) {
+            final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+            graph.put(vertex.getIdAsLong(), vertex);
+            final SequenceFile.Writer writer = SequenceFile.createWriter(local, config, new Path(output.getAbsolutePath(), Tokens.SCHEMA + "-m-0000" + task++), Text.class, NullWritable.class);
+            for (final String entry : inferSchema(graph)) {
+                writer.append(new Text(entry), NullWritable.get());
+            }
+            writer.close();
+        }
+        // the graph output of the job is not part of the schema
+        local.create(new Path(output.getAbsolutePath(), Tokens.PART + "-m-00000")).close();
+
+        final Set<String> schema = SchemaInferencerMapReduce.readSchema(new Path(output.getAbsolutePath()), config);
+        final Map<String, Class<?>> keys = SchemaInferencerMapReduce.getPropertyKeys(schema);
+        assertEquals(keys.size(), 2);
+        assertEquals(keys.get("weight"), Double.class);
+        assertEquals(keys.get(longName.toString()), String.class);
+        assertEquals(SchemaInferencerMapReduce.getEdgeLabels(schema), new HashSet<String>(Arrays.asList("likes", "hates")));
+
+        assertEquals(SchemaInferencerMapReduce.readSchema(new Path(output.getAbsolutePath(), "missing"), config).size(), 0);
+        FileUtil.fullyDelete(output);
+    }
+}
@@ -0,0 +1,116 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.titan.diskstorage.StaticBuffer;
+import com.thinkaurelius.titan.diskstorage.StorageException;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KCVMutation;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.KeyColumnValueStoreManager;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.ReadOnlyKeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreFeatures;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTransaction;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.StoreTxConfig;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryKeyColumnValueStore;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.inmemory.InMemoryStoreManager;
+import org.apache.commons.configuration.BaseConfiguration;
+import org.apache.commons.configuration.Configuration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Titan's in-memory backend whose stores outlive the graphs that open them.
+ * Setting storage.backend to this class lets a test write a graph with Titan and read it back with Faunus
+ * (or the other way around) as every graph of the JVM sees the same stores until clear() is called.
+ *
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class SharedInMemoryStoreManager implements KeyColumnValueStoreManager {
+
+    private static final ConcurrentHashMap<String, InMemoryKeyColumnValueStore> stores = new ConcurrentHashMap<String, InMemoryKeyColumnValueStore>();
+
+    private final InMemoryStoreManager manager = new InMemoryStoreManager();
+
+    public SharedInMemoryStoreManager(final Configuration configuration) {
+    }
+
+    public static Configuration getConfiguration() {
+        final Configuration configuration = new BaseConfiguration();
+        configuration.setProperty("storage.backend", SharedInMemoryStoreManager.class.getName());
+        return configuration;
+    }
+
+    /**
+     * Drop the data of all the stores.
+     */
+    public static void clear() {
+        for (final InMemoryKeyColumnValueStore store : stores.values()) {
+            store.clear();
+        }
+    }
+
+    @Override
+    public KeyColumnValueStore openDatabase(final String name) throws StorageException {
+        stores.putIfAbsent(name, new InMemoryKeyColumnValueStore(name));
+        return new SharedStore(stores.get(name));
+    }
+
+    @Override
+    public void mutateMany(final Map<String, Map<StaticBuffer, KCVMutation>> mutations, final StoreTransaction txh) throws StorageException {
+        for (final Map.Entry<String, Map<StaticBuffer, KCVMutation>> storeMutation : mutations.entrySet()) {
+            final KeyColumnValueStore store = this.openDatabase(storeMutation.getKey());
+            for (final Map.Entry<StaticBuffer, KCVMutation> keyMutation : storeMutation.getValue().entrySet()) {
+                store.mutate(keyMutation.getKey(), keyMutation.getValue().getAdditions(), keyMutation.getValue().getDeletions(), txh);
+            }
+        }
+    }
+
+    @Override
+    public StoreTransaction beginTransaction(final StoreTxConfig config) throws StorageException {
+        return this.manager.beginTransaction(config);
+    }
+
+    @Override
+    public void close() throws StorageException {
+    }
+
+    @Override
+    public void clearStorage() throws StorageException {
+        clear();
+    }
+
+    @Override
+    public StoreFeatures getFeatures() {
+        return this.manager.getFeatures();
+    }
+
+    @Override
+    public String getName() {
+        return SharedInMemoryStoreManager.class.getSimpleName();
+    }
+
+    /**
+     * A store that keeps its data when the graph that opened it is shut down.
+     */
+    private static class SharedStore extends ReadOnlyKeyColumnValueStore {
+
+        public SharedStore(final KeyColumnValueStore store) {
+            super(store);
+        }
+
+        @Override
+        public void mutate(final StaticBuffer key, final List<Entry> additions, final List<StaticBuffer> deletions, final StoreTransaction txh) throws StorageException {
+            this.store.mutate(key, additions, deletions, txh);
+        }
+
+        @Override
+        public void acquireLock(final StaticBuffer key, final StaticBuffer column, final StaticBuffer expectedValue, final StoreTransaction txh) throws StorageException {
+            this.store.acquireLock(key, column, expectedValue, txh);
+        }
+
+        @Override
+        public void close() throws StorageException {
+        }
+    }
+}
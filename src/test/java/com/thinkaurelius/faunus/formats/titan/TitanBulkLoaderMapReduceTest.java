@@ -0,0 +1,156 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusEdge;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Holder;
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TitanBulkLoaderMapReduceTest extends BaseTest {
+
+    MapReduceDriver<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>, NullWritable, FaunusVertex> mapReduceDriver;
+
+    public void setUp() {
+        SharedInMemoryStoreManager.clear();
+        mapReduceDriver = new MapReduceDriver<NullWritable, FaunusVertex, LongWritable, Holder<FaunusVertex>, NullWritable, FaunusVertex>();
+        mapReduceDriver.setMapper(new TitanBulkLoaderMapReduce.Map());
+        mapReduceDriver.setReducer(new TitanBulkLoaderMapReduce.Reduce());
+    }
+
+    public void tearDown() {
+        SharedInMemoryStoreManager.clear();
+    }
+
+    private static Configuration createConfiguration() {
+        final Configuration config = TitanBulkLoaderMapReduce.createConfiguration();
+        config.set(TitanOutputFormat.FAUNUS_GRAPH_OUTPUT_TITAN + ".storage.backend", SharedInMemoryStoreManager.class.getName());
+        return config;
+    }
+
+    public void testBulkLoadTinkerGraph() throws Exception {
+        final Configuration config = createConfiguration();
+        mapReduceDriver.withConfiguration(config);
+        final Map<Long, FaunusVertex> graph = generateGraph(ExampleGraph.TINKERGRAPH, config);
+        runWithGraphNoIndex(graph, mapReduceDriver);
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.VERTICES_WRITTEN).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.VERTEX_PROPERTIES_WRITTEN).getValue(), 12);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.EDGES_WRITTEN).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.EDGE_PROPERTIES_WRITTEN).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.NULL_VERTEX_EDGES_IGNORED).getValue(), 0);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.NULL_VERTICES_IGNORED).getValue(), 0);
+
+        // the mappers clear the properties of the input vertices
+        final Map<Long, FaunusVertex> expected = generateGraph(ExampleGraph.TINKERGRAPH, config);
+        final Map<Long, String> names = new HashMap<Long, String>();
+        for (final FaunusVertex vertex : expected.values()) {
+            names.put(vertex.getIdAsLong(), (String) vertex.getProperty("name"));
+        }
+
+        final TitanGraph titan = TitanFactory.open(SharedInMemoryStoreManager.getConfiguration());
+        try {
+            final Map<String, Vertex> vertices = new HashMap<String, Vertex>();
+            for (final Vertex vertex : titan.getVertices()) {
+                vertices.put((String) vertex.getProperty("name"), vertex);
+            }
+            assertEquals(vertices.size(), 6);
+
+            for (final FaunusVertex faunusVertex : expected.values()) {
+                final Vertex vertex = vertices.get(faunusVertex.getProperty("name"));
+                assertNotNull(vertex);
+                assertEquals(vertex.getPropertyKeys(), faunusVertex.getPropertyKeys());
+                for (final String key : faunusVertex.getPropertyKeys()) {
+                    assertEquals(vertex.getProperty(key), faunusVertex.getProperty(key));
+                }
+                for (final Direction direction : new Direction[]{Direction.OUT, Direction.IN}) {
+                    assertEquals(edgeStrings(vertex.getEdges(direction), direction.opposite()), faunusEdgeStrings(faunusVertex.getEdges(direction), direction.opposite(), names));
+                }
+            }
+            assertEquals(count(titan.getEdges()), 6);
+        } finally {
+            titan.shutdown();
+        }
+    }
+
+    public void testEdgeWithMissingVertexIsIgnored() throws Exception {
+        final Configuration config = createConfiguration();
+        mapReduceDriver.withConfiguration(config);
+
+        final FaunusVertex a = new FaunusVertex(1l);
+        a.setProperty("name", "a");
+        final FaunusVertex b = new FaunusVertex(2l);
+        b.setProperty("name", "b");
+        a.addEdge(Direction.OUT, new FaunusEdge(1l, 2l, "knows"));
+        b.addEdge(Direction.IN, new FaunusEdge(1l, 2l, "knows"));
+        // vertex 3 is not part of the graph
+        a.addEdge(Direction.OUT, new FaunusEdge(1l, 3l, "knows"));
+        final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+        graph.put(1l, a);
+        graph.put(2l, b);
+        runWithGraphNoIndex(graph, mapReduceDriver);
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.VERTICES_WRITTEN).getValue(), 2);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.EDGES_WRITTEN).getValue(), 1);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.NULL_VERTEX_EDGES_IGNORED).getValue(), 1);
+        assertEquals(mapReduceDriver.getCounters().findCounter(TitanBulkLoaderMapReduce.Counters.NULL_VERTICES_IGNORED).getValue(), 0);
+
+        final TitanGraph titan = TitanFactory.open(SharedInMemoryStoreManager.getConfiguration());
+        try {
+            assertEquals(count(titan.getVertices()), 2);
+            assertEquals(count(titan.getEdges()), 1);
+            for (final Vertex vertex : titan.getVertices()) {
+                if (vertex.getProperty("name").equals("a")) {
+                    assertEquals(count(vertex.getEdges(Direction.OUT)), 1);
+                    assertEquals(vertex.getEdges(Direction.OUT).iterator().next().getVertex(Direction.IN).getProperty("name"), "b");
+                } else {
+                    assertEquals(count(vertex.getEdges(Direction.IN)), 1);
+                }
+            }
+        } finally {
+            titan.shutdown();
+        }
+    }
+
+    /**
+     * The edges as label, name of the other vertex and properties.
+     */
+    private static Set<String> edgeStrings(final Iterable<Edge> edges, final Direction other) {
+        final Set<String> strings = new HashSet<String>();
+        for (final Edge edge : edges) {
+            strings.add(edge.getLabel() + ":" + edge.getVertex(other).getProperty("name") + ":" + properties(edge));
+        }
+        return strings;
+    }
+
+    private static Set<String> faunusEdgeStrings(final Iterable<Edge> edges, final Direction other, final Map<Long, String> names) {
+        final Set<String> strings = new HashSet<String>();
+        for (final Edge edge : edges) {
+            strings.add(edge.getLabel() + ":" + names.get(((FaunusEdge) edge).getVertexId(other)) + ":" + properties(edge));
+        }
+        return strings;
+    }
+
+    private static Map<String, Object> properties(final Edge edge) {
+        final Map<String, Object> properties = new HashMap<String, Object>();
+        for (final String key : edge.getPropertyKeys()) {
+            properties.put(key, edge.getProperty(key));
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,40 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.mapreduce.util.EmptyConfiguration;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TitanInputFormatTest extends BaseTest {
+
+    public void testDefaultPaging() {
+        Configuration configuration = new EmptyConfiguration();
+        assertEquals(TitanInputFormat.getPageSize(configuration), 0);
+        assertEquals(TitanInputFormat.getMaxEdges(configuration), Long.MAX_VALUE);
+        assertFalse(TitanInputFormat.getSkipTruncated(configuration));
+    }
+
+    public void testPagingWithMaxEdges() {
+        Configuration configuration = new EmptyConfiguration();
+        configuration.setLong(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES, 1000l);
+        assertEquals(TitanInputFormat.getPageSize(configuration), TitanInputFormat.DEFAULT_PAGE_SIZE);
+        assertEquals(TitanInputFormat.getMaxEdges(configuration), 1000l);
+        configuration.setInt(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE, 500);
+        assertEquals(TitanInputFormat.getPageSize(configuration), 500);
+    }
+
+    public void testMaxEdgesPolicy() {
+        Configuration configuration = new EmptyConfiguration();
+        configuration.set(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY, TitanInputFormat.SKIP);
+        assertTrue(TitanInputFormat.getSkipTruncated(configuration));
+        configuration.set(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY, "drop");
+        try {
+            TitanInputFormat.getSkipTruncated(configuration);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+}
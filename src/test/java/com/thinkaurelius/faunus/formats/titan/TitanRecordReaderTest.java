@@ -0,0 +1,258 @@
+package com.thinkaurelius.faunus.formats.titan;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.titan.core.TitanFactory;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanVertex;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
+import com.thinkaurelius.titan.graphdb.database.idhandling.IDHandler;
+import com.thinkaurelius.titan.graphdb.internal.RelationType;
+import com.thinkaurelius.titan.graphdb.transaction.StandardTitanTx;
+import com.tinkerpop.blueprints.Direction;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.Counters;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.StatusReporter;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TitanRecordReaderTest extends BaseTest {
+
+    private static final SliceQuery ALL_RELATIONS = new SliceQuery(IDHandler.getBounds(RelationType.RELATION)[0], IDHandler.getBounds(RelationType.RELATION)[1]).setLimit(Integer.MAX_VALUE);
+
+    private final org.apache.commons.configuration.Configuration configuration = SharedInMemoryStoreManager.getConfiguration();
+    // the vertex ids in the order of their rows
+    private final List<Long> ids = new ArrayList<Long>();
+    private long hub;
+
+    public void setUp() {
+        SharedInMemoryStoreManager.clear();
+
+        final TitanGraph graph = TitanFactory.open(this.configuration);
+        final TitanVertex hub = graph.addVertex(null);
+        hub.setProperty("name", "hub");
+        this.hub = hub.getID();
+        this.ids.add(hub.getID());
+        for (int i = 0; i < 5; i++) {
+            final TitanVertex vertex = graph.addVertex(null);
+            vertex.setProperty("name", "spoke" + i);
+            hub.addEdge("knows", vertex);
+            this.ids.add(vertex.getID());
+        }
+        graph.commit();
+        graph.shutdown();
+    }
+
+    public void tearDown() {
+        SharedInMemoryStoreManager.clear();
+    }
+
+    /**
+     * The rows of the vertices with every row split into pages of the size.
+     */
+    private List<Page> getPages(final FaunusTitanGraph graph, final int pageSize) {
+        final StandardTitanTx tx = (StandardTitanTx) graph.newTransaction();
+        try {
+            final List<Page> pages = new ArrayList<Page>();
+            for (final long id : this.ids) {
+                final List<Entry> entries = graph.edgeQuery(id, ALL_RELATIONS, tx.getTxHandle());
+                for (int i = 0; i < entries.size(); i = i + pageSize) {
+                    pages.add(new Page(IDHandler.getKey(id).asByteBuffer(), entries.subList(i, Math.min(entries.size(), i + pageSize))));
+                }
+            }
+            return pages;
+        } finally {
+            tx.rollback();
+        }
+    }
+
+    /**
+     * The number of rows with more entries than the page size.
+     */
+    private long getPagedRows(final int pageSize) {
+        final FaunusTitanGraph graph = new FaunusTitanGraph(this.configuration);
+        final StandardTitanTx tx = (StandardTitanTx) graph.newTransaction();
+        try {
+            long rows = 0;
+            for (final long id : this.ids) {
+                if (graph.edgeQuery(id, ALL_RELATIONS, tx.getTxHandle()).size() > pageSize)
+                    rows++;
+            }
+            return rows;
+        } finally {
+            tx.rollback();
+            graph.shutdown();
+        }
+    }
+
+    private Map<Long, FaunusVertex> read(final Configuration configuration, final Counters counters, final int pageSize) throws Exception {
+        final FaunusTitanGraph graph = new FaunusTitanGraph(this.configuration);
+        final PagedRecordReader reader = new PagedRecordReader(graph, this.getPages(graph, pageSize));
+        reader.initialize(null, new Mapper().new Context(configuration, new TaskAttemptID(), null, null, null, new CountersReporter(counters), null));
+        final Map<Long, FaunusVertex> vertices = new HashMap<Long, FaunusVertex>();
+        while (reader.nextKeyValue()) {
+            final FaunusVertex vertex = reader.getCurrentValue();
+            // every row is read into one vertex
+            assertNull(vertices.put(vertex.getIdAsLong(), vertex));
+        }
+        reader.close();
+        return vertices;
+    }
+
+    public void testRowsSplitAcrossPages() throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.setInt(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE, 2);
+        final Counters counters = new Counters();
+        final Map<Long, FaunusVertex> vertices = read(configuration, counters, 2);
+
+        assertEquals(vertices.size(), 6);
+        for (final long id : this.ids) {
+            assertTrue(vertices.containsKey(id));
+        }
+        assertEquals(vertices.get(this.hub).getProperty("name"), "hub");
+        assertEquals(count(vertices.get(this.hub).getEdges(Direction.OUT, "knows")), 5);
+        for (final long id : this.ids.subList(1, this.ids.size())) {
+            assertEquals(count(vertices.get(id).getEdges(Direction.IN, "knows")), 1);
+            assertTrue(((String) vertices.get(id).getProperty("name")).startsWith("spoke"));
+        }
+        // the row of the hub has more columns than a page
+        assertTrue(getPagedRows(2) >= 1);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_PAGED).getValue(), getPagedRows(2));
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.EDGES_DROPPED).getValue(), 0l);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_TRUNCATED).getValue(), 0l);
+    }
+
+    public void testRowsAsSinglePages() throws Exception {
+        final Counters counters = new Counters();
+        final Map<Long, FaunusVertex> vertices = read(new Configuration(), counters, Integer.MAX_VALUE);
+        assertEquals(vertices.size(), 6);
+        assertEquals(count(vertices.get(this.hub).getEdges(Direction.OUT, "knows")), 5);
+        // rows are not paged by default
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_PAGED).getValue(), 0l);
+    }
+
+    public void testMaxEdgesTruncate() throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.setLong(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES, 2l);
+        configuration.setInt(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE, 2);
+        final Counters counters = new Counters();
+        final Map<Long, FaunusVertex> vertices = read(configuration, counters, 2);
+
+        assertEquals(vertices.size(), 6);
+        assertEquals(vertices.get(this.hub).getProperty("name"), "hub");
+        assertEquals(count(vertices.get(this.hub).getEdges(Direction.OUT, "knows")), 2);
+        for (final long id : this.ids.subList(1, this.ids.size())) {
+            assertEquals(count(vertices.get(id).getEdges(Direction.IN, "knows")), 1);
+        }
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.EDGES_DROPPED).getValue(), 3l);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_TRUNCATED).getValue(), 1l);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_SKIPPED).getValue(), 0l);
+    }
+
+    public void testMaxEdgesSkip() throws Exception {
+        final Configuration configuration = new Configuration();
+        configuration.setLong(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES, 2l);
+        configuration.setInt(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_PAGE_SIZE, 2);
+        configuration.set(TitanInputFormat.FAUNUS_GRAPH_INPUT_TITAN_MAX_EDGES_POLICY, TitanInputFormat.SKIP);
+        final Counters counters = new Counters();
+        final Map<Long, FaunusVertex> vertices = read(configuration, counters, 2);
+
+        // the row of the hub is skipped and the row after it is still read
+        assertEquals(vertices.size(), 5);
+        assertFalse(vertices.containsKey(this.hub));
+        for (final long id : this.ids.subList(1, this.ids.size())) {
+            assertEquals(count(vertices.get(id).getEdges(Direction.IN, "knows")), 1);
+        }
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.EDGES_DROPPED).getValue(), 3l);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_SKIPPED).getValue(), 1l);
+        assertEquals(counters.findCounter(TitanInputFormat.Counters.ROWS_TRUNCATED).getValue(), 0l);
+    }
+
+    private static class Page {
+
+        private final ByteBuffer key;
+        private final List<Entry> entries;
+
+        public Page(final ByteBuffer key, final List<Entry> entries) {
+            this.key = key;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * A backend reader that hands out the pages of a list.
+     */
+    private static class PagedRecordReader extends TitanRecordReader {
+
+        private final List<Page> pages;
+        private int current = -1;
+
+        public PagedRecordReader(final FaunusTitanGraph graph, final List<Page> pages) {
+            super(graph, VertexQueryFilter.create(new Configuration()), false);
+            this.pages = pages;
+        }
+
+        @Override
+        protected boolean nextPage() {
+            return ++this.current < this.pages.size();
+        }
+
+        @Override
+        protected ByteBuffer getPageKey() {
+            return this.pages.get(this.current).key.duplicate();
+        }
+
+        @Override
+        protected Iterable<Entry> getPageEntries() {
+            return this.pages.get(this.current).entries;
+        }
+
+        @Override
+        public float getProgress() {
+            return this.current / (float) this.pages.size();
+        }
+    }
+
+    private static class CountersReporter extends StatusReporter {
+
+        private final Counters counters;
+
+        public CountersReporter(final Counters counters) {
+            this.counters = counters;
+        }
+
+        @Override
+        public Counter getCounter(final Enum<?> name) {
+            return this.counters.findCounter(name);
+        }
+
+        @Override
+        public Counter getCounter(final String group, final String name) {
+            return this.counters.findCounter(group, name);
+        }
+
+        @Override
+        public void progress() {
+        }
+
+        @Override
+        public void setStatus(final String status) {
+        }
+
+        public float getProgress() {
+            return 0.0f;
+        }
+    }
+}
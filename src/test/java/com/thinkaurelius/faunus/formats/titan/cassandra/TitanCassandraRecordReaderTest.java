@@ -0,0 +1,84 @@
+package com.thinkaurelius.faunus.formats.titan.cassandra;
+
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.Entry;
+import com.thinkaurelius.titan.diskstorage.keycolumnvalue.SliceQuery;
+import com.thinkaurelius.titan.diskstorage.util.StaticByteBuffer;
+import junit.framework.TestCase;
+import org.apache.cassandra.db.Column;
+import org.apache.cassandra.db.IColumn;
+import org.apache.cassandra.hadoop.ColumnFamilyRecordReader;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class TitanCassandraRecordReaderTest extends TestCase {
+
+    private static SortedMap<ByteBuffer, IColumn> createRow(final int... columns) {
+        final SortedMap<ByteBuffer, IColumn> row = new TreeMap<ByteBuffer, IColumn>();
+        for (final int column : columns) {
+            final ByteBuffer name = ByteBuffer.wrap(new byte[]{(byte) column});
+            row.put(name, new Column(name, ByteBuffer.wrap(new byte[]{(byte) column, (byte) column})));
+        }
+        return row;
+    }
+
+    private static List<Integer> getColumns(final Iterable<Entry> entries) {
+        final List<Integer> columns = new ArrayList<Integer>();
+        for (final Entry entry : entries) {
+            columns.add((int) entry.getColumn().getByte(0));
+            assertEquals(entry.getValue().length(), 2);
+        }
+        return columns;
+    }
+
+    public void testSliceOfWideRowPages() {
+        final RowRecordReader rows = new RowRecordReader(createRow(1, 2, 3, 5, 8));
+
+        // a wide row reader pages all the columns of a row, so the slice is applied to the pages
+        final SliceQuery slice = new SliceQuery(new StaticByteBuffer(new byte[]{2}), new StaticByteBuffer(new byte[]{5}));
+        assertEquals(getColumns(new TitanCassandraRecordReader(null, null, false, rows, slice).getPageEntries()), asList(2, 3));
+
+        // a slice with an empty end is open ended
+        final SliceQuery openSlice = new SliceQuery(new StaticByteBuffer(new byte[]{3}), new StaticByteBuffer(new byte[0]));
+        assertEquals(getColumns(new TitanCassandraRecordReader(null, null, false, rows, openSlice).getPageEntries()), asList(3, 5, 8));
+
+        // without a slice the columns of the page are read as is
+        assertEquals(getColumns(new TitanCassandraRecordReader(null, null, false, rows).getPageEntries()), asList(1, 2, 3, 5, 8));
+    }
+
+    private static List<Integer> asList(final Integer... columns) {
+        final List<Integer> list = new ArrayList<Integer>();
+        for (final Integer column : columns) {
+            list.add(column);
+        }
+        return list;
+    }
+
+    /**
+     * A reader of the page of a single row.
+     */
+    private static class RowRecordReader extends ColumnFamilyRecordReader {
+
+        private final SortedMap<ByteBuffer, IColumn> row;
+
+        public RowRecordReader(final SortedMap<ByteBuffer, IColumn> row) {
+            this.row = row;
+        }
+
+        @Override
+        public ByteBuffer getCurrentKey() {
+            return ByteBuffer.wrap(new byte[]{0});
+        }
+
+        @Override
+        public SortedMap<ByteBuffer, IColumn> getCurrentValue() {
+            return this.row;
+        }
+    }
+}
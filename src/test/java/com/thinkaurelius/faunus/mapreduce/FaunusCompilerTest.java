@@ -3,16 +3,36 @@ package com.thinkaurelius.faunus.mapreduce;
 import com.thinkaurelius.faunus.FaunusGraph;
 import com.thinkaurelius.faunus.FaunusPipeline;
 import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.formats.VertexQueryFilter;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONUtility;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONInputFormat;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONOutputFormat;
+import com.thinkaurelius.faunus.formats.noop.NoOpOutputFormat;
 import com.thinkaurelius.faunus.formats.titan.TitanOutputFormat;
 import com.thinkaurelius.faunus.formats.titan.cassandra.TitanCassandraOutputFormat;
+import com.thinkaurelius.faunus.mapreduce.compute.ClearHaltedMap;
+import com.thinkaurelius.faunus.mapreduce.compute.ConnectedComponentsVertexProgram;
+import com.thinkaurelius.faunus.mapreduce.compute.MessageHolder;
+import com.thinkaurelius.faunus.mapreduce.compute.VertexProgramMapReduce;
+import com.thinkaurelius.faunus.mapreduce.filter.PropertyFilterMap;
+import com.thinkaurelius.faunus.mapreduce.transform.StateJoinMap;
+import com.thinkaurelius.faunus.mapreduce.transform.TopologyMapReduce;
 import com.thinkaurelius.faunus.mapreduce.transform.VerticesMap;
 import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesMapReduce;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesStateMapReduce;
 import com.thinkaurelius.faunus.mapreduce.util.CountMapReduce;
+import com.tinkerpop.blueprints.Vertex;
 import junit.framework.TestCase;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.OutputFormat;
 import org.apache.hadoop.mapreduce.Reducer;
 
+import java.io.File;
+
 /**
  * @author Marko A. Rodriguez (http://markorodriguez.com)
  */
@@ -72,7 +92,7 @@ public class FaunusCompilerTest extends TestCase {
         assertEquals(mapClasses[1], VerticesVerticesMapReduce.Map.class.getName());
         assertEquals(compiler.jobs.get(0).getConfiguration().getStrings(VerticesVerticesMapReduce.LABELS + "-1").length, 1);
         assertEquals(compiler.jobs.get(0).getConfiguration().getStrings(VerticesVerticesMapReduce.LABELS + "-1")[0], "knows");
-        assertEquals(compiler.jobs.get(0).getCombinerClass(), null);
+        assertEquals(compiler.jobs.get(0).getCombinerClass(), VerticesVerticesMapReduce.Combiner.class);
         assertEquals(compiler.jobs.get(0).getReducerClass(), VerticesVerticesMapReduce.Reduce.class);
 
         assertEquals(compiler.jobs.get(1).getMapperClass(), MapSequence.Map.class);
@@ -84,6 +104,154 @@ public class FaunusCompilerTest extends TestCase {
 
     }
 
+    public void testJobFusion() throws Exception {
+        FaunusPipeline pipe = new FaunusPipeline(new FaunusGraph());
+        FaunusCompiler compiler = pipe.getCompiler();
+        pipe.V().out("knows")._();
+        compiler.completeSequence();
+        assertEquals(compiler.jobs.size(), 2);
+        compiler.fuseJobs();
+
+        // the identity stage runs on the reduce side of the traversal
+        assertEquals(compiler.jobs.size(), 1);
+        assertEquals(compiler.jobs.get(0).getReducerClass(), ReduceSequence.Reduce.class);
+        assertEquals(compiler.jobs.get(0).getConfiguration().get(ReduceSequence.REDUCE_CLASS), VerticesVerticesMapReduce.Reduce.class.getName());
+        String[] mapClasses = compiler.jobs.get(0).getConfiguration().getStrings(ReduceSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 1);
+        assertEquals(mapClasses[0], IdentityMap.Map.class.getName());
+    }
+
+    public void testJobFusionOfLeadingStages() throws Exception {
+        FaunusPipeline pipe = new FaunusPipeline(new FaunusGraph());
+        FaunusCompiler compiler = pipe.getCompiler();
+        pipe.V().out("knows").has("name", "josh").count();
+        compiler.completeSequence();
+        assertEquals(compiler.jobs.size(), 2);
+        compiler.fuseJobs();
+
+        // the filter moves to the reduce side of the traversal while the count still needs its own job
+        assertEquals(compiler.jobs.size(), 2);
+        String[] mapClasses = compiler.jobs.get(0).getConfiguration().getStrings(ReduceSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 1);
+        assertEquals(mapClasses[0], PropertyFilterMap.Map.class.getName());
+        assertEquals(compiler.jobs.get(0).getConfiguration().get(PropertyFilterMap.KEY + "-2"), "name");
+
+        mapClasses = compiler.jobs.get(1).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 1);
+        assertEquals(mapClasses[0], CountMapReduce.Map.class.getName());
+        assertNull(compiler.jobs.get(1).getConfiguration().get(PropertyFilterMap.KEY + "-0"));
+        assertEquals(compiler.jobs.get(1).getConfiguration().get(CountMapReduce.CLASS + "-0"), Vertex.class.getName());
+        assertEquals(compiler.jobs.get(1).getReducerClass(), CountMapReduce.Reduce.class);
+    }
+
+    public void testJobFusionKeepsUnstagedKeys() throws Exception {
+        final FaunusGraph graph = new FaunusGraph();
+        graph.getConf().set("a.property-1", "value");
+        FaunusPipeline pipe = new FaunusPipeline(graph);
+        FaunusCompiler compiler = pipe.getCompiler();
+        pipe.V().out("knows").has("name", "josh").count();
+        compiler.completeSequence();
+        compiler.fuseJobs();
+
+        // a key that merely looks like a stage key is neither renumbered nor dropped
+        assertEquals(compiler.jobs.size(), 2);
+        assertEquals(compiler.jobs.get(0).getConfiguration().get("a.property-1"), "value");
+        assertEquals(compiler.jobs.get(1).getConfiguration().get("a.property-1"), "value");
+        assertNull(compiler.jobs.get(1).getConfiguration().get("a.property-0"));
+        assertEquals(compiler.jobs.get(1).getConfiguration().get(CountMapReduce.CLASS + "-0"), Vertex.class.getName());
+    }
+
+        public void testJobPlanString() throws Exception {
+        FaunusPipeline pipe = new FaunusPipeline(new FaunusGraph());
+        pipe.V().out("knows")._();
+        final String plan = pipe.toString();
+        assertTrue(plan.contains("Compiled to 2 MapReduce job(s)"));
+        assertTrue(plan.contains("Fused to 1 MapReduce job(s)"));
+        assertTrue(plan.contains("ReduceSequence[VerticesVerticesMapReduce.Reduce][IdentityMap.Map]"));
+        // printing the plan does not change the compiled jobs
+        assertEquals(pipe.getCompiler().jobs.size(), 1);
+    }
+
+    public void testSparseTraversalJobOrder() throws Exception {
+        FaunusGraph graph = new FaunusGraph();
+        graph.getConf().setBoolean(Tokens.FAUNUS_PIPELINE_SPARSE_TRAVERSAL, true);
+        FaunusPipeline pipe = new FaunusPipeline(graph);
+        FaunusCompiler compiler = pipe.getCompiler();
+        pipe.V().out("knows").out("created")._();
+        compiler.completeSequence();
+
+        // topology, two steps that only shuffle path counts and the map-side join
+        assertEquals(compiler.jobs.size(), 4);
+        String[] mapClasses = compiler.jobs.get(0).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 2);
+        assertEquals(mapClasses[0], VerticesMap.Map.class.getName());
+        assertEquals(mapClasses[1], TopologyMapReduce.Map.class.getName());
+        assertEquals(compiler.jobs.get(0).getReducerClass(), TopologyMapReduce.Reduce.class);
+
+        for (int i = 1; i < 3; i++) {
+            mapClasses = compiler.jobs.get(i).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+            assertEquals(mapClasses.length, 1);
+            assertEquals(mapClasses[0], VerticesVerticesStateMapReduce.Map.class.getName());
+            assertEquals(compiler.jobs.get(i).getCombinerClass(), VerticesVerticesStateMapReduce.Combiner.class);
+            assertEquals(compiler.jobs.get(i).getReducerClass(), VerticesVerticesStateMapReduce.Reduce.class);
+            assertEquals(compiler.jobs.get(i).getMapOutputValueClass(), LongWritable.class);
+        }
+
+        mapClasses = compiler.jobs.get(3).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 2);
+        assertEquals(mapClasses[0], StateJoinMap.Map.class.getName());
+        assertEquals(mapClasses[1], IdentityMap.Map.class.getName());
+    }
+
+    public void testVertexProgramJobOrder() throws Exception {
+        FaunusPipeline pipe = new FaunusPipeline(new FaunusGraph());
+        FaunusCompiler compiler = pipe.getCompiler();
+        pipe.V().compute(new ConnectedComponentsVertexProgram(), 3)._();
+        compiler.completeSequence();
+        compiler.fuseJobs();
+
+        // the topology, a job per superstep and a job after the supersteps that is not fused into the last superstep
+        assertEquals(compiler.jobs.size(), 5);
+        String[] mapClasses = compiler.jobs.get(0).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        assertEquals(mapClasses[mapClasses.length - 1], TopologyMapReduce.Map.class.getName());
+        assertEquals(compiler.jobs.get(0).getReducerClass(), TopologyMapReduce.Reduce.class);
+        for (int i = 0; i < 3; i++) {
+            final Job job = compiler.jobs.get(i + 1);
+            mapClasses = job.getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+            assertEquals(mapClasses.length, 1);
+            assertEquals(mapClasses[0], VertexProgramMapReduce.Map.class.getName());
+            assertEquals(job.getConfiguration().getInt(VertexProgramMapReduce.SUPERSTEP, -1), i);
+            assertEquals(job.getCombinerClass(), VertexProgramMapReduce.Combiner.class);
+            assertEquals(job.getReducerClass(), VertexProgramMapReduce.Reduce.class);
+            assertEquals(job.getMapOutputValueClass(), MessageHolder.class);
+        }
+        mapClasses = compiler.jobs.get(4).getConfiguration().getStrings(MapSequence.MAP_CLASSES);
+        assertEquals(mapClasses.length, 2);
+        assertEquals(mapClasses[0], ClearHaltedMap.Map.class.getName());
+        assertEquals(mapClasses[1], IdentityMap.Map.class.getName());
+    }
+
+    public void testSideEffectLookupPushDown() throws Exception {
+        for (final Class<? extends OutputFormat> outputFormat : new Class[]{NoOpOutputFormat.class, GraphSONOutputFormat.class}) {
+            FaunusGraph graph = new FaunusGraph();
+            graph.setGraphInputFormat(GraphSONInputFormat.class);
+            graph.setInputLocation(FaunusGraphSONUtility.class.getResource("graph-example-1.json").getFile());
+            graph.setGraphOutputFormat(outputFormat);
+            File output = new File(System.getProperty("java.io.tmpdir"), "faunus-compiler-" + System.nanoTime());
+            graph.setOutputLocation(output.getAbsolutePath());
+            graph.setLocalExecution(true);
+            FaunusPipeline pipe = new FaunusPipeline(graph);
+            pipe.V().has("name", "marko").count();
+            pipe.getCompiler().composeJobs();
+
+            // the count reducer only sees the vertices that pass the filter so the filter is pushed down if the graph is not written
+            assertEquals(pipe.getCompiler().jobs.size(), 1);
+            assertEquals(pipe.getCompiler().jobs.get(0).getReducerClass(), CountMapReduce.Reduce.class);
+            assertEquals(VertexQueryFilter.create(pipe.getCompiler().jobs.get(0).getConfiguration()).hasPredicates(), outputFormat.equals(NoOpOutputFormat.class));
+            output.delete();
+        }
+    }
+
     public void testConfigurationPersistence() throws Exception {
         Configuration conf = new Configuration();
         conf.setInt("mapred.reduce.tasks", 2);
@@ -3,10 +3,13 @@ package com.thinkaurelius.faunus.mapreduce;
 import com.thinkaurelius.faunus.BaseTest;
 import com.thinkaurelius.faunus.FaunusVertex;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.Mapper;
 import org.apache.hadoop.mapreduce.Reducer;
 import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
 
+import java.io.IOException;
 import java.util.Map;
 
 /**
@@ -31,6 +34,23 @@ public class MapSequenceTest extends BaseTest {
         identicalStructure(results, ExampleGraph.TINKERGRAPH);
     }
 
+    public void testVertexStagesWithReflectiveMapper() throws Exception {
+        Configuration config = new Configuration();
+        config.setStrings(MapSequence.MAP_CLASSES, IdentityMap.Map.class.getName(), PassThroughMap.class.getName(), IdentityMap.Map.class.getName());
+        this.mapReduceDriver.withConfiguration(config);
+        final Map<Long, FaunusVertex> results = runWithGraph(generateGraph(BaseTest.ExampleGraph.TINKERGRAPH, config), mapReduceDriver);
+        assertEquals(results.size(), 6);
+        identicalStructure(results, ExampleGraph.TINKERGRAPH);
+        assertEquals(this.mapReduceDriver.getCounters().findCounter(IdentityMap.Counters.VERTEX_COUNT).getValue(), 12l);
+    }
+
+    public static class PassThroughMap extends Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex> {
+        @Override
+        public void map(final NullWritable key, final FaunusVertex value, final Mapper<NullWritable, FaunusVertex, NullWritable, FaunusVertex>.Context context) throws IOException, InterruptedException {
+            context.write(NullWritable.get(), value);
+        }
+    }
+
     /*public void testMapReduceOneJob() throws Exception {
         Configuration config = new Configuration();
         config.setStrings(MapSequence.MAP_CLASSES, VerticesVerticesMapReduce.Map.class.getName());
@@ -0,0 +1,56 @@
+package com.thinkaurelius.faunus.mapreduce;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Holder;
+import com.thinkaurelius.faunus.mapreduce.filter.PropertyFilterMap;
+import com.thinkaurelius.faunus.mapreduce.transform.VerticesVerticesMapReduce;
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ReduceSequenceTest extends BaseTest {
+
+    MapReduceDriver<NullWritable, FaunusVertex, LongWritable, Holder, Writable, Writable> mapReduceDriver;
+
+    public void setUp() {
+        mapReduceDriver = new MapReduceDriver<NullWritable, FaunusVertex, LongWritable, Holder, Writable, Writable>();
+        mapReduceDriver.setMapper(new VerticesVerticesMapReduce.Map());
+        mapReduceDriver.setReducer(new ReduceSequence.Reduce());
+    }
+
+    public void testOutKnowsHasName() throws Exception {
+        Configuration config = VerticesVerticesMapReduce.createConfiguration(Direction.OUT, "knows");
+        config.setStrings(MapSequence.MAP_CLASSES, VerticesVerticesMapReduce.Map.class.getName());
+        config.set(ReduceSequence.REDUCE_CLASS, VerticesVerticesMapReduce.Reduce.class.getName());
+        config.setStrings(ReduceSequence.MAP_CLASSES, PropertyFilterMap.Map.class.getName());
+        // the reduce-side stage is numbered after the single map-side stage
+        for (final Map.Entry<String, String> entry : PropertyFilterMap.createConfiguration(Vertex.class, "name", Compare.EQUAL, "josh")) {
+            config.set(entry.getKey() + "-1", entry.getValue());
+        }
+        mapReduceDriver.withConfiguration(config);
+
+        Map<Long, FaunusVertex> graph = runWithGraph(startPath(generateGraph(ExampleGraph.TINKERGRAPH, config), Vertex.class), mapReduceDriver);
+        assertEquals(graph.size(), 6);
+        assertEquals(graph.get(1l).pathCount(), 0);
+        assertEquals(graph.get(2l).pathCount(), 0);
+        assertEquals(graph.get(3l).pathCount(), 0);
+        assertEquals(graph.get(4l).pathCount(), 1);
+        assertEquals(graph.get(5l).pathCount(), 0);
+        assertEquals(graph.get(6l).pathCount(), 0);
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.EDGES_TRAVERSED).getValue(), 2);
+        assertEquals(mapReduceDriver.getCounters().findCounter(PropertyFilterMap.Counters.VERTICES_FILTERED).getValue(), 1);
+        identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+    }
+}
@@ -0,0 +1,172 @@
+package com.thinkaurelius.faunus.mapreduce.compute;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusGraph;
+import com.thinkaurelius.faunus.FaunusPipeline;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONUtility;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONInputFormat;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONOutputFormat;
+import com.thinkaurelius.faunus.mapreduce.local.MemoryStore;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class VertexProgramMapReduceTest extends BaseTest {
+
+    private File output;
+
+    public void setUp() {
+        this.output = new File(System.getProperty("java.io.tmpdir"), "faunus-compute-" + System.nanoTime());
+    }
+
+    public void tearDown() {
+        delete(this.output);
+        MemoryStore.clear();
+    }
+
+    private static void delete(final File file) {
+        if (file.isDirectory()) {
+            for (final File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private Map<Long, FaunusVertex> compute(final VertexProgram program, final int maxIterations, final int threads) throws Exception {
+        delete(this.output);
+        final FaunusGraph graph = new FaunusGraph();
+        graph.setGraphInputFormat(GraphSONInputFormat.class);
+        graph.setInputLocation(FaunusGraphSONUtility.class.getResource("graph-example-1.json").getFile());
+        graph.setGraphOutputFormat(GraphSONOutputFormat.class);
+        graph.setSideEffectOutputFormat(TextOutputFormat.class);
+        graph.setOutputLocation(this.output.getAbsolutePath());
+        graph.setOutputLocationOverwrite(true);
+        graph.setLocalExecution(true);
+        graph.setLocalThreads(threads);
+        new FaunusPipeline(graph).V().compute(program, maxIterations).submit();
+
+        // the topology, the supersteps and the job that clears the halted vertices
+        final Map<Long, FaunusVertex> vertices = new HashMap<Long, FaunusVertex>();
+        for (final File file : new File(this.output, Tokens.JOB + "-" + (maxIterations + 1)).listFiles()) {
+            if (file.getName().startsWith(Tokens.GRAPH) || file.getName().startsWith(Tokens.PART)) {
+                for (final FaunusVertex vertex : FaunusGraphSONUtility.fromJSON(new FileInputStream(file))) {
+                    assertNull(vertex.getProperty(VertexProgramMapReduce.HALTED));
+                    vertices.put(vertex.getIdAsLong(), vertex);
+                }
+            }
+        }
+        return vertices;
+    }
+
+    private boolean executed(final int job) {
+        return new File(this.output, Tokens.JOB + "-" + job).exists();
+    }
+
+    public void testConnectedComponents() throws Exception {
+        for (final int threads : new int[]{1, 3}) {
+            final Map<Long, FaunusVertex> graph = compute(new ConnectedComponentsVertexProgram(), 10, threads);
+            assertEquals(graph.size(), 6);
+            for (final FaunusVertex vertex : graph.values()) {
+                assertEquals(((Number) vertex.removeProperty(ConnectedComponentsVertexProgram.COMPONENT)).longValue(), 1l);
+            }
+            identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+            // peter and ripple are two hops from marko and superstep 3 only confirms the components
+            assertTrue(executed(4));
+            assertFalse(executed(5));
+        }
+    }
+
+    public void testPageRank() throws Exception {
+        for (final int threads : new int[]{1, 3}) {
+            final Map<Long, FaunusVertex> graph = compute(new PageRankVertexProgram(0.85d), 2, threads);
+            assertEquals((Double) graph.get(1l).getProperty(PageRankVertexProgram.PAGE_RANK), 0.15d, 0.0001d);
+            assertEquals((Double) graph.get(2l).getProperty(PageRankVertexProgram.PAGE_RANK), 0.15d + (0.85d / 3.0d), 0.0001d);
+            assertEquals((Double) graph.get(3l).getProperty(PageRankVertexProgram.PAGE_RANK), 0.15d + (0.85d * ((1.0d / 3.0d) + 0.5d + 1.0d)), 0.0001d);
+            for (final FaunusVertex vertex : graph.values()) {
+                vertex.removeProperty(PageRankVertexProgram.PAGE_RANK);
+            }
+            identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+        }
+    }
+
+    public void testHaltedVerticesAreSkipped() throws Exception {
+        for (final int threads : new int[]{1, 3}) {
+            final Map<Long, FaunusVertex> graph = compute(new HaltingVertexProgram(), 5, threads);
+            assertEquals(graph.size(), 6);
+            // marko, vadas and lop run for three supersteps, josh is woken up by marko once
+            assertEquals(executions(graph.get(1l)), 3l);
+            assertEquals(executions(graph.get(2l)), 3l);
+            assertEquals(executions(graph.get(3l)), 3l);
+            assertEquals(executions(graph.get(4l)), 2l);
+            assertEquals(executions(graph.get(5l)), 1l);
+            assertEquals(executions(graph.get(6l)), 1l);
+            assertEquals(((Number) graph.get(4l).getProperty(HaltingVertexProgram.RECEIVED)).longValue(), 1l);
+            assertNull(graph.get(5l).getProperty(HaltingVertexProgram.RECEIVED));
+            // every vertex halted in superstep 2 without sending messages
+            assertTrue(executed(3));
+            assertFalse(executed(4));
+            for (final FaunusVertex vertex : graph.values()) {
+                vertex.removeProperty(HaltingVertexProgram.EXECUTIONS);
+                vertex.removeProperty(HaltingVertexProgram.RECEIVED);
+            }
+            identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+        }
+    }
+
+    private static long executions(final FaunusVertex vertex) {
+        return ((Number) vertex.getProperty(HaltingVertexProgram.EXECUTIONS)).longValue();
+    }
+
+    /**
+     * Josh, ripple and peter halt right away, the other vertices halt in superstep 2.
+     * Marko sends a message to josh in superstep 1.
+     */
+    public static class HaltingVertexProgram implements VertexProgram<LongWritable> {
+
+        public static final String EXECUTIONS = "executions";
+        public static final String RECEIVED = "received";
+
+        private final LongWritable longWritable = new LongWritable();
+
+        public void storeState(final Configuration configuration) {
+        }
+
+        public void loadState(final Configuration configuration) {
+        }
+
+        public Class<LongWritable> getMessageClass() {
+            return LongWritable.class;
+        }
+
+        public void execute(final FaunusVertex vertex, final Messenger<LongWritable> messenger, final int superstep) throws IOException {
+            final Long executions = vertex.getProperty(EXECUTIONS);
+            vertex.setProperty(EXECUTIONS, null == executions ? 1l : executions + 1l);
+            long received = 0l;
+            for (final LongWritable message : messenger.receiveMessages()) {
+                assertEquals(message.get(), 1l);
+                received++;
+            }
+            if (received > 0)
+                vertex.setProperty(RECEIVED, received);
+
+            if (vertex.getIdAsLong() == 1l && superstep == 1) {
+                this.longWritable.set(1l);
+                messenger.sendMessage(4l, this.longWritable);
+            }
+            if (vertex.getIdAsLong() > 3l || superstep == 2)
+                messenger.voteToHalt();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.thinkaurelius.faunus.mapreduce.local;
+
+import com.thinkaurelius.faunus.FaunusGraph;
+import com.thinkaurelius.faunus.FaunusPipeline;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.thinkaurelius.faunus.Tokens;
+import com.thinkaurelius.faunus.formats.graphson.FaunusGraphSONUtility;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONInputFormat;
+import com.thinkaurelius.faunus.formats.graphson.GraphSONOutputFormat;
+import com.tinkerpop.blueprints.Direction;
+import junit.framework.TestCase;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class LocalJobRunnerTest extends TestCase {
+
+    private File output;
+
+    public void setUp() {
+        this.output = new File(System.getProperty("java.io.tmpdir"), "faunus-local-" + System.nanoTime());
+    }
+
+    public void tearDown() {
+        delete(this.output);
+        MemoryStore.clear();
+    }
+
+    private static void delete(final File file) {
+        if (file.isDirectory()) {
+            for (final File child : file.listFiles()) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private FaunusGraph createGraph(final int threads) {
+        final FaunusGraph graph = new FaunusGraph();
+        graph.setGraphInputFormat(GraphSONInputFormat.class);
+        graph.setInputLocation(FaunusGraphSONUtility.class.getResource("graph-example-1.json").getFile());
+        graph.setGraphOutputFormat(GraphSONOutputFormat.class);
+        graph.setSideEffectOutputFormat(TextOutputFormat.class);
+        graph.setOutputLocation(this.output.getAbsolutePath());
+        graph.setOutputLocationOverwrite(true);
+        graph.setLocalExecution(true);
+        graph.setLocalThreads(threads);
+        return graph;
+    }
+
+    private Map<Long, FaunusVertex> readGraph(final File job) throws Exception {
+        final Map<Long, FaunusVertex> graph = new HashMap<Long, FaunusVertex>();
+        for (final File file : job.listFiles()) {
+            if (file.getName().startsWith(Tokens.GRAPH) || file.getName().startsWith(Tokens.PART)) {
+                for (final FaunusVertex vertex : FaunusGraphSONUtility.fromJSON(new FileInputStream(file))) {
+                    graph.put(vertex.getIdAsLong(), vertex);
+                }
+            }
+        }
+        return graph;
+    }
+
+    public void testTraversal() throws Exception {
+        for (final int threads : new int[]{1, 4}) {
+            final FaunusPipeline pipe = new FaunusPipeline(this.createGraph(threads));
+            pipe.V().out("created").in("created").submit();
+            int jobs = 0;
+            for (final File job : this.output.listFiles()) {
+                if (job.getName().startsWith(Tokens.JOB))
+                    jobs++;
+            }
+            assertTrue(jobs > 1);
+
+            // the intermediate graphs were handed over in memory
+            for (int i = 0; i < jobs - 1; i++) {
+                assertTrue(readGraph(new File(this.output, Tokens.JOB + "-" + i)).isEmpty());
+            }
+
+            final Map<Long, FaunusVertex> graph = readGraph(new File(this.output, Tokens.JOB + "-" + (jobs - 1)));
+            assertEquals(graph.size(), 6);
+            assertEquals(graph.get(1l).getProperty("name"), "marko");
+            assertEquals(graph.get(4l).getVertexIds(Direction.OUT, "created").length, 2);
+            assertEquals(graph.get(3l).getVertexIds(Direction.IN, "created").length, 3);
+        }
+    }
+
+    public void testConcurrentPropertyKeys() throws Exception {
+        // every map task introduces the same fresh property keys at once
+        final String prefix = "key" + System.nanoTime() + "-";
+        final FaunusPipeline pipe = new FaunusPipeline(this.createGraph(4));
+        pipe.V().sideEffect("{it -> for (int i = 0; i < 2000; i++) { it.setProperty('" + prefix + "' + i, i) }}").submit();
+
+        final Map<Long, FaunusVertex> graph = readGraph(new File(this.output, Tokens.JOB + "-0"));
+        assertEquals(graph.size(), 6);
+        for (final FaunusVertex vertex : graph.values()) {
+            for (int i = 0; i < 2000; i++) {
+                assertEquals(((Number) vertex.getProperty(prefix + i)).intValue(), i);
+            }
+        }
+    }
+}
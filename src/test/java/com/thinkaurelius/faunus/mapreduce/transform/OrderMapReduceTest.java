@@ -0,0 +1,378 @@
+package com.thinkaurelius.faunus.mapreduce.transform;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.pipes.transform.TransformPipe;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+import org.apache.hadoop.mrunit.types.Pair;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class OrderMapReduceTest extends BaseTest {
+
+    MapReduceDriver<NullWritable, FaunusVertex, WritableComparable, Text, Text, WritableComparable> mapReduceDriver;
+
+    public void setUp() {
+        mapReduceDriver = new MapReduceDriver<NullWritable, FaunusVertex, WritableComparable, Text, Text, WritableComparable>();
+        mapReduceDriver.setMapper(new OrderMapReduce.Map());
+        mapReduceDriver.setCombiner(new OrderMapReduce.Combiner());
+        mapReduceDriver.setReducer(new OrderMapReduce.Reduce());
+    }
+
+    public void testVertexOrderName() throws Exception {
+        Configuration config = OrderMapReduce.createConfiguration(Vertex.class, "name", Text.class, "name");
+        mapReduceDriver.withConfiguration(config);
+
+        Map<Long, FaunusVertex> graph = startPath(generateGraph(BaseTest.ExampleGraph.TINKERGRAPH, config), Vertex.class);
+
+        final List<Pair<Text, Text>> results = runWithGraphNoIndex(graph, mapReduceDriver);
+        assertEquals(results.size(), 6);
+        assertEquals(results.get(0).getFirst().toString(), "josh");
+        assertEquals(results.get(1).getFirst().toString(), "lop");
+        assertEquals(results.get(2).getFirst().toString(), "marko");
+        assertEquals(results.get(3).getFirst().toString(), "peter");
+        assertEquals(results.get(4).getFirst().toString(), "ripple");
+        assertEquals(results.get(5).getFirst().toString(), "vadas");
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(OrderMapReduce.Counters.VERTICES_PROCESSED).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(OrderMapReduce.Counters.OUT_EDGES_PROCESSED).getValue(), 0);
+    }
+
+    public void testVertexOrderNameLimit() throws Exception {
+        Configuration config = OrderMapReduce.createConfiguration(Vertex.class, "name", Text.class, "name", TransformPipe.Order.INCR, 2, false);
+        mapReduceDriver.withConfiguration(config);
+
+        Map<Long, FaunusVertex> graph = startPath(generateGraph(BaseTest.ExampleGraph.TINKERGRAPH, config), Vertex.class);
+        graph.get(4l).incrPath(2);
+
+        // josh is emitted once per path and fills the top-2 on its own
+        final List<Pair<Text, Text>> results = runWithGraphNoIndex(graph, mapReduceDriver);
+        assertEquals(results.size(), 2);
+        assertEquals(results.get(0).getFirst().toString(), "josh");
+        assertEquals(results.get(1).getFirst().toString(), "josh");
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(OrderMapReduce.Counters.VERTICES_PROCESSED).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(OrderMapReduce.Counters.OUT_EDGES_PROCESSED).getValue(), 0);
+    }
+
+    public void testVertexOrderNameLimitDecreasing() throws Exception {
+        Configuration config = OrderMapReduce.createConfiguration(Vertex.class, "name", Text.class, "name", TransformPipe.Order.DECR, 3, false);
+        mapReduceDriver.withConfiguration(config);
+
+        Map<Long, FaunusVertex> graph = startPath(generateGraph(BaseTest.ExampleGraph.TINKERGRAPH, config), Vertex.class);
+
+        // the driver sorts increasingly, the mappers only emit the 3 largest names
+        final List<Pair<Text, Text>> results = runWithGraphNoIndex(graph, mapReduceDriver);
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(0).getFirst().toString(), "peter");
+        assertEquals(results.get(1).getFirst().toString(), "ripple");
+        assertEquals(results.get(2).getFirst().toString(), "vadas");
+    }
+
+    public void testRangePartitionerIncreasingLong() {
+        final OrderMapReduce.RangePartitioner partitioner = createPartitioner(LongWritable.class, TransformPipe.Order.INCR, "-10", "0", "10");
+        assertEquals(partitioner.getPartition(new LongWritable(-20), null, 4), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(-10), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(-1), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(0), null, 4), 2);
+        assertEquals(partitioner.getPartition(new LongWritable(9), null, 4), 2);
+        assertEquals(partitioner.getPartition(new LongWritable(10), null, 4), 3);
+        assertEquals(partitioner.getPartition(new LongWritable(Long.MAX_VALUE), null, 4), 3);
+        // the four ranges are spread over two partitions
+        assertEquals(partitioner.getPartition(new LongWritable(-20), null, 2), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(-1), null, 2), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(0), null, 2), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(10), null, 2), 1);
+        assertMonotonic(partitioner, longs(-30, 30, 1), 4);
+        assertMonotonic(partitioner, longs(-30, 30, 1), 3);
+    }
+
+    public void testRangePartitionerDecreasingLong() {
+        final OrderMapReduce.RangePartitioner partitioner = createPartitioner(LongWritable.class, TransformPipe.Order.DECR, "10", "0", "-10");
+        assertEquals(partitioner.getPartition(new LongWritable(20), null, 4), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(10), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(1), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(0), null, 4), 2);
+        assertEquals(partitioner.getPartition(new LongWritable(-9), null, 4), 2);
+        assertEquals(partitioner.getPartition(new LongWritable(-10), null, 4), 3);
+        assertEquals(partitioner.getPartition(new LongWritable(Long.MIN_VALUE), null, 4), 3);
+        assertMonotonic(partitioner, longs(30, -30, -1), 4);
+        assertMonotonic(partitioner, longs(30, -30, -1), 5);
+    }
+
+    public void testRangePartitionerIncreasingText() {
+        final OrderMapReduce.RangePartitioner partitioner = createPartitioner(Text.class, TransformPipe.Order.INCR, "h", "p");
+        assertEquals(partitioner.getPartition(new Text("a"), null, 3), 0);
+        assertEquals(partitioner.getPartition(new Text("h"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("marko"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("peter"), null, 3), 2);
+        assertEquals(partitioner.getPartition(new Text("z"), null, 3), 2);
+        assertMonotonic(partitioner, texts(false), 3);
+        assertMonotonic(partitioner, texts(false), 7);
+    }
+
+    public void testRangePartitionerDecreasingText() {
+        final OrderMapReduce.RangePartitioner partitioner = createPartitioner(Text.class, TransformPipe.Order.DECR, "p", "h");
+        assertEquals(partitioner.getPartition(new Text("z"), null, 3), 0);
+        assertEquals(partitioner.getPartition(new Text("peter"), null, 3), 0);
+        assertEquals(partitioner.getPartition(new Text("p"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("marko"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("h"), null, 3), 2);
+        assertEquals(partitioner.getPartition(new Text("a"), null, 3), 2);
+        assertMonotonic(partitioner, texts(true), 3);
+    }
+
+    public void testRangePartitionerWithoutSplitPoints() {
+        final OrderMapReduce.RangePartitioner partitioner = createPartitioner(LongWritable.class, TransformPipe.Order.INCR);
+        assertEquals(partitioner.getPartition(new LongWritable(Long.MIN_VALUE), null, 4), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(Long.MAX_VALUE), null, 4), 0);
+    }
+
+    public void testSplitPointsIncreasingLong() throws Exception {
+        // the even splits are sampled (20 splits, 10 sampled) and the odd splits would move every split point
+        final List<List<FaunusVertex>> splits = new ArrayList<List<FaunusVertex>>();
+        for (int i = 0; i < 20; i++) {
+            final List<FaunusVertex> split = new ArrayList<FaunusVertex>();
+            for (long age = 0; age < 10; age++) {
+                split.add(createVertex(i * 100 + age, "v", i % 2 == 0 ? age : 1000l, true));
+                // vertices without paths are not sampled
+                split.add(createVertex(i * 100 + 50 + age, "v", -1000l, false));
+            }
+            splits.add(split);
+        }
+        final Job job = createJob(Vertex.class, "age", LongWritable.class, TransformPipe.Order.INCR, splits);
+        OrderMapReduce.setSplitPoints(job, 4);
+
+        assertEquals(job.getPartitionerClass(), OrderMapReduce.RangePartitioner.class);
+        // 100 sorted samples (ten of each age) split at the 25th, 50th and 75th sample
+        assertEquals(job.getConfiguration().getInt(OrderMapReduce.SPLIT_POINTS, -1), 3);
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".0"), "2");
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".1"), "5");
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".2"), "7");
+
+        final OrderMapReduce.RangePartitioner partitioner = new OrderMapReduce.RangePartitioner();
+        partitioner.setConf(job.getConfiguration());
+        assertEquals(partitioner.getPartition(new LongWritable(1), null, 4), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(2), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(5), null, 4), 2);
+        assertEquals(partitioner.getPartition(new LongWritable(9), null, 4), 3);
+        assertMonotonic(partitioner, longs(-1000, 1000, 1), 4);
+    }
+
+    public void testSplitPointsWithFewDistinctKeys() throws Exception {
+        final List<FaunusVertex> split = new ArrayList<FaunusVertex>();
+        for (long i = 0; i < 100; i++) {
+            split.add(createVertex(i, "v", i < 50 ? 1l : 2l, true));
+        }
+        final List<List<FaunusVertex>> splits = new ArrayList<List<FaunusVertex>>();
+        splits.add(split);
+        final Job job = createJob(Vertex.class, "age", LongWritable.class, TransformPipe.Order.INCR, splits);
+        OrderMapReduce.setSplitPoints(job, 4);
+
+        // the third split point is a duplicate of the second
+        assertEquals(job.getConfiguration().getInt(OrderMapReduce.SPLIT_POINTS, -1), 2);
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".0"), "1");
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".1"), "2");
+
+        final OrderMapReduce.RangePartitioner partitioner = new OrderMapReduce.RangePartitioner();
+        partitioner.setConf(job.getConfiguration());
+        assertEquals(partitioner.getPartition(new LongWritable(0), null, 4), 0);
+        assertEquals(partitioner.getPartition(new LongWritable(1), null, 4), 1);
+        assertEquals(partitioner.getPartition(new LongWritable(2), null, 4), 2);
+        assertMonotonic(partitioner, longs(0, 3, 1), 4);
+    }
+
+    public void testSplitPointsDecreasingText() throws Exception {
+        final String[] names = new String[]{"josh", "lop", "marko", "peter", "ripple", "vadas"};
+        final List<FaunusVertex> split = new ArrayList<FaunusVertex>();
+        for (int i = 0; i < names.length; i++) {
+            split.add(createVertex(i, names[i], 0l, true));
+        }
+        final List<List<FaunusVertex>> splits = new ArrayList<List<FaunusVertex>>();
+        splits.add(split);
+        final Job job = createJob(Vertex.class, "name", Text.class, TransformPipe.Order.DECR, splits);
+        OrderMapReduce.setSplitPoints(job, 3);
+
+        // vadas, ripple | peter, marko | lop, josh
+        assertEquals(job.getConfiguration().getInt(OrderMapReduce.SPLIT_POINTS, -1), 2);
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".0"), "peter");
+        assertEquals(job.getConfiguration().get(OrderMapReduce.SPLIT_POINTS + ".1"), "lop");
+
+        final OrderMapReduce.RangePartitioner partitioner = new OrderMapReduce.RangePartitioner();
+        partitioner.setConf(job.getConfiguration());
+        assertEquals(partitioner.getPartition(new Text("vadas"), null, 3), 0);
+        assertEquals(partitioner.getPartition(new Text("ripple"), null, 3), 0);
+        assertEquals(partitioner.getPartition(new Text("peter"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("marko"), null, 3), 1);
+        assertEquals(partitioner.getPartition(new Text("lop"), null, 3), 2);
+        assertEquals(partitioner.getPartition(new Text("josh"), null, 3), 2);
+        assertMonotonic(partitioner, texts(true), 3);
+    }
+
+    private static OrderMapReduce.RangePartitioner createPartitioner(final Class<? extends WritableComparable> type, final TransformPipe.Order order, final String... splitPoints) {
+        final Configuration config = OrderMapReduce.createConfiguration(Vertex.class, "key", type, "key", order, -1, true);
+        config.setInt(OrderMapReduce.SPLIT_POINTS, splitPoints.length);
+        for (int i = 0; i < splitPoints.length; i++) {
+            config.set(OrderMapReduce.SPLIT_POINTS + "." + i, splitPoints[i]);
+        }
+        final OrderMapReduce.RangePartitioner partitioner = new OrderMapReduce.RangePartitioner();
+        partitioner.setConf(config);
+        return partitioner;
+    }
+
+    private static Job createJob(final Class<? extends Element> klass, final String key, final Class<? extends WritableComparable> type, final TransformPipe.Order order, final List<List<FaunusVertex>> splits) throws IOException {
+        SampleInputFormat.splits = splits;
+        final Job job = new Job(OrderMapReduce.createConfiguration(klass, key, type, "name", order, -1, true));
+        job.setInputFormatClass(SampleInputFormat.class);
+        return job;
+    }
+
+    private static FaunusVertex createVertex(final long id, final String name, final long age, final boolean startPath) {
+        final FaunusVertex vertex = new FaunusVertex(id);
+        vertex.setProperty("name", name);
+        vertex.setProperty("age", age);
+        if (startPath)
+            vertex.startPath();
+        return vertex;
+    }
+
+    /**
+     * Assert that the keys (in the order of the job) are sent to non-decreasing partitions.
+     */
+    private static void assertMonotonic(final OrderMapReduce.RangePartitioner partitioner, final List<? extends WritableComparable> keys, final int numPartitions) {
+        int last = 0;
+        for (final WritableComparable key : keys) {
+            final int partition = partitioner.getPartition(key, null, numPartitions);
+            assertTrue(partition >= last);
+            assertTrue(partition < numPartitions);
+            last = partition;
+        }
+    }
+
+    private static List<LongWritable> longs(final long from, final long to, final long step) {
+        final List<LongWritable> longs = new ArrayList<LongWritable>();
+        for (long i = from; step > 0 ? i <= to : i >= to; i = i + step) {
+            longs.add(new LongWritable(i));
+        }
+        return longs;
+    }
+
+    private static List<Text> texts(final boolean decreasing) {
+        final List<Text> texts = new ArrayList<Text>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            texts.add(new Text(String.valueOf(c)));
+            texts.add(new Text(c + "zz"));
+        }
+        if (decreasing)
+            Collections.reverse(texts);
+        return texts;
+    }
+
+    /**
+     * Reads the vertices of the splits that are set by the test.
+     */
+    public static class SampleInputFormat extends InputFormat<NullWritable, FaunusVertex> {
+
+        private static List<List<FaunusVertex>> splits;
+
+        @Override
+        public List<InputSplit> getSplits(final JobContext context) {
+            final List<InputSplit> inputSplits = new ArrayList<InputSplit>();
+            for (int i = 0; i < splits.size(); i++) {
+                inputSplits.add(new SampleSplit(i));
+            }
+            return inputSplits;
+        }
+
+        @Override
+        public RecordReader<NullWritable, FaunusVertex> createRecordReader(final InputSplit split, final TaskAttemptContext context) {
+            final List<FaunusVertex> vertices = splits.get(((SampleSplit) split).index);
+            return new RecordReader<NullWritable, FaunusVertex>() {
+                private int position = -1;
+
+                @Override
+                public void initialize(final InputSplit split, final TaskAttemptContext context) {
+                }
+
+                @Override
+                public boolean nextKeyValue() {
+                    return ++this.position < vertices.size();
+                }
+
+                @Override
+                public NullWritable getCurrentKey() {
+                    return NullWritable.get();
+                }
+
+                @Override
+                public FaunusVertex getCurrentValue() {
+                    return vertices.get(this.position);
+                }
+
+                @Override
+                public float getProgress() {
+                    return (float) this.position / vertices.size();
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+
+    public static class SampleSplit extends InputSplit implements Writable {
+
+        private int index;
+
+        public SampleSplit() {
+        }
+
+        public SampleSplit(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public long getLength() {
+            return 0;
+        }
+
+        @Override
+        public String[] getLocations() {
+            return new String[0];
+        }
+
+        @Override
+        public void write(final DataOutput out) throws IOException {
+            out.writeInt(this.index);
+        }
+
+        @Override
+        public void readFields(final DataInput in) throws IOException {
+            this.index = in.readInt();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.thinkaurelius.faunus.mapreduce.transform;
 import com.thinkaurelius.faunus.BaseTest;
 import com.thinkaurelius.faunus.FaunusVertex;
 import com.thinkaurelius.faunus.Holder;
+import com.thinkaurelius.faunus.Tokens;
 import com.thinkaurelius.faunus.mapreduce.FaunusCompiler;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Vertex;
@@ -173,4 +174,48 @@ public class VerticesVerticesMapReduceTest extends BaseTest {
         assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.EDGES_TRAVERSED).getValue(), 1);
         identicalStructure(graph, ExampleGraph.TINKERGRAPH);
     }
+
+    public void testInAllTraversalWithCombiner() throws Exception {
+        Configuration config = VerticesVerticesMapReduce.createConfiguration(Direction.IN);
+        mapReduceDriver.withConfiguration(config);
+        mapReduceDriver.setCombiner(new VerticesVerticesMapReduce.Combiner());
+
+        Map<Long, FaunusVertex> graph = runWithGraph(startPath(generateGraph(ExampleGraph.TINKERGRAPH, config), Vertex.class), mapReduceDriver);
+        assertEquals(graph.size(), 6);
+        assertEquals(graph.get(1l).pathCount(), 3);
+        assertEquals(graph.get(2l).pathCount(), 0);
+        assertEquals(graph.get(3l).pathCount(), 0);
+        assertEquals(graph.get(4l).pathCount(), 2);
+        assertEquals(graph.get(5l).pathCount(), 0);
+        assertEquals(graph.get(6l).pathCount(), 1);
+
+        // 6 traversed edges are aggregated in the map to one path record per target vertex
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.EDGES_TRAVERSED).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.PATH_RECORDS_EMITTED).getValue(), 3);
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.PATH_RECORDS_COMBINED).getValue(), 0);
+        identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+    }
+
+    public void testOutAllTraversalWithSpillOver() throws Exception {
+        Configuration config = VerticesVerticesMapReduce.createConfiguration(Direction.OUT);
+        config.setInt(Tokens.FAUNUS_PIPELINE_MAP_SPILL_OVER, 0);
+        mapReduceDriver.withConfiguration(config);
+        mapReduceDriver.setCombiner(new VerticesVerticesMapReduce.Combiner());
+
+        Map<Long, FaunusVertex> graph = runWithGraph(startPath(generateGraph(ExampleGraph.TINKERGRAPH, config), Vertex.class), mapReduceDriver);
+        assertEquals(graph.size(), 6);
+        assertEquals(graph.get(1l).pathCount(), 0);
+        assertEquals(graph.get(2l).pathCount(), 1);
+        assertEquals(graph.get(3l).pathCount(), 3);
+        assertEquals(graph.get(4l).pathCount(), 1);
+        assertEquals(graph.get(5l).pathCount(), 1);
+        assertEquals(graph.get(6l).pathCount(), 0);
+
+        // every vertex discharges the map so the combiner merges the path records of vertex 3
+        final long emitted = mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.PATH_RECORDS_EMITTED).getValue();
+        final long combined = mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.PATH_RECORDS_COMBINED).getValue();
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesMapReduce.Counters.EDGES_TRAVERSED).getValue(), 6);
+        assertEquals(emitted - combined, 4);
+        identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+    }
 }
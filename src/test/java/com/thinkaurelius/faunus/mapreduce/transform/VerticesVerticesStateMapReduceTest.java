@@ -0,0 +1,123 @@
+package com.thinkaurelius.faunus.mapreduce.transform;
+
+import com.thinkaurelius.faunus.BaseTest;
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
+import org.apache.hadoop.mrunit.types.Pair;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class VerticesVerticesStateMapReduceTest extends BaseTest {
+
+    MapReduceDriver mapReduceDriver;
+
+    public void setUp() {
+        mapReduceDriver = new MapReduceDriver();
+        mapReduceDriver.setMapper(new VerticesVerticesStateMapReduce.Map());
+        mapReduceDriver.setCombiner(new VerticesVerticesStateMapReduce.Combiner());
+        mapReduceDriver.setReducer(new VerticesVerticesStateMapReduce.Reduce());
+    }
+
+    public void testInAllTraversalFromTopology() throws Exception {
+        Configuration config = VerticesVerticesStateMapReduce.createConfiguration(Direction.IN);
+        mapReduceDriver.withConfiguration(config);
+
+        for (final FaunusVertex vertex : startPath(generateGraph(ExampleGraph.TINKERGRAPH, config), Vertex.class).values()) {
+            mapReduceDriver.withInput(new LongWritable(vertex.getIdAsLong()), vertex);
+        }
+        final Map<Long, Long> state = runState(mapReduceDriver);
+        assertEquals(state.size(), 3);
+        assertEquals(state.get(1l).longValue(), 3l);
+        assertEquals(state.get(4l).longValue(), 2l);
+        assertEquals(state.get(6l).longValue(), 1l);
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesStateMapReduce.Counters.EDGES_TRAVERSED).getValue(), 6);
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesStateMapReduce.Counters.PATH_RECORDS_EMITTED).getValue(), 3);
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesStateMapReduce.Counters.TOPOLOGY_LOOKUPS).getValue(), 0);
+    }
+
+    public void testOutCreatedTraversalFromState() throws Exception {
+        Configuration config = VerticesVerticesStateMapReduce.createConfiguration(Direction.OUT, "created");
+        final File topology = new File(computeTestDataRoot(), "topology");
+        FileUtil.fullyDelete(topology);
+        final FileSystem local = FileSystem.getLocal(config);
+        final MapFile.Writer writer = new MapFile.Writer(config, local, new File(topology, "part-r-00000").getAbsolutePath(), LongWritable.class, FaunusVertex.class);
+        for (final FaunusVertex vertex : new TreeMap<Long, FaunusVertex>(generateGraph(ExampleGraph.TINKERGRAPH, config)).values()) {
+            writer.append(new LongWritable(vertex.getIdAsLong()), vertex);
+        }
+        writer.close();
+        config.set(VerticesVerticesStateMapReduce.TOPOLOGY_LOCATION, topology.getAbsolutePath());
+        mapReduceDriver.withConfiguration(config);
+
+        // the path counts of the previous step
+        mapReduceDriver.withInput(new LongWritable(1l), new LongWritable(2l));
+        mapReduceDriver.withInput(new LongWritable(4l), new LongWritable(1l));
+        mapReduceDriver.withInput(new LongWritable(5l), new LongWritable(7l));
+        final Map<Long, Long> state = runState(mapReduceDriver);
+        assertEquals(state.size(), 2);
+        assertEquals(state.get(3l).longValue(), 3l);
+        assertEquals(state.get(5l).longValue(), 1l);
+
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesStateMapReduce.Counters.EDGES_TRAVERSED).getValue(), 3);
+        assertEquals(mapReduceDriver.getCounters().findCounter(VerticesVerticesStateMapReduce.Counters.TOPOLOGY_LOOKUPS).getValue(), 3);
+        FileUtil.fullyDelete(topology);
+    }
+
+    public void testStateJoin() throws Exception {
+        final Configuration config = new Configuration();
+        final File state = new File(computeTestDataRoot(), "state");
+        FileUtil.fullyDelete(state);
+        final FileSystem local = FileSystem.getLocal(config);
+        // two partitions as written by the HashPartitioner: even ids and odd ids
+        MapFile.Writer writer = new MapFile.Writer(config, local, new File(state, "part-r-00000").getAbsolutePath(), LongWritable.class, LongWritable.class);
+        writer.append(new LongWritable(4l), new LongWritable(2l));
+        writer.append(new LongWritable(6l), new LongWritable(1l));
+        writer.close();
+        writer = new MapFile.Writer(config, local, new File(state, "part-r-00001").getAbsolutePath(), LongWritable.class, LongWritable.class);
+        writer.append(new LongWritable(1l), new LongWritable(3l));
+        writer.close();
+
+        final MapReduceDriver<NullWritable, FaunusVertex, NullWritable, FaunusVertex, NullWritable, FaunusVertex> joinDriver = new MapReduceDriver<NullWritable, FaunusVertex, NullWritable, FaunusVertex, NullWritable, FaunusVertex>();
+        joinDriver.setMapper(new StateJoinMap.Map());
+        joinDriver.setReducer(new org.apache.hadoop.mapreduce.Reducer<NullWritable, FaunusVertex, NullWritable, FaunusVertex>());
+        config.set(StateJoinMap.STATE_LOCATION, state.getAbsolutePath());
+        joinDriver.withConfiguration(config);
+
+        final Map<Long, FaunusVertex> graph = runWithGraph(startPath(generateGraph(ExampleGraph.TINKERGRAPH, config), Vertex.class), joinDriver);
+        assertEquals(graph.size(), 6);
+        assertEquals(graph.get(1l).pathCount(), 3);
+        assertEquals(graph.get(2l).pathCount(), 0);
+        assertEquals(graph.get(3l).pathCount(), 0);
+        assertEquals(graph.get(4l).pathCount(), 2);
+        assertEquals(graph.get(5l).pathCount(), 0);
+        assertEquals(graph.get(6l).pathCount(), 1);
+
+        assertEquals(joinDriver.getCounters().findCounter(StateJoinMap.Counters.VERTICES_JOINED).getValue(), 3);
+        assertEquals(joinDriver.getCounters().findCounter(StateJoinMap.Counters.PATHS_JOINED).getValue(), 6);
+        identicalStructure(graph, ExampleGraph.TINKERGRAPH);
+        FileUtil.fullyDelete(state);
+    }
+
+    private static Map<Long, Long> runState(final MapReduceDriver driver) throws Exception {
+        final Map<Long, Long> state = new HashMap<Long, Long>();
+        for (final Object object : driver.run()) {
+            final Pair<LongWritable, LongWritable> pair = (Pair<LongWritable, LongWritable>) object;
+            state.put(pair.getFirst().get(), pair.getSecond().get());
+        }
+        return state;
+    }
+}
@@ -0,0 +1,94 @@
+package com.thinkaurelius.faunus.mapreduce.util;
+
+import com.thinkaurelius.faunus.FaunusVertex;
+import com.tinkerpop.pipes.PipeFunction;
+import junit.framework.TestCase;
+import org.apache.hadoop.conf.Configuration;
+
+/**
+ * @author Marko A. Rodriguez (http://markorodriguez.com)
+ */
+public class ClosureCompilerTest extends TestCase {
+
+    private static final String KEY = "closure";
+
+    private static FaunusVertex createVertex() {
+        final FaunusVertex vertex = new FaunusVertex(1l);
+        vertex.setProperty("name", "marko");
+        return vertex;
+    }
+
+    public void testCompiledImplicitParameter() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "{it.getProperty('name') == 'marko'}");
+        ClosureCompiler.compileClosure(configuration, KEY);
+        assertNotNull(configuration.get(KEY + ClosureCompiler.COMPILED));
+
+        final PipeFunction function = ClosureCompiler.getClosure(configuration, KEY);
+        assertEquals(function.compute(createVertex()), true);
+    }
+
+    public void testCompiledExplicitParameter() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "{ v -> v.getProperty('name').length() }");
+        ClosureCompiler.compileClosure(configuration, KEY);
+        assertNotNull(configuration.get(KEY + ClosureCompiler.COMPILED));
+
+        final PipeFunction function = ClosureCompiler.getClosure(configuration, KEY);
+        assertEquals(function.compute(createVertex()), 5);
+    }
+
+    public void testCompiledAsCall() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "{Vertex v -> v.getProperty('name') + '!'}");
+        ClosureCompiler.compileClosure(configuration, KEY);
+        assertNotNull(configuration.get(KEY + ClosureCompiler.COMPILED));
+
+        final PipeFunction function = ClosureCompiler.getClosure(configuration, KEY);
+        assertEquals(function.compute(createVertex()), "marko!");
+    }
+
+    public void testNestedClosures() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "{[1, 2, 3].collect{x -> x * 2}.sum() + it.getProperty('name').length()}");
+        ClosureCompiler.compileClosure(configuration, KEY);
+        // the nested closure is a class of its own
+        assertTrue(configuration.getStrings(KEY + ClosureCompiler.COMPILED).length > 1);
+        assertEquals(ClosureCompiler.getClosure(configuration, KEY).compute(createVertex()), 17);
+    }
+
+    public void testUncompiledClosure() throws Exception {
+        final Configuration compiled = new EmptyConfiguration();
+        compiled.set(KEY, "{it.getProperty('name')}");
+        ClosureCompiler.compileClosure(compiled, KEY);
+
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "{it.getProperty('name')}");
+        final PipeFunction function = ClosureCompiler.getClosure(configuration, KEY);
+        assertEquals(function.compute(createVertex()), "marko");
+        // the class of a closure is defined once per JVM
+        assertEquals(function.getClass(), ClosureCompiler.getClosure(compiled, KEY).getClass());
+
+        assertNull(ClosureCompiler.getClosure(configuration, "no-closure"));
+    }
+
+    public void testScript() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "v.getProperty('name').toUpperCase()");
+        ClosureCompiler.compileScript(configuration, KEY, "v");
+        assertEquals(ClosureCompiler.getScript(configuration, KEY, "v", "v").compute(createVertex()), "MARKO");
+        assertEquals(ClosureCompiler.getScript(new EmptyConfiguration(), KEY, "v", "v.getProperty('name')").compute(createVertex()), "marko");
+    }
+
+    public void testScriptCompilationError() throws Exception {
+        final Configuration configuration = new EmptyConfiguration();
+        configuration.set(KEY, "v.getProperty('name'");
+        try {
+            ClosureCompiler.compileScript(configuration, KEY, "v");
+            fail("A script that does not compile must fail");
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains(KEY));
+        }
+        assertNull(configuration.get(KEY + ClosureCompiler.COMPILED));
+    }
+}
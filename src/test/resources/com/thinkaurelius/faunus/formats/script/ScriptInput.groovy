@@ -10,4 +10,14 @@ def boolean read(FaunusVertex v, String line) {
         }
     }
     return true;
-}
\ No newline at end of file
+}
+
+def List<FaunusVertex> readBatch(List<String> lines) {
+    def vertices = []
+    lines.each {
+        def v = new FaunusVertex();
+        if (read(v, it))
+            vertices << v;
+    }
+    return vertices;
+}